@@ -0,0 +1,317 @@
+package com.duck.dataobject.processor;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.type.WildcardType;
+import javax.tools.Diagnostic;
+import javax.tools.JavaFileObject;
+
+/**
+ * Generates a {@code DataMapper} for each class annotated with {@code com.duck.dataobject.binder.DataModel}, which
+ * reads and writes the fields of the class with plain code instead of reflection. The annotations are matched by name,
+ * so neither the DataObject library nor Gson has to be on the processor path.
+ */
+@SupportedAnnotationTypes(DataModelProcessor.DATA_MODEL)
+public class DataModelProcessor extends AbstractProcessor {
+    static final String DATA_MODEL = "com.duck.dataobject.binder.DataModel";
+    private static final String SERIALIZED_NAME = "com.google.gson.annotations.SerializedName";
+    private static final Set<String> LISTS = new HashSet<>();
+
+    static {
+        LISTS.add("java.util.List");
+        LISTS.add("java.util.ArrayList");
+        LISTS.add("java.util.Collection");
+    }
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        for (TypeElement annotation : annotations) {
+            for (Element element : roundEnv.getElementsAnnotatedWith(annotation)) {
+                if (element.getKind() != ElementKind.CLASS) {
+                    error(element, "@DataModel can only be used on classes");
+                    continue;
+                }
+                TypeElement model = (TypeElement) element;
+                List<MapperWriter.Property> properties = readModel(model);
+                if (properties != null) {
+                    write(model, properties);
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Checks the given class and reads its fields, in the order Gson writes them.
+     *
+     * @return The properties of the class, or {@code null} if it can't be mapped, the reasons are reported as errors.
+     */
+    private List<MapperWriter.Property> readModel(TypeElement model) {
+        boolean valid = true;
+        if (model.getModifiers().contains(Modifier.ABSTRACT)) {
+            error(model, "@DataModel classes must not be abstract");
+            valid = false;
+        }
+        if (!model.getTypeParameters().isEmpty()) {
+            error(model, "@DataModel classes must not have type parameters");
+            valid = false;
+        }
+        for (Element current = model; current instanceof TypeElement; current = current.getEnclosingElement()) {
+            Set<Modifier> modifiers = current.getModifiers();
+            if (modifiers.contains(Modifier.PRIVATE)) {
+                error(model, "@DataModel classes and the classes they are nested in must not be private");
+                valid = false;
+            }
+            if (current.getEnclosingElement() instanceof TypeElement && !modifiers.contains(Modifier.STATIC)) {
+                error(model, "Nested @DataModel classes must be static");
+                valid = false;
+            }
+        }
+        if (!hasNoArgsConstructor(model)) {
+            error(model, "@DataModel classes need a no-args constructor that is not private");
+            valid = false;
+        }
+        String packageName = packageOf(model);
+        List<MapperWriter.Property> properties = new ArrayList<>();
+        Set<String> names = new HashSet<>();
+        TypeElement current = model;
+        while (current != null && !current.getQualifiedName().contentEquals("java.lang.Object")) {
+            for (Element member : current.getEnclosedElements()) {
+                if (member.getKind() != ElementKind.FIELD) {
+                    continue;
+                }
+                VariableElement field = (VariableElement) member;
+                Set<Modifier> modifiers = field.getModifiers();
+                if (modifiers.contains(Modifier.STATIC) || modifiers.contains(Modifier.TRANSIENT)) {
+                    continue;
+                }
+                if (modifiers.contains(Modifier.PRIVATE) || modifiers.contains(Modifier.FINAL)) {
+                    error(field, "Fields of @DataModel classes must not be private or final");
+                    valid = false;
+                    continue;
+                }
+                if (!modifiers.contains(Modifier.PUBLIC) && !packageOf(current).equals(packageName)) {
+                    error(field, "Fields of @DataModel classes that are inherited from another package must be public");
+                    valid = false;
+                    continue;
+                }
+                MapperWriter.Property property = readProperty(field);
+                if (property == null) {
+                    valid = false;
+                    continue;
+                }
+                for (String name : property.names) {
+                    if (!names.add(name)) {
+                        error(field, "Another field of " + model.getSimpleName() + " is also named \"" + name + "\"");
+                        valid = false;
+                    }
+                }
+                properties.add(property);
+            }
+            current = superclassOf(current);
+        }
+        return valid ? properties : null;
+    }
+
+    private MapperWriter.Property readProperty(VariableElement field) {
+        TypeMirror type = field.asType();
+        boolean list = false;
+        if (type.getKind() == TypeKind.DECLARED) {
+            DeclaredType declared = (DeclaredType) type;
+            String rawName = ((TypeElement) declared.asElement()).getQualifiedName().toString();
+            if (LISTS.contains(rawName)) {
+                if (declared.getTypeArguments().size() != 1) {
+                    error(field, "List fields of @DataModel classes need an element type");
+                    return null;
+                }
+                type = declared.getTypeArguments().get(0);
+                if (type.getKind() == TypeKind.WILDCARD) {
+                    type = ((WildcardType) type).getExtendsBound();
+                }
+                list = true;
+            }
+        }
+        MapperWriter.ValueType valueType = type != null ? readValueType(type) : null;
+        if (valueType == null || list && valueType.primitive) {
+            error(field, "Fields of @DataModel classes must be a String, a primitive or its box, an enum, a @DataModel "
+                    + "class or a List of those, but " + field.getSimpleName() + " is a " + field.asType());
+            return null;
+        }
+        List<String> names = new ArrayList<>();
+        AnnotationMirror serializedName = annotation(field, SERIALIZED_NAME);
+        if (serializedName != null) {
+            names.add(stringValue(serializedName, "value"));
+            names.addAll(stringValues(serializedName, "alternate"));
+        } else {
+            names.add(field.getSimpleName().toString());
+        }
+        return new MapperWriter.Property(field.getSimpleName().toString(), names, valueType, list);
+    }
+
+    private MapperWriter.ValueType readValueType(TypeMirror type) {
+        switch (type.getKind()) {
+            case INT:
+                return new MapperWriter.ValueType(MapperWriter.Kind.INT, "int", true, null, null);
+            case LONG:
+                return new MapperWriter.ValueType(MapperWriter.Kind.LONG, "long", true, null, null);
+            case DOUBLE:
+                return new MapperWriter.ValueType(MapperWriter.Kind.DOUBLE, "double", true, null, null);
+            case FLOAT:
+                return new MapperWriter.ValueType(MapperWriter.Kind.FLOAT, "float", true, null, null);
+            case BOOLEAN:
+                return new MapperWriter.ValueType(MapperWriter.Kind.BOOLEAN, "boolean", true, null, null);
+            case SHORT:
+                return new MapperWriter.ValueType(MapperWriter.Kind.SHORT, "short", true, null, null);
+            case BYTE:
+                return new MapperWriter.ValueType(MapperWriter.Kind.BYTE, "byte", true, null, null);
+            case CHAR:
+                return new MapperWriter.ValueType(MapperWriter.Kind.CHAR, "char", true, null, null);
+            case DECLARED:
+                break;
+            default:
+                return null;
+        }
+        TypeElement element = (TypeElement) ((DeclaredType) type).asElement();
+        String name = element.getQualifiedName().toString();
+        MapperWriter.Kind kind = MapperWriter.Kind.ofBox(name);
+        if (name.equals("java.lang.String")) {
+            return new MapperWriter.ValueType(MapperWriter.Kind.STRING, name, false, null, null);
+        } else if (kind != null) {
+            return new MapperWriter.ValueType(kind, name, false, null, null);
+        } else if (element.getKind() == ElementKind.ENUM) {
+            Map<String, List<String>> constants = new LinkedHashMap<>();
+            for (Element member : element.getEnclosedElements()) {
+                if (member.getKind() != ElementKind.ENUM_CONSTANT) {
+                    continue;
+                }
+                List<String> names = new ArrayList<>();
+                AnnotationMirror serializedName = annotation(member, SERIALIZED_NAME);
+                if (serializedName != null) {
+                    names.add(stringValue(serializedName, "value"));
+                    names.addAll(stringValues(serializedName, "alternate"));
+                } else {
+                    names.add(member.getSimpleName().toString());
+                }
+                constants.put(member.getSimpleName().toString(), names);
+            }
+            return new MapperWriter.ValueType(MapperWriter.Kind.ENUM, name, false, constants, null);
+        } else if (annotation(element, DATA_MODEL) != null) {
+            return new MapperWriter.ValueType(MapperWriter.Kind.MODEL, name, false, null, mapperOf(element));
+        }
+        return null;
+    }
+
+    private void write(TypeElement model, List<MapperWriter.Property> properties) {
+        String packageName = packageOf(model);
+        String mapperName = MapperWriter.mapperName(model.getQualifiedName().toString(), packageName);
+        String qualifiedName = mapperOf(model);
+        try {
+            JavaFileObject file = processingEnv.getFiler().createSourceFile(qualifiedName, model);
+            try (Writer out = file.openWriter()) {
+                new MapperWriter(packageName, mapperName, model.getQualifiedName().toString(), properties).write(out);
+            }
+        } catch (IOException e) {
+            error(model, "Writing " + qualifiedName + " failed: " + e.getMessage());
+        }
+    }
+
+    /**
+     * @return The qualified name of the mapper generated for the given model class.
+     */
+    private static String mapperOf(TypeElement model) {
+        String packageName = packageOf(model);
+        String mapperName = MapperWriter.mapperName(model.getQualifiedName().toString(), packageName);
+        return packageName.isEmpty() ? mapperName : packageName + "." + mapperName;
+    }
+
+    private static boolean hasNoArgsConstructor(TypeElement model) {
+        for (Element member : model.getEnclosedElements()) {
+            if (member.getKind() == ElementKind.CONSTRUCTOR
+                    && ((ExecutableElement) member).getParameters().isEmpty()
+                    && !member.getModifiers().contains(Modifier.PRIVATE)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static TypeElement superclassOf(TypeElement type) {
+        TypeMirror superclass = type.getSuperclass();
+        if (superclass.getKind() != TypeKind.DECLARED) {
+            return null;
+        }
+        return (TypeElement) ((DeclaredType) superclass).asElement();
+    }
+
+    private static String packageOf(Element element) {
+        while (!(element instanceof PackageElement)) {
+            element = element.getEnclosingElement();
+        }
+        return ((PackageElement) element).getQualifiedName().toString();
+    }
+
+    private static AnnotationMirror annotation(Element element, String name) {
+        for (AnnotationMirror mirror : element.getAnnotationMirrors()) {
+            TypeElement type = (TypeElement) mirror.getAnnotationType().asElement();
+            if (type.getQualifiedName().contentEquals(name)) {
+                return mirror;
+            }
+        }
+        return null;
+    }
+
+    private static String stringValue(AnnotationMirror mirror, String name) {
+        for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> entry
+                : mirror.getElementValues().entrySet()) {
+            if (entry.getKey().getSimpleName().contentEquals(name)) {
+                return (String) entry.getValue().getValue();
+            }
+        }
+        return null;
+    }
+
+    private static List<String> stringValues(AnnotationMirror mirror, String name) {
+        List<String> values = new ArrayList<>();
+        for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> entry
+                : mirror.getElementValues().entrySet()) {
+            if (entry.getKey().getSimpleName().contentEquals(name)) {
+                for (Object value : (List<?>) entry.getValue().getValue()) {
+                    values.add((String) ((AnnotationValue) value).getValue());
+                }
+            }
+        }
+        return values;
+    }
+
+    private void error(Element element, String message) {
+        processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, message, element);
+    }
+}
@@ -0,0 +1,665 @@
+package com.duck.dataobject.processor;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes the source of the {@code DataMapper} of one model class. Each field is read and written by its own lines of
+ * code, using the helpers of {@code DataMapper} for the conversions from strings and for writing JSON and XML.
+ */
+final class MapperWriter {
+    private static final String INDENT = "    ";
+
+    /**
+     * The kinds of value a field or list item can hold.
+     */
+    enum Kind {
+        STRING, INT, LONG, DOUBLE, FLOAT, BOOLEAN, SHORT, BYTE, CHAR, ENUM, MODEL;
+
+        /**
+         * @return The kind of the given box type, or {@code null}.
+         */
+        static Kind ofBox(String name) {
+            switch (name) {
+                case "java.lang.Integer":
+                    return INT;
+                case "java.lang.Long":
+                    return LONG;
+                case "java.lang.Double":
+                    return DOUBLE;
+                case "java.lang.Float":
+                    return FLOAT;
+                case "java.lang.Boolean":
+                    return BOOLEAN;
+                case "java.lang.Short":
+                    return SHORT;
+                case "java.lang.Byte":
+                    return BYTE;
+                case "java.lang.Character":
+                    return CHAR;
+                default:
+                    return null;
+            }
+        }
+    }
+
+    /**
+     * The type of a field or list item.
+     */
+    static final class ValueType {
+        final Kind kind;
+        //the name used in the source, the canonical name of a class
+        final String name;
+        final boolean primitive;
+        //the names of each constant of an enum, by the name of the constant
+        final Map<String, List<String>> constants;
+        //the qualified name of the mapper of a model class
+        final String mapper;
+
+        ValueType(Kind kind, String name, boolean primitive, Map<String, List<String>> constants, String mapper) {
+            this.kind = kind;
+            this.name = name;
+            this.primitive = primitive;
+            this.constants = constants;
+            this.mapper = mapper;
+        }
+    }
+
+    /**
+     * A field of the model class.
+     */
+    static final class Property {
+        final String field;
+        //the name the field is written with, followed by its alternate names
+        final List<String> names;
+        final ValueType type;
+        final boolean list;
+
+        Property(String field, List<String> names, ValueType type, boolean list) {
+            this.field = field;
+            this.names = names;
+            this.type = type;
+            this.list = list;
+        }
+    }
+
+    private final String packageName;
+    private final String mapperName;
+    private final String modelName;
+    private final List<Property> properties;
+    //the names of the methods that read each enum, by the name of the enum
+    private final Map<String, String> enumReaders = new LinkedHashMap<>();
+    private final Map<String, ValueType> enums = new HashMap<>();
+    private final StringBuilder out = new StringBuilder();
+    private int indent = 0;
+
+    MapperWriter(String packageName, String mapperName, String modelName, List<Property> properties) {
+        this.packageName = packageName;
+        this.mapperName = mapperName;
+        this.modelName = modelName;
+        this.properties = properties;
+        for (Property property : properties) {
+            ValueType type = property.type;
+            if (type.kind == Kind.ENUM && !enumReaders.containsKey(type.name)) {
+                String simpleName = type.name.substring(type.name.lastIndexOf('.') + 1);
+                String reader = "valueOf" + simpleName;
+                for (int i = 2; enumReaders.containsValue(reader); i++) {
+                    reader = "valueOf" + simpleName + i;
+                }
+                enumReaders.put(type.name, reader);
+                enums.put(type.name, type);
+            }
+        }
+    }
+
+    /**
+     * Gives the simple name of the mapper of a model class, {@code Outer_Item_DataMapper} for {@code Outer.Item}.
+     */
+    static String mapperName(String qualifiedName, String packageName) {
+        String name = packageName.isEmpty() ? qualifiedName : qualifiedName.substring(packageName.length() + 1);
+        return name.replace('.', '_') + "_DataMapper";
+    }
+
+    void write(Writer writer) throws IOException {
+        line("// Generated by the DataModelProcessor from " + modelName + ", do not edit.");
+        if (!packageName.isEmpty()) {
+            line("package " + packageName + ";");
+        }
+        line("");
+        line("import com.duck.dataobject.DataObject;");
+        line("import com.duck.dataobject.binder.DataMapper;");
+        line("import com.duck.dataobject.node.DataElement;");
+        line("import com.duck.dataobject.node.XMLAttribute;");
+        line("import com.duck.dataobject.serializer.DataSink;");
+        line("import com.google.gson.stream.JsonReader;");
+        line("");
+        line("import org.xmlpull.v1.XmlPullParser;");
+        line("import org.xmlpull.v1.XmlPullParserException;");
+        line("");
+        line("import java.io.IOException;");
+        line("import java.util.ArrayList;");
+        line("import java.util.List;");
+        line("");
+        open("public final class " + mapperName + " extends DataMapper<" + modelName + ">");
+        line("public static final " + mapperName + " INSTANCE = new " + mapperName + "();");
+        line("");
+        open("private " + mapperName + "()");
+        close();
+        writeRead();
+        writeWrite();
+        writeWriteJSON();
+        writeWriteXML();
+        writeReadJSON();
+        writeReadXML();
+        for (Map.Entry<String, String> entry : enumReaders.entrySet()) {
+            writeEnum(enums.get(entry.getKey()), entry.getValue());
+        }
+        close();
+        writer.write(out.toString());
+    }
+
+    private void writeRead() {
+        line("");
+        line("@Override");
+        open("public " + modelName + " read(DataObject data)");
+        line(modelName + " object = new " + modelName + "();");
+        line("DataElement element;");
+        line("List<DataElement> elements;");
+        for (Property property : properties) {
+            String target = "object." + property.field;
+            if (property.list) {
+                StringBuilder condition = new StringBuilder();
+                for (String name : property.names) {
+                    if (condition.length() > 0) {
+                        condition.append(" || ");
+                    }
+                    condition.append("(elements = data.getList(").append(literal(name))
+                            .append(", (XMLAttribute[]) null)) != null && !elements.isEmpty()");
+                }
+                open("if (" + condition + ")");
+                line("ArrayList<" + property.type.name + "> list = new ArrayList<>(elements.size());");
+                open("for (int i = 0; i < elements.size(); i++)");
+                line("element = elements.get(i);");
+                line("list.add(" + itemFromElement(property.type) + ");");
+                close();
+                line(target + " = list;");
+                close();
+                continue;
+            }
+            StringBuilder condition = new StringBuilder();
+            for (String name : property.names) {
+                if (condition.length() > 0) {
+                    condition.append(" || ");
+                }
+                condition.append("(element = data.get(").append(literal(name)).append(")) != null");
+            }
+            if (property.type.kind == Kind.MODEL) {
+                if (property.names.size() > 1) {
+                    condition.insert(0, '(').append(')');
+                }
+                open("if (" + condition + " && element.isObject())");
+                line(target + " = " + mapperOf(property.type) + ".read((DataObject) element.value);");
+            } else {
+                open("if (" + condition + ")");
+                line(target + " = " + valueFromElement(property.type, target) + ";");
+            }
+            close();
+        }
+        line("return object;");
+        close();
+    }
+
+    private void writeWrite() {
+        line("");
+        line("@Override");
+        open("public void write(" + modelName + " src, DataObject data)");
+        for (Property property : properties) {
+            String value = "src." + property.field;
+            String tag = literal(property.names.get(0));
+            if (property.list) {
+                open("if (" + value + " != null && !" + value + ".isEmpty())");
+                line("ArrayList<DataElement> elements = new ArrayList<>(" + value + ".size());");
+                open("for (" + property.type.name + " item : " + value + ")");
+                if (property.type.kind == Kind.MODEL) {
+                    line("elements.add(item != null ? new DataElement(" + tag + ", " + mapperOf(property.type)
+                                 + ".toDataObject(item)) : new DataElement(" + tag + ", \"null\"));");
+                } else {
+                    line("elements.add(new DataElement(" + tag + ", item != null ? " + string(property.type, "item")
+                                 + " : \"null\"));");
+                }
+                close();
+                line("data.insert(" + tag + ", elements);");
+                close();
+            } else if (property.type.kind == Kind.MODEL) {
+                open("if (" + notNull(property, value) + ")");
+                line("data.insert(" + tag + ", " + mapperOf(property.type) + ".toDataObject(" + value + "));");
+                close();
+            } else if (property.type.primitive) {
+                line("data.insert(" + tag + ", " + string(property.type, value) + ", false);");
+            } else {
+                open("if (" + value + " != null)");
+                line("data.insert(" + tag + ", " + string(property.type, value) + ", false);");
+                close();
+            }
+        }
+        close();
+    }
+
+    private void writeWriteJSON() {
+        line("");
+        line("@Override");
+        open("public void writeJSON(" + modelName + " src, DataSink sink) throws IOException");
+        line("sink.append('{');");
+        line("boolean next = false;");
+        for (Property property : properties) {
+            String value = "src." + property.field;
+            String key = literal(jsonString(property.names.get(0)) + ":");
+            if (property.list) {
+                open("if (" + value + " != null && !" + value + ".isEmpty())");
+                line("next = writeKey(sink, " + key + ", next);");
+                line("sink.append('[');");
+                line("boolean nextItem = false;");
+                open("for (" + property.type.name + " item : " + value + ")");
+                open("if (nextItem)");
+                line("sink.append(',');");
+                close();
+                line("nextItem = true;");
+                open("if (item == null)");
+                line("writeString(\"null\", sink);");
+                closeOpen("else");
+                writeJSONValue(property.type, "item");
+                close();
+                close();
+                line("sink.append(']');");
+                close();
+            } else if (property.type.primitive) {
+                line("next = writeKey(sink, " + key + ", next);");
+                writeJSONValue(property.type, value);
+            } else {
+                open("if (" + notNull(property, value) + ")");
+                line("next = writeKey(sink, " + key + ", next);");
+                writeJSONValue(property.type, value);
+                close();
+            }
+        }
+        line("sink.append('}');");
+        close();
+    }
+
+    private void writeJSONValue(ValueType type, String value) {
+        if (type.kind == Kind.MODEL) {
+            line(mapperOf(type) + ".writeJSON(" + value + ", sink);");
+        } else {
+            line("writeString(" + string(type, value) + ", sink);");
+        }
+    }
+
+    private void writeWriteXML() {
+        line("");
+        line("@Override");
+        open("public void writeXML(" + modelName + " src, DataSink sink) throws IOException");
+        for (Property property : properties) {
+            String value = "src." + property.field;
+            String tag = property.names.get(0);
+            if (property.list) {
+                open("if (" + value + " != null)");
+                open("for (" + property.type.name + " item : " + value + ")");
+                open("if (item == null)");
+                line("writeElement(" + literal(tag) + ", \"null\", sink);");
+                closeOpen("else");
+                writeXMLValue(property.type, tag, "item");
+                close();
+                close();
+                close();
+            } else if (property.type.primitive) {
+                writeXMLValue(property.type, tag, value);
+            } else {
+                open("if (" + notNull(property, value) + ")");
+                writeXMLValue(property.type, tag, value);
+                close();
+            }
+        }
+        close();
+    }
+
+    private void writeXMLValue(ValueType type, String tag, String value) {
+        if (type.kind == Kind.MODEL) {
+            line("sink.append(" + literal("<" + tag + ">") + ");");
+            line(mapperOf(type) + ".writeXML(" + value + ", sink);");
+            line("sink.append(" + literal("</" + tag + ">") + ");");
+        } else {
+            line("writeElement(" + literal(tag) + ", " + string(type, value) + ", sink);");
+        }
+    }
+
+    private void writeReadJSON() {
+        line("");
+        line("@Override");
+        open("public " + modelName + " readJSON(JsonReader reader) throws IOException");
+        line(modelName + " object = new " + modelName + "();");
+        line("reader.beginObject();");
+        open("while (reader.hasNext())");
+        open("switch (reader.nextName())");
+        for (Property property : properties) {
+            String target = "object." + property.field;
+            for (String name : property.names) {
+                line("case " + literal(name) + ":");
+            }
+            indent++;
+            if (property.list) {
+                open("");
+                line("ArrayList<" + property.type.name + "> list = new ArrayList<>();");
+                open("if (beginArray(reader))");
+                open("while (reader.hasNext())");
+                line("list.add(" + itemFromJSON(property.type) + ");");
+                close();
+                line("reader.endArray();");
+                closeOpen("else");
+                line("list.add(" + itemFromJSON(property.type) + ");");
+                close();
+                line(target + " = list;");
+                close();
+            } else if (property.type.kind == Kind.MODEL) {
+                open("if (isObject(reader))");
+                line(target + " = " + mapperOf(property.type) + ".readJSON(reader);");
+                close();
+            } else {
+                line(target + " = " + valueFromString(property.type, "nextString(reader)", target) + ";");
+            }
+            line("break;");
+            indent--;
+        }
+        line("default:");
+        indent++;
+        line("reader.skipValue();");
+        line("break;");
+        indent--;
+        close();
+        close();
+        line("reader.endObject();");
+        line("return object;");
+        close();
+    }
+
+    private void writeReadXML() {
+        line("");
+        line("@Override");
+        open("protected " + modelName + " readChildren(XmlPullParser parser, int depth, boolean child) "
+                     + "throws IOException, XmlPullParserException");
+        line(modelName + " object = new " + modelName + "();");
+        for (int i = 0; i < properties.size(); i++) {
+            Property property = properties.get(i);
+            if (property.list) {
+                line("ArrayList<" + property.type.name + "> list" + i + " = null;");
+            }
+        }
+        open("for (; child; child = nextChild(parser, depth))");
+        open("switch (parser.getName())");
+        for (int i = 0; i < properties.size(); i++) {
+            Property property = properties.get(i);
+            String target = "object." + property.field;
+            for (String name : property.names) {
+                line("case " + literal(name) + ":");
+            }
+            indent++;
+            if (property.list) {
+                open("if (list" + i + " == null)");
+                line("list" + i + " = new ArrayList<>();");
+                close();
+                line("list" + i + ".add(" + itemFromXML(property.type) + ");");
+            } else if (property.type.kind == Kind.MODEL) {
+                line(target + " = " + mapperOf(property.type) + ".readXML(parser);");
+            } else {
+                line(target + " = " + valueFromString(property.type, "readText(parser)", target) + ";");
+            }
+            line("break;");
+            indent--;
+        }
+        line("default:");
+        indent++;
+        line("skip(parser);");
+        line("break;");
+        indent--;
+        close();
+        close();
+        for (int i = 0; i < properties.size(); i++) {
+            Property property = properties.get(i);
+            if (property.list) {
+                open("if (list" + i + " != null)");
+                line("object." + property.field + " = list" + i + ";");
+                close();
+            }
+        }
+        line("return object;");
+        close();
+    }
+
+    private void writeEnum(ValueType type, String reader) {
+        line("");
+        open("private static " + type.name + " " + reader + "(String value)");
+        open("if (value == null)");
+        line("return null;");
+        close();
+        open("switch (value)");
+        Map<String, Boolean> written = new HashMap<>();
+        for (Map.Entry<String, List<String>> constant : type.constants.entrySet()) {
+            boolean any = false;
+            for (String name : constant.getValue()) {
+                //like Gson, the first constant with a name is the one read
+                if (written.put(name, true) == null) {
+                    line("case " + literal(name) + ":");
+                    any = true;
+                }
+            }
+            if (any) {
+                indent++;
+                line("return " + type.name + "." + constant.getKey() + ";");
+                indent--;
+            }
+        }
+        line("default:");
+        indent++;
+        line("return null;");
+        indent--;
+        close();
+        close();
+        line("");
+        open("private static String nameOf(" + type.name + " value)");
+        open("switch (value)");
+        for (Map.Entry<String, List<String>> constant : type.constants.entrySet()) {
+            line("case " + constant.getKey() + ":");
+            indent++;
+            line("return " + literal(constant.getValue().get(0)) + ";");
+            indent--;
+        }
+        line("default:");
+        indent++;
+        line("return value.name();");
+        indent--;
+        close();
+        close();
+    }
+
+    /**
+     * @return The expression that reads the field from {@code element}. Numbers are parsed from the string of the value
+     * rather than with the typed getters, which fall back to the field's value where Gson fails or reads a double.
+     */
+    private String valueFromElement(ValueType type, String target) {
+        if (type.kind == Kind.STRING) {
+            return "element.getValueAsString(" + target + ")";
+        }
+        return valueFromString(type, "element.getValueAsString(null)", target);
+    }
+
+    /**
+     * @return The expression that reads a field from the given string, leaving it as it is if the string is {@code
+     * null} or names no enum constant.
+     */
+    private String valueFromString(ValueType type, String string, String target) {
+        if (type.primitive) {
+            return "to" + capitalize(type.name) + "(" + string + ", " + target + ")";
+        } else if (type.kind == Kind.STRING) {
+            return "orElse(" + string + ", " + target + ")";
+        }
+        return "orElse(" + itemFromString(type, string) + ", " + target + ")";
+    }
+
+    /**
+     * @return The expression that reads a value from the given string, {@code null} if the string is {@code null} or
+     * names no enum constant.
+     */
+    private String itemFromString(ValueType type, String string) {
+        switch (type.kind) {
+            case STRING:
+                return string;
+            case ENUM:
+                return enumReaders.get(type.name) + "(" + string + ")";
+            case INT:
+                return "toInteger(" + string + ")";
+            case CHAR:
+                return "toCharacter(" + string + ")";
+            default:
+                return "to" + type.name.substring("java.lang.".length()) + "(" + string + ")";
+        }
+    }
+
+    private String itemFromElement(ValueType type) {
+        if (type.kind == Kind.MODEL) {
+            return "element.isObject() ? " + mapperOf(type) + ".read((DataObject) element.value) : null";
+        }
+        return itemFromString(type, "element.getValueAsString(null)");
+    }
+
+    private String itemFromJSON(ValueType type) {
+        if (type.kind == Kind.MODEL) {
+            return "isObject(reader) ? " + mapperOf(type) + ".readJSON(reader) : null";
+        }
+        return itemFromString(type, "nextString(reader)");
+    }
+
+    private String itemFromXML(ValueType type) {
+        if (type.kind == Kind.MODEL) {
+            return mapperOf(type) + ".readXMLItem(parser)";
+        }
+        return itemFromString(type, "readText(parser)");
+    }
+
+    /**
+     * @return The expression of the string a value is written as.
+     */
+    private static String string(ValueType type, String value) {
+        switch (type.kind) {
+            case STRING:
+                return value;
+            case ENUM:
+                return "nameOf(" + value + ")";
+            default:
+                return "String.valueOf(" + value + ")";
+        }
+    }
+
+    /**
+     * @return The condition for writing a field, which also leaves out a model that holds itself as Gson does.
+     */
+    private String notNull(Property property, String value) {
+        if (property.type.kind == Kind.MODEL && property.type.name.equals(modelName)) {
+            return value + " != null && " + value + " != src";
+        }
+        return value + " != null";
+    }
+
+    private static String mapperOf(ValueType type) {
+        return type.mapper + ".INSTANCE";
+    }
+
+    private static String capitalize(String name) {
+        return Character.toUpperCase(name.charAt(0)) + name.substring(1);
+    }
+
+    /**
+     * @return The given string as a quoted JSON string, as the JSONSerializer writes it.
+     */
+    private static String jsonString(String value) {
+        StringBuilder json = new StringBuilder("\"");
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"':
+                case '\\':
+                case '/':
+                    json.append('\\').append(c);
+                    break;
+                case '\t':
+                    json.append("\\t");
+                    break;
+                case '\b':
+                    json.append("\\b");
+                    break;
+                case '\n':
+                    json.append("\\n");
+                    break;
+                case '\r':
+                    json.append("\\r");
+                    break;
+                case '\f':
+                    json.append("\\f");
+                    break;
+                default:
+                    if (c <= 0x1F) {
+                        json.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        json.append(c);
+                    }
+                    break;
+            }
+        }
+        return json.append('"').toString();
+    }
+
+    /**
+     * @return The given string as a Java string literal.
+     */
+    private static String literal(String value) {
+        StringBuilder literal = new StringBuilder("\"");
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                literal.append('\\').append(c);
+            } else if (c < 0x20 || c > 0x7E) {
+                literal.append(String.format("\\u%04x", (int) c));
+            } else {
+                literal.append(c);
+            }
+        }
+        return literal.append('"').toString();
+    }
+
+    private void open(String statement) {
+        line(statement.isEmpty() ? "{" : statement + " {");
+        indent++;
+    }
+
+    private void closeOpen(String statement) {
+        indent--;
+        line("} " + statement + " {");
+        indent++;
+    }
+
+    private void close() {
+        indent--;
+        line("}");
+    }
+
+    private void line(String line) {
+        if (!line.isEmpty()) {
+            for (int i = 0; i < indent; i++) {
+                out.append(INDENT);
+            }
+        }
+        out.append(line).append('\n');
+    }
+}
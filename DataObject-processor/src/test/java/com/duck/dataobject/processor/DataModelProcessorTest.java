@@ -0,0 +1,156 @@
+package com.duck.dataobject.processor;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Runs the processor over small models with the system Java compiler. The annotations are matched by name, so the
+ * models are compiled with stand-ins for {@code DataModel} and {@code SerializedName} instead of the real libraries.
+ */
+public class DataModelProcessorTest {
+    private static final String DATA_MODEL = "package com.duck.dataobject.binder;\n"
+                                             + "public @interface DataModel {}";
+    private static final String SERIALIZED_NAME = "package com.google.gson.annotations;\n"
+                                                  + "public @interface SerializedName {\n"
+                                                  + "    String value();\n"
+                                                  + "    String[] alternate() default {};\n"
+                                                  + "}";
+
+    private File output;
+    private List<String> errors;
+
+    @Before
+    public void setUp() throws IOException {
+        output = File.createTempFile("processor", "");
+        assertTrue(output.delete() && output.mkdir());
+    }
+
+    @After
+    public void tearDown() {
+        delete(output);
+    }
+
+    @Test
+    public void generatesMappers() {
+        compile("m.Item",
+                "package m;\n"
+                + "import com.duck.dataobject.binder.DataModel;\n"
+                + "import java.util.List;\n"
+                + "@DataModel public class Item {\n"
+                + "    String name; int count; List<Item> children;\n"
+                + "    @DataModel public static class Part { Integer size; }\n"
+                + "}");
+        assertEquals(new ArrayList<String>(), errors);
+        assertTrue(new File(output, "m/Item_DataMapper.java").isFile());
+        assertTrue(new File(output, "m/Item_Part_DataMapper.java").isFile());
+    }
+
+    @Test
+    public void rejectsRawLists() {
+        compile("m.Raw",
+                "package m;\n"
+                + "import com.duck.dataobject.binder.DataModel;\n"
+                + "import java.util.List;\n"
+                + "@DataModel public class Raw { List values; }");
+        assertEquals(Arrays.asList("List fields of @DataModel classes need an element type"), errors);
+        assertFalse(new File(output, "m/Raw_DataMapper.java").exists());
+    }
+
+    @Test
+    public void rejectsDuplicateNames() {
+        compile("m.Duplicate",
+                "package m;\n"
+                + "import com.duck.dataobject.binder.DataModel;\n"
+                + "import com.google.gson.annotations.SerializedName;\n"
+                + "@DataModel public class Duplicate {\n"
+                + "    String name;\n"
+                + "    @SerializedName(\"name\") String other;\n"
+                + "    @SerializedName(value = \"first\", alternate = {\"name\"}) String third;\n"
+                + "}");
+        assertEquals(Arrays.asList("Another field of Duplicate is also named \"name\"",
+                                   "Another field of Duplicate is also named \"name\""), errors);
+    }
+
+    @Test
+    public void rejectsNonStaticNestedClasses() {
+        compile("m.Outer",
+                "package m;\n"
+                + "import com.duck.dataobject.binder.DataModel;\n"
+                + "public class Outer {\n"
+                + "    @DataModel public class Inner { String name; }\n"
+                + "}");
+        assertEquals(Arrays.asList("Nested @DataModel classes must be static"), errors);
+        assertFalse(new File(output, "m/Outer_Inner_DataMapper.java").exists());
+    }
+
+    /**
+     * Compiles the given class, with the annotations, with only the processor running and puts the messages of the
+     * errors reported on the given class in {@link #errors}. The generated mappers need the DataObject library, which
+     * is not on the path, so the errors in them are left out.
+     */
+    private void compile(String className, String source) {
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+        StandardJavaFileManager fileManager = compiler.getStandardFileManager(diagnostics, Locale.ROOT, null);
+        Source model = new Source(className, source);
+        List<JavaFileObject> sources = Arrays.<JavaFileObject>asList(
+                new Source("com.duck.dataobject.binder.DataModel", DATA_MODEL),
+                new Source("com.google.gson.annotations.SerializedName", SERIALIZED_NAME),
+                model);
+        List<String> options = Arrays.asList("-proc:only", "-s", output.getPath(), "-d", output.getPath());
+        JavaCompiler.CompilationTask task = compiler.getTask(null, fileManager, diagnostics, options, null, sources);
+        task.setProcessors(Arrays.asList(new DataModelProcessor()));
+        task.call();
+        errors = new ArrayList<>();
+        for (Diagnostic<? extends JavaFileObject> diagnostic : diagnostics.getDiagnostics()) {
+            if (diagnostic.getKind() == Diagnostic.Kind.ERROR && diagnostic.getSource() == model) {
+                errors.add(diagnostic.getMessage(Locale.ROOT));
+            }
+        }
+    }
+
+    private static void delete(File file) {
+        File[] children = file.listFiles();
+        if (children != null) {
+            for (File child : children) {
+                delete(child);
+            }
+        }
+        file.delete();
+    }
+
+    private static final class Source extends SimpleJavaFileObject {
+        private final String source;
+
+        Source(String className, String source) {
+            super(URI.create("string:///" + className.replace('.', '/') + Kind.SOURCE.extension), Kind.SOURCE);
+            this.source = source;
+        }
+
+        @Override
+        public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+            return source;
+        }
+    }
+}
@@ -0,0 +1,5 @@
+# DataMapper.of finds the mappers generated for @DataModel classes by name
+-keepnames @com.duck.dataobject.binder.DataModel class *
+-keep class **_DataMapper extends com.duck.dataobject.binder.DataMapper {
+    public static ** INSTANCE;
+}
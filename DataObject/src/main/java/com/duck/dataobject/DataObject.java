@@ -5,25 +5,52 @@ import android.util.Log;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 
+import com.duck.dataobject.binder.DataBinder;
+import com.duck.dataobject.binder.JsonTreeConverter;
 import com.duck.dataobject.exception.IllegalCharacterException;
 import com.duck.dataobject.exception.ParsingException;
 import com.duck.dataobject.node.DataElement;
 import com.duck.dataobject.node.XMLAttribute;
+import com.duck.dataobject.parser.CBORReader;
 import com.duck.dataobject.parser.Parser;
+import com.duck.dataobject.path.DataPath;
+import com.duck.dataobject.query.StructureMatcher;
+import com.duck.dataobject.serializer.CBORSerializer;
+import com.duck.dataobject.serializer.DataSink;
+import com.duck.dataobject.serializer.JSONSerializer;
+import com.duck.dataobject.serializer.JsonWriteOptions;
+import com.duck.dataobject.serializer.LengthEstimator;
+import com.duck.dataobject.serializer.OutputCache;
+import com.duck.dataobject.serializer.ParallelSerializer;
+import com.duck.dataobject.serializer.SnapshotSerializer;
+import com.duck.dataobject.serializer.XMLSerializer;
+import com.duck.dataobject.walker.DataVisitor;
+import com.duck.dataobject.walker.DataWalker;
+import com.duck.dataobject.walker.SimpleDataVisitor;
 import com.google.gson.Gson;
-import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
 import com.google.gson.JsonSyntaxException;
 
 import org.json.JSONArray;
 import org.json.JSONObject;
 
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.util.ArrayList;
-import java.util.Arrays;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.atomic.AtomicInteger;
 
 /**
@@ -51,6 +78,13 @@ public class DataObject implements Comparable<DataObject>, Iterable<DataElement>
     private HashMap<String, List<DataElement>> tagIndexMap = new HashMap<>(1);
     private boolean verbose = false;
     private boolean ignoreAttributes = false;
+    DocumentIndex documentIndex = null;
+    int documentIndexGeneration = 0;
+    //the lengths of the last xml and JSON output, used as the starting capacity next time instead of a sizing pass.
+    private int lengthHintXML = 16;
+    private int lengthHintJSON = 16;
+    private int lengthHintFormattedJSON = 16;
+    private OutputCache outputCache = null;
 
     /**
      * Constructor, sets the given {@link DataElement} as the firstElement of this {@link DataObject}.
@@ -129,17 +163,21 @@ public class DataObject implements Comparable<DataObject>, Iterable<DataElement>
         } else {
             tagIndexMap.put(tag, elements);
         }
+        for (int i = 0; i < elements.size(); i++) {
+            elementAdded(elements.get(i));
+        }
         return this;
     }
 
     /**
-     * Uses {@link Gson#toJson(Object)} to deserialize the given {@code src} into JSON and then parses that JSON into this
-     * {@link DataObject}.
+     * Constructs this {@link DataObject} from the given {@code src}, with the same elements as parsing the JSON of {@link
+     * Gson#toJson(Object)} gives. Objects are read field by field by the {@link DataBinder} without writing the JSON.
      *
      * @param src The src for which Json representation is to be created setting for Gson
      */
     public DataObject(@NonNull Object src, boolean... args) {
-        this(new Gson().toJson(src), args);
+        this(args);
+        DataBinder.toDataObject(src, this);
     }
 
     /**
@@ -180,12 +218,15 @@ public class DataObject implements Comparable<DataObject>, Iterable<DataElement>
         } else {
             tagIndexMap = new HashMap<>();
         }
+        invalidateTagIndex();
+        invalidateOutputCache();
         Parser.parse(xmlData, this, ignoreAttributes, verbose);
     }
 
     /**
-     * Uses {@link DataObject} to parse the XML or JSON and then, through the {@link DataObject#toJSON(String...)} method,
-     * uses {@link Gson#fromJson(String, Class)} to deserialize the JSON into the T object.
+     * Uses {@link DataObject} to parse the XML or JSON and then binds it to the T object with the {@link DataBinder},
+     * which gives the same object as {@link Gson#fromJson(String, Class)} does from the {@link
+     * DataObject#toJSON(String...)} output without writing and parsing the JSON.
      *
      * @param <T>       The type of the desired object.
      * @param data      The XML or JSON string from which the object is to be deserialized.
@@ -198,7 +239,7 @@ public class DataObject implements Comparable<DataObject>, Iterable<DataElement>
     @Nullable
     public static <T> T GSON_FromJSON(String data, Class<T> classOfT, String... arrayTags)
             throws ParsingException, JsonSyntaxException {
-        return new Gson().fromJson(new DataObject(data).toJSON(arrayTags), classOfT);
+        return DataBinder.fromDataObject(new DataObject(data), classOfT, arrayTags);
     }
 
     @Nullable
@@ -208,13 +249,14 @@ public class DataObject implements Comparable<DataObject>, Iterable<DataElement>
     }
 
     /**
-     * Uses {@link Gson#toJson(Object)} to serialize the given {@code src} into JSON and then parses that JSON into a new {@link DataObject}.
+     * Creates a new {@link DataObject} from the given {@code src}, with the same elements as parsing the JSON of {@link
+     * Gson#toJson(Object)} gives, see {@link DataBinder#toDataObject(Object, DataObject)}.
      *
      * @param src The src for which Json representation is to be created setting for Gson
      * @return {@link DataObject} representation of {@code src}.
      */
     public static DataObject serialize(Object src) {
-        return new DataObject(new Gson().toJson(src));
+        return DataBinder.toDataObject(src, new DataObject());
     }
 
     /**
@@ -280,10 +322,7 @@ public class DataObject implements Comparable<DataObject>, Iterable<DataElement>
         if (length == null) {
             length = new AtomicInteger(0);
         }
-        for (DataElement element : object.getList()) {
-            length.addAndGet(DataElement.estimateLengthXML(element, length));
-        }
-        return length.get();
+        return length.addAndGet(LengthEstimator.estimateXML(object));
     }
 
     public static int estimateLengthJSON(@NonNull DataObject object, String... arrayTags) {
@@ -294,60 +333,7 @@ public class DataObject implements Comparable<DataObject>, Iterable<DataElement>
         if (length == null) {
             length = new AtomicInteger(0);
         }
-        if (object.firstElement() != null) {
-            //either we have an anonymous array or we have an object, it is illegal to have both
-            if (object.tagIndexMap.containsKey(ANONYMOUS_ARRAY_TAG)) {
-                //this object is a JSONArray.
-                List<DataElement> elements = object.tagIndexMap.get(ANONYMOUS_ARRAY_TAG);
-                length.addAndGet(1);//stringBuilder.append("[");
-                for (int j = 0; j < elements.size(); j++) {
-                    DataElement el = elements.get(j);
-                    DataElement.estimateLengthJSON(el, length, arrayTags);//el.toJSON(stringBuilder, arrayTags);
-                    if (j < elements.size() - 1) {
-                        length.addAndGet(1);//stringBuilder.append(",");
-                    }
-                }
-                length.addAndGet(1);//stringBuilder.append("]");
-            } else {
-                length.addAndGet(1);//stringBuilder.append("{");
-                String[] tags = object.tagIndexMap.keySet().toArray(new String[]{});
-                for (int i = 0; i < tags.length; i++) {
-                    String tag = tags[i];
-                    List<DataElement> elements = object.tagIndexMap.get(tag);
-                    if (elements.size() == 1) {
-                        //just one element for this tag
-                        boolean forceArray = arrayTags != null && Arrays.asList(arrayTags)
-                                                                        .contains(tag);// if this tag is in the arrayTags array then we know we need to output it as if it is a JSON_array even though it is only one element.
-                        length.addAndGet(3 + tag.length());//stringBuilder.append("\"").append(tag).append("\":");
-                        if (forceArray) {
-                            length.addAndGet(1);//stringBuilder.append("[");
-                        }
-                        DataElement.estimateLengthJSON(elements.get(0),
-                                                       length,
-                                                       arrayTags);//elements.get(0).toJSON (stringBuilder, arrayTags);
-                        if (forceArray) {
-                            length.addAndGet(1);//stringBuilder.append("]");
-                        }
-                    } else {
-                        //we have an array for this tag
-                        length.addAndGet(4 + tag.length());//stringBuilder.append("\"").append(tag).append("\":[");
-                        for (int j = 0; j < elements.size(); j++) {
-                            DataElement el = elements.get(j);
-                            DataElement.estimateLengthJSON(el, length, arrayTags);//el.toJSON(stringBuilder, arrayTags);
-                            if (j < elements.size() - 1) {
-                                length.addAndGet(1);//stringBuilder.append(",");
-                            }
-                        }
-                        length.addAndGet(1);//stringBuilder.append("]");
-                    }
-                    if (i < tags.length - 1) {
-                        length.addAndGet(1);//stringBuilder.append(",");
-                    }
-                }
-                length.addAndGet(1);//stringBuilder.append("}");
-            }
-        }
-        return length.get();
+        return length.addAndGet(LengthEstimator.estimateJSON(object, arrayTags));
     }
 
     public static int estimateLengthFormattedJSON(@NonNull DataObject object, String... arrayTags) {
@@ -364,76 +350,7 @@ public class DataObject implements Comparable<DataObject>, Iterable<DataElement>
         if (length == null) {
             length = new AtomicInteger(0);
         }
-        if (object.firstElement() != null) {
-            int indentLen = TAB_LEN * indentCount;
-            //either we have an anonymous array or we have an object, it is illegal to have both
-            if (object.tagIndexMap.containsKey(ANONYMOUS_ARRAY_TAG)) {
-                //this object is a JSONArray.
-                List<DataElement> elements = object.tagIndexMap.get(ANONYMOUS_ARRAY_TAG);
-                length.addAndGet(indentLen + 1 + NEW_LINE_LEN);
-                //stringBuilder.append(indentSB).append("[").append(NEW_LINE);
-                for (int j = 0; j < elements.size(); j++) {
-                    DataElement el = elements.get(j);
-                    DataElement.estimateLengthFormattedJSON(el, indentCount + 1, length, arrayTags);
-                    //el.toFormattedJSON(indentCount+1, stringBuilder, arrayTags);
-                    if (j < elements.size() - 1) {
-                        length.addAndGet(1);//stringBuilder.append(",");
-                    }
-                    length.addAndGet(NEW_LINE_LEN);//stringBuilder.append(NEW_LINE);
-                }
-                length.addAndGet(indentLen + 1);//stringBuilder.append(indentSB).append("]");
-            } else {
-                /*if (stringBuilder.length() > 0 && stringBuilder.charAt(stringBuilder.length() - 1) == '\n') {
-                    stringBuilder.append(indentSB);
-                }*/
-                length.addAndGet(1 + NEW_LINE_LEN);//stringBuilder.append("{").append(NEW_LINE);
-                int innerIndentLen = indentLen + 1;
-                //StringBuilder innerIndentSB = new StringBuilder(indentSB).append(TAB);
-                String[] tags = object.tagIndexMap.keySet().toArray(new String[]{});
-                for (int i = 0; i < tags.length; i++) {
-                    String tag = tags[i];
-                    List<DataElement> elements = object.tagIndexMap.get(tag);
-                    if (elements.size() == 1) {
-                        //just one element for this tag
-                        length.addAndGet(innerIndentLen + 5 + tag.length());
-                        //stringBuilder.append(innerIndentSB).append("\"").append(tag).append("\" : ");
-                        if (arrayTags != null && Arrays.asList(arrayTags)
-                                                       .contains(tag)) {// if this tag is in the arrayTags array then we know we need to output it as if it is a JSON_array even though it is only one element.
-                            length.addAndGet(1 + NEW_LINE_LEN);
-                            //stringBuilder.append("[").append(NEW_LINE);//.append(innerIndentSB);
-                            DataElement.estimateLengthFormattedJSON(elements.get(0), indentCount + 1, length, arrayTags);
-                            //elements.get(0).toFormattedJSON(indentCount+1, stringBuilder, arrayTags);
-                            length.addAndGet(NEW_LINE_LEN + 1);
-                            //stringBuilder.append(NEW_LINE).append("]");
-                        } else {
-                            DataElement.estimateLengthFormattedJSON(elements.get(0), indentCount + 1, length, arrayTags);
-                            //elements.get(0).toFormattedJSON(indentCount, stringBuilder, arrayTags);
-                        }
-                    } else {
-                        //we have an array for this tag
-                        length.addAndGet(innerIndentLen + 6 + tag.length() + NEW_LINE_LEN);
-                        //stringBuilder.append(innerIndentSB).append("\"").append(tag).append("\" : [").append(NEW_LINE);//.append(innerIndentSB);
-                        for (int j = 0; j < elements.size(); j++) {
-                            DataElement el = elements.get(j);
-                            DataElement.estimateLengthFormattedJSON(el, indentCount + 1, length, arrayTags);
-                            //el.toFormattedJSON(indentCount+1, stringBuilder, arrayTags);
-                            if (j < elements.size() - 1) {
-                                length.addAndGet(1);//stringBuilder.append(",");
-                            }
-                            length.addAndGet(NEW_LINE_LEN);//stringBuilder.append(NEW_LINE);//.append(innerIndentSB);
-                        }
-                        length.addAndGet(1);
-                        //stringBuilder.append(innerIndentSB).append("]");
-                    }
-                    if (i < tags.length - 1) {
-                        length.addAndGet(1);//stringBuilder.append(",");
-                    }
-                    length.addAndGet(NEW_LINE_LEN);//stringBuilder.append(NEW_LINE);
-                }
-                length.addAndGet(indentLen + 1);//stringBuilder.append(indentSB).append("}");
-            }
-        }
-        return length.get();
+        return length.addAndGet(LengthEstimator.estimateFormattedJSON(object, indentCount, arrayTags));
     }
 
     /**
@@ -447,59 +364,7 @@ public class DataObject implements Comparable<DataObject>, Iterable<DataElement>
     @NonNull
     public static List<DataElement> getList(DataObject data, @NonNull JsonObject structure) {
         if (structure != null && data != null) {
-            List<DataElement> elements = new ArrayList<>();
-            if (!structure.has("xml") && data.contains("xml")) {
-                return getList(data.get("xml").getValueAsObject(new DataObject()), structure);
-            }
-            for (Map.Entry<String, JsonElement> entry : structure.entrySet()) {
-                String key = entry.getKey();
-                JsonElement value = entry.getValue();
-                if (value.isJsonPrimitive()) {
-                    DataElement element = data.get(key);
-                    if (element != null) {
-                        elements.add(element);
-                    }
-                } else if (value.isJsonObject()) {
-                    elements = getList(getList(data, key), value.getAsJsonObject());
-                }
-            }
-            return elements;
-        }
-        return new ArrayList<>();
-    }
-
-    /**
-     * Searches the given {@link List}<{@link DataElement}> dataElements for all of the matching tags found at the given path
-     * as defined in structure.
-     *
-     * @param dataElements {@link List}<{@link DataElement}> to search within.
-     * @param structure    {@link JsonObject} The structure defining the path to follow to find the requested tag.
-     * @return An {@link List}<{@link DataElement}> containing all the DataElements found at the given path as defined by
-     *         structure.
-     */
-    @NonNull
-    private static List<DataElement> getList(List<DataElement> dataElements, JsonObject structure) {
-        if (structure != null && dataElements != null && dataElements.size() > 0) {
-            List<DataElement> elements = new ArrayList<>();
-            for (Map.Entry<String, JsonElement> entry : structure.entrySet()) {
-                String key = entry.getKey();
-                JsonElement value = entry.getValue();
-                for (DataElement element : dataElements) {
-                    if (value.isJsonPrimitive()) {
-                        if (element.isObject()) {
-                            DataElement dataElement = element.getValueAsObject(new DataObject()).get(key);
-                            if (dataElement != null) {
-                                elements.add(dataElement);
-                            }
-                        }
-                    } else if (value.isJsonObject()) {
-                        if (element.isObject()) {
-                            elements.addAll(getList(element.getValueAsObject(new DataObject()), key));
-                        }
-                    }
-                }
-            }
-            return elements;
+            return StructureMatcher.compile(structure).getList(data);
         }
         return new ArrayList<>();
     }
@@ -550,18 +415,13 @@ public class DataObject implements Comparable<DataObject>, Iterable<DataElement>
     public static DataObject getObject(DataObject data, @NonNull String... tags) {
         if (tags != null) {
             if (tags.length > 1) {
-                DataElement element = getElement(data, Arrays.copyOfRange(tags, 0, tags.length - 1));
-                if (element != null) {
-                    if (element.isObject()) {
-                        return element.getValueAsObject(new DataObject());
-                    }
-                }
+                return DataPath.of(tags).getParent(data);
             } else {
                 // only one tag provided...
                 if (data != null) {
                     DataElement element = data.get(tags[0]);
                     if (element != null && element.isObject()) {
-                        return element.getValueAsObject(new DataObject());
+                        return element.getValueAsObject(null);
                     }
                 }
             }
@@ -579,36 +439,8 @@ public class DataObject implements Comparable<DataObject>, Iterable<DataElement>
      */
     @Nullable
     public static DataElement getElement(DataObject data, @NonNull String... tags) {
-        if (tags != null && tags.length > 0) {
-            if (data != null) {
-                int i = 0;
-                //for (; i < tags.length; i++) {
-                String tag = tags[i];
-                if (!data.contains(tag) && data.contains("xml")) {
-                    return getElement(data.get("xml").getValueAsObject(new DataObject()), tags);
-                } else {
-                    if (i == tags.length - 1) {
-                        //The last given tag is the 'target' tag
-                        return data.get(tag);
-                    } else {
-                        //Not yet the 'target' tag so keep digging
-                        if (data.contains(tag)) {
-                            DataElement element = data.get(tag);
-                            if (element.isObject()) {
-                                return getElement(element.getValueAsObject(new DataObject()),
-                                                  Arrays.copyOfRange(tags, i + 1, tags.length));
-                            } else {
-                                //not at the target tag yet but we can't go any deeper...
-                                return null;
-                            }
-                        } else {
-                            //not at the target tag yet but the path ends here...
-                            return null;
-                        }
-                    }
-                }
-            }
-            //}
+        if (tags != null && tags.length > 0 && data != null) {
+            return DataPath.of(tags).getElement(data);
         }
         return null;
     }
@@ -637,8 +469,9 @@ public class DataObject implements Comparable<DataObject>, Iterable<DataElement>
     }
 
     /**
-     * Uses {@link Gson#fromJson(String, Class)}, through the {@link DataObject#toJSON(String...)} method, to deserialize the
-     * JSON into the T object.
+     * Binds this {@link DataObject} to the T object with the {@link DataBinder}, which gives the same object as {@link
+     * Gson#fromJson(String, Class)} does from the {@link DataObject#toJSON(String...)} output without writing and parsing
+     * the JSON.
      *
      * @param <T>       The type of the desired object.
      * @param classOfT  The class of T
@@ -648,7 +481,7 @@ public class DataObject implements Comparable<DataObject>, Iterable<DataElement>
      * @throws JsonSyntaxException if json is not a valid representation for an object of type classOfT
      */
     public final <T> T GSON_FromJSON(Class<T> classOfT, String... arrayTags) throws ParsingException, JsonSyntaxException {
-        return new Gson().fromJson(toJSON(arrayTags), classOfT);
+        return DataBinder.fromDataObject(this, classOfT, arrayTags);
     }
 
     /**
@@ -681,6 +514,8 @@ public class DataObject implements Comparable<DataObject>, Iterable<DataElement>
                     element.tag = String.valueOf(indx + i);//for xml output
                 }
                 tagIndexMap.put(ANONYMOUS_ARRAY_TAG, elements);
+                invalidateTagIndex();
+                invalidateOutputCache();
             } else {
                 for (int i = 0; i < elements.size(); i++) {
                     insert(elements.get(i));
@@ -722,6 +557,7 @@ public class DataObject implements Comparable<DataObject>, Iterable<DataElement>
             elements.add(element);
             tagIndexMap.put(element.tag, elements);
         }
+        elementAdded(element);
         return this;
     }
 
@@ -818,6 +654,7 @@ public class DataObject implements Comparable<DataObject>, Iterable<DataElement>
             if (elements.size() <= 0) {
                 //if no elements then just add new one;
                 elements.add(newElement);
+                elementAdded(newElement);
                 return true;
             }
             for (DataElement element : elements) {
@@ -826,8 +663,7 @@ public class DataObject implements Comparable<DataObject>, Iterable<DataElement>
                         Log.v(LOG, "oldElement and newElement are the same so no need to do anything.");
                     }
                     return true;
-                } else if (newElement.hasAttributes() && element.hasAttributes() && element.matchAttributes(newElement
-                                                                                                                    .getAttributesAsArray())) {
+                } else if (newElement.hasAttributes() && element.hasAttributes() && element.matchAttributes(newElement)) {
                     updateByType(newElement, element, Force);
                     return true;
                 }
@@ -846,6 +682,7 @@ public class DataObject implements Comparable<DataObject>, Iterable<DataElement>
     }
 
     private void updateByType(DataElement newElement, DataElement oldElement, boolean force) {
+        elementRemoved(oldElement);
         if (newElement.valueClass == String.class) {
             oldElement.update(newElement.getValueAsString(""), force);
         } else if (newElement.valueClass == int.class) {
@@ -856,7 +693,8 @@ public class DataObject implements Comparable<DataObject>, Iterable<DataElement>
             oldElement.update(newElement.getValueAsObject(new DataObject()), force);
         }
         oldElement.CDATA = newElement.CDATA;
-        oldElement.attributeRoot = newElement.attributeRoot;
+        oldElement.copyAttributes(newElement);
+        elementAdded(oldElement);
     }
 
     /**
@@ -1010,8 +848,7 @@ public class DataObject implements Comparable<DataObject>, Iterable<DataElement>
      * @param data The data to be merged in.
      */
     public DataObject updateMerge(@NonNull JsonObject data) {
-        //DevNote: need testing
-        return updateMerge(new DataObject(data));
+        return updateMerge(JsonTreeConverter.toDataObject(data));
     }
 
     /**
@@ -1027,7 +864,15 @@ public class DataObject implements Comparable<DataObject>, Iterable<DataElement>
                 // the other's element is an Object
                 if (this.contains(otherElement.tag)) {
                     // I have the same tag, so get it and update
-                    this.get(otherElement.tag).updateMerge(otherElement.getValueAsObject(new DataObject()));
+                    DataElement myElement = this.get(otherElement.tag);
+                    if (myElement.isObject()) {
+                        myElement.updateMerge(otherElement.getValueAsObject(new DataObject()));
+                    } else {
+                        // my element's value is about to be replaced by an object
+                        elementRemoved(myElement);
+                        myElement.updateMerge(otherElement.getValueAsObject(new DataObject()));
+                        elementAdded(myElement);
+                    }
                 } else {
                     //I don't have the same tag, so insert it
                     this.insert(otherElement.tag, otherElement.getValueAsObject(new DataObject()));
@@ -1036,7 +881,10 @@ public class DataObject implements Comparable<DataObject>, Iterable<DataElement>
                 // the other's element is a simple value
                 if (this.contains(otherElement.tag)) {
                     // I have the same tag, so get it and update
-                    this.get(otherElement.tag).update(otherElement.getValueAsString(""), true);
+                    DataElement myElement = this.get(otherElement.tag);
+                    elementRemoved(myElement);
+                    myElement.update(otherElement.getValueAsString(""), true);
+                    elementAdded(myElement);
                 } else {
                     // I don't have the same tag, so insert it
                     this.insert(otherElement.tag, otherElement.getValueAsString(""), otherElement.CDATA);
@@ -1117,20 +965,17 @@ public class DataObject implements Comparable<DataObject>, Iterable<DataElement>
             if (elements.size() == 0) {
                 tagIndexMap.remove(xmlTag);
             }
+            if (removed != null) {
+                elementRemoved(removed);
+            }
             if (!deepRemove || removed != null) {
                 return removed;
             }
         }
         //deep search
-        for (Map.Entry<String, List<DataElement>> listEntry : tagIndexMap.entrySet()) {
-            for (DataElement element : listEntry.getValue()) {
-                if (element.isObject()) {
-                    removed = element.getValueAsObject(new DataObject()).remove(xmlTag, deepRemove, attributes);
-                    if (removed != null) {
-                        return removed;
-                    }
-                }
-            }
+        DataObject foundIn = findDeep(xmlTag, attributes).foundIn;
+        if (foundIn != null) {
+            return foundIn.remove(xmlTag, false, attributes);
         }
         if (verbose) {
             Log.v(LOG, "could not find anything to remove.");
@@ -1139,7 +984,7 @@ public class DataObject implements Comparable<DataObject>, Iterable<DataElement>
     }
 
     public DataObject recursiveRemove(@NonNull JsonObject removeStructure) {
-        return recursiveRemove(new DataObject(removeStructure));
+        return recursiveRemove(JsonTreeConverter.toDataObject(removeStructure));
     }
 
     public DataObject recursiveRemove(@NonNull DataObject removeStructure) {
@@ -1263,44 +1108,257 @@ public class DataObject implements Comparable<DataObject>, Iterable<DataElement>
             tag.append(">");
             Log.v(LOG, "Attempting to get " + tag + ", DeepGet is " + (deepGet ? "on" : "off") + ".");
         }
-        if (tagIndexMap.containsKey(xmlTag)) {
-            List<DataElement> elements = tagIndexMap.get(xmlTag);
-            if (elements.size() < 1) {
-                //tag exists but has not data, should never get here but if we do then we should clean-up...
-                tagIndexMap.remove(xmlTag);
-                if (!deepGet) {
-                    return null;
-                }
-            }
-            if (attributes != null) {
-                for (DataElement element : elements) {
-                    if (element.matchAttributes(attributes)) {
-                        return element;
+        DataElement found = getLocal(xmlTag, attributes);
+        if (found == null && deepGet) {
+            found = findDeep(xmlTag, attributes).found;
+        }
+        //if not found at this point then it doesn't exist.
+        return found;
+    }
+
+    /**
+     * searches only the top level of this {@link DataObject} for the given {@code xmlTag} and matching the (Optional)
+     * {@code attributes}.
+     *
+     * @param xmlTag     The xmlTag to search for.
+     * @param attributes Optional, The {@link XMLAttribute XMLAttribute(s)} to match against.
+     * @return The found {@link DataElement} or null if no matching object could be found.
+     */
+    @Nullable
+    private DataElement getLocal(@NonNull String xmlTag, XMLAttribute... attributes) {
+        List<DataElement> elements = tagIndexMap.get(xmlTag);
+        if (elements == null) {
+            return null;
+        }
+        if (elements.size() < 1) {
+            //tag exists but has not data, should never get here but if we do then we should clean-up...
+            tagIndexMap.remove(xmlTag);
+            return null;
+        }
+        if (attributes != null) {
+            List<DocumentIndex.Entry> candidates = getIndexedCandidates(xmlTag, attributes);
+            if (candidates != null) {
+                DataElement match = null;
+                int matches = 0;
+                for (int i = 0; i < candidates.size() && matches < 2; i++) {
+                    DocumentIndex.Entry entry = candidates.get(i);
+                    if (entry.parent == this && entry.element.matchAttributes(attributes)) {
+                        match = entry.element;
+                        matches++;
                     }
                 }
-                if (!deepGet) {
-                    //didn't find and not deepGet so return null;
-                    return null;
+                if (matches < 2) {
+                    return match;
                 }
-            } else {
-                //no attributes given, return the first one
-                return elements.get(0);
+                //more than one match, fall through to the list so the first one is returned.
             }
-        }
-        if (deepGet) {
-            for (Map.Entry<String, List<DataElement>> listEntry : tagIndexMap.entrySet()) {
-                for (DataElement element : listEntry.getValue()) {
-                    if (element.isObject()) {
-                        DataElement foundElement = element.getValueAsObject(new DataObject()).get(xmlTag, true, attributes);
-                        if (foundElement != null) {
-                            return foundElement;
-                        }
-                    }
+            for (DataElement element : elements) {
+                if (element.matchAttributes(attributes)) {
+                    return element;
                 }
             }
+            return null;
         }
-        //if not found at this point then it doesn't exist.
-        return null;
+        //no attributes given, return the first one
+        return elements.get(0);
+    }
+
+    /**
+     * Searches below the top level of this {@link DataObject} for the first element with the given {@code xmlTag} and
+     * {@code attributes}, using the document's {@link DocumentIndex} if there is one.
+     */
+    @NonNull
+    private DeepFinder findDeep(@NonNull String xmlTag, XMLAttribute... attributes) {
+        DeepFinder finder = new DeepFinder(xmlTag, attributes);
+        if (hasCurrentIndex()) {
+            DocumentIndex.Entry entry = documentIndex.find(this, xmlTag, attributes);
+            if (entry != null) {
+                finder.found = entry.element;
+                finder.foundIn = entry.parent;
+            }
+        } else {
+            new DataWalker().walk(this, finder);
+        }
+        return finder;
+    }
+
+    /**
+     * Enables a {@link DocumentIndex} on this {@link DataObject}, which should be the root of a document. The index turns
+     * deep lookups such as {@link #get(String, boolean, XMLAttribute...)} and {@link #contains(String, boolean...)} into
+     * index lookups instead of searches of the whole document. The index is built on the first deep lookup.
+     *
+     * @return {@link DataObject} this object.
+     */
+    public DataObject enableTagIndex() {
+        if (documentIndex == null || documentIndex.getRoot() != this) {
+            documentIndex = new DocumentIndex(this);
+        }
+        return this;
+    }
+
+    /**
+     * Disables the {@link DocumentIndex} of this {@link DataObject} if it has one.
+     */
+    public void disableTagIndex() {
+        if (documentIndex != null && documentIndex.getRoot() == this) {
+            documentIndex.invalidate();
+            documentIndex = null;
+        }
+    }
+
+    /**
+     * Returns the {@link DocumentIndex} enabled on this {@link DataObject}.
+     *
+     * @return The {@link DocumentIndex} or {@code null} if this object is not the root of an indexed document.
+     */
+    @Nullable
+    public DocumentIndex getTagIndex() {
+        return documentIndex != null && documentIndex.getRoot() == this ? documentIndex : null;
+    }
+
+    /**
+     * Throws away the {@link DocumentIndex} of the document this object is part of, if it has one, so that it is rebuilt
+     * on the next lookup. Call this after changing {@link DataElement DataElements} directly.
+     */
+    public void invalidateTagIndex() {
+        if (hasCurrentIndex()) {
+            documentIndex.invalidate();
+        }
+    }
+
+    /**
+     * Enables a {@link DocumentIndex} on this {@link DataObject} with a secondary index on the value of the {@code
+     * attributeTag} attribute of the elements with the given {@code xmlTag}. Lookups that match on that attribute, such as
+     * {@link #get(String, String, String, boolean...)} and {@link #getList(String, XMLAttribute...)}, then only look at the
+     * elements that have the wanted value.
+     *
+     * @param xmlTag       The tag of the elements to index.
+     * @param attributeTag The tag of the attribute whose value should be indexed.
+     * @return {@link DataObject} this object.
+     * @see DocumentIndex#addAttributeIndex(String, String)
+     */
+    public DataObject enableAttributeIndex(@NonNull String xmlTag, @NonNull String attributeTag) {
+        enableTagIndex();
+        documentIndex.addAttributeIndex(xmlTag, attributeTag);
+        return this;
+    }
+
+    private boolean hasCurrentIndex() {
+        return documentIndex != null && (documentIndex.getRoot() == this || documentIndex.isCurrent(this));
+    }
+
+    /**
+     * @return The entries of the document's attribute index for the given tag and attributes, or {@code null} if there is
+     *         no attribute index that can be used.
+     */
+    @Nullable
+    private List<DocumentIndex.Entry> getIndexedCandidates(@NonNull String xmlTag, XMLAttribute... attributes) {
+        if (attributes == null || attributes.length <= 0 || !hasCurrentIndex()) {
+            return null;
+        }
+        return documentIndex.getAttributeEntries(xmlTag, attributes);
+    }
+
+    void attachIndex(@Nullable DocumentIndex index, int generation) {
+        documentIndex = index;
+        documentIndexGeneration = generation;
+    }
+
+    private void elementAdded(DataElement element) {
+        if (documentIndex != null) {
+            documentIndex.added(element, this);
+        }
+        if (outputCache != null) {
+            outputCache.invalidate();
+        }
+    }
+
+    private void elementRemoved(DataElement element) {
+        if (documentIndex != null) {
+            documentIndex.removed(element, this);
+        }
+        if (outputCache != null) {
+            outputCache.invalidate();
+        }
+    }
+
+    /**
+     * Enables an {@link OutputCache} on this {@link DataObject}, so that the JSON and xml written for it is kept and reused
+     * until it changes. The objects within this one get caches of their own as they are written, so that after a change
+     * only the changed branch is written again.
+     *
+     * @return {@link DataObject} this object.
+     */
+    public DataObject enableOutputCache() {
+        if (outputCache == null) {
+            outputCache = new OutputCache();
+        }
+        return this;
+    }
+
+    /**
+     * Disables the {@link OutputCache} of this {@link DataObject} if it has one, throwing away the cached output of this
+     * object and of the objects it was written within.
+     */
+    public void disableOutputCache() {
+        if (outputCache != null) {
+            outputCache.invalidate();
+            outputCache = null;
+        }
+    }
+
+    /**
+     * Returns the {@link OutputCache} enabled on this {@link DataObject}.
+     *
+     * @return The {@link OutputCache} or {@code null} if output caching is not enabled on this object.
+     */
+    @Nullable
+    public OutputCache getOutputCache() {
+        return outputCache;
+    }
+
+    /**
+     * Throws away the cached output of this {@link DataObject} and of the objects it was written within, if it has an
+     * {@link OutputCache}. Call this after changing {@link DataElement DataElements} directly.
+     */
+    public void invalidateOutputCache() {
+        if (outputCache != null) {
+            outputCache.invalidate();
+        }
+    }
+
+    /**
+     * Walks this {@link DataObject} depth first, calling the given {@link DataVisitor} for every element.
+     *
+     * @param visitor The {@link DataVisitor} to call.
+     * @return {@code False} if the walk was stopped by the visitor, {@code True} otherwise.
+     * @see DataWalker
+     */
+    public boolean walk(@NonNull DataVisitor visitor) {
+        return new DataWalker().walk(this, visitor);
+    }
+
+    /**
+     * Returns a live view of the element lists held by this {@link DataObject}, one list per tag. The view is backed by
+     * this object and must not be modified, it is meant for traversal code such as the {@link DataWalker}.
+     *
+     * @return The element lists of this {@link DataObject}.
+     */
+    @NonNull
+    public Collection<List<DataElement>> getElementLists() {
+        return tagIndexMap.values();
+    }
+
+    /**
+     * Returns a live view of the tags and element lists held by this {@link DataObject}, in the same order as {@link
+     * #getElementLists()}. The view is backed by this object and must not be modified, it is meant for code such as the
+     * serializers.
+     *
+     * @return The tags and element lists of this {@link DataObject}.
+     */
+    @NonNull
+    public Set<Map.Entry<String, List<DataElement>>> getElementEntries() {
+        return tagIndexMap.entrySet();
     }
 
     /**
@@ -1319,6 +1377,20 @@ public class DataObject implements Comparable<DataObject>, Iterable<DataElement>
         } else {
             List<DataElement> elements = tagIndexMap.get(xmlTag);
             returnElements = new ArrayList<>();
+            List<DocumentIndex.Entry> candidates = elements != null ? getIndexedCandidates(xmlTag, attributes) : null;
+            if (candidates != null) {
+                for (int i = 0; i < candidates.size(); i++) {
+                    DocumentIndex.Entry entry = candidates.get(i);
+                    if (entry.parent == this && entry.element.hasAttribute(attributes)) {
+                        returnElements.add(entry.element);
+                    }
+                }
+                if (returnElements.size() < 2) {
+                    return returnElements;
+                }
+                //the index does not keep the order of the list, so collect them from the list instead.
+                returnElements.clear();
+            }
             if (elements != null) {
                 for (DataElement element : elements) {
                     if (element.hasAttribute(attributes)) {
@@ -1456,21 +1528,35 @@ public class DataObject implements Comparable<DataObject>, Iterable<DataElement>
      * @return an xml string representing this {@link DataObject}.
      */
     public String toXML() {
-        return toXML(new StringBuilder(estimateLengthXML()));
+        StringBuilder stringBuilder = new StringBuilder(lengthHintXML);
+        XMLSerializer.write(this, stringBuilder);
+        lengthHintXML = stringBuilder.length();
+        return stringBuilder.toString();
     }
 
     public String toXML(@Nullable StringBuilder stringBuilder) {
         if (stringBuilder == null) {
-            stringBuilder = new StringBuilder(estimateLengthXML());
-        }
-        /*if (root == null) {
-            root();
-        }*/
-        if (firstElement() != null) {
-            for (DataElement el : this) {
-                el.toXML(stringBuilder);
-            }
+            return toXML();
         }
+        XMLSerializer.write(this, stringBuilder);
+        return stringBuilder.toString();
+    }
+
+    /**
+     * Constructs and returns an xml string representing this {@link DataObject}, written on the threads of the given
+     * {@code pool}. This is only worth it for large documents, see {@link ParallelSerializer}.
+     *
+     * @param pool The {@link ForkJoinPool} to write on.
+     * @return an xml string representing this {@link DataObject}.
+     */
+    public String toXML(@NonNull ForkJoinPool pool) {
+        StringBuilder stringBuilder = new StringBuilder(lengthHintXML);
+        try {
+            ParallelSerializer.writeXML(this, DataSink.of(stringBuilder), pool);
+        } catch (IOException e) {
+            throw new IllegalStateException("Writing to a StringBuilder failed", e);
+        }
+        lengthHintXML = stringBuilder.length();
         return stringBuilder.toString();
     }
 
@@ -1506,15 +1592,81 @@ public class DataObject implements Comparable<DataObject>, Iterable<DataElement>
      */
     public String toFormattedXML(int indentCount) {
         StringBuilder string = new StringBuilder();
-        for (DataElement el : this) {
-            string.append(el.toFormattedXML(indentCount)).append("\n");
-        }
-        while (string.toString().endsWith("\n")) {
-            string = new StringBuilder(string.substring(0, string.lastIndexOf("\n")));
-        }
+        XMLSerializer.writeFormatted(this, indentCount, string);
         return string.toString();
     }
 
+    /**
+     * Writes this {@link DataObject} as xml to the given {@code out}, without building the whole document in memory
+     * first.
+     *
+     * @param out The {@link Appendable}, such as a {@link java.io.Writer}, to write to.
+     * @throws IOException if writing to {@code out} fails.
+     */
+    public void writeXML(@NonNull Appendable out) throws IOException {
+        DataSink sink = DataSink.of(out);
+        XMLSerializer.write(this, sink);
+        sink.flush();
+    }
+
+    /**
+     * Writes this {@link DataObject} as xml to the given {@code out}, written on the threads of the given {@code pool}.
+     * This is only worth it for large documents, see {@link ParallelSerializer}.
+     *
+     * @param out  The {@link Appendable}, such as a {@link java.io.Writer}, to write to.
+     * @param pool The {@link ForkJoinPool} to write on.
+     * @throws IOException if writing to {@code out} fails.
+     */
+    public void writeXML(@NonNull Appendable out, @NonNull ForkJoinPool pool) throws IOException {
+        DataSink sink = DataSink.of(out);
+        ParallelSerializer.writeXML(this, sink, pool);
+        sink.flush();
+    }
+
+    /**
+     * Writes this {@link DataObject} as xml encoded in UTF-8 to the given {@code out}, without building the xml
+     * {@link String} first. This has its own name because a {@link java.io.PrintStream PrintStream} is both an {@link
+     * OutputStream} and an {@link Appendable}, see {@link #writeXML(Appendable)}.
+     *
+     * @param out The {@link OutputStream} to write to.
+     * @throws IOException if writing to {@code out} fails.
+     */
+    public void writeXMLUtf8(@NonNull OutputStream out) throws IOException {
+        DataSink sink = DataSink.utf8(out);
+        XMLSerializer.write(this, sink);
+        sink.flush();
+    }
+
+    /**
+     * Writes this {@link DataObject} as xml encoded in UTF-8 into the given {@code buffer}, starting at its position. The
+     * position of the {@code buffer} is moved to the end of the written bytes.
+     *
+     * @param buffer The {@link ByteBuffer} to write into.
+     * @throws BufferOverflowException if the xml doesn't fit in the {@code buffer}.
+     */
+    public void writeXML(@NonNull ByteBuffer buffer) {
+        try {
+            DataSink sink = DataSink.utf8(buffer);
+            XMLSerializer.write(this, sink);
+            sink.flush();
+        } catch (IOException e) {
+            throw new IllegalStateException("Writing to a ByteBuffer failed", e);
+        }
+    }
+
+    /**
+     * Writes this {@link DataObject} as formatted xml to the given {@code out}, without building the whole document in
+     * memory first.
+     *
+     * @param out The {@link Appendable}, such as a {@link java.io.Writer}, to write to.
+     * @throws IOException if writing to {@code out} fails.
+     */
+    public void writeFormattedXML(@NonNull Appendable out) throws IOException {
+        DataSink sink = DataSink.of(out);
+        XMLSerializer.writeFormatted(this, 0, sink);
+        sink.flush();
+    }
+
     public int estimateLengthXML() {
         return estimateLengthXML(this);
     }
@@ -1532,10 +1684,7 @@ public class DataObject implements Comparable<DataObject>, Iterable<DataElement>
         if (length == null) {
             length = new AtomicInteger(0);
         }
-        for (DataElement element : object.getList()) {
-            length.addAndGet(DataElement.estimateLengthFormattedXML(element, indentCount, length));
-        }
-        return length.get();
+        return length.addAndGet(LengthEstimator.estimateXML(object));
     }
 
     public int estimateLengthFormattedXML(int indentCount) {
@@ -1565,7 +1714,39 @@ public class DataObject implements Comparable<DataObject>, Iterable<DataElement>
      * @return {@link String} JSON representation of this {@link DataObject}.
      */
     public String toJSON(String... arrayTags) {
-        return toJSON(new StringBuilder(estimateLengthJSON(arrayTags)), arrayTags);
+        return toJSON(JsonWriteOptions.of(arrayTags));
+    }
+
+    /**
+     * Outputs this {@link DataObject} as a JSON string.
+     *
+     * @param options The {@link JsonWriteOptions} to write with.
+     * @return {@link String} JSON representation of this {@link DataObject}.
+     */
+    public String toJSON(@NonNull JsonWriteOptions options) {
+        StringBuilder stringBuilder = new StringBuilder(lengthHintJSON);
+        JSONSerializer.write(this, stringBuilder, options);
+        lengthHintJSON = stringBuilder.length();
+        return stringBuilder.toString();
+    }
+
+    /**
+     * Outputs this {@link DataObject} as a JSON string, written on the threads of the given {@code pool}. This is only
+     * worth it for large documents, see {@link ParallelSerializer}.
+     *
+     * @param pool      The {@link ForkJoinPool} to write on.
+     * @param arrayTags (Optional) Set of tags to ensure are output as JSON Array even if there is only a single element.
+     * @return {@link String} JSON representation of this {@link DataObject}.
+     */
+    public String toJSON(@NonNull ForkJoinPool pool, String... arrayTags) {
+        StringBuilder stringBuilder = new StringBuilder(lengthHintJSON);
+        try {
+            ParallelSerializer.writeJSON(this, DataSink.of(stringBuilder), JsonWriteOptions.of(arrayTags), pool);
+        } catch (IOException e) {
+            throw new IllegalStateException("Writing to a StringBuilder failed", e);
+        }
+        lengthHintJSON = stringBuilder.length();
+        return stringBuilder.toString();
     }
 
     /**
@@ -1579,62 +1760,87 @@ public class DataObject implements Comparable<DataObject>, Iterable<DataElement>
     //Todo method could use some work - how so?
     public String toJSON(@Nullable StringBuilder stringBuilder, String... arrayTags) {
         if (stringBuilder == null) {
-            stringBuilder = new StringBuilder(estimateLengthJSON());
-        }
-        if (firstElement() != null) {
-            //either we have an anonymous array or we have an object, it is illegal to have both
-            if (tagIndexMap.containsKey(ANONYMOUS_ARRAY_TAG)) {
-                //this object is a JSONArray.
-                List<DataElement> elements = tagIndexMap.get(ANONYMOUS_ARRAY_TAG);
-                stringBuilder.append("[");
-                for (int j = 0; j < elements.size(); j++) {
-                    DataElement el = elements.get(j);
-                    el.toJSON(stringBuilder, arrayTags);
-                    if (j < elements.size() - 1) {
-                        stringBuilder.append(",");
-                    }
-                }
-                stringBuilder.append("]");
-            } else {
-                stringBuilder.append("{");
-                String[] tags = tagIndexMap.keySet().toArray(new String[]{});
-                for (int i = 0; i < tags.length; i++) {
-                    String tag = tags[i];
-                    List<DataElement> elements = tagIndexMap.get(tag);
-                    if (elements.size() == 1) {
-                        //just one element for this tag
-                        boolean forceArray = arrayTags != null && Arrays.asList(arrayTags)
-                                                                        .contains(tag);// if this tag is in the arrayTags array then we know we need to output it as if it is a JSON_array even though it is only one element.
-                        stringBuilder.append("\"").append(tag).append("\":");
-                        if (forceArray) {
-                            stringBuilder.append("[");
-                        }
-                        elements.get(0).toJSON(stringBuilder, arrayTags);
-                        if (forceArray) {
-                            stringBuilder.append("]");
-                        }
-                    } else {
-                        //we have an array for this tag
-                        stringBuilder.append("\"").append(tag).append("\":[");
-                        for (int j = 0; j < elements.size(); j++) {
-                            DataElement el = elements.get(j);
-                            el.toJSON(stringBuilder, arrayTags);
-                            if (j < elements.size() - 1) {
-                                stringBuilder.append(",");
-                            }
-                        }
-                        stringBuilder.append("]");
-                    }
-                    if (i < tags.length - 1) {
-                        stringBuilder.append(",");
-                    }
-                }
-                stringBuilder.append("}");
-            }
+            return toJSON(arrayTags);
         }
+        JSONSerializer.write(this, stringBuilder, arrayTags);
         return stringBuilder.toString();
     }
 
+    /**
+     * Writes this {@link DataObject} as JSON to the given {@code out}, without building the whole document in memory
+     * first.
+     *
+     * @param out       The {@link Appendable}, such as a {@link java.io.Writer}, to write to.
+     * @param arrayTags (Optional) Set of tags to ensure are output as JSON Array even if there is only a single element.
+     * @throws IOException if writing to {@code out} fails.
+     */
+    public void writeJSON(@NonNull Appendable out, String... arrayTags) throws IOException {
+        writeJSON(out, JsonWriteOptions.of(arrayTags));
+    }
+
+    /**
+     * Writes this {@link DataObject} as JSON to the given {@code out}, without building the whole document in memory
+     * first.
+     *
+     * @param out     The {@link Appendable}, such as a {@link java.io.Writer}, to write to.
+     * @param options The {@link JsonWriteOptions} to write with.
+     * @throws IOException if writing to {@code out} fails.
+     */
+    public void writeJSON(@NonNull Appendable out, @NonNull JsonWriteOptions options) throws IOException {
+        DataSink sink = DataSink.of(out);
+        JSONSerializer.write(this, sink, options);
+        sink.flush();
+    }
+
+    /**
+     * Writes this {@link DataObject} as JSON to the given {@code out}, written on the threads of the given {@code pool}.
+     * This is only worth it for large documents, see {@link ParallelSerializer}.
+     *
+     * @param out       The {@link Appendable}, such as a {@link java.io.Writer}, to write to.
+     * @param pool      The {@link ForkJoinPool} to write on.
+     * @param arrayTags (Optional) Set of tags to ensure are output as JSON Array even if there is only a single element.
+     * @throws IOException if writing to {@code out} fails.
+     */
+    public void writeJSON(@NonNull Appendable out, @NonNull ForkJoinPool pool, String... arrayTags) throws IOException {
+        DataSink sink = DataSink.of(out);
+        ParallelSerializer.writeJSON(this, sink, JsonWriteOptions.of(arrayTags), pool);
+        sink.flush();
+    }
+
+    /**
+     * Writes this {@link DataObject} as JSON encoded in UTF-8 to the given {@code out}, without building the JSON
+     * {@link String} first. This has its own name because a {@link java.io.PrintStream PrintStream} is both an {@link
+     * OutputStream} and an {@link Appendable}, see {@link #writeJSON(Appendable, String...)}.
+     *
+     * @param out       The {@link OutputStream} to write to.
+     * @param arrayTags (Optional) Set of tags to ensure are output as JSON Array even if there is only a single element.
+     * @throws IOException if writing to {@code out} fails.
+     */
+    public void writeJSONUtf8(@NonNull OutputStream out, String... arrayTags) throws IOException {
+        DataSink sink = DataSink.utf8(out);
+        JSONSerializer.write(this, sink, arrayTags);
+        sink.flush();
+    }
+
+    /**
+     * Writes this {@link DataObject} as JSON encoded in UTF-8 into the given {@code buffer}, starting at its position. The
+     * position of the {@code buffer} is moved to the end of the written bytes, ready to be flipped and handed to a
+     * {@link java.nio.channels.FileChannel FileChannel}.
+     *
+     * @param buffer    The {@link ByteBuffer} to write into.
+     * @param arrayTags (Optional) Set of tags to ensure are output as JSON Array even if there is only a single element.
+     * @throws BufferOverflowException if the JSON doesn't fit in the {@code buffer}.
+     */
+    public void writeJSON(@NonNull ByteBuffer buffer, String... arrayTags) {
+        try {
+            DataSink sink = DataSink.utf8(buffer);
+            JSONSerializer.write(this, sink, arrayTags);
+            sink.flush();
+        } catch (IOException e) {
+            throw new IllegalStateException("Writing to a ByteBuffer failed", e);
+        }
+    }
+
     /**
      * Outputs this {@link DataObject} as a formatted JSON string.
      *
@@ -1642,11 +1848,35 @@ public class DataObject implements Comparable<DataObject>, Iterable<DataElement>
      * @return {@link String} JSON representation of this {@link DataObject}.
      */
     public String toFormattedJSON(String... arrayTags) {
-        return toFormattedJSON(0, new StringBuilder(estimateLengthFormattedJSON(arrayTags)), arrayTags);
+        return toFormattedJSON(0, arrayTags);
+    }
+
+    /**
+     * Outputs this {@link DataObject} as a formatted JSON string.
+     *
+     * @param options The {@link JsonWriteOptions} to write with.
+     * @return {@link String} JSON representation of this {@link DataObject}.
+     */
+    public String toFormattedJSON(@NonNull JsonWriteOptions options) {
+        return toFormattedJSON(0, options);
     }
 
     public String toFormattedJSON(int indentCount, String... arrayTags) {
-        return toFormattedJSON(indentCount, new StringBuilder(estimateLengthFormattedJSON(arrayTags)), arrayTags);
+        return toFormattedJSON(indentCount, JsonWriteOptions.of(arrayTags));
+    }
+
+    /**
+     * Outputs this {@link DataObject} as a formatted JSON string.
+     *
+     * @param indentCount The starting indentation level.
+     * @param options     The {@link JsonWriteOptions} to write with.
+     * @return {@link String} JSON representation of this {@link DataObject}.
+     */
+    public String toFormattedJSON(int indentCount, @NonNull JsonWriteOptions options) {
+        StringBuilder stringBuilder = new StringBuilder(lengthHintFormattedJSON);
+        JSONSerializer.writeFormatted(this, indentCount, stringBuilder, options);
+        lengthHintFormattedJSON = stringBuilder.length();
+        return stringBuilder.toString();
     }
 
     /**
@@ -1659,71 +1889,202 @@ public class DataObject implements Comparable<DataObject>, Iterable<DataElement>
      */
     public String toFormattedJSON(int indentCount, @Nullable StringBuilder stringBuilder, String... arrayTags) {
         if (stringBuilder == null) {
-            stringBuilder = new StringBuilder(estimateLengthFormattedJSON(indentCount, arrayTags));
+            return toFormattedJSON(indentCount, arrayTags);
         }
-        if (firstElement() != null) {
-            StringBuilder indentSB = new StringBuilder(TAB_LEN * indentCount);
-            for (int i = 0; i < indentCount; i++) {
-                indentSB.append(TAB);
+        JSONSerializer.writeFormatted(this, indentCount, stringBuilder, arrayTags);
+        return stringBuilder.toString();
+    }
+
+    /**
+     * Writes this {@link DataObject} as formatted JSON to the given {@code out}, without building the whole document in
+     * memory first.
+     *
+     * @param out       The {@link Appendable}, such as a {@link java.io.Writer}, to write to.
+     * @param arrayTags (Optional) Set of tags to ensure are output as JSON Array even if there is only a single element.
+     * @throws IOException if writing to {@code out} fails.
+     */
+    public void writeFormattedJSON(@NonNull Appendable out, String... arrayTags) throws IOException {
+        writeFormattedJSON(out, JsonWriteOptions.of(arrayTags));
+    }
+
+    /**
+     * Writes this {@link DataObject} as formatted JSON to the given {@code out}, without building the whole document in
+     * memory first.
+     *
+     * @param out     The {@link Appendable}, such as a {@link java.io.Writer}, to write to.
+     * @param options The {@link JsonWriteOptions} to write with.
+     * @throws IOException if writing to {@code out} fails.
+     */
+    public void writeFormattedJSON(@NonNull Appendable out, @NonNull JsonWriteOptions options) throws IOException {
+        DataSink sink = DataSink.of(out);
+        JSONSerializer.writeFormatted(this, 0, sink, options);
+        sink.flush();
+    }
+
+    /**
+     * @return This {@link DataObject} encoded as CBOR, see {@link CBORSerializer}.
+     */
+    public byte[] toCBOR() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try {
+            CBORSerializer.write(this, out);
+        } catch (IOException e) {
+            throw new IllegalStateException("Writing to a ByteArrayOutputStream failed", e);
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Writes this {@link DataObject} encoded as CBOR to the given {@code out}, see {@link CBORSerializer}.
+     *
+     * @param out The {@link OutputStream} to write to.
+     * @throws IOException if writing to {@code out} fails.
+     */
+    public void writeCBOR(@NonNull OutputStream out) throws IOException {
+        CBORSerializer.write(this, out);
+    }
+
+    /**
+     * Creates a {@link DataObject} from the given CBOR {@code data}, such as the output of {@link #toCBOR()}.
+     *
+     * @param data The CBOR to parse.
+     * @param args Optional, {@link Boolean Boolean[]}:<pre>	index 0: Ignore Attributes.<br/>	index 1: Verbose
+     *                                     Logging.</pre>
+     * @return The parsed {@link DataObject}.
+     * @throws ParsingException If the given CBOR is malformed or invalid.
+     */
+    public static DataObject fromCBOR(@NonNull byte[] data, boolean... args) throws ParsingException {
+        DataObject dataObject = new DataObject(args);
+        dataObject.parseCBOR(data);
+        return dataObject;
+    }
+
+    /**
+     * Deletes all current data and re-populates from the given CBOR {@code data}.
+     *
+     * @param data The CBOR to parse.
+     * @throws ParsingException If the given CBOR is malformed or invalid.
+     */
+    public void parseCBOR(@NonNull byte[] data) throws ParsingException {
+        try {
+            parseCBOR(new CBORReader(data));
+        } catch (IOException e) {
+            throw new IllegalStateException("Reading from a byte array failed", e);
+        }
+    }
+
+    /**
+     * Deletes all current data and re-populates from the CBOR read from the given {@code in}.
+     *
+     * @param in The {@link InputStream} to read the CBOR from.
+     * @throws IOException      if reading from {@code in} fails.
+     * @throws ParsingException If the CBOR is malformed or invalid.
+     */
+    public void parseCBOR(@NonNull InputStream in) throws IOException, ParsingException {
+        parseCBOR(new CBORReader(in));
+    }
+
+    private void parseCBOR(@NonNull CBORReader reader) throws IOException, ParsingException {
+        if (tagIndexMap != null) {
+            tagIndexMap.clear();
+        } else {
+            tagIndexMap = new HashMap<>();
+        }
+        invalidateTagIndex();
+        invalidateOutputCache();
+        Parser.parse(reader, this, ignoreAttributes, verbose);
+    }
+
+    /**
+     * @return A snapshot of this {@link DataObject} for caching, see {@link SnapshotSerializer}.
+     * @throws IllegalArgumentException if the snapshot would be larger than {@link SnapshotSerializer#MAX_SIZE}.
+     */
+    public byte[] toSnapshot() {
+        return SnapshotSerializer.write(this);
+    }
+
+    /**
+     * Writes a snapshot of this {@link DataObject} to the given {@code out}, see {@link SnapshotSerializer}.
+     *
+     * @param out The {@link OutputStream} to write to.
+     * @throws IOException              if writing to {@code out} fails.
+     * @throws IllegalArgumentException if the snapshot would be larger than {@link SnapshotSerializer#MAX_SIZE}.
+     */
+    public void writeSnapshot(@NonNull OutputStream out) throws IOException {
+        SnapshotSerializer.write(this, out);
+    }
+
+    /**
+     * Loads a {@link DataObject} from the given snapshot, written by {@link #toSnapshot()}.
+     *
+     * @param data The snapshot.
+     * @param args Optional, {@link Boolean Boolean[]}:<pre>	index 0: Ignore Attributes.<br/>	index 1: Verbose
+     *                                     Logging.</pre>
+     * @return The loaded {@link DataObject}.
+     * @throws ParsingException If {@code data} is not a snapshot or is corrupt.
+     */
+    public static DataObject fromSnapshot(@NonNull byte[] data, boolean... args) throws ParsingException {
+        return fromSnapshot(ByteBuffer.wrap(data), args);
+    }
+
+    /**
+     * Loads a {@link DataObject} from the snapshot in the given {@code data}, from its position to its limit.
+     *
+     * @param data The snapshot.
+     * @param args Optional, {@link Boolean Boolean[]}:<pre>	index 0: Ignore Attributes.<br/>	index 1: Verbose
+     *                                     Logging.</pre>
+     * @return The loaded {@link DataObject}.
+     * @throws ParsingException If {@code data} is not a snapshot or is corrupt.
+     */
+    public static DataObject fromSnapshot(@NonNull ByteBuffer data, boolean... args) throws ParsingException {
+        DataObject dataObject = new DataObject(args);
+        dataObject.parseSnapshot(data);
+        return dataObject;
+    }
+
+    /**
+     * Loads a {@link DataObject} from the snapshot in the given {@code file}, which is read in one go.
+     *
+     * @param file The snapshot file, written with {@link #writeSnapshot(OutputStream)}.
+     * @param args Optional, {@link Boolean Boolean[]}:<pre>	index 0: Ignore Attributes.<br/>	index 1: Verbose
+     *                                     Logging.</pre>
+     * @return The loaded {@link DataObject}.
+     * @throws IOException      if reading the {@code file} fails.
+     * @throws ParsingException If the {@code file} is not a snapshot or is corrupt.
+     */
+    public static DataObject fromSnapshot(@NonNull File file, boolean... args) throws IOException, ParsingException {
+        FileInputStream in = new FileInputStream(file);
+        try {
+            FileChannel channel = in.getChannel();
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new ParsingException("Snapshot file is too large: " + file);
             }
-            //either we have an anonymous array or we have an object, it is illegal to have both
-            if (tagIndexMap.containsKey(ANONYMOUS_ARRAY_TAG)) {
-                //this object is a JSONArray.
-                List<DataElement> elements = tagIndexMap.get(ANONYMOUS_ARRAY_TAG);
-                stringBuilder.append(indentSB).append("[").append(NEW_LINE);
-                for (int j = 0; j < elements.size(); j++) {
-                    DataElement el = elements.get(j);
-                    el.toFormattedJSON(indentCount + 1, stringBuilder, arrayTags);
-                    if (j < elements.size() - 1) {
-                        stringBuilder.append(",");
-                    }
-                    stringBuilder.append(NEW_LINE);
-                }
-                stringBuilder.append(indentSB).append("]");
-            } else {
-                if (stringBuilder.length() > 0 && stringBuilder.charAt(stringBuilder.length() - 1) == '\n') {
-                    stringBuilder.append(indentSB);
-                }
-                stringBuilder.append("{").append(NEW_LINE);
-                StringBuilder innerIndentSB = new StringBuilder(indentSB).append(TAB);
-                String[] tags = tagIndexMap.keySet().toArray(new String[]{});
-                for (int i = 0; i < tags.length; i++) {
-                    String tag = tags[i];
-                    List<DataElement> elements = tagIndexMap.get(tag);
-                    if (elements.size() == 1) {
-                        //just one element for this tag
-                        stringBuilder.append(innerIndentSB).append("\"").append(tag).append("\" : ");
-                        if (arrayTags != null && Arrays.asList(arrayTags)
-                                                       .contains(tag)) {// if this tag is in the arrayTags array then we know we need to output it as if it is a JSON_array even though it is only one element.
-                            stringBuilder.append("[").append(NEW_LINE);//.append(innerIndentSB);
-                            elements.get(0).toFormattedJSON(indentCount + 1, stringBuilder, arrayTags);
-                            stringBuilder.append(NEW_LINE).append(innerIndentSB).append("]");
-                        } else {
-                            elements.get(0).toFormattedJSON(indentCount, stringBuilder, arrayTags);
-                        }
-                    } else {
-                        //we have an array for this tag
-                        stringBuilder.append(innerIndentSB).append("\"").append(tag).append("\" : [")
-                                     .append(NEW_LINE);//.append(innerIndentSB);
-                        for (int j = 0; j < elements.size(); j++) {
-                            DataElement el = elements.get(j);
-                            el.toFormattedJSON(indentCount + 1, stringBuilder, arrayTags);
-                            if (j < elements.size() - 1) {
-                                stringBuilder.append(",");
-                            }
-                            stringBuilder.append(NEW_LINE);//.append(innerIndentSB);
-                        }
-                        stringBuilder.append(innerIndentSB).append("]");
-                    }
-                    if (i < tags.length - 1) {
-                        stringBuilder.append(",");
-                    }
-                    stringBuilder.append(NEW_LINE);
-                }
-                stringBuilder.append(indentSB).append("}");
+            ByteBuffer buffer = ByteBuffer.allocate((int) channel.size());
+            while (buffer.hasRemaining() && channel.read(buffer) >= 0) {
+                ;
             }
+            buffer.flip();
+            return fromSnapshot(buffer, args);
+        } finally {
+            in.close();
         }
-        return stringBuilder.toString();
+    }
+
+    /**
+     * Deletes all current data and re-populates from the snapshot in the given {@code data}.
+     *
+     * @param data The snapshot, from its position to its limit.
+     * @throws ParsingException If {@code data} is not a snapshot or is corrupt.
+     */
+    public void parseSnapshot(@NonNull ByteBuffer data) throws ParsingException {
+        if (tagIndexMap != null) {
+            tagIndexMap.clear();
+        } else {
+            tagIndexMap = new HashMap<>();
+        }
+        invalidateTagIndex();
+        invalidateOutputCache();
+        Parser.parse(data, this, ignoreAttributes, verbose);
     }
 
     public DataObject merge(DataObject other) {
@@ -1738,6 +2099,8 @@ public class DataObject implements Comparable<DataObject>, Iterable<DataElement>
                     this.insert(other.tagIndexMap.get(otherTags[i]));
                 }
             }
+            invalidateTagIndex();
+            invalidateOutputCache();
         }
         return this;
     }
@@ -1763,6 +2126,41 @@ public class DataObject implements Comparable<DataObject>, Iterable<DataElement>
         return tagIndexMap == null || tagIndexMap.isEmpty();
     }
 
+    /**
+     * Visitor used by the deep {@code get} and {@code remove} functions, it finds the first {@link DataObject} below the
+     * top level that holds a matching element. Objects are checked in the same order as a recursive search would, each
+     * object's own elements before any of its children.
+     */
+    private static final class DeepFinder extends SimpleDataVisitor {
+        private final String xmlTag;
+        private final XMLAttribute[] attributes;
+        DataElement found = null;
+        DataObject foundIn = null;
+
+        DeepFinder(String xmlTag, XMLAttribute[] attributes) {
+            this.xmlTag = xmlTag;
+            this.attributes = attributes;
+        }
+
+        @Override
+        public int enter(@NonNull DataElement element, @Nullable DataObject parent, int depth) {
+            if (element.isArray()) {
+                //the deep search has never looked inside of arrays
+                return SKIP_SUBTREE;
+            }
+            if (element.isObject()) {
+                DataObject object = (DataObject) element.value;
+                DataElement match = object.getLocal(xmlTag, attributes);
+                if (match != null) {
+                    found = match;
+                    foundIn = object;
+                    return STOP;
+                }
+            }
+            return CONTINUE;
+        }
+    }
+
 //    /**
 //     * This method will use the provided {@link EncryptionUtil.EncryptionInterface#encrypt(Context, String)} to encrypt the
 //     * value of
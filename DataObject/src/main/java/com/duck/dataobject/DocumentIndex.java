@@ -0,0 +1,438 @@
+package com.duck.dataobject;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.duck.dataobject.node.DataElement;
+import com.duck.dataobject.node.XMLAttribute;
+import com.duck.dataobject.walker.DataWalker;
+import com.duck.dataobject.walker.SimpleDataVisitor;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+
+/**
+ * Document level index from a tag to every {@link DataElement} with that tag, along with the {@link DataObject} holding
+ * each of those elements. It lets deep lookups such as {@link DataObject#get(String, boolean, XMLAttribute...)} and
+ * {@link DataObject#contains(String, boolean...)} find their element without searching the whole tree.
+ * <p>
+ * An index is enabled on the root of a document with {@link DataObject#enableTagIndex()}. It is built lazily on the first
+ * lookup and from then on it is kept up to date by the {@code insert}, {@code update}, {@code remove} and {@code merge}
+ * functions of every {@link DataObject} in the document. Changes made directly on a {@link DataElement}, for example by
+ * calling {@link DataElement#update(String, boolean...)} or assigning its {@code value}, are not seen by the index, call
+ * {@link DataObject#invalidateTagIndex()} after making them.
+ * <p>
+ * Secondary indexes on the value of an attribute can be added for a tag with {@link #addAttributeIndex(String, String)},
+ * these are used by lookups that match on that attribute such as {@link DataObject#get(String, String, String,
+ * boolean...)} and {@link DataObject#getList(String, XMLAttribute...)}. Adding or removing attributes directly on an
+ * element is not seen by the index either.
+ * <p>
+ * Like the deep search, the index does not look inside of array values. When several elements share a tag the index
+ * returns the same one the deep search would. Adding elements can change the order the deep search visits a document in,
+ * so after elements have been added the index is rebuilt before answering a lookup that has more than one match.
+ */
+public final class DocumentIndex {
+    private final DataObject root;
+    private final HashMap<String, List<Entry>> entries = new HashMap<>();
+    //maps each indexed DataObject, other than the root, to the DataObject it sits in.
+    private final IdentityHashMap<DataObject, DataObject> parents = new IdentityHashMap<>();
+    //tag -> attribute tag -> attribute value -> entries
+    private final HashMap<String, HashMap<String, HashMap<String, List<Entry>>>> attributeIndexes = new HashMap<>();
+
+    private final Indexer indexer = new Indexer();
+    private final DataWalker walker = new DataWalker();
+    private boolean built = false;
+    //false once elements have been added since the last build, the entries may no longer be in deep search order.
+    private boolean ordered = true;
+    private int generation = 0;
+
+    DocumentIndex(@NonNull DataObject root) {
+        this.root = root;
+        root.attachIndex(this, generation);
+    }
+
+    /**
+     * @return The root {@link DataObject} of the indexed document.
+     */
+    @NonNull
+    public DataObject getRoot() {
+        return root;
+    }
+
+    /**
+     * Returns every indexed {@link Entry} with the given {@code tag}, building the index first if needed.
+     *
+     * @param tag The tag to look up.
+     * @return The entries for the given tag, this list must not be modified.
+     */
+    @NonNull
+    public List<Entry> getEntries(@NonNull String tag) {
+        ensureBuilt();
+        List<Entry> list = entries.get(tag);
+        return list != null ? list : Collections.<Entry>emptyList();
+    }
+
+    /**
+     * Returns the {@link DataObject} holding the given {@link DataElement}.
+     *
+     * @param element The element to find the parent of.
+     * @return The parent of the given element, or {@code null} if the element is not in the indexed document.
+     */
+    @Nullable
+    public DataObject getParent(@NonNull DataElement element) {
+        for (Entry entry : getEntries(element.tag)) {
+            if (entry.element == element) {
+                return entry.parent;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Adds a secondary index on the value of the {@code attributeTag} attribute of the elements with the given {@code
+     * xmlTag}.
+     *
+     * @param xmlTag       The tag of the elements to index.
+     * @param attributeTag The tag of the attribute whose value should be indexed.
+     * @return {@link DocumentIndex} this index.
+     */
+    public DocumentIndex addAttributeIndex(@NonNull String xmlTag, @NonNull String attributeTag) {
+        HashMap<String, HashMap<String, List<Entry>>> byAttribute = attributeIndexes.get(xmlTag);
+        if (byAttribute == null) {
+            byAttribute = new HashMap<>(2);
+            attributeIndexes.put(xmlTag, byAttribute);
+        }
+        if (!byAttribute.containsKey(attributeTag)) {
+            HashMap<String, List<Entry>> byValue = new HashMap<>();
+            byAttribute.put(attributeTag, byValue);
+            List<Entry> list = entries.get(xmlTag);
+            if (list != null) {
+                for (int i = 0; i < list.size(); i++) {
+                    Entry entry = list.get(i);
+                    addToBucket(byValue, entry, entry.element.getAttributeValue(attributeTag));
+                }
+            }
+        }
+        return this;
+    }
+
+    /**
+     * @return {@code True} if there is a secondary index on the given attribute of the elements with the given tag.
+     */
+    public boolean hasAttributeIndex(@NonNull String xmlTag, @NonNull String attributeTag) {
+        HashMap<String, HashMap<String, List<Entry>>> byAttribute = attributeIndexes.get(xmlTag);
+        return byAttribute != null && byAttribute.containsKey(attributeTag);
+    }
+
+    /**
+     * Returns every indexed {@link Entry} with the given {@code xmlTag} that has the given attribute value, building the
+     * index first if needed.
+     *
+     * @param xmlTag         The tag to look up.
+     * @param attributeTag   The attribute tag to look up, there must be an attribute index for it.
+     * @param attributeValue The attribute value to look up.
+     * @return The entries for the given tag and attribute value, this list must not be modified.
+     * @throws IllegalStateException if there is no attribute index for the given tag and attribute tag.
+     */
+    @NonNull
+    public List<Entry> getEntries(@NonNull String xmlTag, @NonNull String attributeTag, @NonNull String attributeValue) {
+        List<Entry> list = getAttributeEntries(xmlTag, new XMLAttribute(attributeTag, attributeValue));
+        if (list == null) {
+            throw new IllegalStateException("There is no attribute index for " + attributeTag + " on <" + xmlTag + ">");
+        }
+        return list;
+    }
+
+    /**
+     * Returns the entries with the given {@code xmlTag} that have the value of the first of the given {@code attributes}
+     * that has an attribute index, building the index first if needed.
+     *
+     * @return The matching entries, or {@code null} if none of the attributes have an attribute index.
+     */
+    @Nullable
+    List<Entry> getAttributeEntries(@NonNull String xmlTag, @Nullable XMLAttribute... attributes) {
+        HashMap<String, HashMap<String, List<Entry>>> byAttribute = attributeIndexes.get(xmlTag);
+        if (byAttribute == null || attributes == null) {
+            return null;
+        }
+        for (XMLAttribute attribute : attributes) {
+            HashMap<String, List<Entry>> byValue = byAttribute.get(attribute.getTag());
+            if (byValue != null) {
+                ensureBuilt();
+                List<Entry> list = byValue.get(attribute.getValueAsString());
+                return list != null ? list : Collections.<Entry>emptyList();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Builds the index if needed, and rebuilds it if elements have been added since it was built, so that the entries of
+     * each tag are listed in the same order a deep search visits them in.
+     */
+    public void ensureOrdered() {
+        ensureBuilt();
+        if (!ordered) {
+            invalidate();
+            ensureBuilt();
+        }
+    }
+
+    /**
+     * Throws away the current index, it will be rebuilt on the next lookup.
+     */
+    public void invalidate() {
+        if (built) {
+            built = false;
+            entries.clear();
+            parents.clear();
+            for (HashMap<String, HashMap<String, List<Entry>>> byAttribute : attributeIndexes.values()) {
+                for (HashMap<String, List<Entry>> byValue : byAttribute.values()) {
+                    byValue.clear();
+                }
+            }
+            //stale objects still point here, moving on a generation means they will be ignored
+            generation++;
+            root.attachIndex(this, generation);
+        }
+    }
+
+    /**
+     * Finds the first element with the given {@code xmlTag} and {@code attributes} below the top level of {@code scope},
+     * in the same order as a deep search of {@code scope} would.
+     */
+    @Nullable
+    Entry find(@NonNull DataObject scope, @NonNull String xmlTag, @Nullable XMLAttribute[] attributes) {
+        List<Entry> list = getAttributeEntries(xmlTag, attributes);
+        if (list == null) {
+            list = getEntries(xmlTag);
+        }
+        Entry found = null;
+        for (int i = 0; i < list.size(); i++) {
+            Entry entry = list.get(i);
+            if (matches(entry, scope, attributes)) {
+                if (found == null) {
+                    found = entry;
+                    if (ordered) {
+                        break;
+                    }
+                } else {
+                    //more than one match and they might be out of order, rebuild and look again.
+                    invalidate();
+                    ensureBuilt();
+                    return isCurrent(scope) ? find(scope, xmlTag, attributes) : null;
+                }
+            }
+        }
+        return found;
+    }
+
+    private boolean matches(Entry entry, DataObject scope, @Nullable XMLAttribute[] attributes) {
+        //the top level of the scope has already been searched by the caller
+        return entry.parent != scope && isWithin(scope, entry.parent)
+                && (attributes == null || entry.element.matchAttributes(attributes));
+    }
+
+    /**
+     * @return {@code True} if the given object is part of the current index.
+     */
+    boolean isCurrent(@NonNull DataObject object) {
+        return built && object.documentIndex == this && object.documentIndexGeneration == generation;
+    }
+
+    /**
+     * Called by the given {@code parent} after it has gained the given {@code element}.
+     */
+    void added(@NonNull DataElement element, @NonNull DataObject parent) {
+        if (isCurrent(parent)) {
+            ordered = false;
+            addEntry(element, parent);
+            if (element.isObject()) {
+                indexObject((DataObject) element.value, parent);
+            }
+        }
+    }
+
+    /**
+     * Called by the given {@code parent} after it has lost the given {@code element}.
+     */
+    void removed(@NonNull DataElement element, @NonNull DataObject parent) {
+        if (isCurrent(parent)) {
+            removeEntry(element, parent);
+            if (element.isObject()) {
+                unindexObject((DataObject) element.value);
+            }
+        }
+    }
+
+    private void ensureBuilt() {
+        if (!built) {
+            built = true;
+            indexObject(root, null);
+            ordered = true;
+        }
+    }
+
+    private boolean isWithin(DataObject scope, DataObject object) {
+        if (scope == root) {
+            return true;
+        }
+        while (object != null) {
+            if (object == scope) {
+                return true;
+            }
+            object = parents.get(object);
+        }
+        return false;
+    }
+
+    /**
+     * Indexes every element of the given object and of all the objects below it, each object's own elements being added
+     * before those of its children.
+     */
+    private void indexObject(DataObject object, @Nullable DataObject parent) {
+        attach(object, parent);
+        indexer.adding = true;
+        walker.walk(object, indexer);
+    }
+
+    private void unindexObject(DataObject object) {
+        indexer.adding = false;
+        walker.walk(object, indexer);
+        detach(object);
+    }
+
+    private void attach(DataObject object, @Nullable DataObject parent) {
+        object.attachIndex(this, generation);
+        if (parent != null) {
+            parents.put(object, parent);
+        }
+        for (List<DataElement> list : object.getElementLists()) {
+            for (int i = 0; i < list.size(); i++) {
+                addEntry(list.get(i), object);
+            }
+        }
+    }
+
+    private void detach(DataObject object) {
+        for (List<DataElement> list : object.getElementLists()) {
+            for (int i = 0; i < list.size(); i++) {
+                removeEntry(list.get(i), object);
+            }
+        }
+        parents.remove(object);
+        object.attachIndex(null, 0);
+    }
+
+    private void addEntry(DataElement element, DataObject parent) {
+        List<Entry> list = entries.get(element.tag);
+        if (list == null) {
+            list = new ArrayList<>(1);
+            entries.put(element.tag, list);
+        }
+        Entry entry = new Entry(element, parent);
+        list.add(entry);
+        HashMap<String, HashMap<String, List<Entry>>> byAttribute = attributeIndexes.get(element.tag);
+        if (byAttribute != null && element.hasAttributes()) {
+            for (int i = 0; i < element.getAttributeCount(); i++) {
+                HashMap<String, List<Entry>> byValue = byAttribute.get(element.getAttributeTag(i));
+                if (byValue != null) {
+                    addToBucket(byValue, entry, element.getAttributeValue(i));
+                }
+            }
+        }
+    }
+
+    private static void addToBucket(HashMap<String, List<Entry>> byValue, Entry entry, @Nullable String value) {
+        if (value != null) {
+            List<Entry> bucket = byValue.get(value);
+            if (bucket == null) {
+                bucket = new ArrayList<>(1);
+                byValue.put(value, bucket);
+            }
+            bucket.add(entry);
+        }
+    }
+
+    private static void removeFromBucket(HashMap<String, List<Entry>> byValue, DataElement element, String value) {
+        List<Entry> bucket = byValue.get(value);
+        if (bucket != null) {
+            for (int i = 0; i < bucket.size(); i++) {
+                if (bucket.get(i).element == element) {
+                    bucket.remove(i);
+                    break;
+                }
+            }
+            if (bucket.isEmpty()) {
+                byValue.remove(value);
+            }
+        }
+    }
+
+    private void removeEntry(DataElement element, DataObject parent) {
+        List<Entry> list = entries.get(element.tag);
+        if (list != null) {
+            for (int i = 0; i < list.size(); i++) {
+                Entry entry = list.get(i);
+                if (entry.element == element && entry.parent == parent) {
+                    list.remove(i);
+                    break;
+                }
+            }
+            if (list.isEmpty()) {
+                entries.remove(element.tag);
+            }
+        }
+        HashMap<String, HashMap<String, List<Entry>>> byAttribute = attributeIndexes.get(element.tag);
+        if (byAttribute != null && element.hasAttributes()) {
+            for (int i = 0; i < element.getAttributeCount(); i++) {
+                HashMap<String, List<Entry>> byValue = byAttribute.get(element.getAttributeTag(i));
+                if (byValue != null) {
+                    removeFromBucket(byValue, element, element.getAttributeValue(i));
+                }
+            }
+        }
+    }
+
+    /**
+     * A single indexed element and the {@link DataObject} holding it.
+     */
+    public static final class Entry {
+        @NonNull
+        public final DataElement element;
+        @NonNull
+        public final DataObject parent;
+
+        Entry(@NonNull DataElement element, @NonNull DataObject parent) {
+            this.element = element;
+            this.parent = parent;
+        }
+    }
+
+    /**
+     * Adds or removes the children of every object element it enters, arrays are skipped as the deep search does not look
+     * inside of them.
+     */
+    private final class Indexer extends SimpleDataVisitor {
+        boolean adding;
+
+        @Override
+        public int enter(@NonNull DataElement element, @Nullable DataObject parent, int depth) {
+            if (element.isArray()) {
+                return SKIP_SUBTREE;
+            }
+            if (element.isObject() && parent != null) {
+                DataObject object = (DataObject) element.value;
+                if (adding) {
+                    attach(object, parent);
+                } else {
+                    detach(object);
+                }
+            }
+            return CONTINUE;
+        }
+    }
+}
@@ -0,0 +1,472 @@
+package com.duck.dataobject.binder;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.duck.dataobject.DataObject;
+import com.duck.dataobject.serializer.JsonWriteOptions;
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.annotations.SerializedName;
+import com.google.gson.reflect.TypeToken;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.lang.reflect.GenericArrayType;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.lang.reflect.TypeVariable;
+import java.lang.reflect.WildcardType;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Queue;
+import java.util.Set;
+import java.util.SortedSet;
+import java.util.TreeSet;
+
+/**
+ * Reads the JSON value of part of a {@link com.duck.dataobject.DataObject DataObject}, as given by {@link
+ * DataBinder#valueOf(Object)}, into an object of one type. Each value is read the same way as the Gson adapter for the
+ * type reads it.
+ */
+abstract class Binding {
+    //the collection types that are bound here, all others are left to Gson
+    private static final Class<?>[] COLLECTIONS = {
+            Collection.class, List.class, ArrayList.class, LinkedList.class, Set.class, HashSet.class,
+            LinkedHashSet.class, SortedSet.class, NavigableSet.class, TreeSet.class, Queue.class, Deque.class,
+            ArrayDeque.class
+    };
+
+    /**
+     * Reads the given JSON value.
+     *
+     * @param value   A {@link com.duck.dataobject.DataObject DataObject}, {@link List} or {@link String}.
+     * @param options The {@link JsonWriteOptions} that give the array tags.
+     * @return The object that was read.
+     * @throws JsonSyntaxException if the value can't be read as this type.
+     */
+    @Nullable
+    abstract Object read(@NonNull Object value, @NonNull JsonWriteOptions options);
+
+    /**
+     * Creates the {@link Binding} for the given type.
+     */
+    @NonNull
+    static Binding create(@NonNull Type type) {
+        if (type instanceof GenericArrayType) {
+            return new ArrayBinding(((GenericArrayType) type).getGenericComponentType());
+        }
+        Class<?> raw = rawType(type);
+        if (raw == String.class) {
+            return STRING;
+        } else if (raw == int.class || raw == Integer.class) {
+            return INTEGER;
+        } else if (raw == long.class || raw == Long.class) {
+            return LONG;
+        } else if (raw == double.class || raw == Double.class) {
+            return DOUBLE;
+        } else if (raw == float.class || raw == Float.class) {
+            return FLOAT;
+        } else if (raw == boolean.class || raw == Boolean.class) {
+            return BOOLEAN;
+        } else if (raw == short.class || raw == Short.class) {
+            return SHORT;
+        } else if (raw == byte.class || raw == Byte.class) {
+            return BYTE;
+        } else if (raw == char.class || raw == Character.class) {
+            return CHARACTER;
+        } else if (raw == BigDecimal.class) {
+            return BIG_DECIMAL;
+        } else if (raw == BigInteger.class) {
+            return BIG_INTEGER;
+        } else if (raw.isArray()) {
+            return new ArrayBinding(raw.getComponentType());
+        } else if (Enum.class.isAssignableFrom(raw) && raw != Enum.class) {
+            //constants with a body are subclasses of their enum
+            return new EnumBinding(raw.isEnum() ? raw : raw.getSuperclass());
+        }
+        for (Class<?> collection : COLLECTIONS) {
+            if (raw == collection) {
+                Type elementType = Object.class;
+                if (type instanceof ParameterizedType) {
+                    elementType = ((ParameterizedType) type).getActualTypeArguments()[0];
+                    if (elementType instanceof WildcardType) {
+                        elementType = ((WildcardType) elementType).getUpperBounds()[0];
+                    }
+                }
+                return new CollectionBinding(raw, elementType);
+            }
+        }
+        DataMapper<?> mapper = type == raw ? DataMapper.of(raw) : null;
+        if (mapper != null) {
+            return new MapperBinding(mapper);
+        }
+        return ClassBinding.create(type, raw);
+    }
+
+    /**
+     * @return The class of the given type, {@link Object} for type variables, as Gson gives it.
+     */
+    @NonNull
+    static Class<?> rawType(@NonNull Type type) {
+        if (type instanceof Class) {
+            return (Class<?>) type;
+        } else if (type instanceof ParameterizedType) {
+            return (Class<?>) ((ParameterizedType) type).getRawType();
+        } else if (type instanceof GenericArrayType) {
+            Class<?> component = rawType(((GenericArrayType) type).getGenericComponentType());
+            return Array.newInstance(component, 0).getClass();
+        } else if (type instanceof WildcardType) {
+            return rawType(((WildcardType) type).getUpperBounds()[0]);
+        }
+        return Object.class;
+    }
+
+    /**
+     * Replaces the type variables in the given type with the types they are bound to.
+     *
+     * @param type      The type to resolve.
+     * @param variables The types of the type variables, variables that are not in the map are resolved to {@link
+     *                  Object}.
+     * @return The resolved type.
+     */
+    @NonNull
+    static Type resolve(@NonNull Type type, @NonNull Map<TypeVariable<?>, Type> variables) {
+        if (type instanceof TypeVariable) {
+            Type resolved = variables.get(type);
+            return resolved != null ? resolved : Object.class;
+        } else if (type instanceof ParameterizedType) {
+            ParameterizedType parameterized = (ParameterizedType) type;
+            Type[] arguments = parameterized.getActualTypeArguments();
+            Type[] resolved = new Type[arguments.length];
+            boolean changed = false;
+            for (int i = 0; i < arguments.length; i++) {
+                resolved[i] = resolve(arguments[i], variables);
+                changed |= resolved[i] != arguments[i];
+            }
+            return changed ? TypeToken.getParameterized(parameterized.getRawType(), resolved).getType() : type;
+        } else if (type instanceof GenericArrayType) {
+            Type component = ((GenericArrayType) type).getGenericComponentType();
+            Type resolved = resolve(component, variables);
+            return resolved != component ? TypeToken.getArray(resolved).getType() : type;
+        } else if (type instanceof WildcardType) {
+            Type bound = ((WildcardType) type).getUpperBounds()[0];
+            Type resolved = resolve(bound, variables);
+            return resolved != bound ? resolved : type;
+        }
+        return type;
+    }
+
+    /**
+     * @return The type variables of the class of the given type, mapped to the types they are bound to.
+     */
+    @NonNull
+    static Map<TypeVariable<?>, Type> variablesOf(@NonNull Type type, @NonNull Map<TypeVariable<?>, Type> context) {
+        Map<TypeVariable<?>, Type> variables = new HashMap<>();
+        if (type instanceof ParameterizedType) {
+            Type[] arguments = ((ParameterizedType) type).getActualTypeArguments();
+            TypeVariable<?>[] parameters = rawType(type).getTypeParameters();
+            for (int i = 0; i < parameters.length && i < arguments.length; i++) {
+                variables.put(parameters[i], resolve(arguments[i], context));
+            }
+        }
+        return variables;
+    }
+
+    private static String string(@NonNull Object value) {
+        if (!(value instanceof String)) {
+            throw new JsonSyntaxException("Expected a string but was " + DataBinder.typeOf(value));
+        }
+        return (String) value;
+    }
+
+    /**
+     * Parses an int the way Gson's JsonReader does, a whole number written as a double is allowed.
+     */
+    static int parseInt(@NonNull String value) {
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            double asDouble = Double.parseDouble(value);
+            int result = (int) asDouble;
+            if (result != asDouble) {
+                throw new NumberFormatException("Expected an int but was " + value);
+            }
+            return result;
+        }
+    }
+
+    /**
+     * Parses a long the way Gson's JsonReader does, a whole number written as a double is allowed.
+     */
+    static long parseLong(@NonNull String value) {
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            double asDouble = Double.parseDouble(value);
+            long result = (long) asDouble;
+            if (result != asDouble) {
+                throw new NumberFormatException("Expected a long but was " + value);
+            }
+            return result;
+        }
+    }
+
+    private static final Binding STRING = new Binding() {
+        @Override
+        Object read(@NonNull Object value, @NonNull JsonWriteOptions options) {
+            return string(value);
+        }
+    };
+
+    private static final Binding INTEGER = new Binding() {
+        @Override
+        Object read(@NonNull Object value, @NonNull JsonWriteOptions options) {
+            try {
+                return parseInt(string(value));
+            } catch (NumberFormatException e) {
+                throw new JsonSyntaxException(e);
+            }
+        }
+    };
+
+    private static final Binding LONG = new Binding() {
+        @Override
+        Object read(@NonNull Object value, @NonNull JsonWriteOptions options) {
+            try {
+                return parseLong(string(value));
+            } catch (NumberFormatException e) {
+                throw new JsonSyntaxException(e);
+            }
+        }
+    };
+
+    private static final Binding SHORT = new Binding() {
+        @Override
+        Object read(@NonNull Object value, @NonNull JsonWriteOptions options) {
+            try {
+                return (short) parseInt(string(value));
+            } catch (NumberFormatException e) {
+                throw new JsonSyntaxException(e);
+            }
+        }
+    };
+
+    private static final Binding BYTE = new Binding() {
+        @Override
+        Object read(@NonNull Object value, @NonNull JsonWriteOptions options) {
+            try {
+                return (byte) parseInt(string(value));
+            } catch (NumberFormatException e) {
+                throw new JsonSyntaxException(e);
+            }
+        }
+    };
+
+    //like Gson, a malformed double is thrown as the NumberFormatException itself
+    private static final Binding DOUBLE = new Binding() {
+        @Override
+        Object read(@NonNull Object value, @NonNull JsonWriteOptions options) {
+            return Double.parseDouble(string(value));
+        }
+    };
+
+    private static final Binding FLOAT = new Binding() {
+        @Override
+        Object read(@NonNull Object value, @NonNull JsonWriteOptions options) {
+            return (float) Double.parseDouble(string(value));
+        }
+    };
+
+    private static final Binding BOOLEAN = new Binding() {
+        @Override
+        Object read(@NonNull Object value, @NonNull JsonWriteOptions options) {
+            return Boolean.parseBoolean(string(value));
+        }
+    };
+
+    private static final Binding CHARACTER = new Binding() {
+        @Override
+        Object read(@NonNull Object value, @NonNull JsonWriteOptions options) {
+            String string = string(value);
+            if (string.length() != 1) {
+                throw new JsonSyntaxException("Expecting character, got: " + string);
+            }
+            return string.charAt(0);
+        }
+    };
+
+    private static final Binding BIG_DECIMAL = new Binding() {
+        @Override
+        Object read(@NonNull Object value, @NonNull JsonWriteOptions options) {
+            try {
+                return new BigDecimal(string(value));
+            } catch (NumberFormatException e) {
+                throw new JsonSyntaxException(e);
+            }
+        }
+    };
+
+    private static final Binding BIG_INTEGER = new Binding() {
+        @Override
+        Object read(@NonNull Object value, @NonNull JsonWriteOptions options) {
+            try {
+                return new BigInteger(string(value));
+            } catch (NumberFormatException e) {
+                throw new JsonSyntaxException(e);
+            }
+        }
+    };
+
+    /**
+     * Reads enum constants by their {@link SerializedName} or name, and then by their {@link Enum#toString()}. Unknown
+     * names are read as {@code null}.
+     */
+    private static final class EnumBinding extends Binding {
+        private final Map<String, Object> nameToConstant = new HashMap<>();
+        private final Map<String, Object> stringToConstant = new HashMap<>();
+
+        EnumBinding(@NonNull Class<?> enumClass) {
+            for (Field field : enumClass.getDeclaredFields()) {
+                if (!field.isEnumConstant()) {
+                    continue;
+                }
+                Object constant;
+                try {
+                    field.setAccessible(true);
+                    constant = field.get(null);
+                } catch (IllegalAccessException e) {
+                    throw new IllegalStateException("Reading " + field + " failed", e);
+                }
+                String name = ((Enum<?>) constant).name();
+                SerializedName annotation = field.getAnnotation(SerializedName.class);
+                if (annotation != null) {
+                    name = annotation.value();
+                    for (String alternate : annotation.alternate()) {
+                        nameToConstant.put(alternate, constant);
+                    }
+                }
+                nameToConstant.put(name, constant);
+                stringToConstant.put(constant.toString(), constant);
+            }
+        }
+
+        @Override
+        Object read(@NonNull Object value, @NonNull JsonWriteOptions options) {
+            String key = string(value);
+            Object constant = nameToConstant.get(key);
+            return constant != null ? constant : stringToConstant.get(key);
+        }
+    }
+
+    private static final class ArrayBinding extends Binding {
+        private final Class<?> componentClass;
+        private final Binding component;
+
+        ArrayBinding(@NonNull Type componentType) {
+            componentClass = rawType(componentType);
+            component = DataBinder.binding(componentType);
+        }
+
+        @Override
+        Object read(@NonNull Object value, @NonNull JsonWriteOptions options) {
+            List<?> items = DataBinder.asArray(value);
+            if (items == null) {
+                throw new JsonSyntaxException("Expected BEGIN_ARRAY but was " + DataBinder.typeOf(value));
+            }
+            Object array = Array.newInstance(componentClass, items.size());
+            for (int i = 0; i < items.size(); i++) {
+                Array.set(array, i, component.read(DataBinder.valueOf(items.get(i)), options));
+            }
+            return array;
+        }
+    }
+
+    /**
+     * Reads the {@link Collection} types of java.util, with the same implementations of the interfaces as Gson uses.
+     */
+    private static final class CollectionBinding extends Binding {
+        private final Class<?> implementation;
+        private final Binding element;
+
+        CollectionBinding(@NonNull Class<?> collectionClass, @NonNull Type elementType) {
+            if (!collectionClass.isInterface()) {
+                implementation = collectionClass;
+            } else if (SortedSet.class.isAssignableFrom(collectionClass)) {
+                implementation = TreeSet.class;
+            } else if (Set.class.isAssignableFrom(collectionClass)) {
+                implementation = LinkedHashSet.class;
+            } else if (Queue.class.isAssignableFrom(collectionClass)) {
+                implementation = ArrayDeque.class;
+            } else {
+                implementation = ArrayList.class;
+            }
+            element = DataBinder.binding(elementType);
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        Object read(@NonNull Object value, @NonNull JsonWriteOptions options) {
+            List<?> items = DataBinder.asArray(value);
+            if (items == null) {
+                throw new JsonSyntaxException("Expected BEGIN_ARRAY but was " + DataBinder.typeOf(value));
+            }
+            Collection<Object> collection;
+            try {
+                collection = (Collection<Object>) implementation.newInstance();
+            } catch (InstantiationException | IllegalAccessException e) {
+                throw new IllegalStateException("Creating a " + implementation.getName() + " failed", e);
+            }
+            for (int i = 0; i < items.size(); i++) {
+                collection.add(element.read(DataBinder.valueOf(items.get(i)), options));
+            }
+            return collection;
+        }
+    }
+
+    /**
+     * Reads {@link DataModel} classes with their generated {@link DataMapper}.
+     */
+    private static final class MapperBinding extends Binding {
+        private final DataMapper<?> mapper;
+
+        MapperBinding(@NonNull DataMapper<?> mapper) {
+            this.mapper = mapper;
+        }
+
+        @Override
+        Object read(@NonNull Object value, @NonNull JsonWriteOptions options) {
+            if (!(value instanceof DataObject) || DataBinder.asArray(value) != null) {
+                throw new JsonSyntaxException("Expected BEGIN_OBJECT but was " + DataBinder.typeOf(value));
+            }
+            return mapper.read((DataObject) value);
+        }
+    }
+
+    /**
+     * Hands the value to Gson as a {@link com.google.gson.JsonElement JsonElement} tree, for the types that Gson has
+     * its own adapters for.
+     */
+    static final class GsonBinding extends Binding {
+        private final Type type;
+
+        GsonBinding(@NonNull Type type) {
+            this.type = type;
+        }
+
+        @Override
+        Object read(@NonNull Object value, @NonNull JsonWriteOptions options) {
+            return DataBinder.GSON.fromJson(DataBinder.toJsonTree(value, options), type);
+        }
+    }
+}
@@ -0,0 +1,213 @@
+package com.duck.dataobject.binder;
+
+import androidx.annotation.NonNull;
+
+import com.duck.dataobject.DataObject;
+import com.duck.dataobject.node.DataElement;
+import com.duck.dataobject.serializer.JsonWriteOptions;
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.annotations.JsonAdapter;
+import com.google.gson.annotations.SerializedName;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.Type;
+import java.lang.reflect.TypeVariable;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Binds a model class field by field, the way Gson's reflective adapter does. The fields of the class and its super
+ * classes are looked up once, with their generic types resolved against the type being bound. Classes that this can't
+ * bind the same way as Gson, such as those with a {@link JsonAdapter} or without a no-args constructor where
+ * instances can't be allocated, are given a {@link Binding.GsonBinding GsonBinding} instead.
+ */
+final class ClassBinding extends Binding {
+    //used to create instances of classes without a no-args constructor, as Gson does
+    private static final Object UNSAFE;
+    private static final Method ALLOCATE_INSTANCE;
+
+    static {
+        Object unsafe = null;
+        Method allocateInstance = null;
+        try {
+            Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+            Field field = unsafeClass.getDeclaredField("theUnsafe");
+            field.setAccessible(true);
+            unsafe = field.get(null);
+            allocateInstance = unsafeClass.getMethod("allocateInstance", Class.class);
+        } catch (Exception e) {
+            //not available, classes without a no-args constructor are left to Gson
+        }
+        UNSAFE = unsafe;
+        ALLOCATE_INSTANCE = allocateInstance;
+    }
+
+    private final Class<?> raw;
+    //null if instances are allocated without a constructor
+    private final Constructor<?> constructor;
+    private final Map<String, BoundField> fields;
+
+    private ClassBinding(@NonNull Class<?> raw, Constructor<?> constructor, @NonNull Map<String, BoundField> fields) {
+        this.raw = raw;
+        this.constructor = constructor;
+        this.fields = fields;
+    }
+
+    /**
+     * Creates the {@link Binding} for the given class type, a {@link Binding.GsonBinding GsonBinding} if it can't be
+     * bound by its fields.
+     */
+    @NonNull
+    static Binding create(@NonNull Type type, @NonNull Class<?> raw) {
+        if (raw.isInterface() || raw.isPrimitive() || Modifier.isAbstract(raw.getModifiers())
+                || raw.isAnonymousClass() || raw.isLocalClass() || isPlatformType(raw)
+                || raw.isAnnotationPresent(JsonAdapter.class)) {
+            return new GsonBinding(type);
+        }
+        Constructor<?> constructor = null;
+        try {
+            constructor = raw.getDeclaredConstructor();
+            constructor.setAccessible(true);
+        } catch (NoSuchMethodException e) {
+            if (ALLOCATE_INSTANCE == null) {
+                return new GsonBinding(type);
+            }
+        } catch (SecurityException e) {
+            return new GsonBinding(type);
+        }
+        Map<String, BoundField> fields = new HashMap<>();
+        Map<TypeVariable<?>, Type> variables = variablesOf(type, new HashMap<TypeVariable<?>, Type>());
+        Class<?> current = raw;
+        while (current != Object.class) {
+            for (Field field : current.getDeclaredFields()) {
+                if (isExcluded(field)) {
+                    continue;
+                }
+                if (field.isAnnotationPresent(JsonAdapter.class)) {
+                    return new GsonBinding(type);
+                }
+                BoundField boundField = new BoundField(field, resolve(field.getGenericType(), variables));
+                SerializedName annotation = field.getAnnotation(SerializedName.class);
+                if (annotation == null) {
+                    if (fields.put(field.getName(), boundField) != null) {
+                        //Gson refuses classes with two fields of one name, leave it to give the error
+                        return new GsonBinding(type);
+                    }
+                } else {
+                    if (fields.put(annotation.value(), boundField) != null) {
+                        return new GsonBinding(type);
+                    }
+                    for (String alternate : annotation.alternate()) {
+                        if (fields.put(alternate, boundField) != null) {
+                            return new GsonBinding(type);
+                        }
+                    }
+                }
+            }
+            Type superType = current.getGenericSuperclass();
+            variables = variablesOf(superType, variables);
+            current = current.getSuperclass();
+        }
+        try {
+            for (BoundField boundField : fields.values()) {
+                boundField.field.setAccessible(true);
+            }
+        } catch (SecurityException e) {
+            return new GsonBinding(type);
+        }
+        return new ClassBinding(raw, constructor, fields);
+    }
+
+    /**
+     * @return {@code True} if the given class is part of the platform, these are left to Gson which has its own
+     * adapters for many of them.
+     */
+    static boolean isPlatformType(@NonNull Class<?> raw) {
+        String name = raw.getName();
+        return name.startsWith("java.") || name.startsWith("javax.") || name.startsWith("android.")
+                || name.startsWith("com.google.gson.");
+    }
+
+    /**
+     * @return {@code True} if Gson leaves the given field out by default.
+     */
+    static boolean isExcluded(@NonNull Field field) {
+        if ((field.getModifiers() & (Modifier.TRANSIENT | Modifier.STATIC)) != 0 || field.isSynthetic()) {
+            return true;
+        }
+        Class<?> type = field.getType();
+        return !Enum.class.isAssignableFrom(type) && (type.isAnonymousClass() || type.isLocalClass());
+    }
+
+    @Override
+    Object read(@NonNull Object value, @NonNull JsonWriteOptions options) {
+        if (!(value instanceof DataObject) || DataBinder.asArray(value) != null) {
+            throw new JsonSyntaxException("Expected BEGIN_OBJECT but was " + DataBinder.typeOf(value));
+        }
+        Object instance = newInstance();
+        for (Map.Entry<String, List<DataElement>> entry : ((DataObject) value).getElementEntries()) {
+            BoundField field = fields.get(entry.getKey());
+            if (field != null) {
+                field.read(instance, DataBinder.valueOf(entry.getKey(), entry.getValue(), options), options);
+            }
+        }
+        return instance;
+    }
+
+    @NonNull
+    private Object newInstance() {
+        try {
+            if (constructor != null) {
+                return constructor.newInstance();
+            }
+            return ALLOCATE_INSTANCE.invoke(UNSAFE, raw);
+        } catch (InstantiationException e) {
+            throw new RuntimeException("Failed to invoke " + constructor + " with no args", e);
+        } catch (InvocationTargetException e) {
+            if (constructor == null) {
+                throw new RuntimeException("Unable to allocate an instance of " + raw.getName(), e.getTargetException());
+            }
+            throw new RuntimeException("Failed to invoke " + constructor + " with no args", e.getTargetException());
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException("Creating a " + raw.getName() + " failed", e);
+        }
+    }
+
+    /**
+     * A field and its resolved type, its {@link Binding} is looked up when it is first read so that classes can hold
+     * fields of their own type.
+     */
+    private static final class BoundField {
+        final Field field;
+        private final Type type;
+        private final boolean primitive;
+        private Binding binding;
+
+        BoundField(@NonNull Field field, @NonNull Type type) {
+            this.field = field;
+            this.type = type;
+            primitive = field.getType().isPrimitive();
+        }
+
+        void read(@NonNull Object instance, @NonNull Object value, @NonNull JsonWriteOptions options) {
+            Binding binding = this.binding;
+            if (binding == null) {
+                binding = DataBinder.binding(type);
+                this.binding = binding;
+            }
+            Object fieldValue = binding.read(value, options);
+            if (fieldValue != null || !primitive) {
+                try {
+                    field.set(instance, fieldValue);
+                } catch (IllegalAccessException e) {
+                    throw new IllegalStateException("Setting " + field + " failed", e);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,211 @@
+package com.duck.dataobject.binder;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.duck.dataobject.DataObject;
+import com.duck.dataobject.exception.ParsingException;
+import com.duck.dataobject.node.DataElement;
+import com.duck.dataobject.node.XMLAttribute;
+import com.duck.dataobject.parser.Parser;
+import com.duck.dataobject.serializer.JsonWriteOptions;
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonPrimitive;
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.annotations.SerializedName;
+
+import java.lang.reflect.Type;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static com.duck.dataobject.DataObject.ANONYMOUS_ARRAY_TAG;
+
+/**
+ * Binds {@link DataObject DataObjects} to model objects by walking the tree, without writing it out as JSON for {@link
+ * Gson} to parse again. The result is the same as that of {@code new Gson().fromJson(dataObject.toJSON(arrayTags),
+ * classOfT)}: fields are found the way Gson finds them, by their {@link SerializedName} or name and leaving out
+ * transient and static fields, each value is read from the string {@link DataObject#toJSON(String...)} would write for
+ * it, and a tag with a single element is only read as a JSON Array if it is one of the {@code arrayTags}.
+ * <p>
+ * The fields and constructor of each class are looked up once and kept for the following calls. Types that Gson has
+ * its own adapters for, such as {@link Map Maps}, {@link Object} and dates, and classes that can't be bound field by
+ * field are handed to Gson as a {@link JsonElement} tree of just their part of the document.
+ * <p>
+ * The other way, {@link #toDataObject(Object, DataObject)} builds the elements of a model object from its fields, the
+ * same as parsing the JSON Gson writes for it.
+ * <p>
+ * Classes annotated with {@link DataModel} are read and written by the {@link DataMapper} generated for them instead.
+ */
+public final class DataBinder {
+    private static final Map<Type, Binding> BINDINGS = new ConcurrentHashMap<>();
+    static final Gson GSON = new Gson();
+
+    private DataBinder() {
+    }
+
+    /**
+     * Binds the given {@link DataObject} to a new object of type T.
+     *
+     * @param <T>       The type of the desired object.
+     * @param data      The {@link DataObject} to read.
+     * @param classOfT  The class of T
+     * @param arrayTags (Optional) zero or more {@link String} 'tag' that should be read as an array even if there is
+     *                  only a single element.
+     * @return an object of type T, or {@code null} if {@code data} has no elements.
+     * @throws JsonSyntaxException if {@code data} is not a valid representation for an object of type classOfT
+     */
+    @Nullable
+    @SuppressWarnings("unchecked")
+    public static <T> T fromDataObject(@NonNull DataObject data, @NonNull Class<T> classOfT, String... arrayTags)
+            throws JsonSyntaxException {
+        return (T) fromDataObject(data, (Type) classOfT, JsonWriteOptions.of(arrayTags));
+    }
+
+    /**
+     * Binds the given {@link DataObject} to a new object of the given type, which may be generic such as {@code
+     * List<Item>}.
+     *
+     * @param <T>     The type of the desired object.
+     * @param data    The {@link DataObject} to read.
+     * @param typeOfT The type of T
+     * @param options The {@link JsonWriteOptions} that give the array tags.
+     * @return an object of type T, or {@code null} if {@code data} has no elements.
+     * @throws JsonSyntaxException if {@code data} is not a valid representation for an object of type typeOfT
+     */
+    @Nullable
+    @SuppressWarnings("unchecked")
+    public static <T> T fromDataObject(@NonNull DataObject data, @NonNull Type typeOfT,
+                                       @NonNull JsonWriteOptions options) throws JsonSyntaxException {
+        //the JSON of an object without elements is empty, which Gson reads as null
+        if (!hasElements(data)) {
+            return null;
+        }
+        return (T) binding(typeOfT).read(data, options);
+    }
+
+    /**
+     * Inserts the given object into the given {@link DataObject}, giving the same elements as parsing the JSON of {@code
+     * new Gson().toJson(src)} into it does. Objects, {@link Map Maps} and {@link JsonObject} or {@link JsonArray} trees
+     * are written node by node without the JSON text, anything else, such as a {@link List} or a {@link String}, is
+     * written by Gson and parsed.
+     *
+     * @param src        The object to write.
+     * @param dataObject The {@link DataObject} to insert into.
+     * @return The given {@link DataObject}.
+     * @throws ParsingException if the JSON Gson writes for {@code src} can't be parsed.
+     */
+    @NonNull
+    public static DataObject toDataObject(@Nullable Object src, @NonNull DataObject dataObject) throws ParsingException {
+        if (!ObjectWriter.insertObject(src, dataObject)) {
+            Parser.parse(GSON.toJson(src), dataObject);
+        }
+        return dataObject;
+    }
+
+    /**
+     * @return The {@link Binding} for the given type, made the first time it is asked for.
+     */
+    @NonNull
+    static Binding binding(@NonNull Type type) {
+        Binding binding = BINDINGS.get(type);
+        if (binding == null) {
+            binding = Binding.create(type);
+            Binding existing = BINDINGS.putIfAbsent(type, binding);
+            if (existing != null) {
+                binding = existing;
+            }
+        }
+        return binding;
+    }
+
+    /**
+     * Gives the JSON value that the given item of an element list or array is written as by {@link
+     * DataObject#toJSON(String...)}.
+     *
+     * @return A {@link DataObject} for an object or anonymous array, a {@link List} for an array or the {@link String}
+     * of any other value.
+     */
+    @NonNull
+    static Object valueOf(@Nullable Object item) {
+        if (item instanceof DataElement) {
+            DataElement element = (DataElement) item;
+            if (element.isObject() || element.isArray()) {
+                return element.value;
+            }
+            return String.valueOf(element.value);
+        } else if (item instanceof DataObject) {
+            return item;
+        }
+        return String.valueOf(item);
+    }
+
+    /**
+     * Gives the JSON value of the elements with the given tag, see {@link #valueOf(Object)}.
+     */
+    @NonNull
+    static Object valueOf(@NonNull String tag, @NonNull List<DataElement> elements, @NonNull JsonWriteOptions options) {
+        if (elements.size() == 1 && !options.isArrayTag(tag)) {
+            return valueOf(elements.get(0));
+        }
+        return elements;
+    }
+
+    /**
+     * @return The items of the given value if it is an array or anonymous array, {@code null} otherwise.
+     */
+    @Nullable
+    static List<?> asArray(@NonNull Object value) {
+        if (value instanceof List) {
+            return (List<?>) value;
+        } else if (value instanceof DataObject) {
+            return ((DataObject) value).getList(ANONYMOUS_ARRAY_TAG, (XMLAttribute[]) null);
+        }
+        return null;
+    }
+
+    /**
+     * @return The name of the JSON token the given value starts with, for error messages.
+     */
+    @NonNull
+    static String typeOf(@NonNull Object value) {
+        if (asArray(value) != null) {
+            return "BEGIN_ARRAY";
+        }
+        return value instanceof DataObject ? "BEGIN_OBJECT" : "STRING";
+    }
+
+    /**
+     * Builds the {@link JsonElement} tree of the given value, with the same structure and strings as its JSON.
+     */
+    @NonNull
+    static JsonElement toJsonTree(@NonNull Object value, @NonNull JsonWriteOptions options) {
+        List<?> items = asArray(value);
+        if (items != null) {
+            JsonArray array = new JsonArray();
+            for (int i = 0; i < items.size(); i++) {
+                array.add(toJsonTree(valueOf(items.get(i)), options));
+            }
+            return array;
+        } else if (value instanceof DataObject) {
+            JsonObject object = new JsonObject();
+            for (Map.Entry<String, List<DataElement>> entry : ((DataObject) value).getElementEntries()) {
+                object.add(entry.getKey(), toJsonTree(valueOf(entry.getKey(), entry.getValue(), options), options));
+            }
+            return object;
+        }
+        return new JsonPrimitive((String) value);
+    }
+
+    private static boolean hasElements(@NonNull DataObject object) {
+        for (List<DataElement> elements : object.getElementLists()) {
+            if (!elements.isEmpty()) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,543 @@
+package com.duck.dataobject.binder;
+
+import android.util.Xml;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.duck.dataobject.DataObject;
+import com.duck.dataobject.exception.ParsingException;
+import com.duck.dataobject.serializer.DataSink;
+import com.duck.dataobject.serializer.JSONSerializer;
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.MalformedJsonException;
+
+import org.xmlpull.v1.XmlPullParser;
+import org.xmlpull.v1.XmlPullParserException;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static com.duck.dataobject.DataObject.CDATA_CLOSE;
+import static com.duck.dataobject.DataObject.CDATA_OPEN;
+
+/**
+ * Reads and writes one {@link DataModel} class, to and from a {@link DataObject} or straight to and from JSON and XML.
+ * Subclasses are generated by the {@code DataModelProcessor} and read and write each field with plain code, the
+ * instance of the mapper for a class is found with {@link #of(Class)}.
+ * <p>
+ * The elements written are the same as those {@link DataObject#DataObject(Object, boolean...)} builds for the object,
+ * and the JSON and XML the same as {@link DataObject#toJSON(String...)} and {@link DataObject#toXML()} write for those
+ * elements, with the tags of the {@link java.util.List List} fields written as arrays. Values are read the same way
+ * Gson reads them from that JSON: a whole number written as a double, such as {@code "1.0"}, is read into an int field,
+ * and a number that can't be parsed throws a {@link JsonSyntaxException}, or the {@link NumberFormatException} itself
+ * for floating point fields. A missing value, or one that is not text, leaves the field as the constructor set it, and a
+ * single value is read as a list of one.
+ *
+ * @param <T> The model class.
+ */
+public abstract class DataMapper<T> {
+    private static final Map<Class<?>, DataMapper<?>> MAPPERS = new ConcurrentHashMap<>();
+    //marks the classes that don't have a generated mapper
+    private static final DataMapper<Object> NONE = new DataMapper<Object>() {
+        @NonNull
+        @Override
+        public Object read(@NonNull DataObject data) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void write(@NonNull Object src, @NonNull DataObject data) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void writeJSON(@NonNull Object src, @NonNull DataSink sink) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void writeXML(@NonNull Object src, @NonNull DataSink sink) {
+            throw new UnsupportedOperationException();
+        }
+
+        @NonNull
+        @Override
+        public Object readJSON(@NonNull JsonReader reader) {
+            throw new UnsupportedOperationException();
+        }
+
+        @NonNull
+        @Override
+        protected Object readChildren(@NonNull XmlPullParser parser, int depth, boolean child) {
+            throw new UnsupportedOperationException();
+        }
+    };
+
+    /**
+     * Gives the generated mapper of the given class, the class is looked up once and kept for the following calls.
+     *
+     * @param classOfT The model class.
+     * @return The mapper, or {@code null} if the class is not annotated with {@link DataModel}.
+     * @throws IllegalStateException if the class is annotated but its mapper was not generated.
+     */
+    @Nullable
+    @SuppressWarnings("unchecked")
+    public static <T> DataMapper<T> of(@NonNull Class<T> classOfT) {
+        DataMapper<?> mapper = MAPPERS.get(classOfT);
+        if (mapper == null) {
+            mapper = classOfT.isAnnotationPresent(DataModel.class) ? find(classOfT) : NONE;
+            MAPPERS.put(classOfT, mapper);
+        }
+        return mapper != NONE ? (DataMapper<T>) mapper : null;
+    }
+
+    @NonNull
+    private static DataMapper<?> find(@NonNull Class<?> classOfT) {
+        String name = classOfT.getName();
+        int packageEnd = name.lastIndexOf('.') + 1;
+        String mapperName = name.substring(0, packageEnd) + name.substring(packageEnd).replace('$', '_') + "_DataMapper";
+        try {
+            Class<?> mapperClass = Class.forName(mapperName, true, classOfT.getClassLoader());
+            return (DataMapper<?>) mapperClass.getField("INSTANCE").get(null);
+        } catch (ClassNotFoundException e) {
+            throw new IllegalStateException("No " + mapperName + " was generated for " + name
+                                                    + ", is the DataModelProcessor set as an annotation processor?", e);
+        } catch (NoSuchFieldException | IllegalAccessException e) {
+            throw new IllegalStateException("Reading " + mapperName + ".INSTANCE failed", e);
+        }
+    }
+
+    /**
+     * Reads a new instance from the elements of the given {@link DataObject}.
+     *
+     * @param data The {@link DataObject} to read.
+     * @return The instance that was read.
+     */
+    @NonNull
+    public abstract T read(@NonNull DataObject data);
+
+    /**
+     * Inserts the fields of the given instance into the given {@link DataObject}, null fields are left out.
+     *
+     * @param src  The instance to write.
+     * @param data The {@link DataObject} to insert into.
+     */
+    public abstract void write(@NonNull T src, @NonNull DataObject data);
+
+    /**
+     * Writes the given instance as a JSON object to the given {@link DataSink}.
+     *
+     * @param src  The instance to write.
+     * @param sink The {@link DataSink} to write to.
+     * @throws IOException if the sink fails to write.
+     */
+    public abstract void writeJSON(@NonNull T src, @NonNull DataSink sink) throws IOException;
+
+    /**
+     * Writes the fields of the given instance as XML elements to the given {@link DataSink}, without a root element.
+     *
+     * @param src  The instance to write.
+     * @param sink The {@link DataSink} to write to.
+     * @throws IOException if the sink fails to write.
+     */
+    public abstract void writeXML(@NonNull T src, @NonNull DataSink sink) throws IOException;
+
+    /**
+     * Reads a new instance from the JSON object that the given {@link JsonReader} is at.
+     *
+     * @param reader The {@link JsonReader} to read from.
+     * @return The instance that was read.
+     * @throws IOException           if reading fails or the JSON is malformed.
+     * @throws IllegalStateException if the reader is not at a JSON object.
+     */
+    @NonNull
+    public abstract T readJSON(@NonNull JsonReader reader) throws IOException;
+
+    /**
+     * Reads a new instance from the child elements of an element, leaving the parser at its end tag.
+     *
+     * @param parser The {@link XmlPullParser} to read from.
+     * @param depth  The depth of the element.
+     * @param child  {@code True} if the parser is at the start tag of the first child, {@code false} if it is at the end
+     *               tag of the element.
+     * @return The instance that was read.
+     * @throws IOException            if reading fails.
+     * @throws XmlPullParserException if the XML is malformed.
+     */
+    @NonNull
+    protected abstract T readChildren(@NonNull XmlPullParser parser, int depth, boolean child)
+            throws IOException, XmlPullParserException;
+
+    /**
+     * Reads a new instance from the child elements of the element that the given {@link XmlPullParser} is at, leaving
+     * the parser at its end tag.
+     *
+     * @param parser The {@link XmlPullParser} to read from, at a start tag.
+     * @return The instance that was read.
+     * @throws IOException            if reading fails.
+     * @throws XmlPullParserException if the XML is malformed.
+     */
+    @NonNull
+    public final T readXML(@NonNull XmlPullParser parser) throws IOException, XmlPullParserException {
+        int depth = parser.getDepth();
+        return readChildren(parser, depth, nextChild(parser, depth));
+    }
+
+    /**
+     * Reads an item of a list like {@link #readXML(XmlPullParser)}, except that an element with text but no child
+     * elements is read as {@code null}, as a null item is written as the text "null".
+     */
+    @Nullable
+    public final T readXMLItem(@NonNull XmlPullParser parser) throws IOException, XmlPullParserException {
+        int depth = parser.getDepth();
+        boolean text = false;
+        while (true) {
+            int event = parser.next();
+            if (event == XmlPullParser.START_TAG) {
+                return readChildren(parser, depth, true);
+            } else if (event == XmlPullParser.TEXT && !parser.isWhitespace()) {
+                text = true;
+            } else if (event == XmlPullParser.END_TAG && parser.getDepth() == depth
+                    || event == XmlPullParser.END_DOCUMENT) {
+                return text ? null : readChildren(parser, depth, false);
+            }
+        }
+    }
+
+    /**
+     * @return A new {@link DataObject} with the fields of the given instance, see {@link #write(Object, DataObject)}.
+     */
+    @NonNull
+    public DataObject toDataObject(@NonNull T src) {
+        DataObject data = new DataObject();
+        write(src, data);
+        return data;
+    }
+
+    /**
+     * @return The JSON of the given instance, see {@link #writeJSON(Object, DataSink)}.
+     */
+    @NonNull
+    public String toJSON(@NonNull T src) {
+        StringBuilder out = new StringBuilder();
+        try {
+            writeJSON(src, DataSink.of(out));
+        } catch (IOException e) {
+            //a StringBuilder sink doesn't throw
+            throw new IllegalStateException("Writing " + src + " failed", e);
+        }
+        return out.toString();
+    }
+
+    /**
+     * @return The XML elements of the given instance, see {@link #writeXML(Object, DataSink)}.
+     */
+    @NonNull
+    public String toXML(@NonNull T src) {
+        StringBuilder out = new StringBuilder();
+        try {
+            writeXML(src, DataSink.of(out));
+        } catch (IOException e) {
+            throw new IllegalStateException("Writing " + src + " failed", e);
+        }
+        return out.toString();
+    }
+
+    /**
+     * Reads a new instance from the JSON object read from the given {@link Reader}.
+     *
+     * @param json The {@link Reader} to read JSON from.
+     * @return The instance that was read.
+     * @throws IOException      if reading fails.
+     * @throws ParsingException if the JSON is malformed or is not an object.
+     */
+    @NonNull
+    public T fromJSON(@NonNull Reader json) throws IOException {
+        JsonReader reader = new JsonReader(json);
+        reader.setLenient(true);
+        try {
+            return readJSON(reader);
+        } catch (MalformedJsonException | EOFException | IllegalStateException e) {
+            throw new ParsingException("Invalid JSON", e);
+        }
+    }
+
+    /**
+     * Reads a new instance from the children of the root element of the XML read from the given {@link Reader}, such
+     * as the XML written by {@link DataObject#toXML(String)}.
+     *
+     * @param xml The {@link Reader} to read XML from.
+     * @return The instance that was read.
+     * @throws IOException      if reading fails.
+     * @throws ParsingException if the XML is malformed.
+     */
+    @NonNull
+    public T fromXML(@NonNull Reader xml) throws IOException {
+        XmlPullParser parser = Xml.newPullParser();
+        try {
+            parser.setInput(xml);
+            parser.nextTag();
+            return readXML(parser);
+        } catch (XmlPullParserException e) {
+            throw new ParsingException("Invalid XML", e);
+        }
+    }
+
+    //helpers for the generated mappers
+
+    /**
+     * Writes the key of a JSON object member, after a comma if it is not the first.
+     *
+     * @param key  The quoted and escaped key followed by a colon.
+     * @param next {@code True} if a member was written before this one.
+     * @return {@code True}, to be passed as {@code next} for the following member.
+     */
+    protected static boolean writeKey(@NonNull DataSink sink, @NonNull String key, boolean next) throws IOException {
+        if (next) {
+            sink.append(',');
+        }
+        sink.append(key, 0, key.length());
+        return true;
+    }
+
+    /**
+     * Writes the given value as a quoted JSON string.
+     */
+    protected static void writeString(@NonNull String value, @NonNull DataSink sink) throws IOException {
+        JSONSerializer.writeString(value, sink);
+    }
+
+    /**
+     * Writes the given value as an XML element with the given tag, the way the {@link
+     * com.duck.dataobject.serializer.XMLSerializer XMLSerializer} writes a {@link com.duck.dataobject.node.DataElement
+     * DataElement} with that value.
+     */
+    protected static void writeElement(@NonNull String tag, @NonNull String value, @NonNull DataSink sink)
+            throws IOException {
+        sink.append('<').append(tag);
+        if (value.isEmpty()) {
+            sink.append("/>");
+            return;
+        }
+        sink.append('>');
+        if (DataObject.hasIllegalValue(value)) {
+            sink.append(CDATA_OPEN).append(value, 0, value.length()).append(CDATA_CLOSE);
+        } else {
+            sink.append(value, 0, value.length());
+        }
+        sink.append("</").append(tag).append('>');
+    }
+
+    /**
+     * @return {@code True} if the reader is at a JSON object, any other value is skipped.
+     */
+    protected static boolean isObject(@NonNull JsonReader reader) throws IOException {
+        if (reader.peek() == JsonToken.BEGIN_OBJECT) {
+            return true;
+        }
+        reader.skipValue();
+        return false;
+    }
+
+    /**
+     * Begins the JSON array that the reader is at.
+     *
+     * @return {@code False} if the reader is at a single value instead, which is read as an array of one.
+     */
+    protected static boolean beginArray(@NonNull JsonReader reader) throws IOException {
+        if (reader.peek() == JsonToken.BEGIN_ARRAY) {
+            reader.beginArray();
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Reads the JSON value that the reader is at as a string.
+     *
+     * @return The string, or {@code null} for JSON null, an object or an array.
+     */
+    @Nullable
+    protected static String nextString(@NonNull JsonReader reader) throws IOException {
+        switch (reader.peek()) {
+            case STRING:
+            case NUMBER:
+                return reader.nextString();
+            case BOOLEAN:
+                return String.valueOf(reader.nextBoolean());
+            default:
+                reader.skipValue();
+                return null;
+        }
+    }
+
+    /**
+     * Moves the parser to the start tag of the next child of the element at the given depth.
+     *
+     * @return {@code False} once the parser is at the end tag of that element.
+     */
+    protected static boolean nextChild(@NonNull XmlPullParser parser, int depth)
+            throws IOException, XmlPullParserException {
+        while (true) {
+            int event = parser.next();
+            if (event == XmlPullParser.START_TAG) {
+                return true;
+            } else if (event == XmlPullParser.END_TAG && parser.getDepth() == depth
+                    || event == XmlPullParser.END_DOCUMENT) {
+                return false;
+            }
+        }
+    }
+
+    /**
+     * Reads the text of the element that the parser is at and leaves the parser at its end tag.
+     *
+     * @return The text, {@code null} if the element has child elements.
+     */
+    @Nullable
+    protected static String readText(@NonNull XmlPullParser parser) throws IOException, XmlPullParserException {
+        int depth = parser.getDepth();
+        StringBuilder text = new StringBuilder();
+        boolean children = false;
+        while (true) {
+            int event = parser.next();
+            if (event == XmlPullParser.TEXT) {
+                text.append(parser.getText());
+            } else if (event == XmlPullParser.START_TAG) {
+                children = true;
+            } else if (event == XmlPullParser.END_TAG && parser.getDepth() == depth
+                    || event == XmlPullParser.END_DOCUMENT) {
+                return children ? null : text.toString();
+            }
+        }
+    }
+
+    /**
+     * Skips the element that the parser is at, leaving the parser at its end tag.
+     */
+    protected static void skip(@NonNull XmlPullParser parser) throws IOException, XmlPullParserException {
+        int depth = parser.getDepth();
+        while (nextChild(parser, depth)) {
+            skip(parser);
+        }
+    }
+
+    /**
+     * @return The given value, or the default value if it is {@code null}.
+     */
+    @Nullable
+    protected static <V> V orElse(@Nullable V value, @Nullable V defaultValue) {
+        return value != null ? value : defaultValue;
+    }
+
+    protected static int toInt(@Nullable String value, int defaultValue) {
+        return value != null ? parseInt(value) : defaultValue;
+    }
+
+    protected static long toLong(@Nullable String value, long defaultValue) {
+        return value != null ? parseLong(value) : defaultValue;
+    }
+
+    protected static double toDouble(@Nullable String value, double defaultValue) {
+        return value != null ? Double.parseDouble(value) : defaultValue;
+    }
+
+    protected static float toFloat(@Nullable String value, float defaultValue) {
+        return value != null ? (float) Double.parseDouble(value) : defaultValue;
+    }
+
+    protected static short toShort(@Nullable String value, short defaultValue) {
+        return value != null ? (short) parseInt(value) : defaultValue;
+    }
+
+    protected static byte toByte(@Nullable String value, byte defaultValue) {
+        return value != null ? (byte) parseInt(value) : defaultValue;
+    }
+
+    protected static boolean toBoolean(@Nullable String value, boolean defaultValue) {
+        return value != null ? Boolean.parseBoolean(value) : defaultValue;
+    }
+
+    protected static char toChar(@Nullable String value, char defaultValue) {
+        return value != null ? parseChar(value) : defaultValue;
+    }
+
+    @Nullable
+    protected static Integer toInteger(@Nullable String value) {
+        return value != null ? parseInt(value) : null;
+    }
+
+    @Nullable
+    protected static Long toLong(@Nullable String value) {
+        return value != null ? parseLong(value) : null;
+    }
+
+    @Nullable
+    protected static Double toDouble(@Nullable String value) {
+        return value != null ? Double.parseDouble(value) : null;
+    }
+
+    @Nullable
+    protected static Float toFloat(@Nullable String value) {
+        return value != null ? (float) Double.parseDouble(value) : null;
+    }
+
+    @Nullable
+    protected static Short toShort(@Nullable String value) {
+        return value != null ? (short) parseInt(value) : null;
+    }
+
+    @Nullable
+    protected static Byte toByte(@Nullable String value) {
+        return value != null ? (byte) parseInt(value) : null;
+    }
+
+    @Nullable
+    protected static Boolean toBoolean(@Nullable String value) {
+        return value != null ? Boolean.valueOf(value) : null;
+    }
+
+    @Nullable
+    protected static Character toCharacter(@Nullable String value) {
+        return value != null ? parseChar(value) : null;
+    }
+
+    /**
+     * Parses an int the way {@link Binding} and Gson do, a whole number written as a double is allowed.
+     *
+     * @throws JsonSyntaxException if the value is not an int.
+     */
+    private static int parseInt(@NonNull String value) {
+        try {
+            return Binding.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw new JsonSyntaxException(e);
+        }
+    }
+
+    /**
+     * Parses a long the way {@link Binding} and Gson do, a whole number written as a double is allowed.
+     *
+     * @throws JsonSyntaxException if the value is not a long.
+     */
+    private static long parseLong(@NonNull String value) {
+        try {
+            return Binding.parseLong(value);
+        } catch (NumberFormatException e) {
+            throw new JsonSyntaxException(e);
+        }
+    }
+
+    private static char parseChar(@NonNull String value) {
+        if (value.length() != 1) {
+            throw new JsonSyntaxException("Expecting character, got: " + value);
+        }
+        return value.charAt(0);
+    }
+}
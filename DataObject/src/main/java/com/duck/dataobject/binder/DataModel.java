@@ -0,0 +1,26 @@
+package com.duck.dataobject.binder;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a model class for the {@code DataModelProcessor} of the {@code DataObject-processor} module, which generates a
+ * {@link DataMapper} for it at compile time. The mapper is named after the class, {@code Item_DataMapper} for {@code
+ * Item} and {@code Outer_Item_DataMapper} for a nested {@code Outer.Item}, and is put in the same package so that it
+ * can read and write the fields directly, without reflection.
+ * <p>
+ * The class needs a no-args constructor and fields that are not private or final, transient and static fields are left
+ * out. Fields may be a {@link String}, a primitive or its box, an enum, another {@link DataModel} class or a {@link
+ * java.util.List List} of any of those. Fields and enum constants are named by their {@link
+ * com.google.gson.annotations.SerializedName SerializedName} if they have one, as Gson names them.
+ * <p>
+ * {@link DataBinder} uses the generated mapper for these classes, see {@link DataMapper} for how it reads values.
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.TYPE)
+public @interface DataModel {
+}
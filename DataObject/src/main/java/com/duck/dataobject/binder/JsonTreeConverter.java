@@ -0,0 +1,189 @@
+package com.duck.dataobject.binder;
+
+import androidx.annotation.NonNull;
+
+import com.duck.dataobject.DataObject;
+import com.duck.dataobject.exception.ParsingException;
+import com.duck.dataobject.node.DataElement;
+import com.duck.dataobject.parser.Parser;
+import com.duck.dataobject.serializer.JsonWriteOptions;
+import com.google.gson.JsonElement;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Converts {@link DataObject DataObjects} to and from the JSON trees of Gson, {@link JsonElement}, and of org.json,
+ * {@link JSONObject} and {@link JSONArray}, by walking the trees node by node instead of writing them out as JSON text
+ * and parsing it again.
+ * <p>
+ * The trees built from a {@link DataObject} have the same structure and strings as {@link
+ * DataObject#toJSON(String...)} writes, and the {@link DataObject DataObjects} built from a tree have the same elements
+ * as parsing its JSON text, so numbers are kept the way org.json reads them and null members of a {@link
+ * com.google.gson.JsonObject JsonObject} are left out as Gson leaves them out. A {@link DataObject} without elements,
+ * for which {@link DataObject#toJSON(String...)} writes nothing, is an empty object in the tree.
+ */
+public final class JsonTreeConverter {
+
+    private JsonTreeConverter() {
+    }
+
+    /**
+     * Builds a {@link DataObject} from the given {@link JsonElement}, with the same elements as parsing the JSON of
+     * {@code new Gson().toJson(json)} gives.
+     *
+     * @param json The {@link JsonElement} to convert.
+     * @return The new {@link DataObject}.
+     * @throws ParsingException if {@code json} is not an object or an array, and its JSON can't be parsed.
+     */
+    @NonNull
+    public static DataObject toDataObject(@NonNull JsonElement json) throws ParsingException {
+        return insert(json, new DataObject());
+    }
+
+    /**
+     * Inserts the elements of the given {@link JsonElement} into the given {@link DataObject}, see {@link
+     * #toDataObject(JsonElement)}.
+     *
+     * @param json       The {@link JsonElement} to convert.
+     * @param dataObject The {@link DataObject} to insert into.
+     * @return The given {@link DataObject}.
+     * @throws ParsingException if {@code json} is not an object or an array, and its JSON can't be parsed.
+     */
+    @NonNull
+    public static DataObject insert(@NonNull JsonElement json, @NonNull DataObject dataObject) throws ParsingException {
+        if (!ObjectWriter.insertTree(json, dataObject)) {
+            Parser.parse(DataBinder.GSON.toJson(json), dataObject);
+        }
+        return dataObject;
+    }
+
+    /**
+     * Builds a {@link DataObject} from the given {@link JSONObject}, the same as {@link DataObject#DataObject(JSONObject,
+     * boolean...)}.
+     *
+     * @param json The {@link JSONObject} to convert.
+     * @return The new {@link DataObject}.
+     */
+    @NonNull
+    public static DataObject toDataObject(@NonNull JSONObject json) {
+        return new DataObject(json);
+    }
+
+    /**
+     * Builds a {@link DataObject} from the given {@link JSONArray}, the same as {@link DataObject#DataObject(JSONArray,
+     * boolean...)}.
+     *
+     * @param json The {@link JSONArray} to convert.
+     * @return The new {@link DataObject}.
+     */
+    @NonNull
+    public static DataObject toDataObject(@NonNull JSONArray json) {
+        return new DataObject(json);
+    }
+
+    /**
+     * Builds the {@link JsonElement} tree of the given {@link DataObject}.
+     *
+     * @param data      The {@link DataObject} to convert.
+     * @param arrayTags (Optional) Set of tags to ensure are output as JSON Array even if there is only a single element.
+     * @return A {@link com.google.gson.JsonArray JsonArray} if {@code data} is an anonymous array, a {@link
+     * com.google.gson.JsonObject JsonObject} otherwise.
+     */
+    @NonNull
+    public static JsonElement toJsonElement(@NonNull DataObject data, String... arrayTags) {
+        return toJsonElement(data, JsonWriteOptions.of(arrayTags));
+    }
+
+    /**
+     * Builds the {@link JsonElement} tree of the given {@link DataObject}.
+     *
+     * @param data    The {@link DataObject} to convert.
+     * @param options The {@link JsonWriteOptions} that give the array tags.
+     * @return A {@link com.google.gson.JsonArray JsonArray} if {@code data} is an anonymous array, a {@link
+     * com.google.gson.JsonObject JsonObject} otherwise.
+     */
+    @NonNull
+    public static JsonElement toJsonElement(@NonNull DataObject data, @NonNull JsonWriteOptions options) {
+        return DataBinder.toJsonTree(data, options);
+    }
+
+    /**
+     * Builds the {@link JSONObject} of the given {@link DataObject}.
+     *
+     * @param data      The {@link DataObject} to convert.
+     * @param arrayTags (Optional) Set of tags to ensure are output as JSON Array even if there is only a single element.
+     * @return The new {@link JSONObject}.
+     * @throws IllegalArgumentException if {@code data} is an anonymous array, see {@link #toJSONArray(DataObject,
+     *                                  String...)}.
+     */
+    @NonNull
+    public static JSONObject toJSONObject(@NonNull DataObject data, String... arrayTags) {
+        Object json = toJSON(data, JsonWriteOptions.of(arrayTags));
+        if (!(json instanceof JSONObject)) {
+            throw new IllegalArgumentException("The DataObject is an anonymous array, not an object");
+        }
+        return (JSONObject) json;
+    }
+
+    /**
+     * Builds the {@link JSONArray} of the given {@link DataObject}, which has to be an anonymous array.
+     *
+     * @param data      The {@link DataObject} to convert.
+     * @param arrayTags (Optional) Set of tags to ensure are output as JSON Array even if there is only a single element.
+     * @return The new {@link JSONArray}.
+     * @throws IllegalArgumentException if {@code data} is not an anonymous array, see {@link #toJSONObject(DataObject,
+     *                                  String...)}.
+     */
+    @NonNull
+    public static JSONArray toJSONArray(@NonNull DataObject data, String... arrayTags) {
+        Object json = toJSON(data, JsonWriteOptions.of(arrayTags));
+        if (!(json instanceof JSONArray)) {
+            throw new IllegalArgumentException("The DataObject is an object, not an anonymous array");
+        }
+        return (JSONArray) json;
+    }
+
+    /**
+     * Builds the org.json tree of the given {@link DataObject}.
+     *
+     * @param data    The {@link DataObject} to convert.
+     * @param options The {@link JsonWriteOptions} that give the array tags.
+     * @return A {@link JSONArray} if {@code data} is an anonymous array, a {@link JSONObject} otherwise.
+     */
+    @NonNull
+    public static Object toJSON(@NonNull DataObject data, @NonNull JsonWriteOptions options) {
+        return toJSONValue(data, options);
+    }
+
+    /**
+     * Builds the org.json value of the given value, see {@link DataBinder#valueOf(Object)}.
+     */
+    @NonNull
+    private static Object toJSONValue(@NonNull Object value, @NonNull JsonWriteOptions options) {
+        List<?> items = DataBinder.asArray(value);
+        if (items != null) {
+            JSONArray array = new JSONArray();
+            for (int i = 0; i < items.size(); i++) {
+                array.put(toJSONValue(DataBinder.valueOf(items.get(i)), options));
+            }
+            return array;
+        } else if (value instanceof DataObject) {
+            JSONObject object = new JSONObject();
+            for (Map.Entry<String, List<DataElement>> entry : ((DataObject) value).getElementEntries()) {
+                String tag = entry.getKey();
+                try {
+                    object.put(tag, toJSONValue(DataBinder.valueOf(tag, entry.getValue(), options), options));
+                } catch (JSONException e) {
+                    throw new IllegalStateException("Putting \"" + tag + "\" failed", e);
+                }
+            }
+            return object;
+        }
+        return value;
+    }
+}
@@ -0,0 +1,553 @@
+package com.duck.dataobject.binder;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.duck.dataobject.DataObject;
+import com.duck.dataobject.node.DataElement;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonNull;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonPrimitive;
+import com.google.gson.annotations.JsonAdapter;
+import com.google.gson.annotations.SerializedName;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.lang.reflect.GenericArrayType;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.lang.reflect.TypeVariable;
+import java.lang.reflect.WildcardType;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Builds the elements that the {@link com.duck.dataobject.parser.JSONParser JSONParser} would give for the JSON that
+ * {@code new Gson().toJson(src)} writes, straight from the fields of the objects. Each value is looked at as the JSON
+ * Gson would write for it: a string, an object or an array, or null where Gson leaves it out. Strings come out the way
+ * org.json reads them back, so numbers go through the same int, long and double parsing.
+ * <p>
+ * The fields of each class are looked up once. Values of types that Gson has its own adapters for, such as dates, are
+ * written by Gson to a {@link JsonElement} tree, which is then read the same way.
+ */
+final class ObjectWriter {
+    //the kinds of JSON a value is written as, GSON for values that Gson has to write
+    private static final int GSON = -1, NULL = 0, STRING = 1, OBJECT = 2, ARRAY = 3;
+
+    private static final Map<Type, FieldWriter[]> FIELDS = new ConcurrentHashMap<>();
+    //marks the types that can't be written field by field the way Gson writes them
+    private static final FieldWriter[] UNSUPPORTED = new FieldWriter[0];
+    private static final Map<Type, Type> ELEMENT_TYPES = new ConcurrentHashMap<>();
+    private static final Map<Type, Type> VALUE_TYPES = new ConcurrentHashMap<>();
+    private static final Map<Class<?>, Map<Object, String>> ENUM_NAMES = new ConcurrentHashMap<>();
+
+    private ObjectWriter() {
+    }
+
+    /**
+     * Inserts the elements of the given object into the given {@link DataObject}, as the {@link
+     * com.duck.dataobject.parser.JSONParser JSONParser} would for the JSON object Gson writes for it.
+     *
+     * @return {@code False} if the object is not written as a JSON object, or not field by field, in which case nothing
+     * is inserted.
+     */
+    static boolean insertObject(@Nullable Object src, @NonNull DataObject dataObject) {
+        if (src == null) {
+            return false;
+        } else if (src instanceof JsonElement) {
+            return insertTree((JsonElement) src, dataObject);
+        }
+        Type type = src.getClass();
+        if (kindOf(src, type) != OBJECT) {
+            return false;
+        }
+        insertMembers(src, type, dataObject);
+        return true;
+    }
+
+    /**
+     * Inserts the elements of the given {@link JsonObject} or {@link JsonArray} into the given {@link DataObject}, as the
+     * {@link com.duck.dataobject.parser.JSONParser JSONParser} would for the JSON Gson writes for it.
+     *
+     * @return {@code False} if the element is not an object or an array, in which case nothing is inserted.
+     */
+    static boolean insertTree(@NonNull JsonElement json, @NonNull DataObject dataObject) {
+        if (json.isJsonObject()) {
+            insertMembers(json, JsonObject.class, dataObject);
+            return true;
+        } else if (json.isJsonArray()) {
+            //the Parser leaves out "[]" as too short to be JSON
+            if (json.getAsJsonArray().size() > 0) {
+                dataObject.insert(anonymousElements(json, JsonArray.class));
+            }
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Gives the type that Gson writes a value with. That is the class of the value, unless a more exact type is known
+     * from the declared type, such as the element type of a {@code List<Item>}.
+     *
+     * @param value    The value.
+     * @param declared The declared type of the field, element or value, or {@code null}.
+     * @return The type to write the value with.
+     */
+    @NonNull
+    private static Type typeOf(@NonNull Object value, @Nullable Type declared) {
+        Type type = declared;
+        if (type instanceof WildcardType) {
+            type = ((WildcardType) type).getUpperBounds()[0];
+        } else if (!(type instanceof ParameterizedType || type instanceof GenericArrayType)) {
+            return value.getClass();
+        }
+        return Binding.rawType(type) == Object.class ? value.getClass() : type;
+    }
+
+    /**
+     * @return The kind of JSON Gson writes for the given value with the given type.
+     */
+    private static int kindOf(@Nullable Object value, @NonNull Type type) {
+        if (value == null || value instanceof JsonNull) {
+            return NULL;
+        } else if (value instanceof JsonPrimitive) {
+            return STRING;
+        } else if (value instanceof JsonObject) {
+            return OBJECT;
+        } else if (value instanceof JsonArray) {
+            return ARRAY;
+        }
+        Class<?> raw = Binding.rawType(type);
+        //Gson writes instances of anonymous and local classes as null, enum constants with a body are anonymous
+        if (!Enum.class.isAssignableFrom(raw) && (raw.isAnonymousClass() || raw.isLocalClass())) {
+            return NULL;
+        } else if (value instanceof String || value instanceof Character || value instanceof Boolean
+                || value instanceof Enum || value instanceof Integer || value instanceof Long
+                || value instanceof Double || value instanceof Float || value instanceof Short
+                || value instanceof Byte || value instanceof BigDecimal || value instanceof BigInteger) {
+            return STRING;
+        } else if (Map.class.isAssignableFrom(raw)) {
+            return OBJECT;
+        } else if (Collection.class.isAssignableFrom(raw) || raw.isArray()) {
+            return ARRAY;
+        }
+        return mapperOf(type) != null || fieldsOf(type) != UNSUPPORTED ? OBJECT : GSON;
+    }
+
+    /**
+     * @return The generated {@link DataMapper} of the given type if it is a {@link DataModel} class.
+     */
+    @Nullable
+    @SuppressWarnings("unchecked")
+    private static DataMapper<Object> mapperOf(@NonNull Type type) {
+        return type instanceof Class ? (DataMapper<Object>) DataMapper.of((Class<?>) type) : null;
+    }
+
+    /**
+     * Inserts the members of the given object, {@link Map} or {@link JsonObject} into the given {@link DataObject}.
+     */
+    private static void insertMembers(@NonNull Object value, @NonNull Type type, @NonNull DataObject dataObject) {
+        if (value instanceof JsonObject) {
+            for (Map.Entry<String, JsonElement> entry : ((JsonObject) value).entrySet()) {
+                insertMember(entry.getKey(), entry.getValue(), null, dataObject);
+            }
+        } else if (value instanceof Map) {
+            Type valueType = itemType(type, Map.class, 1);
+            //Gson leaves out null values, and org.json keeps the last value of a repeated key in the place of the first
+            Map<String, Object> members = new LinkedHashMap<>();
+            for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+                Object memberValue = entry.getValue();
+                if (memberValue != null && kindOf(memberValue, typeOf(memberValue, valueType)) != NULL) {
+                    members.put(String.valueOf(entry.getKey()), memberValue);
+                }
+            }
+            for (Map.Entry<String, Object> entry : members.entrySet()) {
+                insertMember(entry.getKey(), entry.getValue(), valueType, dataObject);
+            }
+        } else {
+            DataMapper<Object> mapper = mapperOf(type);
+            if (mapper != null) {
+                mapper.write(value, dataObject);
+                return;
+            }
+            for (FieldWriter fieldWriter : fieldsOf(type)) {
+                Object fieldValue = fieldWriter.get(value);
+                //Gson skips fields that hold the object itself, such as the cause of a Throwable
+                if (fieldValue != value) {
+                    insertMember(fieldWriter.name, fieldValue, fieldWriter.type, dataObject);
+                }
+            }
+        }
+    }
+
+    /**
+     * Inserts one member of a JSON object, as the JSONParser does.
+     */
+    private static void insertMember(@NonNull String name, @Nullable Object value, @Nullable Type declared,
+                                     @NonNull DataObject dataObject) {
+        if (value == null) {
+            //Gson leaves out members that are null
+            return;
+        }
+        Type type = typeOf(value, declared);
+        int kind = kindOf(value, type);
+        if (kind == GSON) {
+            value = DataBinder.GSON.toJsonTree(value, type);
+            kind = kindOf(value, type);
+        }
+        switch (kind) {
+            case ARRAY:
+                ArrayList<DataElement> elements = new ArrayList<>();
+                Type itemType = itemTypeOf(value, type);
+                Iterator<?> items = itemsOf(value);
+                while (items.hasNext()) {
+                    Object item = items.next();
+                    Type type2 = item != null ? typeOf(item, itemType) : itemType;
+                    int itemKind = kindOf(item, type2);
+                    if (itemKind == GSON) {
+                        item = DataBinder.GSON.toJsonTree(item, type2);
+                        itemKind = kindOf(item, type2);
+                    }
+                    switch (itemKind) {
+                        case ARRAY:
+                            ArrayList<DataElement> newElements = anonymousElements(item, type2);
+                            if (newElements.size() > 0) {
+                                elements.add(new DataElement(name, newElements));
+                            }
+                            break;
+                        case OBJECT:
+                            elements.add(new DataElement(name, toDataObject(item, type2)));
+                            break;
+                        default:
+                            elements.add(new DataElement(name, stringOf(itemKind == NULL ? null : item)));
+                            break;
+                    }
+                }
+                if (elements.size() > 0) {
+                    dataObject.insert(name, elements);
+                }
+                break;
+            case OBJECT:
+                dataObject.insert(name, toDataObject(value, type));
+                break;
+            case STRING:
+                dataObject.insert(name, stringOf(value), false);
+                break;
+            default:
+                break;
+        }
+    }
+
+    @NonNull
+    private static ArrayList<DataElement> anonymousElements(@NonNull Object value, @NonNull Type type) {
+        ArrayList<DataElement> elements = new ArrayList<>();
+        Type itemType = itemTypeOf(value, type);
+        Iterator<?> items = itemsOf(value);
+        while (items.hasNext()) {
+            Object item = items.next();
+            Type type2 = item != null ? typeOf(item, itemType) : itemType;
+            int itemKind = kindOf(item, type2);
+            if (itemKind == GSON) {
+                item = DataBinder.GSON.toJsonTree(item, type2);
+                itemKind = kindOf(item, type2);
+            }
+            switch (itemKind) {
+                case ARRAY:
+                    ArrayList<DataElement> newElements = anonymousElements(item, type2);
+                    if (newElements.size() > 0) {
+                        elements.add(new DataElement(newElements));
+                    }
+                    break;
+                case OBJECT:
+                    elements.add(new DataElement(toDataObject(item, type2)));
+                    break;
+                default:
+                    elements.add(new DataElement("", stringOf(itemKind == NULL ? null : item)));
+                    break;
+            }
+        }
+        return elements;
+    }
+
+    @NonNull
+    private static DataObject toDataObject(@NonNull Object value, @NonNull Type type) {
+        DataObject dataObject = new DataObject();
+        insertMembers(value, type, dataObject);
+        return dataObject;
+    }
+
+    /**
+     * @return The declared type of the items of the given array or {@link Collection}, {@code null} for a {@link
+     * JsonArray}.
+     */
+    @Nullable
+    private static Type itemTypeOf(@NonNull Object value, @NonNull Type type) {
+        if (value instanceof JsonArray) {
+            return null;
+        } else if (type instanceof GenericArrayType) {
+            return ((GenericArrayType) type).getGenericComponentType();
+        } else if (type instanceof Class && ((Class<?>) type).isArray()) {
+            return ((Class<?>) type).getComponentType();
+        }
+        return itemType(type, Collection.class, 0);
+    }
+
+    /**
+     * Gives the type argument of the given {@link Collection} or {@link Map} type, found through its super types the
+     * way Gson finds it.
+     *
+     * @param type   The collection or map type.
+     * @param target {@link Collection} or {@link Map}.
+     * @param index  The index of the type argument, the element type of a collection or the value type of a map.
+     * @return The type argument, {@link Object} if it is not known.
+     */
+    @NonNull
+    private static Type itemType(@NonNull Type type, @NonNull Class<?> target, int index) {
+        Map<Type, Type> cache = target == Map.class ? VALUE_TYPES : ELEMENT_TYPES;
+        Type itemType = cache.get(type);
+        if (itemType == null) {
+            itemType = findItemType(Binding.rawType(type),
+                                    Binding.variablesOf(type, new HashMap<TypeVariable<?>, Type>()), target, index);
+            cache.put(type, itemType);
+        }
+        return itemType;
+    }
+
+    @NonNull
+    private static Type findItemType(@NonNull Class<?> raw, @NonNull Map<TypeVariable<?>, Type> variables,
+                                     @NonNull Class<?> target, int index) {
+        if (raw == target) {
+            Type itemType = variables.get(target.getTypeParameters()[index]);
+            return itemType != null ? itemType : Object.class;
+        }
+        List<Type> superTypes = new ArrayList<>(Arrays.asList(raw.getGenericInterfaces()));
+        if (raw.getGenericSuperclass() != null) {
+            superTypes.add(0, raw.getGenericSuperclass());
+        }
+        for (Type superType : superTypes) {
+            Class<?> superRaw = Binding.rawType(superType);
+            if (target.isAssignableFrom(superRaw)) {
+                return findItemType(superRaw, Binding.variablesOf(superType, variables), target, index);
+            }
+        }
+        return Object.class;
+    }
+
+    @NonNull
+    private static Iterator<?> itemsOf(@NonNull final Object value) {
+        if (value instanceof Iterable) {
+            return ((Iterable<?>) value).iterator();
+        }
+        return new Iterator<Object>() {
+            private final int length = Array.getLength(value);
+            private int index = 0;
+
+            @Override
+            public boolean hasNext() {
+                return index < length;
+            }
+
+            @Override
+            public Object next() {
+                return Array.get(value, index++);
+            }
+
+            @Override
+            public void remove() {
+                throw new UnsupportedOperationException();
+            }
+        };
+    }
+
+    /**
+     * @return The string org.json gives for the given value, "null" for null items of arrays.
+     */
+    @NonNull
+    private static String stringOf(@Nullable Object value) {
+        if (value == null || value instanceof JsonElement && ((JsonElement) value).isJsonNull()) {
+            return "null";
+        } else if (value instanceof String) {
+            return (String) value;
+        } else if (value instanceof Enum) {
+            return enumName((Enum<?>) value);
+        } else if (value instanceof JsonPrimitive) {
+            JsonPrimitive primitive = (JsonPrimitive) value;
+            if (primitive.isNumber()) {
+                String number = primitive.getAsString();
+                if (number.equals("NaN") || number.equals("Infinity") || number.equals("-Infinity")) {
+                    throw new IllegalArgumentException("Numeric values must be finite, but was " + number);
+                }
+                return readNumber(number);
+            }
+            return primitive.getAsString();
+        } else if (value instanceof Double || value instanceof Float) {
+            double doubleValue = ((Number) value).doubleValue();
+            if (Double.isNaN(doubleValue) || Double.isInfinite(doubleValue)) {
+                throw new IllegalArgumentException(value + " is not a valid double value as per JSON specification. "
+                                                           + "To override this behavior, use "
+                                                           + "GsonBuilder.serializeSpecialFloatingPointValues() "
+                                                           + "method.");
+            }
+            return readNumber(value.toString());
+        } else if (value instanceof Number) {
+            return readNumber(value.toString());
+        }
+        return String.valueOf(value);
+    }
+
+    /**
+     * Reads the given JSON number the way org.json does and gives the string it keeps for it. Numbers without a
+     * decimal point are read as an int or long, others and those too big for a long are read as a double.
+     */
+    @NonNull
+    static String readNumber(@NonNull String number) {
+        if (number.indexOf('.') == -1) {
+            int base = 10;
+            String digits = number;
+            if (digits.startsWith("0x") || digits.startsWith("0X")) {
+                digits = digits.substring(2);
+                base = 16;
+            } else if (digits.startsWith("0") && digits.length() > 1) {
+                digits = digits.substring(1);
+                base = 8;
+            }
+            try {
+                return String.valueOf(Long.parseLong(digits, base));
+            } catch (NumberFormatException e) {
+                //too big for a long or has an exponent, read it as a double
+            }
+        }
+        try {
+            return String.valueOf(Double.valueOf(number));
+        } catch (NumberFormatException e) {
+            return number;
+        }
+    }
+
+    /**
+     * @return The {@link SerializedName} of the given constant, or its name.
+     */
+    @NonNull
+    private static String enumName(@NonNull Enum<?> constant) {
+        Class<?> enumClass = constant.getDeclaringClass();
+        Map<Object, String> names = ENUM_NAMES.get(enumClass);
+        if (names == null) {
+            names = new HashMap<>();
+            for (Field field : enumClass.getDeclaredFields()) {
+                if (!field.isEnumConstant()) {
+                    continue;
+                }
+                SerializedName annotation = field.getAnnotation(SerializedName.class);
+                try {
+                    field.setAccessible(true);
+                    Object value = field.get(null);
+                    names.put(value, annotation != null ? annotation.value() : ((Enum<?>) value).name());
+                } catch (IllegalAccessException e) {
+                    throw new IllegalStateException("Reading " + field + " failed", e);
+                }
+            }
+            ENUM_NAMES.put(enumClass, names);
+        }
+        String name = names.get(constant);
+        return name != null ? name : constant.name();
+    }
+
+    /**
+     * @return The fields Gson writes for the given type in the order it writes them, or {@link #UNSUPPORTED}.
+     */
+    @NonNull
+    private static FieldWriter[] fieldsOf(@NonNull Type type) {
+        FieldWriter[] fields = FIELDS.get(type);
+        if (fields == null) {
+            fields = findFields(type);
+            FIELDS.put(type, fields);
+        }
+        return fields;
+    }
+
+    @NonNull
+    private static FieldWriter[] findFields(@NonNull Type type) {
+        Class<?> raw = Binding.rawType(type);
+        if (raw.isAnnotationPresent(JsonAdapter.class) || raw.isPrimitive()) {
+            return UNSUPPORTED;
+        }
+        List<FieldWriter> fields = new ArrayList<>();
+        if (raw.isInterface()) {
+            //Gson writes the values of a parameterized interface type as an empty object
+            return ClassBinding.isPlatformType(raw) ? UNSUPPORTED : fields.toArray(new FieldWriter[0]);
+        }
+        Map<String, Field> names = new HashMap<>();
+        Map<TypeVariable<?>, Type> variables = Binding.variablesOf(type, new HashMap<TypeVariable<?>, Type>());
+        Class<?> current = raw;
+        while (current != Object.class) {
+            //types that Gson has adapters for, and their sub classes, are left to Gson
+            if (ClassBinding.isPlatformType(current)) {
+                return UNSUPPORTED;
+            }
+            for (Field field : current.getDeclaredFields()) {
+                if (ClassBinding.isExcluded(field)) {
+                    continue;
+                }
+                if (field.isAnnotationPresent(JsonAdapter.class)) {
+                    return UNSUPPORTED;
+                }
+                SerializedName annotation = field.getAnnotation(SerializedName.class);
+                String name = annotation != null ? annotation.value() : field.getName();
+                if (names.put(name, field) != null) {
+                    //Gson refuses classes with two fields of one name, leave it to give the error
+                    return UNSUPPORTED;
+                }
+                if (annotation != null) {
+                    for (String alternate : annotation.alternate()) {
+                        if (names.put(alternate, field) != null) {
+                            return UNSUPPORTED;
+                        }
+                    }
+                }
+                try {
+                    field.setAccessible(true);
+                } catch (SecurityException e) {
+                    return UNSUPPORTED;
+                }
+                fields.add(new FieldWriter(field, name, Binding.resolve(field.getGenericType(), variables)));
+            }
+            Type superType = current.getGenericSuperclass();
+            variables = Binding.variablesOf(superType, variables);
+            current = current.getSuperclass();
+        }
+        return fields.toArray(new FieldWriter[0]);
+    }
+
+    private static final class FieldWriter {
+        private final Field field;
+        final String name;
+        //the type of the field, with the type variables of its class resolved
+        final Type type;
+
+        FieldWriter(@NonNull Field field, @NonNull String name, @NonNull Type type) {
+            this.field = field;
+            this.name = name;
+            this.type = type;
+        }
+
+        @Nullable
+        Object get(@NonNull Object instance) {
+            try {
+                return field.get(instance);
+            } catch (IllegalAccessException e) {
+                throw new IllegalStateException("Reading " + field + " failed", e);
+            }
+        }
+    }
+}
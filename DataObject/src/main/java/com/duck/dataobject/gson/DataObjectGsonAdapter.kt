@@ -4,7 +4,13 @@ import com.duck.dataobject.DataObject
 import com.google.gson.*
 import java.lang.reflect.Type
 
+/**
+ * Converts [DataObject]s to and from Gson's [JsonElement] trees through a [DataObjectTypeAdapter], register the
+ * [DataObjectTypeAdapter] itself to convert them straight from and to the JSON stream.
+ */
 class DataObjectGsonAdapter : JsonSerializer<DataObject>, JsonDeserializer<DataObject> {
+	private val typeAdapter = DataObjectTypeAdapter()
+
 	/**
 	 * Gson invokes this call-back method during serialization when it encounters a field of the
 	 * specified type.
@@ -24,7 +30,7 @@ class DataObjectGsonAdapter : JsonSerializer<DataObject>, JsonDeserializer<DataO
 	                       typeOfSrc: Type?,
 	                       context: JsonSerializationContext?): JsonElement {
 		return if (src != null) {
-			JsonParser().parse(src.toJSON())
+			typeAdapter.toJsonTree(src)
 		} else {
 			JsonObject()
 		}
@@ -48,23 +54,8 @@ class DataObjectGsonAdapter : JsonSerializer<DataObject>, JsonDeserializer<DataO
 	override fun deserialize(json: JsonElement?,
 	                         typeOfT: Type?,
 	                         context: JsonDeserializationContext?): DataObject {
-		return if (json != null) {
-
-			var jsonCopy = json.toString()
-			if (jsonCopy.contains('\"')) {
-				/**** Clean out start and end quotes if there is any*/
-				if (jsonCopy.length > 1 && jsonCopy[0] == '\"') {
-					jsonCopy = jsonCopy.substring(1, jsonCopy.length - 1)
-				}
-				if (jsonCopy.length > 1 && jsonCopy[jsonCopy.length - 1] == '\"') {
-					jsonCopy = jsonCopy.substring(0, jsonCopy.length - 2)
-				}
-
-				DataObject(jsonCopy)
-			} else {
-				DataObject(json)
-			}
-
+		return if (json != null && !json.isJsonNull) {
+			typeAdapter.fromJsonTree(json)!!
 		} else {
 			DataObject()
 		}
@@ -0,0 +1,174 @@
+package com.duck.dataobject.gson
+
+import com.duck.dataobject.DataObject
+import com.duck.dataobject.DataObject.ANONYMOUS_ARRAY_TAG
+import com.duck.dataobject.node.DataElement
+import com.duck.dataobject.serializer.JsonWriteOptions
+import com.google.gson.JsonSyntaxException
+import com.google.gson.TypeAdapter
+import com.google.gson.stream.JsonReader
+import com.google.gson.stream.JsonToken
+import com.google.gson.stream.JsonWriter
+
+/**
+ * A [TypeAdapter] that writes and reads [DataObject]s straight through the [JsonWriter] and [JsonReader] tokens, without
+ * writing the [DataObject] out as JSON text and parsing it again. Register it with
+ * `GsonBuilder().registerTypeAdapter(DataObject::class.java, DataObjectTypeAdapter())`.
+ *
+ * A [DataObject] is written as the same JSON as [DataObject.toJSON] gives, with all values as strings, except that an
+ * empty [DataObject] is written as `{}`. JSON is read the same way as [DataObject] parses it, and a JSON string is parsed
+ * as the JSON or XML text it holds.
+ *
+ * @param arrayTags (Optional) Set of tags to ensure are output as JSON Array even if there is only a single element.
+ */
+class DataObjectTypeAdapter(vararg arrayTags: String) : TypeAdapter<DataObject>() {
+	private val options: JsonWriteOptions = JsonWriteOptions.of(*arrayTags)
+
+	override fun write(out: JsonWriter, value: DataObject?) {
+		if (value == null) {
+			out.nullValue()
+		} else {
+			writeObject(out, value)
+		}
+	}
+
+	private fun writeObject(out: JsonWriter, dataObject: DataObject) {
+		val entries = dataObject.elementEntries
+		//either we have an anonymous array or we have an object, it is illegal to have both
+		val anonymous = entries.firstOrNull { it.key == ANONYMOUS_ARRAY_TAG }
+		if (anonymous != null) {
+			writeElements(out, anonymous.value)
+			return
+		}
+		out.beginObject()
+		for ((tag, elements) in entries) {
+			out.name(tag)
+			if (elements.size == 1 && !options.isArrayTag(tag)) {
+				writeElement(out, elements[0])
+			} else {
+				writeElements(out, elements)
+			}
+		}
+		out.endObject()
+	}
+
+	private fun writeElements(out: JsonWriter, elements: List<DataElement>) {
+		out.beginArray()
+		for (element in elements) {
+			writeElement(out, element)
+		}
+		out.endArray()
+	}
+
+	private fun writeElement(out: JsonWriter, element: DataElement) {
+		val value = element.value
+		when {
+			element.isObject -> writeObject(out, value as DataObject)
+			element.isArray -> {
+				out.beginArray()
+				for (item in value as List<*>) {
+					when (item) {
+						is DataElement -> writeElement(out, item)
+						is DataObject -> writeObject(out, item)
+						else -> out.value(item.toString())
+					}
+				}
+				out.endArray()
+			}
+			//a null value, such as an empty xml element, is written as "null" the same as toJSON writes it
+			value == null -> out.value("null")
+			else -> out.value(value.toString())
+		}
+	}
+
+	override fun read(reader: JsonReader): DataObject? {
+		return when (reader.peek()) {
+			JsonToken.NULL -> {
+				reader.nextNull()
+				null
+			}
+			JsonToken.BEGIN_OBJECT -> readObject(reader)
+			JsonToken.BEGIN_ARRAY -> DataObject().insert(readItems(reader))
+			JsonToken.STRING -> DataObject(reader.nextString())
+			else -> throw JsonSyntaxException("Expected a DataObject but was ${reader.peek()} at path ${reader.path}")
+		}
+	}
+
+	private fun readObject(reader: JsonReader): DataObject {
+		val dataObject = DataObject()
+		reader.beginObject()
+		while (reader.hasNext()) {
+			val name = reader.nextName()
+			when (reader.peek()) {
+				JsonToken.BEGIN_ARRAY -> {
+					val elements = readElements(reader, name)
+					if (elements.size > 0) {
+						dataObject.insert(name, elements)
+					}
+				}
+				JsonToken.BEGIN_OBJECT -> dataObject.insert(name, readObject(reader))
+				else -> dataObject.insert(name, readString(reader), false)
+			}
+		}
+		reader.endObject()
+		return dataObject
+	}
+
+	/**
+	 * Reads the values of an array as elements with the given tag.
+	 */
+	private fun readElements(reader: JsonReader, name: String): ArrayList<DataElement> {
+		val elements = ArrayList<DataElement>()
+		reader.beginArray()
+		while (reader.hasNext()) {
+			when (reader.peek()) {
+				JsonToken.BEGIN_ARRAY -> {
+					val items = readItems(reader)
+					if (items.size > 0) {
+						elements.add(DataElement(name, items))
+					}
+				}
+				JsonToken.BEGIN_OBJECT -> elements.add(DataElement(name, readObject(reader)))
+				else -> elements.add(DataElement(name, readString(reader)))
+			}
+		}
+		reader.endArray()
+		return elements
+	}
+
+	/**
+	 * Reads the values of an array that is not the value of a key, as elements without tags.
+	 */
+	private fun readItems(reader: JsonReader): ArrayList<DataElement> {
+		val elements = ArrayList<DataElement>()
+		reader.beginArray()
+		while (reader.hasNext()) {
+			when (reader.peek()) {
+				JsonToken.BEGIN_ARRAY -> {
+					val items = readItems(reader)
+					if (items.size > 0) {
+						elements.add(DataElement(items))
+					}
+				}
+				JsonToken.BEGIN_OBJECT -> elements.add(DataElement(readObject(reader)))
+				else -> elements.add(DataElement("", readString(reader)))
+			}
+		}
+		reader.endArray()
+		return elements
+	}
+
+	/**
+	 * Reads a value that is neither an object nor an array as a string, null is read as "null".
+	 */
+	private fun readString(reader: JsonReader): String {
+		return when (reader.peek()) {
+			JsonToken.NULL -> {
+				reader.nextNull()
+				"null"
+			}
+			JsonToken.BOOLEAN -> reader.nextBoolean().toString()
+			else -> reader.nextString()
+		}
+	}
+}
@@ -0,0 +1,337 @@
+package com.duck.dataobject.mapped;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.duck.dataobject.exception.ParsingException;
+import com.duck.dataobject.node.DataElement;
+import com.duck.dataobject.node.XMLAttribute;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.duck.dataobject.serializer.SnapshotSerializer.ATTRIBUTE_SHIFT;
+import static com.duck.dataobject.serializer.SnapshotSerializer.CDATA_FLAG;
+import static com.duck.dataobject.serializer.SnapshotSerializer.KIND_DOUBLE;
+import static com.duck.dataobject.serializer.SnapshotSerializer.KIND_FLOAT;
+import static com.duck.dataobject.serializer.SnapshotSerializer.KIND_INT;
+import static com.duck.dataobject.serializer.SnapshotSerializer.KIND_LIST;
+import static com.duck.dataobject.serializer.SnapshotSerializer.KIND_MASK;
+import static com.duck.dataobject.serializer.SnapshotSerializer.KIND_NULL;
+import static com.duck.dataobject.serializer.SnapshotSerializer.KIND_OBJECT;
+import static com.duck.dataobject.serializer.SnapshotSerializer.KIND_STRING;
+
+/**
+ * A read only element of a {@link MappedDataObject}. It holds only its position in the snapshot, its tag, attributes
+ * and value are read from the snapshot each time they are asked for. The getters work the same as those of {@link
+ * DataElement}.
+ */
+public final class MappedDataElement {
+    private final SnapshotBuffer buffer;
+    private final long position;
+    private final int header;
+
+    MappedDataElement(@NonNull SnapshotBuffer buffer, long position) {
+        this.buffer = buffer;
+        this.position = position;
+        header = buffer.node(position);
+    }
+
+    private int getKind() {
+        return header & KIND_MASK;
+    }
+
+    /**
+     * @return The position of the first node of the value.
+     */
+    private long valuePosition() {
+        return position + 2 + getAttributeCount() * 2L;
+    }
+
+    /**
+     * @return The position of the node after this element.
+     */
+    long end() {
+        switch (getKind()) {
+            case KIND_NULL:
+                return valuePosition();
+            case KIND_STRING:
+            case KIND_INT:
+            case KIND_FLOAT:
+                return valuePosition() + 1;
+            case KIND_DOUBLE:
+                return valuePosition() + 2;
+            case KIND_OBJECT:
+            case KIND_LIST:
+                long start = valuePosition() + 1;
+                int count = buffer.node(start - 1);
+                if (count < 0) {
+                    throw new ParsingException("Corrupt DataObject snapshot, negative node count " + count);
+                }
+                return start + count;
+            default:
+                throw new ParsingException("Corrupt DataObject snapshot, unknown node kind " + getKind());
+        }
+    }
+
+    @NonNull
+    public String getTag() {
+        return buffer.string(buffer.node(position + 1));
+    }
+
+    public boolean hasTag(@NonNull String xmlTag) {
+        return buffer.stringEquals(buffer.node(position + 1), xmlTag);
+    }
+
+    public boolean isCDATA() {
+        return (header & CDATA_FLAG) != 0;
+    }
+
+    public boolean isObject() {
+        return getKind() == KIND_OBJECT;
+    }
+
+    public boolean isArray() {
+        return getKind() == KIND_LIST;
+    }
+
+    /**
+     * @return The number of attributes this element has.
+     */
+    public int getAttributeCount() {
+        return header >>> ATTRIBUTE_SHIFT;
+    }
+
+    public boolean hasAttributes() {
+        return getAttributeCount() > 0;
+    }
+
+    /**
+     * @param index The index of the attribute, from 0 to {@link #getAttributeCount()} - 1.
+     * @return The tag of the attribute at the given index.
+     */
+    @NonNull
+    public String getAttributeTag(int index) {
+        checkAttributeIndex(index);
+        return buffer.string(buffer.node(position + 2 + index * 2L));
+    }
+
+    /**
+     * @param index The index of the attribute, from 0 to {@link #getAttributeCount()} - 1.
+     * @return The value of the attribute at the given index.
+     */
+    @NonNull
+    public String getAttributeValue(int index) {
+        checkAttributeIndex(index);
+        return buffer.string(buffer.node(position + 3 + index * 2L));
+    }
+
+    private void checkAttributeIndex(int index) {
+        if (index < 0 || index >= getAttributeCount()) {
+            throw new IndexOutOfBoundsException("Attribute index: " + index + ", count: " + getAttributeCount());
+        }
+    }
+
+    /**
+     * Returns the value of the first attribute of this element with the given {@code attributeTag}.
+     *
+     * @param attributeTag The tag of the attribute.
+     * @return The value of the attribute, or {@code null} if this element has no such attribute.
+     */
+    @Nullable
+    public String getAttributeValue(@NonNull String attributeTag) {
+        int index = indexOfAttribute(attributeTag, null);
+        return index >= 0 ? getAttributeValue(index) : null;
+    }
+
+    /**
+     * @return The index of the first attribute with the given tag, and value if it is not {@code null}, or -1.
+     */
+    private int indexOfAttribute(@NonNull String attributeTag, @Nullable String attributeValue) {
+        int count = getAttributeCount();
+        for (int i = 0; i < count; i++) {
+            long attribute = position + 2 + i * 2L;
+            if (buffer.stringEquals(buffer.node(attribute), attributeTag)
+                    && (attributeValue == null || buffer.stringEquals(buffer.node(attribute + 1), attributeValue))) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Checks if this element has all of the given {@code attributes}.
+     *
+     * @param attributes The {@link XMLAttribute XMLAttributes} to check for.
+     * @return {@code True} if this element has all of the given attributes or none were given, {@code False}
+     *         otherwise.
+     */
+    public boolean hasAttribute(XMLAttribute... attributes) {
+        if (attributes == null || attributes.length <= 0) {
+            return true;
+        }
+        for (XMLAttribute attribute : attributes) {
+            if (indexOfAttribute(attribute.getTag(), attribute.getValueAsString()) < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Checks if this element's set of attributes exactly matches the given {@code attributes} set.
+     *
+     * @param attributes The {@link XMLAttribute} set to compare against.
+     * @return {@code True} if this element's attribute set exactly matches the given attribute set or none were given,
+     *         {@code False} otherwise.
+     */
+    public boolean matchAttributes(XMLAttribute... attributes) {
+        if (attributes == null || attributes.length <= 0) {
+            return true;
+        }
+        return getAttributeCount() == attributes.length && hasAttribute(attributes);
+    }
+
+    public String getValueAsString(String defaultValue) {
+        switch (getKind()) {
+            case KIND_STRING:
+                return buffer.string(buffer.node(valuePosition()));
+            case KIND_INT:
+                return String.valueOf(getValueAsInteger(0));
+            case KIND_FLOAT:
+                return String.valueOf(getValueAsFloat(0));
+            case KIND_DOUBLE:
+                return String.valueOf(getValueAsDouble(0));
+            case KIND_LIST:
+                return toDataElement().getValueAsString(defaultValue);
+            default:
+                return defaultValue;
+        }
+    }
+
+    public int getValueAsInteger(int defaultValue) {
+        switch (getKind()) {
+            case KIND_INT:
+                return buffer.node(valuePosition());
+            case KIND_STRING:
+                try {
+                    return Integer.valueOf(getValueAsString(null));
+                } catch (NumberFormatException e) {
+                    return defaultValue;
+                }
+            default:
+                return defaultValue;
+        }
+    }
+
+    public float getValueAsFloat(float defaultValue) {
+        switch (getKind()) {
+            case KIND_FLOAT:
+                return Float.intBitsToFloat(buffer.node(valuePosition()));
+            case KIND_STRING:
+                try {
+                    return Float.valueOf(getValueAsString(null));
+                } catch (NumberFormatException e) {
+                    return defaultValue;
+                }
+            default:
+                return defaultValue;
+        }
+    }
+
+    public double getValueAsDouble(double defaultValue) {
+        switch (getKind()) {
+            case KIND_DOUBLE:
+                long high = buffer.node(valuePosition());
+                long low = buffer.node(valuePosition() + 1) & 0xFFFFFFFFL;
+                return Double.longBitsToDouble((high << 32) | low);
+            case KIND_STRING:
+                try {
+                    return Double.valueOf(getValueAsString(null));
+                } catch (NumberFormatException e) {
+                    return defaultValue;
+                }
+            default:
+                return defaultValue;
+        }
+    }
+
+    public MappedDataObject getValueAsObject(MappedDataObject defaultValue) {
+        if (isObject()) {
+            return new MappedDataObject(buffer, valuePosition() + 1);
+        } else {
+            return defaultValue;
+        }
+    }
+
+    /**
+     * @param defaultValue The value to return if this element's value is not a list.
+     * @return The items of this element's list.
+     */
+    public List<MappedDataElement> getValueAsList(List<MappedDataElement> defaultValue) {
+        if (!isArray()) {
+            return defaultValue;
+        }
+        long start = valuePosition() + 1;
+        int count = buffer.node(start);
+        List<MappedDataElement> items = new ArrayList<>(Math.max(Math.min(count, buffer.nodeCount), 0));
+        long item = start + 1;
+        for (int i = 0; i < count; i++) {
+            MappedDataElement element = new MappedDataElement(buffer, item);
+            items.add(element);
+            item = element.end();
+        }
+        return items;
+    }
+
+    /**
+     * Reads this element, with everything in it, into a new {@link DataElement}.
+     *
+     * @return The new {@link DataElement}.
+     */
+    @NonNull
+    public DataElement toDataElement() {
+        String tag = getTag();
+        DataElement element;
+        switch (getKind()) {
+            case KIND_STRING:
+                element = new DataElement(tag, getValueAsString(null));
+                break;
+            case KIND_INT:
+                element = new DataElement(tag, getValueAsInteger(0));
+                break;
+            case KIND_FLOAT:
+                element = new DataElement(tag, getValueAsFloat(0));
+                break;
+            case KIND_DOUBLE:
+                element = new DataElement(tag, getValueAsDouble(0));
+                break;
+            case KIND_OBJECT:
+                element = new DataElement(tag, getValueAsObject(null).toDataObject());
+                break;
+            case KIND_LIST:
+                List<MappedDataElement> items = getValueAsList(null);
+                List<DataElement> elements = new ArrayList<>(items.size());
+                for (int i = 0; i < items.size(); i++) {
+                    elements.add(items.get(i).toDataElement());
+                }
+                element = new DataElement(tag, elements);
+                break;
+            case KIND_NULL:
+                element = new DataElement(tag);
+                break;
+            default:
+                throw new ParsingException("Corrupt DataObject snapshot, unknown node kind " + getKind());
+        }
+        element.CDATA = isCDATA();
+        for (int i = 0; i < getAttributeCount(); i++) {
+            element.addAttribute(getAttributeTag(i), getAttributeValue(i));
+        }
+        return element;
+    }
+
+    @Override
+    public String toString() {
+        return toDataElement().toString();
+    }
+}
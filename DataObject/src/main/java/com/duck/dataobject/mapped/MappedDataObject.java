@@ -0,0 +1,266 @@
+package com.duck.dataobject.mapped;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.duck.dataobject.DataObject;
+import com.duck.dataobject.exception.ParsingException;
+import com.duck.dataobject.node.DataElement;
+import com.duck.dataobject.node.XMLAttribute;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * A read only view of a snapshot written by the {@link com.duck.dataobject.serializer.SnapshotSerializer
+ * SnapshotSerializer}, usually a memory mapped file, with the lookups of a {@link DataObject} but not a {@link
+ * DataObject} itself. Nothing of the document is copied onto the heap when it is opened, elements are found by stepping
+ * over the node counts in the snapshot and their tags and values are decoded when they are asked for. Mapped files are
+ * shared through the page cache, so many processes can read one large document while each only holds the few objects
+ * it is looking at.
+ * <p>
+ * Finding a tag looks through the tags of the object in order, use {@link #toDataObject()} to get a {@link DataObject}
+ * for the parts that are searched often.
+ */
+public final class MappedDataObject implements Iterable<MappedDataElement> {
+    private final SnapshotBuffer buffer;
+    //the position of the entry count of this object
+    private final long position;
+
+    MappedDataObject(@NonNull SnapshotBuffer buffer, long position) {
+        this.buffer = buffer;
+        this.position = position;
+    }
+
+    /**
+     * Maps the snapshot in the given file read only. The file is not read until the document is, and can be closed
+     * and mapped by other processes as long as it isn't changed.
+     *
+     * @param file The snapshot file.
+     * @return The {@link MappedDataObject} at the top of the snapshot.
+     * @throws IOException      if the file can't be opened or mapped.
+     * @throws ParsingException if the file is not a snapshot.
+     */
+    @NonNull
+    public static MappedDataObject open(@NonNull File file) throws IOException {
+        return new MappedDataObject(SnapshotBuffer.map(file), 0);
+    }
+
+    /**
+     * Reads the snapshot in the given {@link ByteBuffer}, from its position to its limit, in place. The buffer must
+     * not be changed while the document is in use.
+     *
+     * @param data The snapshot.
+     * @return The {@link MappedDataObject} at the top of the snapshot.
+     * @throws ParsingException if {@code data} is not a snapshot.
+     */
+    @NonNull
+    public static MappedDataObject wrap(@NonNull ByteBuffer data) {
+        return new MappedDataObject(SnapshotBuffer.wrap(data), 0);
+    }
+
+    private int getEntryCount() {
+        return buffer.node(position);
+    }
+
+    /**
+     * @return The position of the entry after the given one. An entry is its tag, element count, node count and
+     * elements.
+     */
+    private long nextEntry(long entry) {
+        int count = buffer.node(entry + 2);
+        if (count < 0) {
+            throw new ParsingException("Corrupt DataObject snapshot, negative node count " + count);
+        }
+        return entry + 3 + count;
+    }
+
+    /**
+     * @return The position of the entry with the given tag, or -1 if there is none.
+     */
+    private long findEntry(@NonNull String xmlTag) {
+        long entry = position + 1;
+        int count = getEntryCount();
+        for (int i = 0; i < count; i++) {
+            if (buffer.stringEquals(buffer.node(entry), xmlTag)) {
+                return entry;
+            }
+            entry = nextEntry(entry);
+        }
+        return -1;
+    }
+
+    /**
+     * Reads the elements of the given entry.
+     */
+    @NonNull
+    private List<MappedDataElement> readEntry(long entry, @NonNull List<MappedDataElement> elements,
+                                              XMLAttribute... attributes) {
+        int count = buffer.node(entry + 1);
+        long element = entry + 3;
+        for (int i = 0; i < count; i++) {
+            MappedDataElement dataElement = new MappedDataElement(buffer, element);
+            if (dataElement.hasAttribute(attributes)) {
+                elements.add(dataElement);
+            }
+            element = dataElement.end();
+        }
+        return elements;
+    }
+
+    public boolean isEmpty() {
+        return getEntryCount() == 0;
+    }
+
+    /**
+     * Checks if an element with the given {@code xmlTag} is in the top level of this object.
+     *
+     * @param xmlTag The {@code xmlTag} to search for.
+     * @return {@code True} if found, {@code False} otherwise.
+     */
+    public boolean contains(@NonNull String xmlTag) {
+        return findEntry(xmlTag) >= 0;
+    }
+
+    /**
+     * @return The tags in the top level of this object, in the order they are stored.
+     */
+    @NonNull
+    public List<String> getTags() {
+        int count = getEntryCount();
+        List<String> tags = new ArrayList<>(Math.max(Math.min(count, buffer.nodeCount), 0));
+        long entry = position + 1;
+        for (int i = 0; i < count; i++) {
+            tags.add(buffer.string(buffer.node(entry)));
+            entry = nextEntry(entry);
+        }
+        return tags;
+    }
+
+    /**
+     * searches the top level of this object for the given {@code xmlTag} and matching the (Optional){@code attributes}
+     * and returns its {@link MappedDataElement}.
+     *
+     * @param xmlTag     The xmlTag to search for.
+     * @param attributes Optional, The {@link XMLAttribute XMLAttribute(s)} to match against.
+     * @return The found {@link MappedDataElement} or null if no matching element could be found.
+     */
+    @Nullable
+    public MappedDataElement get(@NonNull String xmlTag, XMLAttribute... attributes) {
+        long entry = findEntry(xmlTag);
+        if (entry < 0) {
+            return null;
+        }
+        int count = buffer.node(entry + 1);
+        long element = entry + 3;
+        for (int i = 0; i < count; i++) {
+            MappedDataElement dataElement = new MappedDataElement(buffer, element);
+            if (dataElement.matchAttributes(attributes)) {
+                return dataElement;
+            }
+            element = dataElement.end();
+        }
+        return null;
+    }
+
+    /**
+     * Gives the elements in the top level of this object with the given {@code xmlTag} that have all of the
+     * (Optional){@code attributes}.
+     *
+     * @param xmlTag     The xmlTag to search for.
+     * @param attributes Optional, The {@link XMLAttribute XMLAttribute(s)} to match against.
+     * @return The found elements, or {@code null} if there are no elements with the tag and {@code attributes} is {@code
+     *         null}.
+     */
+    @Nullable
+    public List<MappedDataElement> getList(@NonNull String xmlTag, XMLAttribute... attributes) {
+        long entry = findEntry(xmlTag);
+        if (entry < 0) {
+            return attributes == null ? null : new ArrayList<MappedDataElement>();
+        }
+        return readEntry(entry, new ArrayList<MappedDataElement>(), attributes);
+    }
+
+    /**
+     * @return All of the elements in the top level of this object.
+     */
+    @NonNull
+    public List<MappedDataElement> getList() {
+        List<MappedDataElement> list = new ArrayList<>();
+        for (MappedDataElement element : this) {
+            list.add(element);
+        }
+        return list;
+    }
+
+    /**
+     * Iterates over all of the elements in the top level of this object, reading them as it goes.
+     */
+    @NonNull
+    @Override
+    public Iterator<MappedDataElement> iterator() {
+        return new Iterator<MappedDataElement>() {
+            private int entriesLeft = getEntryCount();
+            private int elementsLeft = 0;
+            private long next = position + 1;
+
+            @Override
+            public boolean hasNext() {
+                while (elementsLeft == 0 && entriesLeft > 0) {
+                    elementsLeft = buffer.node(next + 1);
+                    next += 3;
+                    entriesLeft--;
+                }
+                return elementsLeft > 0;
+            }
+
+            @Override
+            public MappedDataElement next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                MappedDataElement element = new MappedDataElement(buffer, next);
+                next = element.end();
+                elementsLeft--;
+                return element;
+            }
+
+            @Override
+            public void remove() {
+                throw new UnsupportedOperationException("MappedDataObject is read only");
+            }
+        };
+    }
+
+    /**
+     * Reads this object, with everything in it, into a new {@link DataObject}.
+     *
+     * @return The new {@link DataObject}.
+     */
+    @NonNull
+    public DataObject toDataObject() {
+        DataObject dataObject = new DataObject();
+        int count = getEntryCount();
+        long entry = position + 1;
+        for (int i = 0; i < count; i++) {
+            List<MappedDataElement> mapped = readEntry(entry, new ArrayList<MappedDataElement>());
+            List<DataElement> elements = new ArrayList<>(mapped.size());
+            for (int j = 0; j < mapped.size(); j++) {
+                elements.add(mapped.get(j).toDataElement());
+            }
+            dataObject.insert(buffer.string(buffer.node(entry)), elements);
+            entry = nextEntry(entry);
+        }
+        return dataObject;
+    }
+
+    @Override
+    public String toString() {
+        return toDataObject().toString();
+    }
+}
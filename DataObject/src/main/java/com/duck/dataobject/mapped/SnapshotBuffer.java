@@ -0,0 +1,156 @@
+package com.duck.dataobject.mapped;
+
+import androidx.annotation.NonNull;
+
+import com.duck.dataobject.exception.ParsingException;
+import com.duck.dataobject.serializer.SnapshotSerializer;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+
+import static com.duck.dataobject.serializer.SnapshotSerializer.HEADER_SIZE;
+
+/**
+ * Reads the header, string table and nodes of a snapshot straight from its bytes. A {@link ByteBuffer} can't hold
+ * more than 2 GB, so files are mapped as a row of 1 GB chunks that the reads pick from by offset.
+ */
+final class SnapshotBuffer {
+    private static final int CHUNK_SHIFT = 30;
+
+    private final ByteBuffer[] chunks;
+    private final int shift;
+    private final long mask;
+
+    final int stringCount;
+    final int nodeCount;
+    private final int charCount;
+    private final long nodesOffset;
+    private final long charsOffset;
+
+    private SnapshotBuffer(@NonNull ByteBuffer[] chunks, int shift, long size) {
+        this.chunks = chunks;
+        this.shift = shift;
+        mask = (1L << shift) - 1;
+        if (size < HEADER_SIZE || getInt(0) != SnapshotSerializer.MAGIC) {
+            throw new ParsingException("Not a DataObject snapshot");
+        }
+        int version = getInt(4);
+        if (version != SnapshotSerializer.VERSION) {
+            throw new ParsingException("Unsupported DataObject snapshot version " + version);
+        }
+        stringCount = getInt(8);
+        nodeCount = getInt(12);
+        charCount = getInt(16);
+        nodesOffset = HEADER_SIZE + stringCount * 4L;
+        charsOffset = nodesOffset + nodeCount * 4L;
+        if (stringCount < 0 || nodeCount < 1 || charCount < 0 || size < charsOffset + charCount * 2L) {
+            throw new ParsingException("Corrupt DataObject snapshot, it is shorter than its header says");
+        }
+    }
+
+    /**
+     * Maps the given file read only, the mapping stays valid after the file is closed.
+     */
+    @NonNull
+    static SnapshotBuffer map(@NonNull File file) throws IOException {
+        RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r");
+        try {
+            FileChannel channel = randomAccessFile.getChannel();
+            long size = channel.size();
+            long chunkSize = 1L << CHUNK_SHIFT;
+            ByteBuffer[] chunks = new ByteBuffer[(int) Math.max((size + chunkSize - 1) >>> CHUNK_SHIFT, 1)];
+            for (int i = 0; i < chunks.length; i++) {
+                long start = (long) i << CHUNK_SHIFT;
+                //ints and chars are aligned to their size, so none is split between two chunks
+                chunks[i] = channel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(chunkSize, size - start));
+            }
+            return new SnapshotBuffer(chunks, CHUNK_SHIFT, size);
+        } finally {
+            randomAccessFile.close();
+        }
+    }
+
+    /**
+     * Reads the snapshot in the given {@link ByteBuffer} from its position to its limit, without copying it.
+     */
+    @NonNull
+    static SnapshotBuffer wrap(@NonNull ByteBuffer data) {
+        ByteBuffer chunk = data.slice().order(ByteOrder.BIG_ENDIAN);
+        return new SnapshotBuffer(new ByteBuffer[]{chunk}, 31, chunk.remaining());
+    }
+
+    private int getInt(long offset) {
+        return chunks[(int) (offset >>> shift)].getInt((int) (offset & mask));
+    }
+
+    private char getChar(long offset) {
+        return chunks[(int) (offset >>> shift)].getChar((int) (offset & mask));
+    }
+
+    /**
+     * @return The node at the given index.
+     * @throws ParsingException if the index is outside the nodes, which only happens if the snapshot is corrupt.
+     */
+    int node(long index) {
+        if (index < 0 || index >= nodeCount) {
+            throw new ParsingException("Corrupt DataObject snapshot, node " + index + " of " + nodeCount);
+        }
+        return getInt(nodesOffset + index * 4);
+    }
+
+    /**
+     * @return The offset in the chars of the first char of the string at the given index.
+     */
+    private long stringStart(int index) {
+        if (index < 0 || index >= stringCount) {
+            throw new ParsingException("Corrupt DataObject snapshot, string " + index + " of " + stringCount);
+        }
+        return index == 0 ? 0 : getInt(HEADER_SIZE + (index - 1) * 4L);
+    }
+
+    /**
+     * @return The offset in the chars after the last char of the string at the given index.
+     */
+    private long stringEnd(int index, long start) {
+        int end = getInt(HEADER_SIZE + index * 4L);
+        if (start < 0 || end < start || end > charCount) {
+            throw new ParsingException("Corrupt DataObject snapshot, string " + index + " is outside the chars");
+        }
+        return end;
+    }
+
+    /**
+     * Decodes the string at the given index of the string table.
+     */
+    @NonNull
+    String string(int index) {
+        long start = stringStart(index);
+        long end = stringEnd(index, start);
+        char[] chars = new char[(int) (end - start)];
+        for (int i = 0; i < chars.length; i++) {
+            chars[i] = getChar(charsOffset + (start + i) * 2);
+        }
+        return new String(chars);
+    }
+
+    /**
+     * Compares the string at the given index of the string table to the given {@link String} without decoding it.
+     */
+    boolean stringEquals(int index, @NonNull String string) {
+        long start = stringStart(index);
+        long end = stringEnd(index, start);
+        if (end - start != string.length()) {
+            return false;
+        }
+        for (int i = 0; i < string.length(); i++) {
+            if (getChar(charsOffset + (start + i) * 2) != string.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,169 @@
+package com.duck.dataobject.node;
+
+import androidx.annotation.NonNull;
+
+import java.util.Arrays;
+
+/**
+ * Attribute storage for a {@link DataElement}, the tags and values are kept in two flat arrays in the order they were
+ * added. Once there are more than {@link #HASH_THRESHOLD} attributes a small open addressing hash of the tags is kept as
+ * well so that looking up an attribute by tag does not have to walk the arrays.
+ */
+final class AttributeTable {
+    private static final int HASH_THRESHOLD = 8;
+
+    String[] tags;
+    String[] values;
+    int size = 0;
+    //index + 1 of the first attribute with a tag, 0 for an empty slot. null until there are enough attributes.
+    private int[] slots = null;
+    //true if a tag has been added more than once, lookups then have to check past the first match.
+    private boolean duplicates = false;
+
+    AttributeTable(int capacity) {
+        capacity = Math.max(capacity, 2);
+        tags = new String[capacity];
+        values = new String[capacity];
+    }
+
+    AttributeTable(@NonNull AttributeTable other) {
+        tags = Arrays.copyOf(other.tags, Math.max(other.size, 2));
+        values = Arrays.copyOf(other.values, tags.length);
+        size = other.size;
+        duplicates = other.duplicates;
+        if (size > HASH_THRESHOLD) {
+            rehash();
+        }
+    }
+
+    void add(@NonNull String tag, @NonNull String value) {
+        if (size == tags.length) {
+            tags = Arrays.copyOf(tags, size * 2);
+            values = Arrays.copyOf(values, size * 2);
+        }
+        boolean exists = indexOf(tag) >= 0;
+        duplicates |= exists;
+        tags[size] = tag;
+        values[size] = value;
+        size++;
+        if (slots == null) {
+            if (size > HASH_THRESHOLD) {
+                rehash();
+            }
+        } else if (size * 2 > slots.length) {
+            rehash();
+        } else if (!exists) {
+            insertSlot(tag, size - 1);
+        }
+    }
+
+    /**
+     * @return The index of the first attribute with the given tag or -1 if there is none.
+     */
+    int indexOf(@NonNull String tag) {
+        if (slots == null) {
+            for (int i = 0; i < size; i++) {
+                if (tags[i].equals(tag)) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+        int mask = slots.length - 1;
+        for (int slot = hash(tag) & mask; slots[slot] != 0; slot = (slot + 1) & mask) {
+            int index = slots[slot] - 1;
+            if (tags[index].equals(tag)) {
+                return index;
+            }
+        }
+        return -1;
+    }
+
+    boolean contains(@NonNull String tag, String value) {
+        int index = indexOf(tag);
+        if (index < 0) {
+            return false;
+        }
+        if (values[index].equals(value)) {
+            return true;
+        }
+        if (duplicates) {
+            for (int i = index + 1; i < size; i++) {
+                if (tags[i].equals(tag) && values[i].equals(value)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    void removeAt(int index) {
+        int moved = size - index - 1;
+        if (moved > 0) {
+            System.arraycopy(tags, index + 1, tags, index, moved);
+            System.arraycopy(values, index + 1, values, index, moved);
+        }
+        size--;
+        tags[size] = null;
+        values[size] = null;
+        if (slots != null) {
+            rehash();
+        }
+    }
+
+    /**
+     * Removes every attribute with the given tag.
+     */
+    void removeAll(@NonNull String tag) {
+        int kept = 0;
+        for (int i = 0; i < size; i++) {
+            if (!tags[i].equals(tag)) {
+                tags[kept] = tags[i];
+                values[kept] = values[i];
+                kept++;
+            }
+        }
+        if (kept != size) {
+            Arrays.fill(tags, kept, size, null);
+            Arrays.fill(values, kept, size, null);
+            size = kept;
+            if (slots != null) {
+                rehash();
+            }
+        }
+    }
+
+    private void rehash() {
+        if (size <= HASH_THRESHOLD) {
+            slots = null;
+            return;
+        }
+        int capacity = Integer.highestOneBit(size * 4 - 1);
+        if (slots == null || slots.length != capacity) {
+            slots = new int[capacity];
+        } else {
+            Arrays.fill(slots, 0);
+        }
+        for (int i = 0; i < size; i++) {
+            insertSlot(tags[i], i);
+        }
+    }
+
+    private void insertSlot(String tag, int index) {
+        int mask = slots.length - 1;
+        int slot = hash(tag) & mask;
+        while (slots[slot] != 0) {
+            if (tags[slots[slot] - 1].equals(tag)) {
+                //keep the first attribute with this tag
+                return;
+            }
+            slot = (slot + 1) & mask;
+        }
+        slots[slot] = index + 1;
+    }
+
+    private static int hash(String tag) {
+        int h = tag.hashCode();
+        return h ^ (h >>> 16);
+    }
+}
@@ -4,20 +4,15 @@ import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 
 import com.duck.dataobject.DataObject;
+import com.duck.dataobject.serializer.JSONSerializer;
+import com.duck.dataobject.serializer.LengthEstimator;
+import com.duck.dataobject.serializer.XMLSerializer;
 
-import org.json.JSONObject;
-
-import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
 import java.util.NoSuchElementException;
 import java.util.concurrent.atomic.AtomicInteger;
 
-import static com.duck.dataobject.DataObject.NEW_LINE;
-import static com.duck.dataobject.DataObject.NEW_LINE_LEN;
-import static com.duck.dataobject.DataObject.TAB;
-import static com.duck.dataobject.DataObject.TAB_LEN;
-
 /**
  * Created by Bradley Duck on 2017/03/31
  * <p>
@@ -25,7 +20,7 @@ import static com.duck.dataobject.DataObject.TAB_LEN;
  */
 public class DataElement implements Comparable<DataElement>, Iterable<XMLAttribute> {
     public String tag;
-    public XMLAttribute attributeRoot = null;
+    private AttributeTable attributeTable = null;
     public boolean CDATA = false;
     public Class valueClass = null;
     public Object value;
@@ -73,24 +68,39 @@ public class DataElement implements Comparable<DataElement>, Iterable<XMLAttribu
     }
 
     /**
-     * Adds the given {@link XMLAttribute} to this {@link DataElement}.
+     * Adds the given {@link XMLAttribute} to this {@link DataElement}, along with any attributes linked to it through its
+     * {@code next} field.
      *
      * @param xmlAttribute The {@link XMLAttribute} to be added.
      */
     public void addAttribute(XMLAttribute xmlAttribute) {
-        if (xmlAttribute != null) {
-            if (attributeRoot == null) {
-                attributeRoot = new XMLAttribute(xmlAttribute, true);
-            } else {
-                XMLAttribute walker = attributeRoot;
-                while (walker.next != null) {
-                    walker = walker.next;
-                }
-                walker.next = new XMLAttribute(xmlAttribute, true);
-            }
+        for (XMLAttribute walker = xmlAttribute; walker != null; walker = walker.next) {
+            addAttribute(walker.getTag(), walker.getValueAsString());
         }
     }
 
+    /**
+     * Adds an attribute with the given {@code attributeTag} and {@code attributeValue} to this {@link DataElement}.
+     *
+     * @param attributeTag   The tag of the attribute.
+     * @param attributeValue The value of the attribute.
+     */
+    public void addAttribute(@NonNull String attributeTag, @NonNull String attributeValue) {
+        if (attributeTable == null) {
+            attributeTable = new AttributeTable(2);
+        }
+        attributeTable.add(attributeTag, attributeValue);
+    }
+
+    /**
+     * Replaces the attributes of this {@link DataElement} with a copy of the attributes of the {@code other} element.
+     *
+     * @param other The {@link DataElement} to copy the attributes from.
+     */
+    public void copyAttributes(@NonNull DataElement other) {
+        attributeTable = other.hasAttributes() ? new AttributeTable(other.attributeTable) : null;
+    }
+
     /**
      * Constructs an {@link DataElement} with the given {@code tag} and {@code valueAsString} and optional {@code
      * attributes}.
@@ -211,21 +221,10 @@ public class DataElement implements Comparable<DataElement>, Iterable<XMLAttribu
         if (length == null) {
             length = new AtomicInteger(0);
         }
-        int len = 0;
-        if (element.value == null || element.value.equals("")) {
-            len += element.tag.length() + 3;// empty element, the xml will be '<"tag"/>'
-        } else {
-            len += (element.tag.length() * 2) + 5;// *2=(open and close tags), +5=('<'*2+'>'*2+'/'*1)
-            if (element.CDATA || DataObject.hasIllegalValue(element)) {
-                len += DataObject.CDATA_OPEN.length() + DataObject.CDATA_CLOSE.length();
-            }
-            if (element.isObject()) {
-                DataObject.estimateLengthXML((DataObject) element.value, length);
-            } else {
-                len += element.value.toString().length();
-            }
+        if (element.isObject()) {
+            DataObject.estimateLengthXML((DataObject) element.value, length);
         }
-        return len;
+        return LengthEstimator.estimateXML(element);
     }
 
     public static int estimateLengthFormattedXML(@NonNull DataElement element, int indentCount) {
@@ -237,21 +236,10 @@ public class DataElement implements Comparable<DataElement>, Iterable<XMLAttribu
         if (length == null) {
             length = new AtomicInteger(0);
         }
-        int len = 0;
-        if (element.value == null || element.value.equals("")) {
-            len += element.tag.length() + 3;// empty element, the xml will be '<"tag"/>'
-        } else {
-            len += (element.tag.length() * 2) + 5;// *2=(open and close tags), +5=('<'*2+'>'*2+'/'*1)
-            if (element.CDATA || DataObject.hasIllegalValue(element)) {
-                len += DataObject.CDATA_OPEN.length() + DataObject.CDATA_CLOSE.length();
-            }
-            if (element.isObject()) {
-                DataObject.estimateLengthFormattedXML((DataObject) element.value, indentCount, length);
-            } else {
-                len += element.value.toString().length();
-            }
+        if (element.isObject()) {
+            DataObject.estimateLengthFormattedXML((DataObject) element.value, indentCount, length);
         }
-        return len;
+        return LengthEstimator.estimateXML(element);
     }
 
     /**
@@ -271,41 +259,7 @@ public class DataElement implements Comparable<DataElement>, Iterable<XMLAttribu
         if (length == null) {
             length = new AtomicInteger(0);
         }
-        if (element.isObject()) {
-            // the 'value' is an object.
-            DataObject.estimateLengthJSON(((DataObject) element.value), length, arrayTags);
-            //((DataObject) value).toJSON(stringBuilder, arrayTags);
-        } else if (element.isArray()) {
-            List arrayList = (List) element.value;
-            if (arrayList.size() > 0) {
-                length.addAndGet(1);//stringBuilder.append("[");
-                for (int i = 0; i < arrayList.size(); i++) {
-                    Object item = arrayList.get(i);
-                    if (item instanceof DataElement) {
-                        estimateLengthJSON(((DataElement) item), length, arrayTags);
-                        //((DataElement) item).toJSON(stringBuilder, arrayTags);
-                    } else if (item instanceof DataObject) {
-                        DataObject.estimateLengthJSON(((DataObject) item), length, arrayTags);
-                        //((DataObject) item).toJSON(stringBuilder, arrayTags);
-                    } else {
-                        length.addAndGet(2 + element.value.toString().length());
-                        //stringBuilder.append("\"").append(value).append("\"");
-                    }
-                    if (i < arrayList.size() - 1) {
-                        length.addAndGet(1);//stringBuilder.append(",");
-                    }
-                }
-                length.addAndGet(1);//stringBuilder.append("]");
-            }
-        } else if (element.value == null) {
-            length.addAndGet(6);
-            //stringBuilder.append("\"").append("null").append("\"");
-        } else {
-            // the 'value' is just a value.
-            length.addAndGet(2 + element.value.toString().length());
-            //stringBuilder.append("\"").append(value).append("\"");
-        }
-        return length.get();
+        return length.addAndGet(LengthEstimator.estimateJSON(element, arrayTags));
     }
 
     public static int estimateLengthFormattedJSON(@NonNull DataElement element, String... arrayTags) {
@@ -321,49 +275,7 @@ public class DataElement implements Comparable<DataElement>, Iterable<XMLAttribu
         if (length == null) {
             length = new AtomicInteger(0);
         }
-        if (element.isObject()) {
-            // the 'value' is an object.
-            DataObject.estimateLengthFormattedJSON(((DataObject) element.value), indentCount + 1, length, arrayTags);
-            //((DataObject) value).toFormattedJSON(indentCount + 1, stringBuilder, arrayTags);
-        } else if (element.isArray()) {
-            /*StringBuilder indentSB = new StringBuilder();
-            for (int i = 0; i < indentCount; i++) {
-                indentSB.append(TAB);
-            }*/
-            int indentLen = TAB_LEN * indentCount;
-            List arrayList = (List) element.value;
-            if (arrayList.size() > 0) {
-                length.addAndGet(indentLen + 1 + NEW_LINE_LEN);
-                //stringBuilder.append(indentSB).append("[").append(NEW_LINE);
-                for (int i = 0; i < arrayList.size(); i++) {
-                    Object item = arrayList.get(i);
-                    if (item instanceof DataElement) {
-                        estimateLengthFormattedJSON(((DataElement) item), indentCount, length, arrayTags);
-                        //((DataElement) item).toFormattedJSON(indentCount + 1, stringBuilder, arrayTags);
-                    } else if (item instanceof DataObject) {
-                        DataObject.estimateLengthFormattedJSON(((DataObject) item), indentCount, length, arrayTags);
-                        //((DataObject) item).toFormattedJSON(indentCount + 1, stringBuilder, arrayTags);
-                    } else {
-                        length.addAndGet(indentLen + TAB_LEN + 2 + item.toString().length());
-                        //stringBuilder.append(indentSB).append(TAB).append("\"").append(item).append("\"");
-                    }
-                    if (i < arrayList.size() - 1) {
-                        length.addAndGet(1);//stringBuilder.append(",");
-                    }
-                    length.addAndGet(NEW_LINE_LEN);//stringBuilder.append(NEW_LINE);
-                }
-                length.addAndGet(indentLen + 1 + NEW_LINE_LEN);
-                //stringBuilder.append(indentSB).append("]").append(NEW_LINE);
-            }
-        } else if (element.value == null) {
-            length.addAndGet(6);
-            //stringBuilder.append("\"").append("null").append("\"");
-        } else {
-            // the 'value' is just a value.
-            length.addAndGet(2 + element.value.toString().length());
-            //stringBuilder.append("\"").append(value).append("\"");
-        }
-        return length.get();
+        return length.addAndGet(LengthEstimator.estimateFormattedJSON(element, indentCount, arrayTags));
     }
 
     /**
@@ -385,18 +297,8 @@ public class DataElement implements Comparable<DataElement>, Iterable<XMLAttribu
      * @param attributeTag the tag of the attribute to be removed.
      */
     public void removeAttribute(String attributeTag) {
-        XMLAttribute walker = attributeRoot;
-        XMLAttribute prev = null;
-        while (walker != null && walker.next != null) {
-            if (walker.getTag().equals(attributeTag)) {
-                if (prev == null) {
-                    attributeRoot = walker.next;
-                } else {
-                    prev.next = walker.next;
-                }
-            }
-            prev = walker;
-            walker = walker.next;
+        if (attributeTable != null && attributeTag != null) {
+            attributeTable.removeAll(attributeTag);
         }
     }
 
@@ -510,13 +412,11 @@ public class DataElement implements Comparable<DataElement>, Iterable<XMLAttribu
      * @return The xml opening tag for this element.
      */
     public String openTag(boolean ignoreAttributes) {
-        if (ignoreAttributes || attributeRoot == null) {
+        if (ignoreAttributes || !hasAttributes()) {
             return "<" + tag + ">";
         } else {
             StringBuilder string = new StringBuilder("<" + tag);
-            for (XMLAttribute att : this) {
-                string.append(" ").append(att.toString());
-            }
+            appendAttributes(string);
             string.append(">");
             return string.toString();
         }
@@ -608,7 +508,73 @@ public class DataElement implements Comparable<DataElement>, Iterable<XMLAttribu
      * @return
      */
     public boolean hasAttributes() {
-        return attributeRoot != null;
+        return attributeTable != null && attributeTable.size > 0;
+    }
+
+    /**
+     * @return The number of attributes this {@link DataElement} has.
+     */
+    public int getAttributeCount() {
+        return attributeTable != null ? attributeTable.size : 0;
+    }
+
+    /**
+     * @param index The index of the attribute, from 0 to {@link #getAttributeCount()} - 1.
+     * @return The tag of the attribute at the given index.
+     */
+    @NonNull
+    public String getAttributeTag(int index) {
+        checkAttributeIndex(index);
+        return attributeTable.tags[index];
+    }
+
+    /**
+     * @param index The index of the attribute, from 0 to {@link #getAttributeCount()} - 1.
+     * @return The value of the attribute at the given index.
+     */
+    @NonNull
+    public String getAttributeValue(int index) {
+        checkAttributeIndex(index);
+        return attributeTable.values[index];
+    }
+
+    private void checkAttributeIndex(int index) {
+        if (index < 0 || index >= getAttributeCount()) {
+            throw new IndexOutOfBoundsException("Attribute index: " + index + ", count: " + getAttributeCount());
+        }
+    }
+
+    /**
+     * Builds a linked list of copies of the attributes of this {@link DataElement}, changes made to it are not seen by
+     * this element.
+     *
+     * @return The root of the linked list or {@code null} if this element has no attributes.
+     * @deprecated Attributes are no longer stored as a linked list, iterate over this element or use {@link
+     *         #getAttributeCount()}, {@link #getAttributeTag(int)} and {@link #getAttributeValue(int)} instead. The
+     *         returned list used to be the element's own attributes, it is now a new copy on every call, so linking
+     *         attributes to it or unlinking them through {@code next} no longer changes this element, use {@link
+     *         #addAttribute(String, String)} and {@link #removeAttribute(String)} for that.
+     */
+    @Deprecated
+    @Nullable
+    public XMLAttribute getAttributeRoot() {
+        XMLAttribute root = null;
+        for (int i = getAttributeCount() - 1; i >= 0; i--) {
+            root = new XMLAttribute(attributeTable.tags[i], attributeTable.values[i], root);
+        }
+        return root;
+    }
+
+    /**
+     * Returns the value of the first attribute of this {@link DataElement} with the given {@code attributeTag}.
+     *
+     * @param attributeTag The tag of the attribute.
+     * @return The value of the attribute, or {@code null} if this element has no such attribute.
+     */
+    @Nullable
+    public String getAttributeValue(@NonNull String attributeTag) {
+        int index = attributeTable != null ? attributeTable.indexOf(attributeTag) : -1;
+        return index >= 0 ? attributeTable.values[index] : null;
     }
 
     public boolean hasTag(@NonNull String xmlTag) {
@@ -633,7 +599,7 @@ public class DataElement implements Comparable<DataElement>, Iterable<XMLAttribu
      */
     @Override
     public int compareTo(@NonNull DataElement other) {
-        if (this.tag.equals(other.tag) && (matchAttributes(other.getAttributesAsArray())) && this.valueClass == other.valueClass) {
+        if (this.tag.equals(other.tag) && matchAttributes(other) && this.valueClass == other.valueClass) {
 			/*if((!this.isObject() && this.value != null) && (!other.isObject() && other.value != null))
 			{
 				return (this.value.compareTo(other.value) == 0) ? 0 : -1;
@@ -666,21 +632,38 @@ public class DataElement implements Comparable<DataElement>, Iterable<XMLAttribu
      *         otherwise.
      */
     public boolean matchAttributes(XMLAttribute... attributes) {
-        if ((attributes == null || attributes.length <= 0) && this.attributeRoot == null)/*you gave me nothing and I've got nothing.*/ {
+        if (attributes == null || attributes.length <= 0)/* you gave me nothing, whatever I've got.*/ {
             return true;
         }
-        if ((attributes == null || attributes.length <= 0) && this.attributeRoot != null)/* you gave me nothing but I've got something.*/ {
+        if (!hasAttributes())/* you gave me something but I have nothing.*/ {
+            return false;
+        }
+        /* you gave me the same number of somethings that I have, and I have all the things you gave me.*/
+        return attributeTable.size == attributes.length && hasAttribute(attributes);
+    }
+
+    /**
+     * Checks if this {@link DataElement DataElement's} set of {@link XMLAttribute XMLAttributes} exactly match the
+     * attributes of the {@code other} element, the same as {@code matchAttributes(other.getAttributesAsArray())}.
+     *
+     * @param other The {@link DataElement} to compare against.
+     * @return {@code True} if this element's attribute set exactly matches the other element's attribute set, {@code
+     *         False} otherwise.
+     */
+    public boolean matchAttributes(@NonNull DataElement other) {
+        if (!other.hasAttributes()) {
             return true;
         }
-        if ((attributes != null && attributes.length > 0) && this.attributeRoot == null)/* you gave me something but I have nothing.*/ {
+        if (!hasAttributes() || attributeTable.size != other.attributeTable.size) {
             return false;
         }
-        if (getAttributesAsArray().length == attributes.length)/* you gave me the same number of somethings that I have.*/ {
-            if (hasAttribute(attributes))/*I have all the things you gave me.*/ {
-                return true;
+        AttributeTable others = other.attributeTable;
+        for (int i = 0; i < others.size; i++) {
+            if (!attributeTable.contains(others.tags[i], others.values[i])) {
+                return false;
             }
         }
-        return false;
+        return true;
     }
 
     /**
@@ -689,14 +672,14 @@ public class DataElement implements Comparable<DataElement>, Iterable<XMLAttribu
      * @return an {@link XMLAttribute XMLAttribute[]} array containing all the Attributes of this element.
      */
     public XMLAttribute[] getAttributesAsArray() {
-        if (attributeRoot == null) {
+        if (!hasAttributes()) {
             return null;
         }
-        List<XMLAttribute> list = new ArrayList<>();
-        for (XMLAttribute attribute : this) {
-            list.add(attribute);
+        XMLAttribute[] array = new XMLAttribute[attributeTable.size];
+        for (int i = 0; i < array.length; i++) {
+            array[i] = new XMLAttribute(attributeTable.tags[i], attributeTable.values[i]);
         }
-        return list.toArray(new XMLAttribute[list.size()]);
+        return array;
     }
 
     /**
@@ -725,22 +708,34 @@ public class DataElement implements Comparable<DataElement>, Iterable<XMLAttribu
      * @return {@code True} if this {@link DataElement} contains the given {@link XMLAttribute}, {@code False} otherwise.
      */
     public boolean hasAttribute(XMLAttribute attribute) {
-        for (XMLAttribute att : this) {
-            if (att.equals(attribute)) {
-                return true;
-            }
-        }
-        return false;
+        return hasAttributes() && attributeTable.contains(attribute.getTag(), attribute.getValueAsString());
     }
 
     public DataElement copy() {
-        DataElement el = new DataElement(tag, getAttributesAsArray());
+        DataElement el = new DataElement(tag);
+        el.copyAttributes(this);
         el.value = value;
         el.valueClass = valueClass;
         el.CDATA = CDATA;
         return el;
     }
 
+    /**
+     * Appends the attributes of this element to the given {@code stringBuilder} the way they are written in an xml opening
+     * tag, each one preceded by a space.
+     */
+    private void appendAttributes(@NonNull StringBuilder stringBuilder) {
+        if (attributeTable != null) {
+            for (int i = 0; i < attributeTable.size; i++) {
+                stringBuilder.append(' ')
+                             .append(attributeTable.tags[i])
+                             .append("=\"")
+                             .append(attributeTable.values[i])
+                             .append('"');
+            }
+        }
+    }
+
     /**
      * Gives the xml closing tag for this element.
      *
@@ -761,36 +756,14 @@ public class DataElement implements Comparable<DataElement>, Iterable<XMLAttribu
     }
 
     public String toXML() {
-        return toXML(new StringBuilder(estimateLengthXML()));
+        return toXML(new StringBuilder());
     }
 
     public String toXML(@Nullable StringBuilder stringBuilder) {
         if (stringBuilder == null) {
-            stringBuilder = new StringBuilder(estimateLengthXML());
-        }
-        stringBuilder.append("<").append(tag);
-        if (attributeRoot != null) {
-            for (XMLAttribute att : this) {
-                stringBuilder.append(" ").append(att.toString());
-            }
-        }
-        if (isObject()) {
-            stringBuilder.append(">");
-            ((DataObject) value).toXML(stringBuilder);
-            stringBuilder.append(closeTag());
-        } else {
-            if (value != null && value.equals("")) {
-                stringBuilder.append("/>");
-            } else {
-                stringBuilder.append(">");
-                if (CDATA || DataObject.hasIllegalValue(this)) {
-                    stringBuilder.append(DataObject.CDATA_OPEN).append(value).append(DataObject.CDATA_CLOSE);
-                } else {
-                    stringBuilder.append(value);
-                }
-                stringBuilder.append(closeTag());
-            }
+            stringBuilder = new StringBuilder();
         }
+        XMLSerializer.write(this, stringBuilder);
         return stringBuilder.toString();
     }
 
@@ -810,33 +783,8 @@ public class DataElement implements Comparable<DataElement>, Iterable<XMLAttribu
      * @return a formatted xml string representing this {@link DataElement}.
      */
     public String toFormattedXML(int indentCount) {
-        StringBuilder string = new StringBuilder(estimateLengthFormattedXML());
-        StringBuilder indent = new StringBuilder(TAB.length() * indentCount);
-        for (int i = 0; i < indentCount; i++) {
-            indent.append(TAB);
-        }
-        string.append(indent).append("<").append(tag);
-        for (XMLAttribute att : this) {
-            string.append(" ").append(att.toString());
-        }
-        string.append(">");
-        if (isObject()) {
-            string.append(NEW_LINE)
-                  .append(((DataObject) value).toFormattedXML(++indentCount))
-                  .append(indent);
-            string.append(NEW_LINE)
-                  .append(indent)
-                  .append("</")
-                  .append(tag)
-                  .append(">");
-        } else {
-            if (CDATA) {
-                string.append(DataObject.CDATA_OPEN).append(value).append(DataObject.CDATA_CLOSE);
-            } else {
-                string.append(value);
-            }
-            string.append("</").append(tag).append(">");
-        }
+        StringBuilder string = new StringBuilder();
+        XMLSerializer.writeFormatted(this, indentCount, string);
         return string.toString();
     }
 
@@ -855,7 +803,7 @@ public class DataElement implements Comparable<DataElement>, Iterable<XMLAttribu
      * @return {@link String} This {@link DataElement} as JSON.
      */
     public String toJSON(String... arrayTags) {
-        return toJSON(new StringBuilder(estimateLengthJSON()), arrayTags);
+        return toJSON(new StringBuilder(), arrayTags);
     }
 
     /**
@@ -868,42 +816,9 @@ public class DataElement implements Comparable<DataElement>, Iterable<XMLAttribu
      */
     public String toJSON(@Nullable StringBuilder stringBuilder, String... arrayTags) {
         if (stringBuilder == null) {
-            stringBuilder = new StringBuilder(estimateLengthJSON());
-        }
-        if (isObject()) {
-            // the 'value' is an object.
-            ((DataObject) value).toJSON(stringBuilder, arrayTags);
-        } else if (isArray()) {
-            List arrayList = (List) this.value;
-            if (arrayList.size() > 0) {
-                stringBuilder.append("[");
-                for (int i = 0; i < arrayList.size(); i++) {
-                    Object item = arrayList.get(i);
-                    if (item instanceof DataElement) {
-                        ((DataElement) item).toJSON(stringBuilder, arrayTags);
-                    } else if (item instanceof DataObject) {
-                        ((DataObject) item).toJSON(stringBuilder, arrayTags);
-                    } else {
-                        stringBuilder.append("\"").append(item).append("\"");
-                    }
-                    if (i < arrayList.size() - 1) {
-                        stringBuilder.append(",");
-                    }
-                }
-                stringBuilder.append("]");
-            }
-        } else if (value == null) {
-            stringBuilder.append("\"").append("null").append("\"");
-        } else {
-            // the 'value' is just a value.
-            if (valueClass == String.class) {
-                String quote = JSONObject.quote((String) value);//escapes all necessary characters and wraps with quotes("")
-                quote = quote.substring(1, quote.length() - 1);//removes the quotes("") added above
-                stringBuilder.append("\"").append(quote).append("\"");
-            } else {
-                stringBuilder.append("\"").append(value).append("\"");
-            }
+            stringBuilder = new StringBuilder();
         }
+        JSONSerializer.write(this, stringBuilder, arrayTags);
         return stringBuilder.toString();
     }
 
@@ -914,7 +829,7 @@ public class DataElement implements Comparable<DataElement>, Iterable<XMLAttribu
      * @return {@link String} This {@link DataElement} as JSON.
      */
     public String toFormattedJSON(String... arrayTags) {
-        return toFormattedJSON(0, new StringBuilder(estimateLengthFormattedJSON()), arrayTags);
+        return toFormattedJSON(0, new StringBuilder(), arrayTags);
     }
 
     /**
@@ -924,7 +839,7 @@ public class DataElement implements Comparable<DataElement>, Iterable<XMLAttribu
      * @return {@link String} This {@link DataElement} as JSON.
      */
     public String toFormattedJSON(int indentCount, String... arrayTags) {
-        return toFormattedJSON(indentCount, new StringBuilder(estimateLengthFormattedJSON()), arrayTags);
+        return toFormattedJSON(indentCount, new StringBuilder(), arrayTags);
     }
 
     /**
@@ -937,47 +852,9 @@ public class DataElement implements Comparable<DataElement>, Iterable<XMLAttribu
      */
     public String toFormattedJSON(int indentCount, @Nullable StringBuilder stringBuilder, String... arrayTags) {
         if (stringBuilder == null) {
-            stringBuilder = new StringBuilder(estimateLengthFormattedJSON());
-        }
-        if (isObject()) {
-            // the 'value' is an object.
-            ((DataObject) value).toFormattedJSON(indentCount + 1, stringBuilder, arrayTags);
-        } else if (isArray()) {
-            StringBuilder indentSB = new StringBuilder();
-            for (int i = 0; i < indentCount; i++) {
-                indentSB.append(TAB);
-            }
-            List arrayList = (List) this.value;
-            if (arrayList.size() > 0) {
-                stringBuilder.append(indentSB).append("[").append(NEW_LINE);
-                for (int i = 0; i < arrayList.size(); i++) {
-                    Object item = arrayList.get(i);
-                    if (item instanceof DataElement) {
-                        ((DataElement) item).toFormattedJSON(indentCount + 1, stringBuilder, arrayTags);
-                    } else if (item instanceof DataObject) {
-                        ((DataObject) item).toFormattedJSON(indentCount + 1, stringBuilder, arrayTags);
-                    } else {
-                        stringBuilder.append(indentSB).append(TAB).append("\"").append(item).append("\"");
-                    }
-                    if (i < arrayList.size() - 1) {
-                        stringBuilder.append(",");
-                    }
-                    stringBuilder.append(NEW_LINE);
-                }
-                stringBuilder.append(indentSB).append("]").append(NEW_LINE);
-            }
-        } else if (value == null) {
-            stringBuilder.append("\"").append("null").append("\"");
-        } else {
-            // the 'value' is just a value.
-            if (valueClass == String.class) {
-                String quote = JSONObject.quote((String) value);//escapes all necessary characters and wraps with quotes("")
-                quote = quote.substring(1, quote.length() - 1);//removes the quotes("") added above
-                stringBuilder.append("\"").append(quote).append("\"");
-            } else {
-                stringBuilder.append("\"").append(value).append("\"");
-            }
+            stringBuilder = new StringBuilder();
         }
+        JSONSerializer.writeFormatted(this, indentCount, stringBuilder, arrayTags);
         return stringBuilder.toString();
     }
 
@@ -1002,41 +879,34 @@ public class DataElement implements Comparable<DataElement>, Iterable<XMLAttribu
     @Override
     public Iterator<XMLAttribute> iterator() {
         return new Iterator<XMLAttribute>() {
-            XMLAttribute cur = attributeRoot;
-            boolean firstEl = true;
-            XMLAttribute prev = null;
+            int next = 0;
+            int last = -1;
 
             @Override
             public boolean hasNext() {
-                return (cur != null) && (firstEl || cur.next != null);
+                return next < getAttributeCount();
             }
 
             @Override
             public XMLAttribute next() {
                 if (hasNext()) {
-                    if (firstEl) {
-                        firstEl = false;
-                    } else {
-                        prev = cur;
-                        cur = cur.next;
-                    }
-                    return cur;
+                    last = next++;
+                    return new XMLAttribute(attributeTable.tags[last], attributeTable.values[last]);
                 }
                 throw new NoSuchElementException();
             }
 
             /**
-             * WARNING calling remove will remove the element from the original source as well!
+             * WARNING calling remove will remove the attribute from this element as well!
              */
             @Override
             public void remove() {
-                if (prev == null) {
-                    attributeRoot = cur.next;
-                    cur = attributeRoot;
-                } else {
-                    prev.next = cur.next;
-                    cur = prev.next;
+                if (last < 0) {
+                    throw new IllegalStateException();
                 }
+                attributeTable.removeAt(last);
+                next = last;
+                last = -1;
             }
         };
     }
@@ -0,0 +1,169 @@
+package com.duck.dataobject.parser;
+
+import androidx.annotation.NonNull;
+
+import com.duck.dataobject.DataObject;
+import com.duck.dataobject.exception.ParsingException;
+import com.duck.dataobject.node.DataElement;
+import com.duck.dataobject.serializer.CBORSerializer;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.duck.dataobject.DataObject.ANONYMOUS_ARRAY_TAG;
+
+/**
+ * Reads the CBOR written by the {@link CBORSerializer} back into a {@link DataObject}.
+ * <p>
+ * Other CBOR is read the same way JSON is: a map is read as a {@link DataObject} whose keys must be text strings, an
+ * array of values is read as a list of elements with the same tag and an array at the top is read as an anonymous
+ * array. Integers that don't fit an {@code int} and booleans are read as text, byte strings are not supported. Tags
+ * other than {@link CBORSerializer#ELEMENT_TAG} are ignored.
+ */
+public class CBORParser extends Parser {
+    //the most items a list is sized for up front, the lengths in the data are not trusted until the items are read
+    private static final int MAX_INITIAL_CAPACITY = 16;
+
+    /**
+     * Parses the CBOR read from the given {@link CBORReader} into the given {@link DataObject}.
+     *
+     * @param reader     The {@link CBORReader} to read from.
+     * @param dataObject The {@link DataObject} to parse into.
+     * @throws IOException      if reading from the reader's stream fails.
+     * @throws ParsingException if the CBOR is malformed or can't be read as a {@link DataObject}.
+     */
+    protected static void parse(@NonNull CBORReader reader, @NonNull DataObject dataObject) throws IOException {
+        while (reader.peek() == CBORReader.TAG) {
+            reader.readTag();
+        }
+        switch (reader.peek()) {
+            case CBORReader.MAP:
+                parseObject(reader, dataObject);
+                break;
+            case CBORReader.ARRAY:
+                List<DataElement> elements = parseElements(reader, ANONYMOUS_ARRAY_TAG);
+                if (elements.size() > 0) {
+                    dataObject.insert(ANONYMOUS_ARRAY_TAG, elements);
+                }
+                break;
+            case CBORReader.END_OF_DATA:
+                break;
+            default:
+                throw new ParsingException("CBOR data must hold a map or an array");
+        }
+    }
+
+    private static void parseObject(@NonNull CBORReader reader, @NonNull DataObject dataObject) throws IOException {
+        int size = reader.readMapHeader();
+        for (int i = 0; size < 0 ? !reader.readBreak() : i < size; i++) {
+            int kind = reader.peek();
+            if (kind != CBORReader.TEXT_STRING && kind != CBORReader.END_OF_DATA) {
+                throw new ParsingException("CBOR map keys must be text strings");
+            }
+            String name = reader.readText();
+            List<DataElement> elements;
+            if (reader.peek() == CBORReader.ARRAY) {
+                elements = parseElements(reader, name);
+            } else {
+                elements = new ArrayList<>(1);
+                elements.add(parseElement(reader, name));
+            }
+            if (elements.size() > 0) {
+                dataObject.insert(name, elements);
+            }
+        }
+    }
+
+    /**
+     * Reads an array of elements listed under the given {@code name}.
+     */
+    private static List<DataElement> parseElements(@NonNull CBORReader reader, @NonNull String name) throws IOException {
+        boolean anonymous = ANONYMOUS_ARRAY_TAG.equals(name);
+        int size = reader.readArrayHeader();
+        List<DataElement> elements = new ArrayList<>(Math.min(Math.max(size, 1), MAX_INITIAL_CAPACITY));
+        for (int i = 0; size < 0 ? !reader.readBreak() : i < size; i++) {
+            elements.add(parseElement(reader, anonymous ? String.valueOf(i) : name));
+        }
+        return elements;
+    }
+
+    private static DataElement parseElement(@NonNull CBORReader reader, @NonNull String defaultTag) throws IOException {
+        if (reader.peek() != CBORReader.TAG) {
+            return parseValue(reader, defaultTag);
+        }
+        if (reader.readTag() != CBORSerializer.ELEMENT_TAG) {
+            return parseElement(reader, defaultTag);
+        }
+        if (reader.readArrayHeader() != 4) {
+            throw new ParsingException("Malformed CBOR element");
+        }
+        String tag = defaultTag;
+        if (reader.peek() == CBORReader.NULL) {
+            reader.readNull();
+        } else {
+            tag = reader.readText();
+        }
+        boolean CDATA = reader.readBoolean();
+        List<String> attributes = null;
+        if (reader.peek() == CBORReader.NULL) {
+            reader.readNull();
+        } else {
+            int size = reader.readArrayHeader();
+            attributes = new ArrayList<>(Math.min(Math.max(size, 2), MAX_INITIAL_CAPACITY));
+            for (int i = 0; size < 0 ? !reader.readBreak() : i < size; i++) {
+                attributes.add(reader.readText());
+            }
+        }
+        DataElement element = parseValue(reader, tag);
+        element.CDATA = CDATA;
+        if (attributes != null && !ignoreAttributes) {
+            for (int i = 0; i + 1 < attributes.size(); i += 2) {
+                element.addAttribute(attributes.get(i), attributes.get(i + 1));
+            }
+        }
+        return element;
+    }
+
+    private static DataElement parseValue(@NonNull CBORReader reader, @NonNull String tag) throws IOException {
+        switch (reader.peek()) {
+            case CBORReader.TEXT_STRING:
+                return new DataElement(tag, reader.readText());
+            case CBORReader.INTEGER:
+                long value = reader.readInteger();
+                if (value < Integer.MIN_VALUE || value > Integer.MAX_VALUE) {
+                    return new DataElement(tag, String.valueOf(value));
+                }
+                return new DataElement(tag, (int) value);
+            case CBORReader.FLOAT:
+                return new DataElement(tag, reader.readFloat());
+            case CBORReader.DOUBLE:
+                return new DataElement(tag, reader.readDouble());
+            case CBORReader.TRUE:
+            case CBORReader.FALSE:
+                return new DataElement(tag, String.valueOf(reader.readBoolean()));
+            case CBORReader.NULL:
+            case CBORReader.UNDEFINED:
+                reader.readNull();
+                return new DataElement(tag);
+            case CBORReader.MAP:
+                DataObject object = new DataObject();
+                parseObject(reader, object);
+                return new DataElement(tag, object);
+            case CBORReader.ARRAY:
+                List<DataElement> items = new ArrayList<>();
+                int size = reader.readArrayHeader();
+                for (int i = 0; size < 0 ? !reader.readBreak() : i < size; i++) {
+                    items.add(parseElement(reader, ""));
+                }
+                return new DataElement(tag, items);
+            case CBORReader.TAG:
+                reader.readTag();
+                return parseValue(reader, tag);
+            case CBORReader.END_OF_DATA:
+                throw new ParsingException("Unexpected end of CBOR data");
+            default:
+                throw new ParsingException("Unsupported CBOR item of kind " + reader.peek());
+        }
+    }
+}
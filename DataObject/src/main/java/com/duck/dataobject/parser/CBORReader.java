@@ -0,0 +1,431 @@
+package com.duck.dataobject.parser;
+
+import androidx.annotation.NonNull;
+
+import com.duck.dataobject.exception.ParsingException;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Streaming reader for CBOR (RFC 7049) data items. {@link #peek()} gives the kind of the next item without consuming
+ * it, the {@code read} functions consume the next item and throw a {@link ParsingException} if it is of another kind.
+ * <p>
+ * Array and map headers give their size, or -1 for an indefinite length array or map whose items run until {@link
+ * #readBreak()} returns {@code True}. Malformed or truncated data throws a {@link ParsingException}.
+ */
+public class CBORReader {
+    public static final int END_OF_DATA = -1;
+    public static final int INTEGER = 0;
+    public static final int BYTE_STRING = 1;
+    public static final int TEXT_STRING = 2;
+    public static final int ARRAY = 3;
+    public static final int MAP = 4;
+    public static final int TAG = 5;
+    public static final int FALSE = 6;
+    public static final int TRUE = 7;
+    public static final int NULL = 8;
+    public static final int UNDEFINED = 9;
+    public static final int FLOAT = 10;
+    public static final int DOUBLE = 11;
+    public static final int SIMPLE_VALUE = 12;
+    public static final int BREAK = 13;
+
+    private static final int NONE = -2;
+    private static final int HALF = 25;
+
+    private final InputStream in;
+    private byte[] buffer;
+    private int position;
+    private int limit;
+    //the kind, argument and extra info of the head read by peek, NONE once consumed
+    private int kind = NONE;
+    private long argument;
+    private int info;
+    private boolean negative;
+    private boolean indefinite;
+
+    /**
+     * Creates a reader that reads from the given {@link InputStream} through a small buffer.
+     */
+    public CBORReader(@NonNull InputStream in) {
+        this.in = in;
+        buffer = new byte[4096];
+        position = 0;
+        limit = 0;
+    }
+
+    /**
+     * Creates a reader that reads from the given {@code data}.
+     */
+    public CBORReader(@NonNull byte[] data) {
+        this(data, 0, data.length);
+    }
+
+    /**
+     * Creates a reader that reads {@code length} bytes of the given {@code data} starting at {@code offset}.
+     */
+    public CBORReader(@NonNull byte[] data, int offset, int length) {
+        in = null;
+        buffer = data;
+        position = offset;
+        limit = offset + length;
+    }
+
+    /**
+     * @return The kind of the next item, such as {@link #MAP} or {@link #TEXT_STRING}, or {@link #END_OF_DATA} if there
+     * are no more items.
+     * @throws IOException if reading from the stream fails.
+     */
+    public int peek() throws IOException {
+        if (kind != NONE) {
+            return kind;
+        }
+        if (!request(1)) {
+            return END_OF_DATA;
+        }
+        int initial = buffer[position++] & 0xFF;
+        int major = initial >>> 5;
+        info = initial & 0x1F;
+        if (major == 7) {
+            switch (info) {
+                case 20:
+                    kind = FALSE;
+                    break;
+                case 21:
+                    kind = TRUE;
+                    break;
+                case 22:
+                    kind = NULL;
+                    break;
+                case 23:
+                    kind = UNDEFINED;
+                    break;
+                case 25:
+                case 26:
+                    argument = readArgument(info);
+                    kind = FLOAT;
+                    break;
+                case 27:
+                    argument = readArgument(info);
+                    kind = DOUBLE;
+                    break;
+                case 31:
+                    kind = BREAK;
+                    break;
+                default:
+                    argument = readArgument(info);
+                    kind = SIMPLE_VALUE;
+                    break;
+            }
+            return kind;
+        }
+        if (info == 31) {
+            if (major < 2 || major == 6) {
+                throw new ParsingException("Malformed CBOR, indefinite length on major type " + major);
+            }
+            indefinite = true;
+            argument = 0;
+        } else {
+            indefinite = false;
+            argument = readArgument(info);
+        }
+        negative = major == 1;
+        kind = major <= 1 ? INTEGER : major - 1;
+        return kind;
+    }
+
+    /**
+     * @return The next item, an integer.
+     */
+    public long readInteger() throws IOException {
+        expect(INTEGER);
+        if (argument < 0) {
+            throw new ParsingException("CBOR integer out of range");
+        }
+        return negative ? -1 - argument : argument;
+    }
+
+    /**
+     * @return The next item, a half or single precision float.
+     */
+    public float readFloat() throws IOException {
+        expect(FLOAT);
+        return info == HALF ? halfToFloat((int) argument) : Float.intBitsToFloat((int) argument);
+    }
+
+    /**
+     * @return The next item, a half, single or double precision float.
+     */
+    public double readDouble() throws IOException {
+        if (peek() == FLOAT) {
+            return readFloat();
+        }
+        expect(DOUBLE);
+        return Double.longBitsToDouble(argument);
+    }
+
+    public boolean readBoolean() throws IOException {
+        if (peek() != TRUE) {
+            expect(FALSE);
+            return false;
+        }
+        consume();
+        return true;
+    }
+
+    /**
+     * Reads the next item, a null or undefined value.
+     */
+    public void readNull() throws IOException {
+        if (peek() != UNDEFINED) {
+            expect(NULL);
+        } else {
+            consume();
+        }
+    }
+
+    /**
+     * @return The number of the next item, a tag for the item after it.
+     */
+    public long readTag() throws IOException {
+        expect(TAG);
+        return argument;
+    }
+
+    /**
+     * @return The size of the next item, an array, or -1 if the array runs until {@link #readBreak()}.
+     */
+    public int readArrayHeader() throws IOException {
+        expect(ARRAY);
+        return indefinite ? -1 : toSize(argument);
+    }
+
+    /**
+     * @return The number of key and value pairs in the next item, a map, or -1 if the map runs until {@link
+     * #readBreak()}.
+     */
+    public int readMapHeader() throws IOException {
+        expect(MAP);
+        return indefinite ? -1 : toSize(argument);
+    }
+
+    /**
+     * Reads the break that ends an indefinite length array or map if it is next.
+     *
+     * @return {@code True} if the break was read, {@code False} if there are more items.
+     */
+    public boolean readBreak() throws IOException {
+        if (peek() == BREAK) {
+            consume();
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * @return The next item, a text string.
+     */
+    public String readText() throws IOException {
+        expect(TEXT_STRING);
+        if (!indefinite) {
+            return readUtf8(toSize(argument));
+        }
+        StringBuilder stringBuilder = new StringBuilder();
+        while (!readBreak()) {
+            expect(TEXT_STRING);
+            if (indefinite) {
+                throw new ParsingException("Malformed CBOR, nested indefinite length text string");
+            }
+            stringBuilder.append(readUtf8(toSize(argument)));
+        }
+        return stringBuilder.toString();
+    }
+
+    /**
+     * @return The next item, a byte string.
+     */
+    public byte[] readBytes() throws IOException {
+        expect(BYTE_STRING);
+        if (!indefinite) {
+            return readRaw(toSize(argument));
+        }
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        while (!readBreak()) {
+            expect(BYTE_STRING);
+            if (indefinite) {
+                throw new ParsingException("Malformed CBOR, nested indefinite length byte string");
+            }
+            byte[] chunk = readRaw(toSize(argument));
+            bytes.write(chunk, 0, chunk.length);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Skips the next item, along with all the items in it if it is an array, map or tag.
+     */
+    public void skip() throws IOException {
+        switch (peek()) {
+            case END_OF_DATA:
+                throw new ParsingException("Unexpected end of CBOR data");
+            case BREAK:
+                throw new ParsingException("Malformed CBOR, unexpected break");
+            case BYTE_STRING:
+                readBytes();
+                break;
+            case TEXT_STRING:
+                readText();
+                break;
+            case ARRAY:
+            case MAP: {
+                int items = peek() == MAP ? 2 : 1;
+                int size = peek() == MAP ? readMapHeader() : readArrayHeader();
+                if (size < 0) {
+                    while (!readBreak()) {
+                        for (int i = 0; i < items; i++) {
+                            skip();
+                        }
+                    }
+                } else {
+                    for (long i = (long) size * items; i > 0; i--) {
+                        skip();
+                    }
+                }
+                break;
+            }
+            case TAG:
+                readTag();
+                skip();
+                break;
+            default:
+                consume();
+                break;
+        }
+    }
+
+    private void expect(int expected) throws IOException {
+        int kind = peek();
+        if (kind != expected) {
+            if (kind == END_OF_DATA) {
+                throw new ParsingException("Unexpected end of CBOR data");
+            }
+            throw new ParsingException("Expected CBOR item of kind " + expected + " but found " + kind);
+        }
+        consume();
+    }
+
+    private void consume() {
+        kind = NONE;
+    }
+
+    private static int toSize(long argument) {
+        if (argument < 0 || argument > Integer.MAX_VALUE - 8) {
+            throw new ParsingException("CBOR length out of range: " + argument);
+        }
+        return (int) argument;
+    }
+
+    private long readArgument(int info) throws IOException {
+        int count;
+        if (info < 24) {
+            return info;
+        } else if (info == 24) {
+            count = 1;
+        } else if (info == 25) {
+            count = 2;
+        } else if (info == 26) {
+            count = 4;
+        } else if (info == 27) {
+            count = 8;
+        } else {
+            throw new ParsingException("Malformed CBOR, reserved additional info " + info);
+        }
+        require(count);
+        long value = 0;
+        for (int i = 0; i < count; i++) {
+            value = (value << 8) | (buffer[position++] & 0xFF);
+        }
+        return value;
+    }
+
+    private String readUtf8(int length) throws IOException {
+        if (length <= buffer.length) {
+            require(length);
+            String string = new String(buffer, position, length, StandardCharsets.UTF_8);
+            position += length;
+            return string;
+        }
+        return new String(readRaw(length), StandardCharsets.UTF_8);
+    }
+
+    private byte[] readRaw(int length) throws IOException {
+        if (in == null || length <= buffer.length) {
+            require(length);
+            byte[] bytes = new byte[length];
+            System.arraycopy(buffer, position, bytes, 0, length);
+            position += length;
+            return bytes;
+        }
+        //read long strings in parts so that a bad length can't allocate more than the data holds
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(buffer.length);
+        int remaining = length;
+        while (remaining > 0) {
+            if (position == limit && !request(1)) {
+                throw new ParsingException("Unexpected end of CBOR data");
+            }
+            int count = Math.min(limit - position, remaining);
+            bytes.write(buffer, position, count);
+            position += count;
+            remaining -= count;
+        }
+        return bytes.toByteArray();
+    }
+
+    private void require(int count) throws IOException {
+        if (!request(count)) {
+            throw new ParsingException("Unexpected end of CBOR data");
+        }
+    }
+
+    /**
+     * Makes sure there are at least {@code count} bytes in the buffer, no more than its size.
+     *
+     * @return {@code False} if the data ends first.
+     */
+    private boolean request(int count) throws IOException {
+        if (limit - position >= count) {
+            return true;
+        }
+        if (in == null) {
+            return false;
+        }
+        System.arraycopy(buffer, position, buffer, 0, limit - position);
+        limit -= position;
+        position = 0;
+        while (limit < count) {
+            int read = in.read(buffer, limit, buffer.length - limit);
+            if (read < 0) {
+                return false;
+            }
+            limit += read;
+        }
+        return true;
+    }
+
+    private static float halfToFloat(int half) {
+        int exponent = (half >> 10) & 0x1F;
+        int mantissa = half & 0x3FF;
+        float value;
+        if (exponent == 0) {
+            value = mantissa * 5.9604645E-8f;
+        } else if (exponent == 31) {
+            value = mantissa == 0 ? Float.POSITIVE_INFINITY : Float.NaN;
+        } else {
+            value = Float.intBitsToFloat(((exponent + 112) << 23) | (mantissa << 13));
+        }
+        return (half & 0x8000) != 0 ? -value : value;
+    }
+}
@@ -9,6 +9,9 @@ import com.duck.dataobject.exception.ParsingException;
 import org.json.JSONArray;
 import org.json.JSONObject;
 
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
 /**
  * Created by Bradley Duck on 2018/05/13.
  */
@@ -119,6 +122,35 @@ public class Parser {
         JSONParser.parse(data, dataObject);
     }
 
+    /**
+     * Parses the CBOR read from the given {@link CBORReader} into the given {@link DataObject}.
+     *
+     * @param reader     The {@link CBORReader} to read from.
+     * @param dataObject The {@link DataObject} to parse into.
+     * @param args       Optional, Argument flags: index 1: IgnoreAttributes, index 2: Verbose Logging.
+     * @throws IOException      if reading from the reader's stream fails.
+     * @throws ParsingException if the CBOR is malformed and invalid.
+     */
+    public static void parse(@NonNull CBORReader reader, @NonNull DataObject dataObject, boolean... args)
+            throws IOException, ParsingException {
+        processArgs(args);
+        CBORParser.parse(reader, dataObject);
+    }
+
+    /**
+     * Loads the snapshot in the given {@code data} into the given {@link DataObject}.
+     *
+     * @param data       The snapshot, from its position to its limit.
+     * @param dataObject The {@link DataObject} to load into.
+     * @param args       Optional, Argument flags: index 1: IgnoreAttributes, index 2: Verbose Logging.
+     * @throws ParsingException if {@code data} is not a snapshot of a supported version or is corrupt.
+     */
+    public static void parse(@NonNull ByteBuffer data, @NonNull DataObject dataObject, boolean... args)
+            throws ParsingException {
+        processArgs(args);
+        SnapshotParser.parse(data, dataObject);
+    }
+
     @IntDef(value = {XML, JSON, HTML, UNKNOWN})
     private @interface parseType {
     }
@@ -0,0 +1,158 @@
+package com.duck.dataobject.parser;
+
+import androidx.annotation.NonNull;
+
+import com.duck.dataobject.DataObject;
+import com.duck.dataobject.exception.ParsingException;
+import com.duck.dataobject.node.DataElement;
+import com.duck.dataobject.serializer.SnapshotSerializer;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.duck.dataobject.serializer.SnapshotSerializer.ATTRIBUTE_SHIFT;
+import static com.duck.dataobject.serializer.SnapshotSerializer.CDATA_FLAG;
+import static com.duck.dataobject.serializer.SnapshotSerializer.HEADER_SIZE;
+import static com.duck.dataobject.serializer.SnapshotSerializer.KIND_DOUBLE;
+import static com.duck.dataobject.serializer.SnapshotSerializer.KIND_FLOAT;
+import static com.duck.dataobject.serializer.SnapshotSerializer.KIND_INT;
+import static com.duck.dataobject.serializer.SnapshotSerializer.KIND_LIST;
+import static com.duck.dataobject.serializer.SnapshotSerializer.KIND_MASK;
+import static com.duck.dataobject.serializer.SnapshotSerializer.KIND_NULL;
+import static com.duck.dataobject.serializer.SnapshotSerializer.KIND_OBJECT;
+import static com.duck.dataobject.serializer.SnapshotSerializer.KIND_STRING;
+
+/**
+ * Loads the snapshots written by the {@link SnapshotSerializer} back into a {@link DataObject}. The string offsets,
+ * nodes and chars are each copied out of the buffer in one bulk read, then the elements are built by walking the node
+ * array.
+ */
+public class SnapshotParser extends Parser {
+
+    /**
+     * Loads the snapshot in the given {@code data}, from its position to its limit, into the given {@link DataObject}.
+     * The position of {@code data} is not changed.
+     *
+     * @param data       The snapshot.
+     * @param dataObject The {@link DataObject} to load into.
+     * @throws ParsingException if {@code data} is not a snapshot of a supported version or is corrupt.
+     */
+    protected static void parse(@NonNull ByteBuffer data, @NonNull DataObject dataObject) throws ParsingException {
+        ByteBuffer buffer = data.duplicate().order(ByteOrder.BIG_ENDIAN);
+        if (buffer.remaining() < HEADER_SIZE || buffer.getInt() != SnapshotSerializer.MAGIC) {
+            throw new ParsingException("Not a DataObject snapshot");
+        }
+        int version = buffer.getInt();
+        if (version != SnapshotSerializer.VERSION) {
+            throw new ParsingException("Unsupported DataObject snapshot version " + version);
+        }
+        int stringCount = buffer.getInt();
+        int nodeCount = buffer.getInt();
+        int charCount = buffer.getInt();
+        if (stringCount < 0 || nodeCount < 0 || charCount < 0
+                || buffer.remaining() < (stringCount + (long) nodeCount) * 4 + charCount * 2L) {
+            throw new ParsingException("Corrupt DataObject snapshot, it is shorter than its header says");
+        }
+        try {
+            int[] ends = new int[stringCount];
+            buffer.asIntBuffer().get(ends);
+            buffer.position(buffer.position() + stringCount * 4);
+            int[] nodes = new int[nodeCount];
+            buffer.asIntBuffer().get(nodes);
+            buffer.position(buffer.position() + nodeCount * 4);
+            char[] chars = new char[charCount];
+            buffer.asCharBuffer().get(chars);
+
+            String[] strings = new String[stringCount];
+            int start = 0;
+            for (int i = 0; i < stringCount; i++) {
+                strings[i] = new String(chars, start, ends[i] - start);
+                start = ends[i];
+            }
+            new Loader(strings, nodes).readObject(dataObject);
+        } catch (IndexOutOfBoundsException | BufferUnderflowException | IllegalArgumentException e) {
+            throw new ParsingException("Corrupt DataObject snapshot", e);
+        }
+    }
+
+    private static final class Loader {
+        private final String[] strings;
+        private final int[] nodes;
+        private int position = 0;
+
+        Loader(String[] strings, int[] nodes) {
+            this.strings = strings;
+            this.nodes = nodes;
+        }
+
+        void readObject(@NonNull DataObject dataObject) {
+            int entryCount = nodes[position++];
+            for (int i = 0; i < entryCount; i++) {
+                String tag = strings[nodes[position++]];
+                int count = nodes[position++];
+                //the node count, which isn't needed as everything is read anyway
+                position++;
+                List<DataElement> elements = new ArrayList<>(Math.max(Math.min(count, nodes.length - position), 0));
+                for (int j = 0; j < count; j++) {
+                    elements.add(readElement());
+                }
+                dataObject.insert(tag, elements);
+            }
+        }
+
+        private DataElement readElement() {
+            int header = nodes[position++];
+            String tag = strings[nodes[position++]];
+            int attributes = position;
+            int attributeCount = header >>> ATTRIBUTE_SHIFT;
+            position += attributeCount * 2;
+            DataElement element;
+            switch (header & KIND_MASK) {
+                case KIND_NULL:
+                    element = new DataElement(tag);
+                    break;
+                case KIND_STRING:
+                    element = new DataElement(tag, strings[nodes[position++]]);
+                    break;
+                case KIND_INT:
+                    element = new DataElement(tag, nodes[position++]);
+                    break;
+                case KIND_FLOAT:
+                    element = new DataElement(tag, Float.intBitsToFloat(nodes[position++]));
+                    break;
+                case KIND_DOUBLE:
+                    long high = nodes[position++];
+                    long low = nodes[position++] & 0xFFFFFFFFL;
+                    element = new DataElement(tag, Double.longBitsToDouble((high << 32) | low));
+                    break;
+                case KIND_OBJECT:
+                    position++;
+                    DataObject object = new DataObject();
+                    readObject(object);
+                    element = new DataElement(tag, object);
+                    break;
+                case KIND_LIST:
+                    position++;
+                    int count = nodes[position++];
+                    List<DataElement> items = new ArrayList<>(Math.max(Math.min(count, nodes.length - position), 0));
+                    for (int i = 0; i < count; i++) {
+                        items.add(readElement());
+                    }
+                    element = new DataElement(tag, items);
+                    break;
+                default:
+                    throw new ParsingException("Corrupt DataObject snapshot, unknown node kind " + (header & KIND_MASK));
+            }
+            element.CDATA = (header & CDATA_FLAG) != 0;
+            if (!ignoreAttributes) {
+                for (int i = 0; i < attributeCount; i++) {
+                    element.addAttribute(strings[nodes[attributes + i * 2]], strings[nodes[attributes + i * 2 + 1]]);
+                }
+            }
+            return element;
+        }
+    }
+}
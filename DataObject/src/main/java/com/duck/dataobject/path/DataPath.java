@@ -0,0 +1,284 @@
+package com.duck.dataobject.path;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.duck.dataobject.DataObject;
+import com.duck.dataobject.exception.ParsingException;
+import com.duck.dataobject.node.DataElement;
+import com.duck.dataobject.node.XMLAttribute;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A path to an element, compiled once and then evaluated against any number of {@link DataObject DataObjects}.
+ * <p>
+ * A path is a list of tags separated by {@code '/'}, each tag may be followed by a 1 based index in square brackets to pick
+ * one of several elements with that tag, the default being the first. The last tag may be followed by {@code @attribute}
+ * to read the value of an attribute instead of the value of the element. For example {@code "a/b[2]/c@id"} is the {@code
+ * id} attribute of the first {@code c} in the second {@code b} in the first {@code a}.
+ * <p>
+ * Paths are resolved the same way as {@link DataObject#getElement(DataObject, String...)}, if a tag is not found but an
+ * {@code "xml"} element is then the tag is looked for within the {@code "xml"} element instead. Evaluating a path does not
+ * allocate.
+ * <p>
+ * A {@link DataPath} is immutable and can be shared between threads.
+ */
+public final class DataPath {
+    private static final String XML_TAG = "xml";
+
+    private final String path;
+    private final String[] tags;
+    //0 based index of the element to pick at each step.
+    private final int[] indices;
+    @Nullable
+    private final String attributeTag;
+
+    private DataPath(String path, String[] tags, int[] indices, @Nullable String attributeTag) {
+        this.path = path;
+        this.tags = tags;
+        this.indices = indices;
+        this.attributeTag = attributeTag;
+    }
+
+    /**
+     * Compiles the given {@code path}.
+     *
+     * @param path The path to compile, for example {@code "a/b[2]/c@id"}.
+     * @return The compiled {@link DataPath}.
+     * @throws ParsingException if the path is not valid.
+     */
+    @NonNull
+    public static DataPath compile(@NonNull String path) throws ParsingException {
+        String attributeTag = null;
+        String steps = path;
+        int at = path.indexOf('@');
+        if (at >= 0) {
+            attributeTag = path.substring(at + 1);
+            steps = path.substring(0, at);
+            if (attributeTag.isEmpty() || attributeTag.indexOf('/') >= 0 || attributeTag.indexOf('[') >= 0
+                    || attributeTag.indexOf('@') >= 0) {
+                throw new ParsingException("Invalid attribute in path \"" + path + "\"");
+            }
+        }
+        List<String> tags = new ArrayList<>();
+        List<Integer> indices = new ArrayList<>();
+        int start = 0;
+        while (start <= steps.length()) {
+            int end = steps.indexOf('/', start);
+            if (end < 0) {
+                end = steps.length();
+            }
+            String step = steps.substring(start, end);
+            int index = 0;
+            int bracket = step.indexOf('[');
+            if (bracket >= 0) {
+                if (!step.endsWith("]")) {
+                    throw new ParsingException("Unclosed index in path \"" + path + "\"");
+                }
+                try {
+                    index = Integer.parseInt(step.substring(bracket + 1, step.length() - 1)) - 1;
+                } catch (NumberFormatException e) {
+                    throw new ParsingException("Invalid index in path \"" + path + "\"", e);
+                }
+                if (index < 0) {
+                    throw new ParsingException("Indices start at 1 in path \"" + path + "\"");
+                }
+                step = step.substring(0, bracket);
+            }
+            if (step.isEmpty()) {
+                throw new ParsingException("Empty step in path \"" + path + "\"");
+            }
+            tags.add(step);
+            indices.add(index);
+            start = end + 1;
+        }
+        int[] indexArray = new int[indices.size()];
+        for (int i = 0; i < indexArray.length; i++) {
+            indexArray[i] = indices.get(i);
+        }
+        return new DataPath(path, tags.toArray(new String[0]), indexArray, attributeTag);
+    }
+
+    /**
+     * Creates a {@link DataPath} that follows the given {@code tags}, picking the first element at each step, like {@link
+     * DataObject#getElement(DataObject, String...)} does.
+     *
+     * @param tags The tags to follow, there must be at least one.
+     * @return The {@link DataPath}.
+     */
+    @NonNull
+    public static DataPath of(@NonNull String... tags) {
+        if (tags.length < 1) {
+            throw new IllegalArgumentException("A path needs at least one tag");
+        }
+        StringBuilder path = new StringBuilder();
+        for (String tag : tags) {
+            if (path.length() > 0) {
+                path.append('/');
+            }
+            path.append(tag);
+        }
+        return new DataPath(path.toString(), tags.clone(), new int[tags.length], null);
+    }
+
+    /**
+     * @return The number of steps in this path.
+     */
+    public int length() {
+        return tags.length;
+    }
+
+    /**
+     * @return The tag of the given step.
+     */
+    @NonNull
+    public String getTag(int step) {
+        return tags[step];
+    }
+
+    /**
+     * @return The attribute this path reads or {@code null} if it reads the value of the element.
+     */
+    @Nullable
+    public String getAttributeTag() {
+        return attributeTag;
+    }
+
+    /**
+     * Finds the {@link DataElement} this path points to.
+     *
+     * @param data The {@link DataObject} to search within.
+     * @return The {@link DataElement} found at the end of this path or {@code null} if there is none.
+     */
+    @Nullable
+    public DataElement getElement(@Nullable DataObject data) {
+        DataObject parent = resolve(data, tags.length - 1);
+        return parent != null ? step(parent, tags.length - 1) : null;
+    }
+
+    /**
+     * Finds the {@link DataObject} held by the {@link DataElement} this path points to.
+     *
+     * @param data The {@link DataObject} to search within.
+     * @return The {@link DataObject} found at the end of this path or {@code null} if there is none or the element does not
+     *         hold an object.
+     */
+    @Nullable
+    public DataObject getObject(@Nullable DataObject data) {
+        DataElement element = getElement(data);
+        return element != null && element.isObject() ? (DataObject) element.value : null;
+    }
+
+    /**
+     * Finds the {@link DataObject} that holds the {@link DataElement} this path points to, which is the same as {@link
+     * DataObject#getObject(DataObject, String...)} for a path of more than one tag.
+     *
+     * @param data The {@link DataObject} to search within.
+     * @return The {@link DataObject} found at the second last step of this path, {@code data} itself for a path of one tag,
+     *         or {@code null} if there is none.
+     */
+    @Nullable
+    public DataObject getParent(@Nullable DataObject data) {
+        return resolve(data, tags.length - 1);
+    }
+
+    /**
+     * Finds all of the {@link DataElement DataElements} with the tag of the last step of this path. The index of the last
+     * step is ignored. Unlike {@link DataObject#getList(DataObject, String...)} the last tag is looked for within an {@code
+     * "xml"} element too, so the first of the list is always the element {@link #getElement(DataObject)} finds.
+     *
+     * @param data The {@link DataObject} to search within.
+     * @return The matching elements, this list is backed by the document and must not be modified.
+     */
+    @NonNull
+    public List<DataElement> getList(@Nullable DataObject data) {
+        DataObject parent = resolve(data, tags.length - 1);
+        if (parent != null) {
+            List<DataElement> list = find(parent, tags[tags.length - 1]);
+            if (list != null) {
+                return list;
+            }
+        }
+        return Collections.emptyList();
+    }
+
+    /**
+     * Gives the value this path points to, which is the value of the attribute if this path ends with one or else the value
+     * of the element.
+     *
+     * @param data         The {@link DataObject} to search within.
+     * @param defaultValue The value to return if there is no value at the end of this path.
+     * @return The value found at the end of this path or {@code defaultValue}.
+     */
+    @Nullable
+    public String getValue(@Nullable DataObject data, @Nullable String defaultValue) {
+        DataElement element = getElement(data);
+        if (element == null) {
+            return defaultValue;
+        }
+        if (attributeTag != null) {
+            String value = element.getAttributeValue(attributeTag);
+            return value != null ? value : defaultValue;
+        }
+        return element.getValueAsString(defaultValue);
+    }
+
+    /**
+     * Follows the first {@code steps} steps of this path.
+     *
+     * @return The {@link DataObject} held by the element reached, or {@code data} if {@code steps} is 0.
+     */
+    @Nullable
+    private DataObject resolve(@Nullable DataObject data, int steps) {
+        DataObject current = data;
+        for (int i = 0; i < steps && current != null; i++) {
+            DataElement element = step(current, i);
+            current = element != null && element.isObject() ? (DataObject) element.value : null;
+        }
+        return current;
+    }
+
+    @Nullable
+    private DataElement step(@NonNull DataObject data, int step) {
+        List<DataElement> list = find(data, tags[step]);
+        int index = indices[step];
+        return list != null && index < list.size() ? list.get(index) : null;
+    }
+
+    /**
+     * @return The elements with the given {@code tag} in {@code data}, or in its {@code "xml"} element if {@code data} has
+     *         none, or {@code null} if neither has any.
+     */
+    @Nullable
+    private static List<DataElement> find(@NonNull DataObject data, @NonNull String tag) {
+        while (true) {
+            List<DataElement> list = data.getList(tag, (XMLAttribute[]) null);
+            if (list != null && !list.isEmpty()) {
+                return list;
+            }
+            List<DataElement> xml = data.getList(XML_TAG, (XMLAttribute[]) null);
+            if (xml == null || xml.isEmpty() || !xml.get(0).isObject()) {
+                return null;
+            }
+            data = (DataObject) xml.get(0).value;
+        }
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        return other instanceof DataPath && path.equals(((DataPath) other).path);
+    }
+
+    @Override
+    public int hashCode() {
+        return path.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return path;
+    }
+}
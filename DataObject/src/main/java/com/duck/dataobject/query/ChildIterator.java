@@ -0,0 +1,48 @@
+package com.duck.dataobject.query;
+
+import androidx.annotation.NonNull;
+
+import com.duck.dataobject.DataObject;
+import com.duck.dataobject.node.DataElement;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * Iterates over every {@link DataElement} in the top level of a {@link DataObject}.
+ */
+final class ChildIterator implements Iterator<DataElement> {
+    private final Iterator<List<DataElement>> lists;
+    private List<DataElement> list = null;
+    private int index = 0;
+
+    ChildIterator(@NonNull DataObject object) {
+        lists = object.getElementLists().iterator();
+    }
+
+    @Override
+    public boolean hasNext() {
+        while (list == null || index >= list.size()) {
+            if (!lists.hasNext()) {
+                return false;
+            }
+            list = lists.next();
+            index = 0;
+        }
+        return true;
+    }
+
+    @Override
+    public DataElement next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        return list.get(index++);
+    }
+
+    @Override
+    public void remove() {
+        throw new UnsupportedOperationException();
+    }
+}
@@ -0,0 +1,340 @@
+package com.duck.dataobject.query;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.duck.dataobject.DataObject;
+import com.duck.dataobject.DocumentIndex;
+import com.duck.dataobject.exception.ParsingException;
+import com.duck.dataobject.node.DataElement;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * A query over a {@link DataObject}, compiled once and then run against any number of documents. The query language is a
+ * small part of XPath:
+ * <ul>
+ * <li>{@code /tag} selects the elements with the given tag in the top level of each object selected so far, {@code
+ * //tag} selects them anywhere within each object. A query that does not start with {@code /} is the same as one that
+ * starts with a single {@code /}. {@code *} matches every tag.</li>
+ * <li>Each step may be followed by any number of predicates in square brackets: a 1 based position such as {@code [2]},
+ * the existence of a child element or attribute such as {@code [status]} or {@code [@id]}, or a comparison such as {@code
+ * [status='open']}, {@code [@id!="7"]} or {@code [total>100]}. {@code .} compares the value of the element itself. The
+ * comparison operators are {@code = != < <= > >=}, numbers are compared as numbers and quoted literals as strings. A
+ * child comparison matches if any child with that tag matches. As in XPath, positions count the elements within each
+ * object, so {@code //b[1]} selects the first {@code b} of every object that has one.</li>
+ * <li>The query may end with {@code /@attribute} to select the value of that attribute, see {@link
+ * #selectValues(DataObject)}.</li>
+ * </ul>
+ * For example {@code //order[status='open'][total>100]/id}.
+ * <p>
+ * Results are produced lazily as the returned iterators are advanced, the document must not be changed while iterating
+ * over them. A {@code //} step run on the root of a document with a {@link DocumentIndex} reads the matching elements
+ * from the index, using an attribute index for an {@code [@attribute='value']} predicate when there is one. Like the deep
+ * search, {@code //} does not look inside of array values.
+ * <p>
+ * A {@link DataQuery} is immutable and can be shared between threads.
+ */
+public final class DataQuery {
+    private final String query;
+    private final Step[] steps;
+    @Nullable
+    private final String attributeTag;
+
+    private DataQuery(String query, Step[] steps, @Nullable String attributeTag) {
+        this.query = query;
+        this.steps = steps;
+        this.attributeTag = attributeTag;
+    }
+
+    /**
+     * Compiles the given {@code query}.
+     *
+     * @param query The query to compile, for example {@code "//order[status='open'][total>100]/id"}.
+     * @return The compiled {@link DataQuery}.
+     * @throws ParsingException if the query is not valid.
+     */
+    @NonNull
+    public static DataQuery compile(@NonNull String query) throws ParsingException {
+        return new Parser(query).parse();
+    }
+
+    /**
+     * Runs this query against the given {@link DataObject}.
+     *
+     * @param data The {@link DataObject} to query.
+     * @return An iterator over the matching {@link DataElement DataElements}, or the elements holding the selected attribute
+     *         if this query ends with one.
+     */
+    @NonNull
+    public Iterator<DataElement> select(@NonNull DataObject data) {
+        Iterator<DataElement> iterator = null;
+        for (Step step : steps) {
+            iterator = new StepIterator(step, data, iterator);
+        }
+        return iterator;
+    }
+
+    /**
+     * Runs this query against the given {@link DataObject} and gives the values of the matches, which are the values of the
+     * selected attribute if this query ends with one, or else the values of the matching elements.
+     *
+     * @param data The {@link DataObject} to query.
+     * @return An iterator over the values of the matches, elements holding an object give {@code null}.
+     */
+    @NonNull
+    public Iterator<String> selectValues(@NonNull DataObject data) {
+        final Iterator<DataElement> elements = select(data);
+        return new Iterator<String>() {
+            @Override
+            public boolean hasNext() {
+                return elements.hasNext();
+            }
+
+            @Override
+            public String next() {
+                return valueOf(elements.next());
+            }
+
+            @Override
+            public void remove() {
+                throw new UnsupportedOperationException();
+            }
+        };
+    }
+
+    /**
+     * @return The first match of this query in the given {@link DataObject} or {@code null} if there is none.
+     */
+    @Nullable
+    public DataElement first(@NonNull DataObject data) {
+        Iterator<DataElement> iterator = select(data);
+        return iterator.hasNext() ? iterator.next() : null;
+    }
+
+    /**
+     * @return The value of the first match of this query in the given {@link DataObject}, see {@link
+     *         #selectValues(DataObject)}, or {@code defaultValue} if there is no match or it has no value.
+     */
+    @Nullable
+    public String firstValue(@NonNull DataObject data, @Nullable String defaultValue) {
+        DataElement element = first(data);
+        String value = element != null ? valueOf(element) : null;
+        return value != null ? value : defaultValue;
+    }
+
+    /**
+     * @return A new list of all the matches of this query in the given {@link DataObject}.
+     */
+    @NonNull
+    public List<DataElement> toList(@NonNull DataObject data) {
+        List<DataElement> list = new ArrayList<>();
+        for (Iterator<DataElement> iterator = select(data); iterator.hasNext(); ) {
+            list.add(iterator.next());
+        }
+        return list;
+    }
+
+    @Nullable
+    private String valueOf(DataElement element) {
+        if (attributeTag != null) {
+            return element.getAttributeValue(attributeTag);
+        }
+        return element.isObject() ? null : element.getValueAsString(null);
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        return other instanceof DataQuery && query.equals(((DataQuery) other).query);
+    }
+
+    @Override
+    public int hashCode() {
+        return query.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return query;
+    }
+
+    /**
+     * Parses a query string into {@link Step Steps}.
+     */
+    private static final class Parser {
+        private final String query;
+        private int pos = 0;
+
+        Parser(String query) {
+            this.query = query.trim();
+        }
+
+        DataQuery parse() {
+            List<Step> steps = new ArrayList<>();
+            String attributeTag = null;
+            boolean descendants = false;
+            while (pos < query.length()) {
+                boolean descendant = false;
+                if (query.startsWith("//", pos)) {
+                    descendant = true;
+                    pos += 2;
+                } else if (query.charAt(pos) == '/') {
+                    pos++;
+                } else if (!steps.isEmpty() && query.charAt(pos) != '@') {
+                    throw error("Expected '/'");
+                }
+                if (!steps.isEmpty() && pos < query.length() && query.charAt(pos) == '@') {
+                    pos++;
+                    attributeTag = readName();
+                    if (pos < query.length()) {
+                        throw error("The attribute must come last");
+                    }
+                    break;
+                }
+                String tag = readName();
+                List<Predicate> predicates = new ArrayList<>();
+                while (pos < query.length() && query.charAt(pos) == '[') {
+                    predicates.add(readPredicate());
+                }
+                steps.add(new Step(descendant,
+                                   "*".equals(tag) ? null : tag,
+                                   predicates.toArray(new Predicate[0]),
+                                   descendant && descendants));
+                descendants |= descendant;
+            }
+            if (steps.isEmpty()) {
+                throw error("Empty query");
+            }
+            Step[] stepArray = steps.toArray(new Step[0]);
+            if (attributeTag != null) {
+                //only the elements that have the attribute are selected
+                Step last = stepArray[stepArray.length - 1];
+                Predicate[] predicates = new Predicate[last.predicates.length + 1];
+                System.arraycopy(last.predicates, 0, predicates, 0, last.predicates.length);
+                predicates[last.predicates.length] = Predicate.exists(Predicate.ATTRIBUTE, attributeTag);
+                stepArray[stepArray.length - 1] = new Step(last.descendant, last.tag, predicates, last.distinct);
+            }
+            return new DataQuery(query, stepArray, attributeTag);
+        }
+
+        private String readName() {
+            int start = pos;
+            while (pos < query.length() && isNameChar(query.charAt(pos))) {
+                pos++;
+            }
+            if (start == pos) {
+                throw error("Expected a tag");
+            }
+            return query.substring(start, pos);
+        }
+
+        private Predicate readPredicate() {
+            pos++;//'['
+            skipSpaces();
+            Predicate predicate;
+            if (pos < query.length() && Character.isDigit(query.charAt(pos))) {
+                int start = pos;
+                while (pos < query.length() && Character.isDigit(query.charAt(pos))) {
+                    pos++;
+                }
+                int position = Integer.parseInt(query.substring(start, pos));
+                if (position < 1) {
+                    throw error("Positions start at 1");
+                }
+                predicate = Predicate.position(position);
+            } else {
+                int operand;
+                String name = null;
+                if (pos < query.length() && query.charAt(pos) == '@') {
+                    pos++;
+                    operand = Predicate.ATTRIBUTE;
+                    name = readName();
+                } else if (pos < query.length() && query.charAt(pos) == '.'
+                        && (pos + 1 >= query.length() || !isNameChar(query.charAt(pos + 1)))) {
+                    pos++;
+                    operand = Predicate.SELF;
+                } else {
+                    operand = Predicate.CHILD;
+                    name = readName();
+                }
+                skipSpaces();
+                int operator = readOperator();
+                if (operator == Predicate.EXISTS) {
+                    predicate = Predicate.exists(operand, name);
+                } else {
+                    skipSpaces();
+                    predicate = readLiteral(operand, name, operator);
+                }
+            }
+            skipSpaces();
+            if (pos >= query.length() || query.charAt(pos) != ']') {
+                throw error("Expected ']'");
+            }
+            pos++;
+            return predicate;
+        }
+
+        private int readOperator() {
+            if (query.startsWith("!=", pos)) {
+                pos += 2;
+                return Predicate.NOT_EQUAL;
+            } else if (query.startsWith("<=", pos)) {
+                pos += 2;
+                return Predicate.LESS_OR_EQUAL;
+            } else if (query.startsWith(">=", pos)) {
+                pos += 2;
+                return Predicate.GREATER_OR_EQUAL;
+            } else if (query.startsWith("=", pos)) {
+                pos++;
+                return Predicate.EQUAL;
+            } else if (query.startsWith("<", pos)) {
+                pos++;
+                return Predicate.LESS;
+            } else if (query.startsWith(">", pos)) {
+                pos++;
+                return Predicate.GREATER;
+            }
+            return Predicate.EXISTS;
+        }
+
+        private Predicate readLiteral(int operand, String name, int operator) {
+            if (pos < query.length() && (query.charAt(pos) == '\'' || query.charAt(pos) == '"')) {
+                char quote = query.charAt(pos);
+                int end = query.indexOf(quote, pos + 1);
+                if (end < 0) {
+                    throw error("Unclosed string");
+                }
+                String literal = query.substring(pos + 1, end);
+                pos = end + 1;
+                return Predicate.compare(operand, name, operator, literal);
+            }
+            int start = pos;
+            while (pos < query.length() && query.charAt(pos) != ']' && !Character.isWhitespace(query.charAt(pos))) {
+                pos++;
+            }
+            String literal = query.substring(start, pos);
+            try {
+                return Predicate.compare(operand, name, operator, literal, Double.parseDouble(literal));
+            } catch (NumberFormatException e) {
+                throw error("Expected a number or a quoted string");
+            }
+        }
+
+        private void skipSpaces() {
+            while (pos < query.length() && Character.isWhitespace(query.charAt(pos))) {
+                pos++;
+            }
+        }
+
+        private static boolean isNameChar(char c) {
+            return c != '/' && c != '[' && c != ']' && c != '@' && c != '=' && c != '!' && c != '<' && c != '>'
+                    && c != '\'' && c != '"' && !Character.isWhitespace(c);
+        }
+
+        private ParsingException error(String message) {
+            return new ParsingException(message + " at " + pos + " in query \"" + query + "\"");
+        }
+    }
+}
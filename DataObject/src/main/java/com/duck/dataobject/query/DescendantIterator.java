@@ -0,0 +1,95 @@
+package com.duck.dataobject.query;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.duck.dataobject.DataObject;
+import com.duck.dataobject.node.DataElement;
+import com.duck.dataobject.node.XMLAttribute;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * Iterates over the elements with a tag, or all elements, anywhere within a {@link DataObject}. Each object's own elements
+ * are given before those of the objects within it, which is the order a deep search and the {@link
+ * com.duck.dataobject.DocumentIndex} use. Like the deep search, array values are not looked inside of.
+ */
+final class DescendantIterator implements ElementIterator {
+    @Nullable
+    private final String tag;
+    private Iterator<DataElement> current;
+    private DataObject currentParent;
+    private DataObject parent = null;
+    //the objects whose children are still to be entered
+    private final ArrayList<ChildIterator> stack = new ArrayList<>();
+    private DataElement next = null;
+
+    DescendantIterator(@NonNull DataObject context, @Nullable String tag) {
+        this.tag = tag;
+        enter(context);
+    }
+
+    private void enter(DataObject object) {
+        currentParent = object;
+        if (tag == null) {
+            current = new ChildIterator(object);
+        } else {
+            List<DataElement> list = object.getList(tag, (XMLAttribute[]) null);
+            current = list != null ? list.iterator() : Collections.<DataElement>emptyIterator();
+        }
+        stack.add(new ChildIterator(object));
+    }
+
+    @Override
+    public boolean hasNext() {
+        while (next == null) {
+            if (current.hasNext()) {
+                next = current.next();
+                parent = currentParent;
+            } else {
+                DataObject child = null;
+                while (child == null && !stack.isEmpty()) {
+                    ChildIterator top = stack.get(stack.size() - 1);
+                    if (top.hasNext()) {
+                        DataElement element = top.next();
+                        if (element.isObject()) {
+                            child = (DataObject) element.value;
+                        }
+                    } else {
+                        stack.remove(stack.size() - 1);
+                    }
+                }
+                if (child == null) {
+                    return false;
+                }
+                enter(child);
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public DataElement next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        DataElement element = next;
+        next = null;
+        return element;
+    }
+
+    @NonNull
+    @Override
+    public DataObject parent() {
+        return parent;
+    }
+
+    @Override
+    public void remove() {
+        throw new UnsupportedOperationException();
+    }
+}
@@ -0,0 +1,20 @@
+package com.duck.dataobject.query;
+
+import androidx.annotation.NonNull;
+
+import com.duck.dataobject.DataObject;
+import com.duck.dataobject.node.DataElement;
+
+import java.util.Iterator;
+
+/**
+ * An iterator over elements from more than one {@link DataObject}, which can tell the object holding the element it gave
+ * last. Position predicates count the elements of each object separately.
+ */
+interface ElementIterator extends Iterator<DataElement> {
+    /**
+     * @return The {@link DataObject} holding the element last returned by {@link #next()}.
+     */
+    @NonNull
+    DataObject parent();
+}
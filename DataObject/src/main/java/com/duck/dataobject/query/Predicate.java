@@ -0,0 +1,150 @@
+package com.duck.dataobject.query;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.duck.dataobject.DataObject;
+import com.duck.dataobject.node.DataElement;
+import com.duck.dataobject.node.XMLAttribute;
+
+import java.util.List;
+
+/**
+ * A single {@code [...]} filter of a query {@link Step}.
+ */
+final class Predicate {
+    //what the predicate looks at
+    static final int POSITION = 0;
+    static final int CHILD = 1;
+    static final int ATTRIBUTE = 2;
+    static final int SELF = 3;
+
+    //how it compares it
+    static final int EXISTS = 0;
+    static final int EQUAL = 1;
+    static final int NOT_EQUAL = 2;
+    static final int LESS = 3;
+    static final int LESS_OR_EQUAL = 4;
+    static final int GREATER = 5;
+    static final int GREATER_OR_EQUAL = 6;
+
+    final int operand;
+    @Nullable
+    final String name;
+    final int operator;
+    @Nullable
+    final String literal;
+    final boolean numeric;
+    final double number;
+    //1 based, only used by POSITION predicates
+    final int position;
+
+    private Predicate(int operand, @Nullable String name, int operator, @Nullable String literal, boolean numeric,
+                      double number, int position) {
+        this.operand = operand;
+        this.name = name;
+        this.operator = operator;
+        this.literal = literal;
+        this.numeric = numeric;
+        this.number = number;
+        this.position = position;
+    }
+
+    static Predicate position(int position) {
+        return new Predicate(POSITION, null, EXISTS, null, false, 0, position);
+    }
+
+    static Predicate exists(int operand, @Nullable String name) {
+        return new Predicate(operand, name, EXISTS, null, false, 0, 0);
+    }
+
+    static Predicate compare(int operand, @Nullable String name, int operator, @NonNull String literal) {
+        return new Predicate(operand, name, operator, literal, false, 0, 0);
+    }
+
+    static Predicate compare(int operand, @Nullable String name, int operator, @NonNull String literal, double number) {
+        return new Predicate(operand, name, operator, literal, true, number, 0);
+    }
+
+    /**
+     * @return {@code True} if this is an {@code [@name='value']} predicate, which an attribute index can answer.
+     */
+    boolean isAttributeEquals() {
+        return operand == ATTRIBUTE && operator == EQUAL && !numeric;
+    }
+
+    /**
+     * Tests the given element against this predicate, {@link #POSITION} predicates are handled by the {@link StepIterator}.
+     */
+    boolean test(@NonNull DataElement element) {
+        switch (operand) {
+            case ATTRIBUTE: {
+                String value = element.getAttributeValue(name);
+                return operator == EXISTS ? value != null : matches(value);
+            }
+            case SELF: {
+                if (element.isObject()) {
+                    return false;
+                }
+                String value = element.getValueAsString(null);
+                return operator == EXISTS ? value != null : matches(value);
+            }
+            case CHILD: {
+                if (!element.isObject()) {
+                    return false;
+                }
+                List<DataElement> children = ((DataObject) element.value).getList(name, (XMLAttribute[]) null);
+                if (children == null || children.isEmpty()) {
+                    return false;
+                }
+                if (operator == EXISTS) {
+                    return true;
+                }
+                for (int i = 0; i < children.size(); i++) {
+                    DataElement child = children.get(i);
+                    if (!child.isObject() && matches(child.getValueAsString(null))) {
+                        return true;
+                    }
+                }
+                return false;
+            }
+            default:
+                return true;
+        }
+    }
+
+    private boolean matches(@Nullable String value) {
+        if (value == null) {
+            return false;
+        }
+        int compared;
+        if (numeric) {
+            double parsed;
+            try {
+                parsed = Double.parseDouble(value.trim());
+            } catch (NumberFormatException e) {
+                //not a number so it can't be equal to one
+                return operator == NOT_EQUAL;
+            }
+            compared = parsed == number ? 0 : (parsed < number ? -1 : 1);
+        } else {
+            compared = value.compareTo(literal);
+        }
+        switch (operator) {
+            case EQUAL:
+                return compared == 0;
+            case NOT_EQUAL:
+                return compared != 0;
+            case LESS:
+                return compared < 0;
+            case LESS_OR_EQUAL:
+                return compared <= 0;
+            case GREATER:
+                return compared > 0;
+            case GREATER_OR_EQUAL:
+                return compared >= 0;
+            default:
+                return true;
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package com.duck.dataobject.query;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.duck.dataobject.DataObject;
+import com.duck.dataobject.DocumentIndex;
+import com.duck.dataobject.node.DataElement;
+import com.duck.dataobject.node.XMLAttribute;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * One {@code /tag[...]} or {@code //tag[...]} step of a {@link DataQuery}.
+ */
+final class Step {
+    final boolean descendant;
+    //null for '*'
+    @Nullable
+    final String tag;
+    @NonNull
+    final Predicate[] predicates;
+    //set when an earlier step is a descendant step too, the same element can then be reached from more than one context.
+    final boolean distinct;
+
+    Step(boolean descendant, @Nullable String tag, @NonNull Predicate[] predicates, boolean distinct) {
+        this.descendant = descendant;
+        this.tag = tag;
+        this.predicates = predicates;
+        this.distinct = distinct;
+    }
+
+    /**
+     * @return {@code True} if this step has a position predicate.
+     */
+    boolean hasPosition() {
+        for (Predicate predicate : predicates) {
+            if (predicate.operand == Predicate.POSITION) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return The elements this step looks at within the given {@code context}, before the predicates are applied.
+     */
+    @NonNull
+    Iterator<DataElement> candidates(@NonNull DataObject context) {
+        if (!descendant) {
+            if (tag == null) {
+                return new ChildIterator(context);
+            }
+            List<DataElement> list = context.getList(tag, (XMLAttribute[]) null);
+            return list != null ? list.iterator() : Collections.<DataElement>emptyIterator();
+        }
+        DocumentIndex index = context.getTagIndex();
+        if (index != null && tag != null) {
+            index.ensureOrdered();
+            return new EntryIterator(indexedEntries(index, tag));
+        }
+        return new DescendantIterator(context, tag);
+    }
+
+    /**
+     * Uses an attribute index for the first {@code [@name='value']} predicate that comes before any position predicate,
+     * or else the tag index.
+     */
+    @NonNull
+    private List<DocumentIndex.Entry> indexedEntries(@NonNull DocumentIndex index, @NonNull String tag) {
+        for (Predicate predicate : predicates) {
+            if (predicate.operand == Predicate.POSITION) {
+                break;
+            }
+            if (predicate.isAttributeEquals() && index.hasAttributeIndex(tag, predicate.name)) {
+                return index.getEntries(tag, predicate.name, predicate.literal);
+            }
+        }
+        return index.getEntries(tag);
+    }
+
+    private static final class EntryIterator implements ElementIterator {
+        private final List<DocumentIndex.Entry> entries;
+        private int next = 0;
+
+        EntryIterator(List<DocumentIndex.Entry> entries) {
+            this.entries = entries;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next < entries.size();
+        }
+
+        @Override
+        public DataElement next() {
+            return entries.get(next++).element;
+        }
+
+        @NonNull
+        @Override
+        public DataObject parent() {
+            return entries.get(next - 1).parent;
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
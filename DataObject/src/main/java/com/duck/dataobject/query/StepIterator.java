@@ -0,0 +1,141 @@
+package com.duck.dataobject.query;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.duck.dataobject.DataObject;
+import com.duck.dataobject.node.DataElement;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Applies one {@link Step} to the elements coming out of the previous step, or to the root {@link DataObject} for the
+ * first step. Elements are only pulled from the previous step as they are needed.
+ */
+final class StepIterator implements Iterator<DataElement> {
+    private final Step step;
+    @Nullable
+    private final Iterator<DataElement> upstream;
+    @Nullable
+    private DataObject root;
+    private Iterator<DataElement> candidates = Collections.emptyIterator();
+    //how many elements each position predicate has seen within the current object
+    private int[] counts;
+    //the counts of each object for a descendant step, whose candidates come from many objects
+    @Nullable
+    private final IdentityHashMap<DataObject, int[]> parentCounts;
+    @Nullable
+    private DataObject countsParent = null;
+    @Nullable
+    private final IdentityHashMap<DataElement, Boolean> seen;
+    private DataElement next = null;
+
+    StepIterator(@NonNull Step step, @Nullable DataObject root, @Nullable Iterator<DataElement> upstream) {
+        this.step = step;
+        this.root = upstream == null ? root : null;
+        this.upstream = upstream;
+        counts = new int[step.predicates.length];
+        parentCounts = step.descendant && step.hasPosition() ? new IdentityHashMap<DataObject, int[]>() : null;
+        seen = step.distinct ? new IdentityHashMap<DataElement, Boolean>() : null;
+    }
+
+    @Override
+    public boolean hasNext() {
+        while (next == null) {
+            if (candidates.hasNext()) {
+                DataElement candidate = candidates.next();
+                if (accept(candidate)) {
+                    next = candidate;
+                }
+            } else if (!nextContext()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public DataElement next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        DataElement element = next;
+        next = null;
+        return element;
+    }
+
+    @Override
+    public void remove() {
+        throw new UnsupportedOperationException();
+    }
+
+    private boolean nextContext() {
+        DataObject context = null;
+        if (upstream == null) {
+            context = root;
+            root = null;
+        } else {
+            while (context == null && upstream.hasNext()) {
+                DataElement element = upstream.next();
+                if (element.isObject()) {
+                    context = (DataObject) element.value;
+                }
+            }
+        }
+        if (context == null) {
+            return false;
+        }
+        candidates = step.candidates(context);
+        Arrays.fill(counts, 0);
+        if (parentCounts != null) {
+            parentCounts.clear();
+            countsParent = null;
+        }
+        return true;
+    }
+
+    private boolean accept(DataElement candidate) {
+        if (seen != null && seen.put(candidate, Boolean.TRUE) != null) {
+            return false;
+        }
+        Predicate[] predicates = step.predicates;
+        if (parentCounts != null) {
+            useCounts(((ElementIterator) candidates).parent());
+        }
+        for (int i = 0; i < predicates.length; i++) {
+            Predicate predicate = predicates[i];
+            if (predicate.operand == Predicate.POSITION) {
+                int count = ++counts[i];
+                if (count != predicate.position) {
+                    if (count > predicate.position && parentCounts == null) {
+                        //nothing else in this context can get past this predicate
+                        candidates = Collections.emptyIterator();
+                    }
+                    return false;
+                }
+            } else if (!predicate.test(candidate)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Switches the position counts to those of the given object, positions are counted within each object as in XPath.
+     */
+    private void useCounts(@NonNull DataObject parent) {
+        if (parent != countsParent) {
+            int[] parentCount = parentCounts.get(parent);
+            if (parentCount == null) {
+                parentCount = new int[step.predicates.length];
+                parentCounts.put(parent, parentCount);
+            }
+            counts = parentCount;
+            countsParent = parent;
+        }
+    }
+}
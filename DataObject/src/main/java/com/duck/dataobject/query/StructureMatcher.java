@@ -0,0 +1,185 @@
+package com.duck.dataobject.query;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.duck.dataobject.DataObject;
+import com.duck.dataobject.node.DataElement;
+import com.duck.dataobject.node.XMLAttribute;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A structure for {@link DataObject#getList(DataObject, JsonObject)} compiled once and then evaluated against any number of
+ * {@link DataObject DataObjects}, giving the same results without walking the {@link JsonObject} again.
+ * <p>
+ * In a structure a primitive value picks the first element with that key and an object value picks the elements with
+ * that key and then looks within them. Within those elements only the keys of the inner structure are used, a primitive
+ * picking the first element with the key and an object picking all of them. Since an object value at the top level
+ * replaces whatever was picked before it, only the last one and the primitives after it are kept when compiling.
+ * <p>
+ * A {@link StructureMatcher} is immutable and can be shared between threads.
+ */
+public final class StructureMatcher {
+    private static final String XML_TAG = "xml";
+
+    //true if the structure names "xml" itself, the "xml" element is then not looked inside of.
+    private final boolean hasXml;
+    //the last top level object entry, or null if there is none.
+    @Nullable
+    private final String objectKey;
+    //the keys of the object entry's structure and whether each one was an object.
+    private final String[] innerKeys;
+    private final boolean[] innerObjects;
+    //the top level primitive entries after the object entry.
+    private final String[] keys;
+
+    private StructureMatcher(boolean hasXml, @Nullable String objectKey, String[] innerKeys, boolean[] innerObjects,
+                             String[] keys) {
+        this.hasXml = hasXml;
+        this.objectKey = objectKey;
+        this.innerKeys = innerKeys;
+        this.innerObjects = innerObjects;
+        this.keys = keys;
+    }
+
+    /**
+     * Compiles the given {@code structure}.
+     *
+     * @param structure The {@link JsonObject} defining the structure to search for.
+     * @return The compiled {@link StructureMatcher}.
+     */
+    @NonNull
+    public static StructureMatcher compile(@NonNull JsonObject structure) {
+        String objectKey = null;
+        JsonObject inner = null;
+        List<String> keys = new ArrayList<>();
+        for (Map.Entry<String, JsonElement> entry : structure.entrySet()) {
+            JsonElement value = entry.getValue();
+            if (value.isJsonPrimitive()) {
+                keys.add(entry.getKey());
+            } else if (value.isJsonObject()) {
+                objectKey = entry.getKey();
+                inner = value.getAsJsonObject();
+                keys.clear();
+            }
+        }
+        List<String> innerKeys = new ArrayList<>();
+        List<Boolean> innerObjects = new ArrayList<>();
+        if (inner != null) {
+            for (Map.Entry<String, JsonElement> entry : inner.entrySet()) {
+                JsonElement value = entry.getValue();
+                if (value.isJsonPrimitive() || value.isJsonObject()) {
+                    innerKeys.add(entry.getKey());
+                    innerObjects.add(value.isJsonObject());
+                }
+            }
+        }
+        boolean[] innerObjectArray = new boolean[innerObjects.size()];
+        for (int i = 0; i < innerObjectArray.length; i++) {
+            innerObjectArray[i] = innerObjects.get(i);
+        }
+        return new StructureMatcher(structure.has(XML_TAG),
+                                    objectKey,
+                                    innerKeys.toArray(new String[0]),
+                                    innerObjectArray,
+                                    keys.toArray(new String[0]));
+    }
+
+    /**
+     * Searches the given {@link DataObject data} for this structure.
+     *
+     * @param data The {@link DataObject} to search within.
+     * @return A new list of all the matching elements found at the end of the structure.
+     */
+    @NonNull
+    public List<DataElement> getList(@Nullable DataObject data) {
+        List<DataElement> elements = new ArrayList<>();
+        collect(data, elements);
+        return elements;
+    }
+
+    /**
+     * Searches the given {@link DataObject data} for this structure, adding the matching elements to {@code out}.
+     *
+     * @param data The {@link DataObject} to search within.
+     * @param out  The list to add the matching elements to.
+     */
+    public void collect(@Nullable DataObject data, @NonNull List<DataElement> out) {
+        if (data == null) {
+            return;
+        }
+        if (!hasXml) {
+            List<DataElement> xml;
+            while ((xml = list(data, XML_TAG)) != null) {
+                if (!xml.get(0).isObject()) {
+                    return;
+                }
+                data = (DataObject) xml.get(0).value;
+            }
+        }
+        if (objectKey != null) {
+            List<DataElement> outer = find(data, objectKey);
+            if (outer != null) {
+                for (int k = 0; k < innerKeys.length; k++) {
+                    String key = innerKeys[k];
+                    for (int i = 0; i < outer.size(); i++) {
+                        DataElement element = outer.get(i);
+                        if (element.isObject()) {
+                            DataObject object = (DataObject) element.value;
+                            if (innerObjects[k]) {
+                                List<DataElement> found = find(object, key);
+                                if (found != null) {
+                                    out.addAll(found);
+                                }
+                            } else {
+                                List<DataElement> found = list(object, key);
+                                if (found != null) {
+                                    out.add(found.get(0));
+                                }
+                            }
+                        }
+                    }
+                }
+            }
+        }
+        for (String key : keys) {
+            List<DataElement> found = list(data, key);
+            if (found != null) {
+                out.add(found.get(0));
+            }
+        }
+    }
+
+    /**
+     * @return The elements with the given {@code tag} in {@code data}, or {@code null} if there are none.
+     */
+    @Nullable
+    private static List<DataElement> list(@NonNull DataObject data, @NonNull String tag) {
+        List<DataElement> list = data.getList(tag, (XMLAttribute[]) null);
+        return list != null && !list.isEmpty() ? list : null;
+    }
+
+    /**
+     * @return The elements with the given {@code tag} in {@code data}, or in its {@code "xml"} element if {@code data} has
+     *         none, the same as {@link DataObject#getList(DataObject, String...)} with one tag.
+     */
+    @Nullable
+    private static List<DataElement> find(@NonNull DataObject data, @NonNull String tag) {
+        while (true) {
+            List<DataElement> list = list(data, tag);
+            if (list != null) {
+                return list;
+            }
+            List<DataElement> xml = list(data, XML_TAG);
+            if (xml == null || !xml.get(0).isObject()) {
+                return null;
+            }
+            data = (DataObject) xml.get(0).value;
+        }
+    }
+}
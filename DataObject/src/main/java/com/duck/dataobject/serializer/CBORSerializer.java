@@ -0,0 +1,126 @@
+package com.duck.dataobject.serializer;
+
+import androidx.annotation.NonNull;
+
+import com.duck.dataobject.DataObject;
+import com.duck.dataobject.node.DataElement;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static com.duck.dataobject.DataObject.ANONYMOUS_ARRAY_TAG;
+
+/**
+ * Writes {@link DataObject DataObjects} as CBOR, keeping the whole model so that {@link
+ * com.duck.dataobject.parser.CBORParser CBORParser} gives back the same {@link DataObject}.
+ * <p>
+ * A {@link DataObject} is written as a map from each tag to an array of its elements. An element is written as just its
+ * value: a text string, an integer, a single or double precision float, null, a map for a {@link DataObject} or an
+ * array of elements for a list. An element with attributes, the CDATA flag or a tag other than the key it is listed
+ * under is written as an array of its tag, CDATA flag, attributes and value tagged with {@link #ELEMENT_TAG}. The
+ * elements of an anonymous array are listed under {@link DataObject#ANONYMOUS_ARRAY_TAG} with their index as tag.
+ */
+public class CBORSerializer {
+    /**
+     * The CBOR tag of an element written with its tag, CDATA flag and attributes.
+     */
+    public static final long ELEMENT_TAG = 0xDE01L;
+
+    /**
+     * Writes the given {@link DataObject} as CBOR to the given {@link OutputStream}.
+     *
+     * @param object The {@link DataObject} to write.
+     * @param out    The {@link OutputStream} to write to.
+     * @throws IOException if writing to {@code out} fails.
+     */
+    public static void write(@NonNull DataObject object, @NonNull OutputStream out) throws IOException {
+        CBORWriter writer = new CBORWriter(out);
+        write(object, writer);
+        writer.flush();
+    }
+
+    /**
+     * Writes the given {@link DataObject} as a CBOR map to the given {@link CBORWriter}.
+     *
+     * @param object The {@link DataObject} to write.
+     * @param writer The {@link CBORWriter} to write to.
+     * @throws IOException if the writer fails to write.
+     */
+    public static void write(@NonNull DataObject object, @NonNull CBORWriter writer) throws IOException {
+        Set<Map.Entry<String, List<DataElement>>> entries = object.getElementEntries();
+        writer.writeMapHeader(entries.size());
+        for (Map.Entry<String, List<DataElement>> entry : entries) {
+            String tag = entry.getKey();
+            List<DataElement> elements = entry.getValue();
+            boolean anonymous = ANONYMOUS_ARRAY_TAG.equals(tag);
+            writer.writeString(tag);
+            writer.writeArrayHeader(elements.size());
+            for (int i = 0; i < elements.size(); i++) {
+                write(elements.get(i), anonymous ? String.valueOf(i) : tag, writer);
+            }
+        }
+    }
+
+    /**
+     * Writes the given {@link DataElement} to the given {@link CBORWriter}.
+     *
+     * @param element    The {@link DataElement} to write.
+     * @param defaultTag The tag the element is expected to have, elements with another tag are written with their tag.
+     * @param writer     The {@link CBORWriter} to write to.
+     * @throws IOException if the writer fails to write.
+     */
+    public static void write(@NonNull DataElement element, @NonNull String defaultTag, @NonNull CBORWriter writer)
+            throws IOException {
+        if (element.CDATA || element.hasAttributes() || !defaultTag.equals(element.tag)) {
+            writer.writeTag(ELEMENT_TAG).writeArrayHeader(4);
+            if (defaultTag.equals(element.tag)) {
+                writer.writeNull();
+            } else {
+                writer.writeString(element.tag);
+            }
+            writer.writeBoolean(element.CDATA);
+            if (element.hasAttributes()) {
+                writer.writeArrayHeader(element.getAttributeCount() * 2);
+                for (int i = 0; i < element.getAttributeCount(); i++) {
+                    writer.writeString(element.getAttributeTag(i)).writeString(element.getAttributeValue(i));
+                }
+            } else {
+                writer.writeNull();
+            }
+        }
+        writeValue(element, writer);
+    }
+
+    private static void writeValue(@NonNull DataElement element, @NonNull CBORWriter writer) throws IOException {
+        Object value = element.value;
+        if (value == null) {
+            writer.writeNull();
+        } else if (element.isObject()) {
+            write((DataObject) value, writer);
+        } else if (element.isArray()) {
+            List list = (List) value;
+            writer.writeArrayHeader(list.size());
+            for (int i = 0; i < list.size(); i++) {
+                Object item = list.get(i);
+                if (item instanceof DataElement) {
+                    write((DataElement) item, "", writer);
+                } else if (item instanceof DataObject) {
+                    write((DataObject) item, writer);
+                } else {
+                    writer.writeString(String.valueOf(item));
+                }
+            }
+        } else if (value instanceof Integer) {
+            writer.writeInt((Integer) value);
+        } else if (value instanceof Float) {
+            writer.writeFloat((Float) value);
+        } else if (value instanceof Double) {
+            writer.writeDouble((Double) value);
+        } else {
+            writer.writeString(String.valueOf(value));
+        }
+    }
+}
@@ -0,0 +1,241 @@
+package com.duck.dataobject.serializer;
+
+import androidx.annotation.NonNull;
+
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Streaming writer for CBOR (RFC 7049) data items. Items are encoded into a buffer that is written to the {@link
+ * OutputStream} as it fills up, call {@link #flush()} once done writing to push the rest through.
+ * <p>
+ * Arrays and maps are written with a header holding their size followed by their items, or with {@link
+ * #writeStartArray()} and {@link #writeStartMap()} followed by their items and {@link #writeEnd()} when the size isn't
+ * known up front. Strings are encoded as UTF-8, unpaired surrogates are written as {@code '?'}.
+ */
+public class CBORWriter implements Flushable {
+    static final int UNSIGNED_INTEGER = 0;
+    static final int NEGATIVE_INTEGER = 1;
+    static final int BYTE_STRING = 2;
+    static final int TEXT_STRING = 3;
+    static final int ARRAY = 4;
+    static final int MAP = 5;
+    static final int TAG = 6;
+    static final int SIMPLE = 7;
+
+    private final OutputStream out;
+    private final byte[] buffer = new byte[DataSink.BUFFER_SIZE * 2];
+    private int position = 0;
+
+    /**
+     * Creates a writer that writes to the given {@link OutputStream}.
+     */
+    public CBORWriter(@NonNull OutputStream out) {
+        this.out = out;
+    }
+
+    /**
+     * Writes the header of an array of {@code size} items.
+     */
+    public CBORWriter writeArrayHeader(int size) throws IOException {
+        writeHead(ARRAY, size);
+        return this;
+    }
+
+    /**
+     * Writes the header of a map of {@code size} key and value pairs.
+     */
+    public CBORWriter writeMapHeader(int size) throws IOException {
+        writeHead(MAP, size);
+        return this;
+    }
+
+    /**
+     * Starts an array of unknown size, end it with {@link #writeEnd()}.
+     */
+    public CBORWriter writeStartArray() throws IOException {
+        writeByte((ARRAY << 5) | 31);
+        return this;
+    }
+
+    /**
+     * Starts a map of unknown size, end it with {@link #writeEnd()}.
+     */
+    public CBORWriter writeStartMap() throws IOException {
+        writeByte((MAP << 5) | 31);
+        return this;
+    }
+
+    /**
+     * Ends the array or map started with {@link #writeStartArray()} or {@link #writeStartMap()}.
+     */
+    public CBORWriter writeEnd() throws IOException {
+        writeByte(0xFF);
+        return this;
+    }
+
+    /**
+     * Writes a tag for the item written after it.
+     */
+    public CBORWriter writeTag(long tag) throws IOException {
+        writeHead(TAG, tag);
+        return this;
+    }
+
+    public CBORWriter writeInt(long value) throws IOException {
+        if (value < 0) {
+            writeHead(NEGATIVE_INTEGER, ~value);
+        } else {
+            writeHead(UNSIGNED_INTEGER, value);
+        }
+        return this;
+    }
+
+    public CBORWriter writeFloat(float value) throws IOException {
+        require(5);
+        buffer[position++] = (byte) ((SIMPLE << 5) | 26);
+        writeBytes(Float.floatToIntBits(value), 4);
+        return this;
+    }
+
+    public CBORWriter writeDouble(double value) throws IOException {
+        require(9);
+        buffer[position++] = (byte) ((SIMPLE << 5) | 27);
+        writeBytes(Double.doubleToLongBits(value), 8);
+        return this;
+    }
+
+    public CBORWriter writeBoolean(boolean value) throws IOException {
+        writeByte((SIMPLE << 5) | (value ? 21 : 20));
+        return this;
+    }
+
+    public CBORWriter writeNull() throws IOException {
+        writeByte((SIMPLE << 5) | 22);
+        return this;
+    }
+
+    public CBORWriter writeBytes(@NonNull byte[] bytes) throws IOException {
+        writeHead(BYTE_STRING, bytes.length);
+        int written = 0;
+        while (written < bytes.length) {
+            if (position == buffer.length) {
+                drain();
+            }
+            int count = Math.min(buffer.length - position, bytes.length - written);
+            System.arraycopy(bytes, written, buffer, position, count);
+            position += count;
+            written += count;
+        }
+        return this;
+    }
+
+    public CBORWriter writeString(@NonNull String string) throws IOException {
+        int length = string.length();
+        writeHead(TEXT_STRING, utf8Length(string));
+        for (int i = 0; i < length; i++) {
+            char c = string.charAt(i);
+            if (buffer.length - position < 4) {
+                drain();
+            }
+            if (c < 0x80) {
+                buffer[position++] = (byte) c;
+            } else if (c < 0x800) {
+                buffer[position++] = (byte) (0xC0 | (c >> 6));
+                buffer[position++] = (byte) (0x80 | (c & 0x3F));
+            } else if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(string.charAt(i + 1))) {
+                int codePoint = Character.toCodePoint(c, string.charAt(++i));
+                buffer[position++] = (byte) (0xF0 | (codePoint >> 18));
+                buffer[position++] = (byte) (0x80 | ((codePoint >> 12) & 0x3F));
+                buffer[position++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+                buffer[position++] = (byte) (0x80 | (codePoint & 0x3F));
+            } else if (Character.isSurrogate(c)) {
+                buffer[position++] = '?';
+            } else {
+                buffer[position++] = (byte) (0xE0 | (c >> 12));
+                buffer[position++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                buffer[position++] = (byte) (0x80 | (c & 0x3F));
+            }
+        }
+        return this;
+    }
+
+    /**
+     * Writes the buffered bytes to the {@link OutputStream}. This does not flush the stream itself.
+     */
+    @Override
+    public void flush() throws IOException {
+        drain();
+    }
+
+    private static int utf8Length(@NonNull String string) {
+        int length = string.length();
+        int bytes = length;
+        for (int i = 0; i < length; i++) {
+            char c = string.charAt(i);
+            if (c >= 0x80) {
+                if (c < 0x800) {
+                    bytes += 1;
+                } else if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(string.charAt(i + 1))) {
+                    //the pair is 4 bytes for 2 chars
+                    bytes += 2;
+                    i++;
+                } else if (!Character.isSurrogate(c)) {
+                    bytes += 2;
+                }
+            }
+        }
+        return bytes;
+    }
+
+    /**
+     * Writes the head of an item with the given {@code major} type and {@code argument}, using the fewest bytes.
+     */
+    private void writeHead(int major, long argument) throws IOException {
+        require(9);
+        int type = major << 5;
+        if (argument < 24) {
+            buffer[position++] = (byte) (type | argument);
+        } else if (argument < 0x100) {
+            buffer[position++] = (byte) (type | 24);
+            writeBytes(argument, 1);
+        } else if (argument < 0x10000) {
+            buffer[position++] = (byte) (type | 25);
+            writeBytes(argument, 2);
+        } else if (argument < 0x100000000L) {
+            buffer[position++] = (byte) (type | 26);
+            writeBytes(argument, 4);
+        } else {
+            buffer[position++] = (byte) (type | 27);
+            writeBytes(argument, 8);
+        }
+    }
+
+    private void writeByte(int b) throws IOException {
+        require(1);
+        buffer[position++] = (byte) b;
+    }
+
+    /**
+     * Writes the last {@code count} bytes of {@code value}, big endian.
+     */
+    private void writeBytes(long value, int count) {
+        for (int shift = (count - 1) * 8; shift >= 0; shift -= 8) {
+            buffer[position++] = (byte) (value >>> shift);
+        }
+    }
+
+    private void require(int count) throws IOException {
+        if (buffer.length - position < count) {
+            drain();
+        }
+    }
+
+    private void drain() throws IOException {
+        if (position > 0) {
+            out.write(buffer, 0, position);
+            position = 0;
+        }
+    }
+}
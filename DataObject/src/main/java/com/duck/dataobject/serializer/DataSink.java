@@ -0,0 +1,240 @@
+package com.duck.dataobject.serializer;
+
+import androidx.annotation.NonNull;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectableChannel;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * Destination for the output of the {@link JSONSerializer} and {@link XMLSerializer}. A sink remembers the last character
+ * written to it, which the formatted JSON output depends on.
+ * <p>
+ * Sinks are created with the {@code of} functions: a {@link StringBuilder} is written to directly, a {@link Writer} is
+ * written to through a small buffer and any other {@link Appendable} is written to directly. Call {@link #flush()} once
+ * done writing to push any buffered output through to the destination.
+ * <p>
+ * The {@code utf8} functions create sinks that encode straight to UTF-8 bytes, giving the same bytes as {@code
+ * toJSON().getBytes("UTF-8")} without building the {@link String} first.
+ */
+public abstract class DataSink implements Appendable {
+    static final int BUFFER_SIZE = 2048;
+
+    /**
+     * Creates a sink that appends to the given {@link StringBuilder}.
+     */
+    @NonNull
+    public static DataSink of(@NonNull StringBuilder stringBuilder) {
+        return new StringBuilderSink(stringBuilder);
+    }
+
+    /**
+     * Creates a buffered sink that writes to the given {@link Writer}.
+     */
+    @NonNull
+    public static DataSink of(@NonNull Writer writer) {
+        return new WriterSink(writer);
+    }
+
+    /**
+     * Creates a sink that writes to the given {@link Appendable}, picking the best kind of sink for it.
+     */
+    @NonNull
+    public static DataSink of(@NonNull Appendable appendable) {
+        if (appendable instanceof DataSink) {
+            return (DataSink) appendable;
+        } else if (appendable instanceof StringBuilder) {
+            return of((StringBuilder) appendable);
+        } else if (appendable instanceof Writer) {
+            return of((Writer) appendable);
+        }
+        return new AppendableSink(appendable);
+    }
+
+    /**
+     * Creates a buffered sink that writes UTF-8 bytes to the given {@link OutputStream}.
+     */
+    @NonNull
+    public static DataSink utf8(@NonNull OutputStream out) {
+        return new Utf8Sink.StreamSink(out);
+    }
+
+    /**
+     * Creates a buffered sink that writes UTF-8 bytes to the given {@link WritableByteChannel}, such as a {@link
+     * java.nio.channels.FileChannel FileChannel} or a {@link java.nio.channels.SocketChannel SocketChannel}. The channel
+     * must be in blocking mode, a write that writes nothing throws an {@link IOException}.
+     *
+     * @throws IllegalArgumentException if the channel is a {@link SelectableChannel} in non-blocking mode.
+     */
+    @NonNull
+    public static DataSink utf8(@NonNull WritableByteChannel channel) {
+        if (channel instanceof SelectableChannel && !((SelectableChannel) channel).isBlocking()) {
+            throw new IllegalArgumentException("The channel must be in blocking mode");
+        }
+        return new Utf8Sink.ChannelSink(channel);
+    }
+
+    /**
+     * Creates a sink that writes UTF-8 bytes into the given {@link ByteBuffer} starting at its position, the position is
+     * moved past the written bytes on {@link #flush()}. A heap buffer is written to directly.
+     * <p>
+     * If the buffer runs out of room a {@link BufferOverflowException} is thrown.
+     */
+    @NonNull
+    public static DataSink utf8(@NonNull ByteBuffer buffer) {
+        if (buffer.hasArray()) {
+            return new Utf8Sink.ArrayBufferSink(buffer);
+        }
+        return new Utf8Sink.ByteBufferSink(buffer);
+    }
+
+    @Override
+    public abstract DataSink append(char c) throws IOException;
+
+    @Override
+    public DataSink append(CharSequence csq) throws IOException {
+        String string = String.valueOf(csq);
+        return append(string, 0, string.length());
+    }
+
+    @Override
+    public DataSink append(CharSequence csq, int start, int end) throws IOException {
+        return append(String.valueOf(csq), start, end);
+    }
+
+    /**
+     * Appends the characters of the given {@link String} from {@code start} up to but not including {@code end}.
+     */
+    public abstract DataSink append(@NonNull String string, int start, int end) throws IOException;
+
+    /**
+     * @return The last character written to this sink, or -1 if nothing has been written to it yet.
+     */
+    public abstract int lastChar();
+
+    /**
+     * Writes any buffered output to the destination of this sink. This does not flush the destination itself.
+     */
+    public void flush() throws IOException {
+    }
+
+    private static final class StringBuilderSink extends DataSink {
+        private final StringBuilder stringBuilder;
+
+        StringBuilderSink(StringBuilder stringBuilder) {
+            this.stringBuilder = stringBuilder;
+        }
+
+        @Override
+        public DataSink append(char c) {
+            stringBuilder.append(c);
+            return this;
+        }
+
+        @Override
+        public DataSink append(CharSequence csq) {
+            stringBuilder.append(csq);
+            return this;
+        }
+
+        @Override
+        public DataSink append(@NonNull String string, int start, int end) {
+            stringBuilder.append(string, start, end);
+            return this;
+        }
+
+        @Override
+        public int lastChar() {
+            int length = stringBuilder.length();
+            return length > 0 ? stringBuilder.charAt(length - 1) : -1;
+        }
+    }
+
+    private static final class WriterSink extends DataSink {
+        private final Writer writer;
+        private final char[] buffer = new char[BUFFER_SIZE];
+        private int count = 0;
+        private int last = -1;
+
+        WriterSink(Writer writer) {
+            this.writer = writer;
+        }
+
+        @Override
+        public DataSink append(char c) throws IOException {
+            if (count == buffer.length) {
+                flush();
+            }
+            buffer[count++] = c;
+            last = c;
+            return this;
+        }
+
+        @Override
+        public DataSink append(@NonNull String string, int start, int end) throws IOException {
+            if (start >= end) {
+                return this;
+            }
+            int length = end - start;
+            if (length > buffer.length - count) {
+                flush();
+                if (length > buffer.length) {
+                    writer.write(string, start, length);
+                    last = string.charAt(end - 1);
+                    return this;
+                }
+            }
+            string.getChars(start, end, buffer, count);
+            count += length;
+            last = string.charAt(end - 1);
+            return this;
+        }
+
+        @Override
+        public int lastChar() {
+            return last;
+        }
+
+        @Override
+        public void flush() throws IOException {
+            if (count > 0) {
+                writer.write(buffer, 0, count);
+                count = 0;
+            }
+        }
+    }
+
+    private static final class AppendableSink extends DataSink {
+        private final Appendable appendable;
+        private int last = -1;
+
+        AppendableSink(Appendable appendable) {
+            this.appendable = appendable;
+        }
+
+        @Override
+        public DataSink append(char c) throws IOException {
+            appendable.append(c);
+            last = c;
+            return this;
+        }
+
+        @Override
+        public DataSink append(@NonNull String string, int start, int end) throws IOException {
+            if (start < end) {
+                appendable.append(string, start, end);
+                last = string.charAt(end - 1);
+            }
+            return this;
+        }
+
+        @Override
+        public int lastChar() {
+            return last;
+        }
+    }
+}
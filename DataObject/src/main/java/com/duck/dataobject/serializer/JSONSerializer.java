@@ -0,0 +1,594 @@
+package com.duck.dataobject.serializer;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.duck.dataobject.DataObject;
+import com.duck.dataobject.node.DataElement;
+import com.duck.dataobject.node.XMLAttribute;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static com.duck.dataobject.DataObject.ANONYMOUS_ARRAY_TAG;
+import static com.duck.dataobject.DataObject.NEW_LINE;
+import static com.duck.dataobject.DataObject.TAB;
+
+/**
+ * Writes {@link DataObject DataObjects} and {@link DataElement DataElements} as JSON to a {@link DataSink}, this is the
+ * output of {@link DataObject#toJSON(String...)} and {@link DataObject#toFormattedJSON(String...)}.
+ */
+public class JSONSerializer {
+    //the escape of each ASCII character, or null if the character is written as it is. These are the same escapes as
+    //JSONObject.quote uses.
+    private static final String[] ESCAPES = new String[128];
+
+    static {
+        for (int c = 0; c < 0x20; c++) {
+            ESCAPES[c] = (c < 0x10 ? "\\u000" : "\\u00") + Integer.toHexString(c);
+        }
+        ESCAPES['"'] = "\\\"";
+        ESCAPES['\\'] = "\\\\";
+        ESCAPES['/'] = "\\/";
+        ESCAPES['\t'] = "\\t";
+        ESCAPES['\b'] = "\\b";
+        ESCAPES['\n'] = "\\n";
+        ESCAPES['\r'] = "\\r";
+        ESCAPES['\f'] = "\\f";
+    }
+
+    /**
+     * Writes the given {@link DataObject} as JSON to the given {@link StringBuilder}.
+     *
+     * @param object    The {@link DataObject} to write.
+     * @param out       The {@link StringBuilder} to write to.
+     * @param arrayTags (Optional) Set of tags to ensure are output as JSON Array even if there is only a single element.
+     */
+    public static void write(@NonNull DataObject object, @NonNull StringBuilder out, String... arrayTags) {
+        try {
+            write(object, DataSink.of(out), arrayTags);
+        } catch (IOException e) {
+            throw new IllegalStateException("Writing to a StringBuilder failed", e);
+        }
+    }
+
+    /**
+     * Writes the given {@link DataObject} as JSON to the given {@link StringBuilder}.
+     *
+     * @param object  The {@link DataObject} to write.
+     * @param out     The {@link StringBuilder} to write to.
+     * @param options The {@link JsonWriteOptions} to write with.
+     */
+    public static void write(
+            @NonNull DataObject object, @NonNull StringBuilder out, @NonNull JsonWriteOptions options) {
+        try {
+            write(object, DataSink.of(out), options);
+        } catch (IOException e) {
+            throw new IllegalStateException("Writing to a StringBuilder failed", e);
+        }
+    }
+
+    /**
+     * Writes the given {@link DataElement} as JSON to the given {@link StringBuilder}.
+     *
+     * @param element   The {@link DataElement} to write.
+     * @param out       The {@link StringBuilder} to write to.
+     * @param arrayTags (Optional) Set of tags to ensure are output as JSON Array even if there is only a single element.
+     */
+    public static void write(@NonNull DataElement element, @NonNull StringBuilder out, String... arrayTags) {
+        try {
+            write(element, DataSink.of(out), arrayTags);
+        } catch (IOException e) {
+            throw new IllegalStateException("Writing to a StringBuilder failed", e);
+        }
+    }
+
+    /**
+     * Writes the given {@link DataObject} as formatted JSON to the given {@link StringBuilder}.
+     *
+     * @param object      The {@link DataObject} to write.
+     * @param indentCount The starting indentation level.
+     * @param out         The {@link StringBuilder} to write to.
+     * @param arrayTags   (Optional) Set of tags to ensure are output as JSON Array even if there is only a single
+     *                    element.
+     */
+    public static void writeFormatted(
+            @NonNull DataObject object, int indentCount, @NonNull StringBuilder out, String... arrayTags) {
+        try {
+            writeFormatted(object, indentCount, DataSink.of(out), arrayTags);
+        } catch (IOException e) {
+            throw new IllegalStateException("Writing to a StringBuilder failed", e);
+        }
+    }
+
+    /**
+     * Writes the given {@link DataObject} as formatted JSON to the given {@link StringBuilder}.
+     *
+     * @param object      The {@link DataObject} to write.
+     * @param indentCount The starting indentation level.
+     * @param out         The {@link StringBuilder} to write to.
+     * @param options     The {@link JsonWriteOptions} to write with.
+     */
+    public static void writeFormatted(@NonNull DataObject object, int indentCount, @NonNull StringBuilder out,
+                                      @NonNull JsonWriteOptions options) {
+        try {
+            writeFormatted(object, indentCount, DataSink.of(out), options);
+        } catch (IOException e) {
+            throw new IllegalStateException("Writing to a StringBuilder failed", e);
+        }
+    }
+
+    /**
+     * Writes the given {@link DataElement} as formatted JSON to the given {@link StringBuilder}.
+     *
+     * @param element     The {@link DataElement} to write.
+     * @param indentCount The starting indentation level.
+     * @param out         The {@link StringBuilder} to write to.
+     * @param arrayTags   (Optional) Set of tags to ensure are output as JSON Array even if there is only a single
+     *                    element.
+     */
+    public static void writeFormatted(
+            @NonNull DataElement element, int indentCount, @NonNull StringBuilder out, String... arrayTags) {
+        try {
+            writeFormatted(element, indentCount, DataSink.of(out), arrayTags);
+        } catch (IOException e) {
+            throw new IllegalStateException("Writing to a StringBuilder failed", e);
+        }
+    }
+
+    /**
+     * Writes the given {@link DataObject} as JSON to the given {@link DataSink}, using its {@link OutputCache} if it
+     * has one.
+     *
+     * @param object    The {@link DataObject} to write.
+     * @param sink      The {@link DataSink} to write to.
+     * @param arrayTags (Optional) Set of tags to ensure are output as JSON Array even if there is only a single element.
+     * @throws IOException if the sink fails to write.
+     */
+    public static void write(@NonNull DataObject object, @NonNull DataSink sink, String... arrayTags) throws IOException {
+        write(object, sink, JsonWriteOptions.of(arrayTags));
+    }
+
+    /**
+     * Writes the given {@link DataObject} as JSON to the given {@link DataSink}, using its {@link OutputCache} if it
+     * has one.
+     *
+     * @param object    The {@link DataObject} to write.
+     * @param sink      The {@link DataSink} to write to.
+     * @param options   The {@link JsonWriteOptions} to write with.
+     * @throws IOException if the sink fails to write.
+     */
+    public static void write(@NonNull DataObject object, @NonNull DataSink sink, @NonNull JsonWriteOptions options)
+            throws IOException {
+        OutputCache cache = object.getOutputCache();
+        if (cache == null) {
+            writeObject(object, sink, options);
+            return;
+        }
+        String json = cache.getJSON(options);
+        if (json == null) {
+            cache.linkChildren(object);
+            StringBuilder fragment = new StringBuilder();
+            writeObject(object, DataSink.of(fragment), options);
+            json = fragment.toString();
+            cache.putJSON(options, json);
+        }
+        sink.append(json, 0, json.length());
+    }
+
+    private static void writeObject(
+            @NonNull DataObject object, @NonNull DataSink sink, @NonNull JsonWriteOptions options) throws IOException {
+        if (!hasElements(object)) {
+            return;
+        }
+        //either we have an anonymous array or we have an object, it is illegal to have both
+        List<DataElement> anonymous = object.getList(ANONYMOUS_ARRAY_TAG, (XMLAttribute[]) null);
+        if (anonymous != null) {
+            //this object is a JSONArray.
+            sink.append('[');
+            writeItems(anonymous, sink, options);
+            sink.append(']');
+        } else {
+            sink.append('{');
+            boolean first = true;
+            for (Map.Entry<String, List<DataElement>> entry : object.getElementEntries()) {
+                if (!first) {
+                    sink.append(',');
+                }
+                first = false;
+                String tag = entry.getKey();
+                List<DataElement> elements = entry.getValue();
+                sink.append('"').append(tag).append("\":");
+                if (elements.size() == 1 && !options.isArrayTag(tag)) {
+                    //just one element for this tag
+                    write(elements.get(0), sink, options);
+                } else {
+                    //we have an array for this tag, or one element for an array tag that is output as a JSON_array
+                    sink.append('[');
+                    writeItems(elements, sink, options);
+                    sink.append(']');
+                }
+            }
+            sink.append('}');
+        }
+    }
+
+    /**
+     * Writes the given elements separated by commas. Objects with the same keys as the object before them are written
+     * with the {@link Shape} of that object, so their keys are copied from ready made fragments.
+     */
+    static void writeItems(
+            @NonNull List<DataElement> elements, @NonNull DataSink sink, @NonNull JsonWriteOptions options)
+            throws IOException {
+        Shape shape = null;
+        for (int j = 0; j < elements.size(); j++) {
+            if (j > 0) {
+                sink.append(',');
+            }
+            DataElement element = elements.get(j);
+            if (element.isObject() && ((DataObject) element.value).getOutputCache() == null) {
+                DataObject object = (DataObject) element.value;
+                if (shape != null && shape.matches(object)) {
+                    shape.write(object, sink, options);
+                } else {
+                    shape = Shape.of(object);
+                    writeObject(object, sink, options);
+                }
+            } else {
+                write(element, sink, options);
+            }
+        }
+    }
+
+    /**
+     * Writes the given {@link DataElement DataElement's} value as JSON to the given {@link DataSink}.
+     *
+     * @param element   The {@link DataElement} to write.
+     * @param sink      The {@link DataSink} to write to.
+     * @param arrayTags (Optional) Set of tags to ensure are output as JSON Array even if there is only a single element.
+     * @throws IOException if the sink fails to write.
+     */
+    public static void write(@NonNull DataElement element, @NonNull DataSink sink, String... arrayTags) throws IOException {
+        write(element, sink, JsonWriteOptions.of(arrayTags));
+    }
+
+    /**
+     * Writes the given {@link DataElement DataElement's} value as JSON to the given {@link DataSink}.
+     *
+     * @param element   The {@link DataElement} to write.
+     * @param sink      The {@link DataSink} to write to.
+     * @param options   The {@link JsonWriteOptions} to write with.
+     * @throws IOException if the sink fails to write.
+     */
+    public static void write(@NonNull DataElement element, @NonNull DataSink sink, @NonNull JsonWriteOptions options)
+            throws IOException {
+        if (element.isObject()) {
+            // the 'value' is an object.
+            write((DataObject) element.value, sink, options);
+        } else if (element.isArray()) {
+            List arrayList = (List) element.value;
+            if (arrayList.size() > 0) {
+                sink.append('[');
+                for (int i = 0; i < arrayList.size(); i++) {
+                    Object item = arrayList.get(i);
+                    if (item instanceof DataElement) {
+                        write((DataElement) item, sink, options);
+                    } else if (item instanceof DataObject) {
+                        write((DataObject) item, sink, options);
+                    } else {
+                        writeItem(item, sink);
+                    }
+                    if (i < arrayList.size() - 1) {
+                        sink.append(',');
+                    }
+                }
+                sink.append(']');
+            }
+        } else {
+            writeValue(element, sink);
+        }
+    }
+
+    /**
+     * Writes the given {@link DataObject} as formatted JSON to the given {@link DataSink}.
+     *
+     * @param object      The {@link DataObject} to write.
+     * @param indentCount The starting indentation level.
+     * @param sink        The {@link DataSink} to write to.
+     * @param arrayTags   (Optional) Set of tags to ensure are output as JSON Array even if there is only a single
+     *                    element.
+     * @throws IOException if the sink fails to write.
+     */
+    public static void writeFormatted(
+            @NonNull DataObject object, int indentCount, @NonNull DataSink sink, String... arrayTags) throws IOException {
+        writeFormatted(object, indentCount, sink, JsonWriteOptions.of(arrayTags));
+    }
+
+    /**
+     * Writes the given {@link DataObject} as formatted JSON to the given {@link DataSink}.
+     *
+     * @param object      The {@link DataObject} to write.
+     * @param indentCount The starting indentation level.
+     * @param sink        The {@link DataSink} to write to.
+     * @param options     The {@link JsonWriteOptions} to write with.
+     * @throws IOException if the sink fails to write.
+     */
+    public static void writeFormatted(@NonNull DataObject object, int indentCount, @NonNull DataSink sink,
+                                      @NonNull JsonWriteOptions options) throws IOException {
+        if (!hasElements(object)) {
+            return;
+        }
+        //either we have an anonymous array or we have an object, it is illegal to have both
+        List<DataElement> anonymous = object.getList(ANONYMOUS_ARRAY_TAG, (XMLAttribute[]) null);
+        if (anonymous != null) {
+            //this object is a JSONArray.
+            indent(sink, indentCount).append('[').append(NEW_LINE);
+            for (int j = 0; j < anonymous.size(); j++) {
+                writeFormatted(anonymous.get(j), indentCount + 1, sink, options);
+                if (j < anonymous.size() - 1) {
+                    sink.append(',');
+                }
+                sink.append(NEW_LINE);
+            }
+            indent(sink, indentCount).append(']');
+        } else {
+            if (sink.lastChar() == '\n') {
+                indent(sink, indentCount);
+            }
+            sink.append('{').append(NEW_LINE);
+            boolean first = true;
+            for (Map.Entry<String, List<DataElement>> entry : object.getElementEntries()) {
+                if (!first) {
+                    sink.append(',').append(NEW_LINE);
+                }
+                first = false;
+                String tag = entry.getKey();
+                List<DataElement> elements = entry.getValue();
+                indent(sink, indentCount + 1).append('"').append(tag);
+                if (elements.size() == 1) {
+                    //just one element for this tag
+                    sink.append("\" : ");
+                    // if this tag is one of the array tags then we know we need to output it as if it is a JSON_array even though it is only one element.
+                    if (options.isArrayTag(tag)) {
+                        sink.append('[').append(NEW_LINE);
+                        writeFormatted(elements.get(0), indentCount + 1, sink, options);
+                        sink.append(NEW_LINE);
+                        indent(sink, indentCount + 1).append(']');
+                    } else {
+                        writeFormatted(elements.get(0), indentCount, sink, options);
+                    }
+                } else {
+                    //we have an array for this tag
+                    sink.append("\" : [").append(NEW_LINE);
+                    for (int j = 0; j < elements.size(); j++) {
+                        writeFormatted(elements.get(j), indentCount + 1, sink, options);
+                        if (j < elements.size() - 1) {
+                            sink.append(',');
+                        }
+                        sink.append(NEW_LINE);
+                    }
+                    indent(sink, indentCount + 1).append(']');
+                }
+            }
+            if (!first) {
+                sink.append(NEW_LINE);
+            }
+            indent(sink, indentCount).append('}');
+        }
+    }
+
+    /**
+     * Writes the given {@link DataElement DataElement's} value as formatted JSON to the given {@link DataSink}.
+     *
+     * @param element     The {@link DataElement} to write.
+     * @param indentCount The starting indentation level.
+     * @param sink        The {@link DataSink} to write to.
+     * @param arrayTags   (Optional) Set of tags to ensure are output as JSON Array even if there is only a single
+     *                    element.
+     * @throws IOException if the sink fails to write.
+     */
+    public static void writeFormatted(
+            @NonNull DataElement element, int indentCount, @NonNull DataSink sink, String... arrayTags) throws IOException {
+        writeFormatted(element, indentCount, sink, JsonWriteOptions.of(arrayTags));
+    }
+
+    /**
+     * Writes the given {@link DataElement DataElement's} value as formatted JSON to the given {@link DataSink}.
+     *
+     * @param element     The {@link DataElement} to write.
+     * @param indentCount The starting indentation level.
+     * @param sink        The {@link DataSink} to write to.
+     * @param options     The {@link JsonWriteOptions} to write with.
+     * @throws IOException if the sink fails to write.
+     */
+    public static void writeFormatted(@NonNull DataElement element, int indentCount, @NonNull DataSink sink,
+                                      @NonNull JsonWriteOptions options) throws IOException {
+        if (element.isObject()) {
+            // the 'value' is an object.
+            writeFormatted((DataObject) element.value, indentCount + 1, sink, options);
+        } else if (element.isArray()) {
+            List arrayList = (List) element.value;
+            if (arrayList.size() > 0) {
+                indent(sink, indentCount).append('[').append(NEW_LINE);
+                for (int i = 0; i < arrayList.size(); i++) {
+                    Object item = arrayList.get(i);
+                    if (item instanceof DataElement) {
+                        writeFormatted((DataElement) item, indentCount + 1, sink, options);
+                    } else if (item instanceof DataObject) {
+                        writeFormatted((DataObject) item, indentCount + 1, sink, options);
+                    } else {
+                        writeItem(item, indent(sink, indentCount + 1));
+                    }
+                    if (i < arrayList.size() - 1) {
+                        sink.append(',');
+                    }
+                    sink.append(NEW_LINE);
+                }
+                indent(sink, indentCount).append(']').append(NEW_LINE);
+            }
+        } else {
+            writeValue(element, sink);
+        }
+    }
+
+    /**
+     * Writes the value of a {@link DataElement} that holds neither an object nor an array, all values are written as JSON
+     * strings.
+     */
+    private static void writeValue(@NonNull DataElement element, @NonNull DataSink sink) throws IOException {
+        if (element.value == null) {
+            sink.append("\"null\"");
+        } else if (element.valueClass == String.class) {
+            writeString((String) element.value, sink);
+        } else {
+            // the 'value' is just a value.
+            writeItem(element.value, sink);
+        }
+    }
+
+    /**
+     * Writes the given value as a JSON string without escaping, numbers are written straight to the sink by the {@link
+     * NumberWriter}.
+     */
+    private static void writeItem(@Nullable Object value, @NonNull DataSink sink) throws IOException {
+        sink.append('"');
+        if (!NumberWriter.write(value, sink)) {
+            sink.append(String.valueOf(value));
+        }
+        sink.append('"');
+    }
+
+    /**
+     * Writes the given {@code value} as a quoted JSON string, giving the same output as {@link
+     * org.json.JSONObject#quote(String)}. Runs of characters that need no escaping are copied to the sink as they are.
+     *
+     * @param value The string to write.
+     * @param sink  The {@link DataSink} to write to.
+     * @throws IOException if the sink fails to write.
+     */
+    public static void writeString(@NonNull String value, @NonNull DataSink sink) throws IOException {
+        sink.append('"');
+        int start = 0;
+        int length = value.length();
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            if (c < ESCAPES.length && ESCAPES[c] != null) {
+                if (start < i) {
+                    sink.append(value, start, i);
+                }
+                sink.append(ESCAPES[c]);
+                start = i + 1;
+            }
+        }
+        if (start < length) {
+            sink.append(value, start, length);
+        }
+        sink.append('"');
+    }
+
+    static DataSink indent(@NonNull DataSink sink, int indentCount) throws IOException {
+        for (int i = 0; i < indentCount; i++) {
+            sink.append(TAB);
+        }
+        return sink;
+    }
+
+    static boolean hasElements(@NonNull DataObject object) {
+        for (List<DataElement> elements : object.getElementLists()) {
+            if (!elements.isEmpty()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+
+    /**
+     * The keys of a JSON object, in the order they are written, and whether each one holds a single element. Objects with
+     * the same shape are written with the same key fragments, which are made when the shape is first reused.
+     */
+    private static final class Shape {
+        private final String[] tags;
+        private final boolean[] singles;
+        //the text written before the value of each key, such as {"tag":[ or ,"tag":
+        private String[] prefixes;
+        private boolean[] arrays;
+
+        private Shape(String[] tags, boolean[] singles) {
+            this.tags = tags;
+            this.singles = singles;
+        }
+
+        /**
+         * @return The shape of the given {@code object}, or {@code null} if it isn't written as a JSON object.
+         */
+        @Nullable
+        static Shape of(@NonNull DataObject object) {
+            if (!hasElements(object) || object.getList(ANONYMOUS_ARRAY_TAG, (XMLAttribute[]) null) != null) {
+                return null;
+            }
+            Set<Map.Entry<String, List<DataElement>>> entries = object.getElementEntries();
+            String[] tags = new String[entries.size()];
+            boolean[] singles = new boolean[tags.length];
+            int k = 0;
+            for (Map.Entry<String, List<DataElement>> entry : entries) {
+                tags[k] = entry.getKey();
+                singles[k] = entry.getValue().size() == 1;
+                k++;
+            }
+            return new Shape(tags, singles);
+        }
+
+        /**
+         * @return {@code True} if the given {@code object} has this shape and has elements to write.
+         */
+        boolean matches(@NonNull DataObject object) {
+            Set<Map.Entry<String, List<DataElement>>> entries = object.getElementEntries();
+            if (entries.size() != tags.length) {
+                return false;
+            }
+            boolean hasElements = false;
+            int k = 0;
+            for (Map.Entry<String, List<DataElement>> entry : entries) {
+                List<DataElement> elements = entry.getValue();
+                if (singles[k] != (elements.size() == 1) || !tags[k].equals(entry.getKey())) {
+                    return false;
+                }
+                hasElements |= !elements.isEmpty();
+                k++;
+            }
+            return hasElements;
+        }
+
+        /**
+         * Writes the given {@code object}, which must {@link #matches(DataObject) match} this shape.
+         */
+        void write(@NonNull DataObject object, @NonNull DataSink sink, @NonNull JsonWriteOptions options)
+                throws IOException {
+            if (prefixes == null) {
+                prefixes = new String[tags.length];
+                arrays = new boolean[tags.length];
+                for (int k = 0; k < tags.length; k++) {
+                    arrays[k] = !singles[k] || options.isArrayTag(tags[k]);
+                    prefixes[k] = (k == 0 ? "{\"" : ",\"") + tags[k] + (arrays[k] ? "\":[" : "\":");
+                }
+            }
+            int k = 0;
+            for (Map.Entry<String, List<DataElement>> entry : object.getElementEntries()) {
+                String prefix = prefixes[k];
+                sink.append(prefix, 0, prefix.length());
+                List<DataElement> elements = entry.getValue();
+                if (arrays[k]) {
+                    writeItems(elements, sink, options);
+                    sink.append(']');
+                } else {
+                    JSONSerializer.write(elements.get(0), sink, options);
+                }
+                k++;
+            }
+            sink.append('}');
+        }
+    }
+}
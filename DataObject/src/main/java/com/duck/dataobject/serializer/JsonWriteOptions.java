@@ -0,0 +1,98 @@
+package com.duck.dataobject.serializer;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.duck.dataobject.DataObject;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Settings for writing JSON with the {@link JSONSerializer}, built once and shared between calls. The array tags are
+ * held in a hash set, so checking a key is a single lookup however many array tags there are.
+ * <p>
+ * {@link JsonWriteOptions} are immutable and can be shared between threads.
+ */
+public final class JsonWriteOptions {
+    /**
+     * The options used when no array tags are given.
+     */
+    public static final JsonWriteOptions DEFAULT = new JsonWriteOptions(Collections.<String>emptySet());
+
+    private final Set<String> arrayTags;
+
+    private JsonWriteOptions(@NonNull Set<String> arrayTags) {
+        this.arrayTags = arrayTags;
+    }
+
+    /**
+     * Creates the options for the given {@code arrayTags}.
+     *
+     * @param arrayTags (Optional) Set of tags to ensure are output as JSON Array even if there is only a single element.
+     * @return The {@link JsonWriteOptions}, {@link #DEFAULT} if there are no array tags.
+     */
+    @NonNull
+    public static JsonWriteOptions of(@Nullable String... arrayTags) {
+        if (arrayTags == null || arrayTags.length <= 0) {
+            return DEFAULT;
+        }
+        Set<String> set = new HashSet<>(arrayTags.length * 2);
+        for (String arrayTag : arrayTags) {
+            if (arrayTag != null) {
+                set.add(arrayTag);
+            }
+        }
+        return new JsonWriteOptions(set);
+    }
+
+    /**
+     * Creates the options for the given {@code arrayTags}.
+     *
+     * @param arrayTags Set of tags to ensure are output as JSON Array even if there is only a single element.
+     * @return The {@link JsonWriteOptions}, {@link #DEFAULT} if there are no array tags.
+     */
+    @NonNull
+    public static JsonWriteOptions of(@NonNull Collection<String> arrayTags) {
+        return of(arrayTags.toArray(new String[0]));
+    }
+
+    /**
+     * @param tag The tag of a key in a JSON object.
+     * @return {@code True} if the elements with the given {@code tag} are always written as a JSON Array.
+     */
+    public boolean isArrayTag(@NonNull String tag) {
+        return !arrayTags.isEmpty() && arrayTags.contains(tag);
+    }
+
+    /**
+     * @return The tags to ensure are output as JSON Array, see {@link DataObject#toJSON(String...)}.
+     */
+    @NonNull
+    public Set<String> getArrayTags() {
+        return Collections.unmodifiableSet(arrayTags);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof JsonWriteOptions)) {
+            return false;
+        }
+        return arrayTags.equals(((JsonWriteOptions) o).arrayTags);
+    }
+
+    @Override
+    public int hashCode() {
+        return arrayTags.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return "JsonWriteOptions{arrayTags=" + arrayTags + '}';
+    }
+}
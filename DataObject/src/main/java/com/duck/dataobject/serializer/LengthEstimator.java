@@ -0,0 +1,263 @@
+package com.duck.dataobject.serializer;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.duck.dataobject.DataObject;
+import com.duck.dataobject.node.DataElement;
+import com.duck.dataobject.node.XMLAttribute;
+import com.duck.dataobject.walker.DataVisitor;
+import com.duck.dataobject.walker.DataWalker;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static com.duck.dataobject.DataObject.ANONYMOUS_ARRAY_TAG;
+import static com.duck.dataobject.DataObject.NEW_LINE_LEN;
+import static com.duck.dataobject.DataObject.TAB_LEN;
+
+/**
+ * Estimates the length of the XML and JSON written for {@link DataObject DataObjects} and {@link DataElement
+ * DataElements}, for their {@code estimateLength} methods. The tree is walked with a {@link DataWalker}, so very deep
+ * documents can not overflow the call stack. Only objects held directly in the items of an array are estimated with a
+ * walk of their own.
+ */
+public final class LengthEstimator {
+
+    private LengthEstimator() {
+    }
+
+    /**
+     * @return The estimated XML length of the elements of the given {@link DataObject} and of the objects they hold.
+     */
+    public static int estimateXML(@NonNull DataObject object) {
+        XMLVisitor visitor = new XMLVisitor();
+        new DataWalker().walk(object, visitor);
+        return visitor.length;
+    }
+
+    /**
+     * @return The estimated XML length of the given {@link DataElement} itself, leaving out the object it may hold.
+     */
+    public static int estimateXML(@NonNull DataElement element) {
+        int len = 0;
+        if (element.value == null || element.value.equals("")) {
+            len += element.tag.length() + 3;// empty element, the xml will be '<"tag"/>'
+        } else {
+            len += (element.tag.length() * 2) + 5;// *2=(open and close tags), +5=('<'*2+'>'*2+'/'*1)
+            if (XMLSerializer.isCDATA(element)) {
+                len += DataObject.CDATA_OPEN.length() + DataObject.CDATA_CLOSE.length();
+            }
+            if (!element.isObject()) {
+                len += NumberWriter.length(element.value);
+            }
+        }
+        return len;
+    }
+
+    /**
+     * @return The estimated JSON length of the given {@link DataObject}.
+     */
+    public static int estimateJSON(@NonNull DataObject object, @Nullable String... arrayTags) {
+        JSONVisitor visitor = new JSONVisitor(arrayTags, false);
+        visitor.length = visitor.objectLength(object, 0);
+        new DataWalker().walk(object, visitor);
+        return visitor.length;
+    }
+
+    /**
+     * @return The estimated JSON length of the given {@link DataElement}.
+     */
+    public static int estimateJSON(@NonNull DataElement element, @Nullable String... arrayTags) {
+        JSONVisitor visitor = new JSONVisitor(arrayTags, false);
+        new DataWalker().walk(element, visitor);
+        return visitor.length;
+    }
+
+    /**
+     * @return The estimated formatted JSON length of the given {@link DataObject}, indented by {@code indentCount}.
+     */
+    public static int estimateFormattedJSON(@NonNull DataObject object, int indentCount,
+                                            @Nullable String... arrayTags) {
+        JSONVisitor visitor = new JSONVisitor(arrayTags, true);
+        visitor.length = visitor.objectLength(object, indentCount);
+        visitor.indents[0] = indentCount + 1;
+        new DataWalker().walk(object, visitor);
+        return visitor.length;
+    }
+
+    /**
+     * @return The estimated formatted JSON length of the given {@link DataElement}, indented by {@code indentCount}.
+     */
+    public static int estimateFormattedJSON(@NonNull DataElement element, int indentCount,
+                                            @Nullable String... arrayTags) {
+        JSONVisitor visitor = new JSONVisitor(arrayTags, true);
+        visitor.indents[0] = indentCount;
+        new DataWalker().walk(element, visitor);
+        return visitor.length;
+    }
+
+    private static boolean hasElements(@NonNull DataObject object) {
+        for (List<DataElement> elements : object.getElementLists()) {
+            if (!elements.isEmpty()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Adds up the XML lengths of the elements, the items of arrays are not written to XML.
+     */
+    private static final class XMLVisitor implements DataVisitor {
+        private int length = 0;
+
+        @Override
+        public int enter(@NonNull DataElement element, @Nullable DataObject parent, int depth) {
+            length += estimateXML(element);
+            return element.isArray() ? SKIP_SUBTREE : CONTINUE;
+        }
+
+        @Override
+        public int leave(@NonNull DataElement element, @Nullable DataObject parent, int depth) {
+            return CONTINUE;
+        }
+    }
+
+    /**
+     * Adds up the JSON lengths of the elements. The brackets, keys and commas of an object are counted when the object is
+     * entered, the values of its elements as they are visited.
+     */
+    private static final class JSONVisitor implements DataVisitor {
+        private final String[] arrayTags;
+        private final boolean formatted;
+        //the indent count of the elements at each depth, for formatted JSON
+        private int[] indents = new int[16];
+        private int length = 0;
+
+        private JSONVisitor(@Nullable String[] arrayTags, boolean formatted) {
+            this.arrayTags = arrayTags;
+            this.formatted = formatted;
+        }
+
+        @Override
+        public int enter(@NonNull DataElement element, @Nullable DataObject parent, int depth) {
+            if (parent != null && !isWritten(element, parent)) {
+                return SKIP_SUBTREE;
+            }
+            int indentCount = indents[depth];
+            if (depth + 1 == indents.length) {
+                indents = Arrays.copyOf(indents, indents.length * 2);
+            }
+            if (element.isObject()) {
+                length += objectLength((DataObject) element.value, indentCount + 1);
+                indents[depth + 1] = indentCount + 2;
+            } else if (element.isArray()) {
+                length += arrayLength(element, indentCount);
+                indents[depth + 1] = indentCount;
+            } else if (element.value == null) {
+                length += 6;
+            } else {
+                length += 2 + NumberWriter.length(element.value);
+            }
+            return CONTINUE;
+        }
+
+        @Override
+        public int leave(@NonNull DataElement element, @Nullable DataObject parent, int depth) {
+            return CONTINUE;
+        }
+
+        /**
+         * @return {@code False} if the given element is left out of the JSON because its object is an anonymous array
+         * and the element is not one of its items.
+         */
+        private boolean isWritten(@NonNull DataElement element, @NonNull DataObject parent) {
+            if (parent.getElementEntries().size() == 1) {
+                return true;
+            }
+            List<DataElement> anonymous = parent.getList(ANONYMOUS_ARRAY_TAG, (XMLAttribute[]) null);
+            if (anonymous == null) {
+                return true;
+            }
+            for (int i = 0; i < anonymous.size(); i++) {
+                if (anonymous.get(i) == element) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        /**
+         * @return The length of the given object leaving out the values of its elements.
+         */
+        private int objectLength(@NonNull DataObject object, int indentCount) {
+            if (!hasElements(object)) {
+                return 0;
+            }
+            int indentLen = TAB_LEN * indentCount;
+            List<DataElement> anonymous = object.getList(ANONYMOUS_ARRAY_TAG, (XMLAttribute[]) null);
+            if (anonymous != null) {
+                int size = anonymous.size();
+                if (!formatted) {
+                    return 2 + Math.max(size - 1, 0);
+                }
+                return indentLen + 1 + NEW_LINE_LEN + Math.max(size - 1, 0) + size * NEW_LINE_LEN + indentLen + 1;
+            }
+            int len = formatted ? 1 + NEW_LINE_LEN + indentLen + 1 : 2;
+            int innerIndentLen = indentLen + 1;
+            int count = 0;
+            for (Map.Entry<String, List<DataElement>> entry : object.getElementEntries()) {
+                String tag = entry.getKey();
+                int size = entry.getValue().size();
+                if (size == 1) {
+                    boolean forceArray = arrayTags != null && Arrays.asList(arrayTags).contains(tag);
+                    if (formatted) {
+                        len += innerIndentLen + 5 + tag.length() + (forceArray ? 2 + NEW_LINE_LEN * 2 : 0);
+                    } else {
+                        len += 3 + tag.length() + (forceArray ? 2 : 0);
+                    }
+                } else if (formatted) {
+                    len += innerIndentLen + 6 + tag.length() + NEW_LINE_LEN + Math.max(size - 1, 0)
+                           + size * NEW_LINE_LEN + 1;
+                } else {
+                    len += 4 + tag.length() + Math.max(size - 1, 0) + 1;
+                }
+                if (formatted) {
+                    len += NEW_LINE_LEN;
+                }
+                count++;
+            }
+            return len + Math.max(count - 1, 0);
+        }
+
+        /**
+         * @return The length of the given array element leaving out the elements in it, which are visited on their own.
+         */
+        private int arrayLength(@NonNull DataElement element, int indentCount) {
+            List<?> items = (List<?>) element.value;
+            int size = items.size();
+            if (size == 0) {
+                return 0;
+            }
+            int indentLen = TAB_LEN * indentCount;
+            int len = formatted ? indentLen + 1 + NEW_LINE_LEN + size * NEW_LINE_LEN + indentLen + 1 + NEW_LINE_LEN : 2;
+            len += size - 1;
+            for (int i = 0; i < size; i++) {
+                Object item = items.get(i);
+                if (item instanceof DataElement) {
+                    continue;
+                } else if (item instanceof DataObject) {
+                    len += formatted ? estimateFormattedJSON((DataObject) item, indentCount, arrayTags)
+                                     : estimateJSON((DataObject) item, arrayTags);
+                } else if (formatted) {
+                    len += indentLen + TAB_LEN + 2 + NumberWriter.length(item);
+                } else {
+                    len += 2 + NumberWriter.length(item);
+                }
+            }
+            return len;
+        }
+    }
+}
@@ -0,0 +1,241 @@
+package com.duck.dataobject.serializer;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.io.IOException;
+
+/**
+ * Writes numbers to a {@link DataSink} without building a {@link String} for them first, giving the same text as {@link
+ * String#valueOf(Object)}. The {@code length} functions give the length of that text by counting digits.
+ * <p>
+ * Whole numbers are written digit by digit. A {@code double} or {@code float} from 10<sup>-3</sup> up to 10<sup>7</sup>
+ * is written from the decimal with the fewest places after the point that reads back as the same value, which is what
+ * {@link Double#toString(double)} and {@link Float#toString(float)} give in that range. Up to 15 significant digits for
+ * a {@code double}, and 6 for a {@code float}, there is only one such decimal so the text is the same on every runtime.
+ * Any other value is written with {@code toString}.
+ */
+public class NumberWriter {
+    private static final long[] POWERS_OF_TEN = {
+            1L, 10L, 100L, 1000L, 10000L, 100000L, 1000000L, 10000000L, 100000000L, 1000000000L, 10000000000L,
+            100000000000L, 1000000000000L, 10000000000000L, 100000000000000L, 1000000000000000L,
+            10000000000000000L, 100000000000000000L, 1000000000000000000L
+    };
+    private static final double[] DOUBLE_POWERS_OF_TEN = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11, 1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18
+    };
+    private static final float[] FLOAT_POWERS_OF_TEN = {
+            1e0f, 1e1f, 1e2f, 1e3f, 1e4f, 1e5f, 1e6f, 1e7f, 1e8f, 1e9f, 1e10f
+    };
+    private static final long MAX_DOUBLE_DIGITS = 1000000000000000L;
+    private static final long MAX_FLOAT_DIGITS = 1000000L;
+
+    /**
+     * Writes the given {@code value} if it is an {@link Integer}, {@link Long}, {@link Short}, {@link Byte}, {@link
+     * Double} or {@link Float}.
+     *
+     * @param value The value to write.
+     * @param sink  The {@link DataSink} to write to.
+     * @return {@code True} if the value was written, {@code False} if it is not one of these numbers.
+     * @throws IOException if the sink fails to write.
+     */
+    public static boolean write(@Nullable Object value, @NonNull DataSink sink) throws IOException {
+        if (value instanceof Integer || value instanceof Long || value instanceof Short || value instanceof Byte) {
+            write(((Number) value).longValue(), sink);
+        } else if (value instanceof Double) {
+            write(((Double) value).doubleValue(), sink);
+        } else if (value instanceof Float) {
+            write(((Float) value).floatValue(), sink);
+        } else {
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Writes the given {@code value} as {@link Long#toString(long)} would.
+     */
+    public static void write(long value, @NonNull DataSink sink) throws IOException {
+        if (value < 0) {
+            if (value == Long.MIN_VALUE) {
+                sink.append("-9223372036854775808");
+                return;
+            }
+            sink.append('-');
+            value = -value;
+        }
+        writeDigits(value, digitCount(value), sink);
+    }
+
+    /**
+     * Writes the given {@code value} as {@link Double#toString(double)} would.
+     */
+    public static void write(double value, @NonNull DataSink sink) throws IOException {
+        if (value == 0) {
+            sink.append(Double.doubleToRawLongBits(value) < 0 ? "-0.0" : "0.0");
+            return;
+        }
+        double abs = Math.abs(value);
+        int places = decimalPlaces(abs);
+        if (places < 0) {
+            sink.append(Double.toString(value));
+            return;
+        }
+        if (value < 0) {
+            sink.append('-');
+        }
+        writeDecimal(Math.round(abs * DOUBLE_POWERS_OF_TEN[places]), places, sink);
+    }
+
+    /**
+     * Writes the given {@code value} as {@link Float#toString(float)} would.
+     */
+    public static void write(float value, @NonNull DataSink sink) throws IOException {
+        if (value == 0) {
+            sink.append(Float.floatToRawIntBits(value) < 0 ? "-0.0" : "0.0");
+            return;
+        }
+        float abs = Math.abs(value);
+        int places = decimalPlaces(abs);
+        if (places < 0) {
+            sink.append(Float.toString(value));
+            return;
+        }
+        if (value < 0) {
+            sink.append('-');
+        }
+        writeDecimal(Math.round(abs * DOUBLE_POWERS_OF_TEN[places]), places, sink);
+    }
+
+    /**
+     * @param value The value to measure.
+     * @return The length of {@code String.valueOf(value)}.
+     */
+    public static int length(@Nullable Object value) {
+        if (value instanceof Integer || value instanceof Long || value instanceof Short || value instanceof Byte) {
+            return length(((Number) value).longValue());
+        } else if (value instanceof Double) {
+            return length(((Double) value).doubleValue());
+        } else if (value instanceof Float) {
+            return length(((Float) value).floatValue());
+        }
+        return String.valueOf(value).length();
+    }
+
+    /**
+     * @return The length of {@link Long#toString(long)} for the given {@code value}.
+     */
+    public static int length(long value) {
+        if (value < 0) {
+            return value == Long.MIN_VALUE ? 20 : 1 + digitCount(-value);
+        }
+        return digitCount(value);
+    }
+
+    /**
+     * @return The length of {@link Double#toString(double)} for the given {@code value}.
+     */
+    public static int length(double value) {
+        if (value == 0) {
+            return Double.doubleToRawLongBits(value) < 0 ? 4 : 3;
+        }
+        double abs = Math.abs(value);
+        int places = decimalPlaces(abs);
+        if (places < 0) {
+            return Double.toString(value).length();
+        }
+        return decimalLength(Math.round(abs * DOUBLE_POWERS_OF_TEN[places]), places) + (value < 0 ? 1 : 0);
+    }
+
+    /**
+     * @return The length of {@link Float#toString(float)} for the given {@code value}.
+     */
+    public static int length(float value) {
+        if (value == 0) {
+            return Float.floatToRawIntBits(value) < 0 ? 4 : 3;
+        }
+        float abs = Math.abs(value);
+        int places = decimalPlaces(abs);
+        if (places < 0) {
+            return Float.toString(value).length();
+        }
+        return decimalLength(Math.round(abs * DOUBLE_POWERS_OF_TEN[places]), places) + (value < 0 ? 1 : 0);
+    }
+
+    /**
+     * Finds the fewest places after the decimal point, at least one, for which the nearest decimal reads back as the
+     * given {@code abs}.
+     *
+     * @return The number of places, or -1 if {@code abs} is out of range or needs more than 15 significant digits.
+     */
+    private static int decimalPlaces(double abs) {
+        if (!(abs >= 1e-3 && abs < 1e7)) {
+            return -1;
+        }
+        for (int places = 1; places < DOUBLE_POWERS_OF_TEN.length; places++) {
+            //the digits are below 2^53 and the power of ten is exact, so the division rounds the same as parsing does
+            long digits = Math.round(abs * DOUBLE_POWERS_OF_TEN[places]);
+            if (digits >= MAX_DOUBLE_DIGITS) {
+                return -1;
+            }
+            if (digits / DOUBLE_POWERS_OF_TEN[places] == abs) {
+                return places;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * The {@code float} version of {@link #decimalPlaces(double)}, allowing up to 6 significant digits.
+     */
+    private static int decimalPlaces(float abs) {
+        if (!(abs >= 1e-3f && abs < 1e7f)) {
+            return -1;
+        }
+        for (int places = 1; places < FLOAT_POWERS_OF_TEN.length; places++) {
+            long digits = Math.round(abs * DOUBLE_POWERS_OF_TEN[places]);
+            if (digits >= MAX_FLOAT_DIGITS) {
+                return -1;
+            }
+            if ((float) digits / FLOAT_POWERS_OF_TEN[places] == abs) {
+                return places;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Writes {@code digits} with the decimal point {@code places} digits from the right.
+     */
+    private static void writeDecimal(long digits, int places, @NonNull DataSink sink) throws IOException {
+        long power = POWERS_OF_TEN[places];
+        writeDigits(digits / power, digitCount(digits / power), sink);
+        sink.append('.');
+        //the leading zeros of the fraction are written as part of the digits
+        writeDigits(digits % power, places, sink);
+    }
+
+    private static int decimalLength(long digits, int places) {
+        return digitCount(digits / POWERS_OF_TEN[places]) + 1 + places;
+    }
+
+    /**
+     * Writes the last {@code count} digits of the given positive {@code value}, most significant first.
+     */
+    private static void writeDigits(long value, int count, @NonNull DataSink sink) throws IOException {
+        for (int i = count - 1; i >= 0; i--) {
+            sink.append((char) ('0' + (value / POWERS_OF_TEN[i]) % 10));
+        }
+    }
+
+    /**
+     * @return The number of digits in the given positive {@code value}.
+     */
+    private static int digitCount(long value) {
+        int count = 1;
+        while (count < POWERS_OF_TEN.length && value >= POWERS_OF_TEN[count]) {
+            count++;
+        }
+        return count;
+    }
+}
@@ -0,0 +1,107 @@
+package com.duck.dataobject.serializer;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.duck.dataobject.DataObject;
+import com.duck.dataobject.node.DataElement;
+
+import java.util.List;
+
+/**
+ * Holds the last JSON and xml written for a {@link DataObject} so that writing it again, without any change in between,
+ * just copies the cached text. Enabled with {@link DataObject#enableOutputCache()}.
+ * <p>
+ * When a cached {@link DataObject} is written, every {@link DataObject} held by its elements, also those within their
+ * array values, gets a cache of its own that is linked to this one. A change to an object throws away its cache and the
+ * caches of the objects it was written within, so writing the document again only writes the changed branch and reuses
+ * the text of everything else. Only the last document an object was written within is linked, so an object should only
+ * be part of one cached document.
+ * <p>
+ * The {@link DataObject} functions keep the cache up to date, call {@link DataObject#invalidateOutputCache()} after
+ * changing {@link DataElement DataElements} directly. Formatted output depends on the indentation and is not cached.
+ */
+public final class OutputCache {
+    @Nullable
+    private OutputCache parent;
+    @Nullable
+    private String json;
+    @Nullable
+    private JsonWriteOptions jsonOptions;
+    @Nullable
+    private String xml;
+
+    /**
+     * Throws away the cached output of this object and of the objects it was last written within.
+     */
+    public void invalidate() {
+        json = null;
+        jsonOptions = null;
+        xml = null;
+        //an empty cache means the objects it was written within have already been invalidated
+        OutputCache cache = parent;
+        while (cache != null && !cache.isEmpty()) {
+            cache.json = null;
+            cache.jsonOptions = null;
+            cache.xml = null;
+            cache = cache.parent;
+        }
+    }
+
+    /**
+     * @return {@code True} if there is no cached output.
+     */
+    public boolean isEmpty() {
+        return json == null && xml == null;
+    }
+
+    @Nullable
+    String getJSON(@NonNull JsonWriteOptions options) {
+        return json != null && options.equals(jsonOptions) ? json : null;
+    }
+
+    void putJSON(@NonNull JsonWriteOptions options, @NonNull String json) {
+        this.json = json;
+        jsonOptions = options;
+    }
+
+    @Nullable
+    String getXML() {
+        return xml;
+    }
+
+    void putXML(@NonNull String xml) {
+        this.xml = xml;
+    }
+
+    /**
+     * Gives every {@link DataObject} held by the elements of {@code object}, directly or in their array values, a cache
+     * linked to this one.
+     */
+    void linkChildren(@NonNull DataObject object) {
+        for (List<DataElement> elements : object.getElementLists()) {
+            for (int i = 0; i < elements.size(); i++) {
+                link(elements.get(i));
+            }
+        }
+    }
+
+    private void link(@Nullable Object item) {
+        if (item instanceof DataObject) {
+            DataObject child = (DataObject) item;
+            child.enableOutputCache();
+            child.getOutputCache().parent = this;
+        } else if (item instanceof DataElement) {
+            DataElement element = (DataElement) item;
+            if (element.isObject()) {
+                link(element.value);
+            } else if (element.isArray()) {
+                //arrays may be nested, such as the [[{...}]] of JSON
+                List<?> items = (List<?>) element.value;
+                for (int i = 0; i < items.size(); i++) {
+                    link(items.get(i));
+                }
+            }
+        }
+    }
+}
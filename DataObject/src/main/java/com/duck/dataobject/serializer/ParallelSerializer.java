@@ -0,0 +1,285 @@
+package com.duck.dataobject.serializer;
+
+import androidx.annotation.NonNull;
+
+import com.duck.dataobject.DataObject;
+import com.duck.dataobject.node.DataElement;
+import com.duck.dataobject.node.XMLAttribute;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+import static com.duck.dataobject.DataObject.ANONYMOUS_ARRAY_TAG;
+
+/**
+ * Writes large {@link DataObject DataObjects} as JSON or xml using the threads of a {@link ForkJoinPool}, giving the same
+ * output as the {@link JSONSerializer} and {@link XMLSerializer}.
+ * <p>
+ * The top levels of the document are walked in the calling thread. Their objects are written on the pool once they are
+ * {@link #MAX_DEPTH} levels deep, and arrays of more than {@link #CHUNK_SIZE} elements are split into chunks that are
+ * written on the pool. The calling thread then copies the written parts to the sink in document order. The document
+ * must not be changed while it is being written.
+ */
+public class ParallelSerializer {
+    /**
+     * The number of array elements written by one task.
+     */
+    public static final int CHUNK_SIZE = 256;
+    /**
+     * The depth at which whole objects are written by one task.
+     */
+    public static final int MAX_DEPTH = 3;
+
+    /**
+     * Writes the given {@link DataObject} as JSON to the given {@link DataSink}.
+     *
+     * @param object  The {@link DataObject} to write.
+     * @param sink    The {@link DataSink} to write to.
+     * @param options The {@link JsonWriteOptions} to write with.
+     * @param pool    The {@link ForkJoinPool} to write on.
+     * @throws IOException if the sink fails to write.
+     */
+    public static void writeJSON(@NonNull DataObject object, @NonNull DataSink sink, @NonNull JsonWriteOptions options,
+                                 @NonNull ForkJoinPool pool) throws IOException {
+        Plan plan = new Plan(pool);
+        planJSON(object, 0, plan, options);
+        plan.writeTo(sink);
+    }
+
+    /**
+     * Writes the given {@link DataObject} as xml to the given {@link DataSink}. Elements whose value contains characters
+     * that are illegal in XML are written as CDATA.
+     *
+     * @param object The {@link DataObject} to write.
+     * @param sink   The {@link DataSink} to write to.
+     * @param pool   The {@link ForkJoinPool} to write on.
+     * @throws IOException if the sink fails to write.
+     */
+    public static void writeXML(@NonNull DataObject object, @NonNull DataSink sink, @NonNull ForkJoinPool pool)
+            throws IOException {
+        Plan plan = new Plan(pool);
+        planXML(object, 0, plan);
+        plan.writeTo(sink);
+    }
+
+    private static void planJSON(@NonNull DataObject object, int depth, @NonNull Plan plan,
+                                 @NonNull JsonWriteOptions options) throws IOException {
+        if (depth >= MAX_DEPTH || object.getOutputCache() != null) {
+            plan.fork(new JSONObjectTask(object, options));
+            return;
+        }
+        if (!JSONSerializer.hasElements(object)) {
+            return;
+        }
+        DataSink text = plan.text;
+        List<DataElement> anonymous = object.getList(ANONYMOUS_ARRAY_TAG, (XMLAttribute[]) null);
+        if (anonymous != null) {
+            text.append('[');
+            planJSONItems(anonymous, depth, plan, options);
+            text.append(']');
+            return;
+        }
+        text.append('{');
+        boolean first = true;
+        for (Map.Entry<String, List<DataElement>> entry : object.getElementEntries()) {
+            if (!first) {
+                text.append(',');
+            }
+            first = false;
+            String tag = entry.getKey();
+            List<DataElement> elements = entry.getValue();
+            text.append('"').append(tag).append("\":");
+            if (elements.size() == 1 && !options.isArrayTag(tag)) {
+                planJSONElement(elements.get(0), depth, plan, options);
+            } else {
+                text.append('[');
+                planJSONItems(elements, depth, plan, options);
+                text.append(']');
+            }
+        }
+        text.append('}');
+    }
+
+    private static void planJSONItems(@NonNull List<DataElement> elements, int depth, @NonNull Plan plan,
+                                      @NonNull JsonWriteOptions options) throws IOException {
+        if (elements.size() > CHUNK_SIZE) {
+            for (int from = 0; from < elements.size(); from += CHUNK_SIZE) {
+                if (from > 0) {
+                    plan.text.append(',');
+                }
+                int to = Math.min(from + CHUNK_SIZE, elements.size());
+                plan.fork(new JSONItemsTask(elements.subList(from, to), options));
+            }
+        } else {
+            for (int j = 0; j < elements.size(); j++) {
+                if (j > 0) {
+                    plan.text.append(',');
+                }
+                planJSONElement(elements.get(j), depth, plan, options);
+            }
+        }
+    }
+
+    private static void planJSONElement(@NonNull DataElement element, int depth, @NonNull Plan plan,
+                                        @NonNull JsonWriteOptions options) throws IOException {
+        if (element.isObject()) {
+            planJSON((DataObject) element.value, depth + 1, plan, options);
+        } else {
+            JSONSerializer.write(element, plan.text, options);
+        }
+    }
+
+    private static void planXML(@NonNull DataObject object, int depth, @NonNull Plan plan) throws IOException {
+        if (depth >= MAX_DEPTH || object.getOutputCache() != null) {
+            plan.fork(new XMLObjectTask(object));
+            return;
+        }
+        for (List<DataElement> elements : object.getElementLists()) {
+            if (elements.size() > CHUNK_SIZE) {
+                for (int from = 0; from < elements.size(); from += CHUNK_SIZE) {
+                    int to = Math.min(from + CHUNK_SIZE, elements.size());
+                    plan.fork(new XMLItemsTask(elements.subList(from, to)));
+                }
+            } else {
+                for (int i = 0; i < elements.size(); i++) {
+                    planXMLElement(elements.get(i), depth, plan);
+                }
+            }
+        }
+    }
+
+    private static void planXMLElement(@NonNull DataElement element, int depth, @NonNull Plan plan)
+            throws IOException {
+        if (element.isObject()) {
+            DataSink text = plan.text;
+            text.append('<').append(element.tag);
+            XMLSerializer.writeAttributes(element, text);
+            text.append('>');
+            planXML((DataObject) element.value, depth + 1, plan);
+            XMLSerializer.closeTag(element, plan.text);
+        } else {
+            XMLSerializer.write(element, plan.text);
+        }
+    }
+
+    /**
+     * The parts of a document in order, either text written while planning or a task writing on the pool.
+     */
+    private static final class Plan {
+        private final ForkJoinPool pool;
+        private final List<Object> parts = new ArrayList<>();
+        private final StringBuilder buffer = new StringBuilder();
+        final DataSink text = DataSink.of(buffer);
+
+        Plan(ForkJoinPool pool) {
+            this.pool = pool;
+        }
+
+        void fork(@NonNull Task task) {
+            endText();
+            pool.execute(task);
+            parts.add(task);
+        }
+
+        private void endText() {
+            if (buffer.length() > 0) {
+                parts.add(buffer.toString());
+                buffer.setLength(0);
+            }
+        }
+
+        void writeTo(@NonNull DataSink sink) throws IOException {
+            endText();
+            for (int i = 0; i < parts.size(); i++) {
+                Object part = parts.get(i);
+                String string = part instanceof Task ? ((Task) part).join() : (String) part;
+                //let go of the written parts as we go
+                parts.set(i, null);
+                sink.append(string, 0, string.length());
+            }
+        }
+    }
+
+    //the tasks are never serialized
+    @SuppressWarnings("serial")
+    private abstract static class Task extends RecursiveTask<String> {
+        @Override
+        protected String compute() {
+            StringBuilder stringBuilder = new StringBuilder();
+            try {
+                write(DataSink.of(stringBuilder));
+            } catch (IOException e) {
+                throw new IllegalStateException("Writing to a StringBuilder failed", e);
+            }
+            return stringBuilder.toString();
+        }
+
+        abstract void write(@NonNull DataSink sink) throws IOException;
+    }
+
+    @SuppressWarnings("serial")
+    private static final class JSONObjectTask extends Task {
+        private final DataObject object;
+        private final JsonWriteOptions options;
+
+        JSONObjectTask(DataObject object, JsonWriteOptions options) {
+            this.object = object;
+            this.options = options;
+        }
+
+        @Override
+        void write(@NonNull DataSink sink) throws IOException {
+            JSONSerializer.write(object, sink, options);
+        }
+    }
+
+    @SuppressWarnings("serial")
+    private static final class JSONItemsTask extends Task {
+        private final List<DataElement> elements;
+        private final JsonWriteOptions options;
+
+        JSONItemsTask(List<DataElement> elements, JsonWriteOptions options) {
+            this.elements = elements;
+            this.options = options;
+        }
+
+        @Override
+        void write(@NonNull DataSink sink) throws IOException {
+            JSONSerializer.writeItems(elements, sink, options);
+        }
+    }
+
+    @SuppressWarnings("serial")
+    private static final class XMLObjectTask extends Task {
+        private final DataObject object;
+
+        XMLObjectTask(DataObject object) {
+            this.object = object;
+        }
+
+        @Override
+        void write(@NonNull DataSink sink) throws IOException {
+            XMLSerializer.write(object, sink);
+        }
+    }
+
+    @SuppressWarnings("serial")
+    private static final class XMLItemsTask extends Task {
+        private final List<DataElement> elements;
+
+        XMLItemsTask(List<DataElement> elements) {
+            this.elements = elements;
+        }
+
+        @Override
+        void write(@NonNull DataSink sink) throws IOException {
+            for (int i = 0; i < elements.size(); i++) {
+                XMLSerializer.write(elements.get(i), sink);
+            }
+        }
+    }
+}
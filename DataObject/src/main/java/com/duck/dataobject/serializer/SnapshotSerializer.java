@@ -0,0 +1,241 @@
+package com.duck.dataobject.serializer;
+
+import androidx.annotation.NonNull;
+
+import com.duck.dataobject.DataObject;
+import com.duck.dataobject.node.DataElement;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Writes {@link DataObject DataObjects} as snapshots, a binary format for caching documents that {@link
+ * com.duck.dataobject.parser.SnapshotParser SnapshotParser} loads back with bulk reads instead of parsing text.
+ * <p>
+ * A snapshot is a header of five ints (magic, version, string count, node count and char count) followed by the end
+ * offset of each string, the nodes and the chars of the strings, all big endian. Every tag, attribute and text value
+ * is stored once in the string table, which keeps the chars as they are so any {@link String} comes back the same.
+ * The nodes are a flat int array holding the document in order:
+ * <pre>
+ * object:  entry count, then per entry: tag string, element count, node count of the elements, elements
+ * element: kind | CDATA flag | attribute count &lt;&lt; 8, tag string, attribute tag and value strings, value
+ * value:   nothing for null, a string, an int, float bits, two ints of double bits, node count and object, or node
+ *          count and list
+ * list:    item count, then the items as elements
+ * </pre>
+ * The node counts let a reader step over an entry or an element without reading what is in it, which is how {@link
+ * com.duck.dataobject.mapped.MappedDataObject MappedDataObject} reads a snapshot in place.
+ */
+public class SnapshotSerializer {
+    /**
+     * The first int of every snapshot, "DOSN".
+     */
+    public static final int MAGIC = 0x444F534E;
+    /**
+     * The version of the snapshot format written.
+     */
+    public static final int VERSION = 1;
+    /**
+     * The size of the header in bytes.
+     */
+    public static final int HEADER_SIZE = 20;
+    /**
+     * The largest snapshot in bytes, the largest array most VMs can allocate.
+     */
+    public static final int MAX_SIZE = Integer.MAX_VALUE - 8;
+
+    //the low bits of an element's first node
+    public static final int KIND_NULL = 0;
+    public static final int KIND_STRING = 1;
+    public static final int KIND_INT = 2;
+    public static final int KIND_FLOAT = 3;
+    public static final int KIND_DOUBLE = 4;
+    public static final int KIND_OBJECT = 5;
+    public static final int KIND_LIST = 6;
+    public static final int KIND_MASK = 0x0F;
+    public static final int CDATA_FLAG = 0x10;
+    public static final int ATTRIBUTE_SHIFT = 8;
+
+    /**
+     * @param object The {@link DataObject} to write.
+     * @return The snapshot of the given {@link DataObject}.
+     * @throws IllegalArgumentException if the snapshot would be larger than {@link #MAX_SIZE}.
+     */
+    @NonNull
+    public static byte[] write(@NonNull DataObject object) {
+        Builder builder = new Builder();
+        builder.writeObject(object);
+        return builder.toByteArray();
+    }
+
+    /**
+     * Writes the snapshot of the given {@link DataObject} to the given {@link OutputStream}.
+     *
+     * @param object The {@link DataObject} to write.
+     * @param out    The {@link OutputStream} to write to.
+     * @throws IOException              if writing to {@code out} fails.
+     * @throws IllegalArgumentException if the snapshot would be larger than {@link #MAX_SIZE}.
+     */
+    public static void write(@NonNull DataObject object, @NonNull OutputStream out) throws IOException {
+        out.write(write(object));
+    }
+
+    private static final class Builder {
+        private final Map<String, Integer> indexes = new HashMap<>();
+        private final List<String> strings = new ArrayList<>();
+        //a long as the strings of a document too large for a snapshot can hold more chars than an int counts
+        private long charCount = 0;
+        private int[] nodes = new int[64];
+        private int size = 0;
+
+        private void add(int node) {
+            if (size == nodes.length) {
+                nodes = Arrays.copyOf(nodes, size * 2);
+            }
+            nodes[size++] = node;
+        }
+
+        private void addString(@NonNull String string) {
+            Integer index = indexes.get(string);
+            if (index == null) {
+                index = strings.size();
+                indexes.put(string, index);
+                strings.add(string);
+                charCount += string.length();
+            }
+            add(index);
+        }
+
+        void writeObject(@NonNull DataObject object) {
+            Set<Map.Entry<String, List<DataElement>>> entries = object.getElementEntries();
+            add(entries.size());
+            for (Map.Entry<String, List<DataElement>> entry : entries) {
+                List<DataElement> elements = entry.getValue();
+                addString(entry.getKey());
+                add(elements.size());
+                int start = reserve();
+                for (int i = 0; i < elements.size(); i++) {
+                    writeElement(elements.get(i));
+                }
+                fill(start);
+            }
+        }
+
+        /**
+         * Adds a node to be filled with a node count by {@link #fill(int)}.
+         */
+        private int reserve() {
+            add(0);
+            return size;
+        }
+
+        /**
+         * Fills the node added by {@link #reserve()} with the number of nodes added since.
+         */
+        private void fill(int start) {
+            nodes[start - 1] = size - start;
+        }
+
+        private void writeElement(@NonNull DataElement element) {
+            Object value = element.value;
+            int kind;
+            if (value == null) {
+                kind = KIND_NULL;
+            } else if (element.isObject()) {
+                kind = KIND_OBJECT;
+            } else if (element.isArray()) {
+                kind = KIND_LIST;
+            } else if (value instanceof Integer) {
+                kind = KIND_INT;
+            } else if (value instanceof Float) {
+                kind = KIND_FLOAT;
+            } else if (value instanceof Double) {
+                kind = KIND_DOUBLE;
+            } else {
+                kind = KIND_STRING;
+            }
+            int attributeCount = element.getAttributeCount();
+            add(kind | (element.CDATA ? CDATA_FLAG : 0) | (attributeCount << ATTRIBUTE_SHIFT));
+            addString(element.tag);
+            for (int i = 0; i < attributeCount; i++) {
+                addString(element.getAttributeTag(i));
+                addString(element.getAttributeValue(i));
+            }
+            switch (kind) {
+                case KIND_STRING:
+                    addString(String.valueOf(value));
+                    break;
+                case KIND_INT:
+                    add((Integer) value);
+                    break;
+                case KIND_FLOAT:
+                    add(Float.floatToRawIntBits((Float) value));
+                    break;
+                case KIND_DOUBLE:
+                    long bits = Double.doubleToRawLongBits((Double) value);
+                    add((int) (bits >>> 32));
+                    add((int) bits);
+                    break;
+                case KIND_OBJECT: {
+                    int start = reserve();
+                    writeObject((DataObject) value);
+                    fill(start);
+                    break;
+                }
+                case KIND_LIST: {
+                    int start = reserve();
+                    writeItems((List) value);
+                    fill(start);
+                    break;
+                }
+            }
+        }
+
+        private void writeItems(@NonNull List items) {
+            add(items.size());
+            for (int i = 0; i < items.size(); i++) {
+                Object item = items.get(i);
+                if (item instanceof DataElement) {
+                    writeElement((DataElement) item);
+                } else if (item instanceof DataObject) {
+                    writeElement(new DataElement((DataObject) item));
+                } else {
+                    writeElement(new DataElement("", String.valueOf(item)));
+                }
+            }
+        }
+
+        byte[] toByteArray() {
+            int stringCount = strings.size();
+            long length = HEADER_SIZE + ((long) stringCount + size) * 4 + charCount * 2;
+            if (length > MAX_SIZE) {
+                throw new IllegalArgumentException("The snapshot would be " + length + " bytes, more than the "
+                                                   + MAX_SIZE + " a snapshot can hold");
+            }
+            byte[] bytes = new byte[(int) length];
+            ByteBuffer buffer = ByteBuffer.wrap(bytes);
+            buffer.putInt(MAGIC).putInt(VERSION).putInt(stringCount).putInt(size).putInt((int) charCount);
+            int[] ends = new int[stringCount];
+            int end = 0;
+            for (int i = 0; i < stringCount; i++) {
+                end += strings.get(i).length();
+                ends[i] = end;
+            }
+            buffer.asIntBuffer().put(ends).put(nodes, 0, size);
+            buffer.position(HEADER_SIZE + (stringCount + size) * 4);
+            CharBuffer chars = buffer.asCharBuffer();
+            for (int i = 0; i < stringCount; i++) {
+                chars.put(strings.get(i));
+            }
+            return bytes;
+        }
+    }
+}
@@ -0,0 +1,432 @@
+package com.duck.dataobject.serializer;
+
+import android.util.Xml;
+
+import androidx.annotation.NonNull;
+
+import com.duck.dataobject.DataObject;
+import com.duck.dataobject.exception.ParsingException;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.MalformedJsonException;
+
+import org.xmlpull.v1.XmlPullParser;
+import org.xmlpull.v1.XmlPullParserException;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static com.duck.dataobject.DataObject.ANONYMOUS_ARRAY_TAG;
+import static com.duck.dataobject.DataObject.CDATA_CLOSE;
+import static com.duck.dataobject.DataObject.CDATA_OPEN;
+
+/**
+ * Converts XML to JSON and JSON to XML as it is read, without building a {@link DataObject}, with the same mapping as
+ * parsing the document and writing it with {@link DataObject#toJSON(String...)} or {@link DataObject#toXML()}. Only
+ * the open elements are kept in memory, along with the keys held back as described below.
+ * <p>
+ * XML to JSON follows the rules of the {@link JSONSerializer}: attributes are left out, elements with child elements
+ * are written as objects and other elements as strings, an empty element tag is written as {@code "null"} and the
+ * content of CDATA sections as it is. All elements of an object with the same tag are written as one JSON Array, as are
+ * the {@code arrayTags}, and an element whose first child is tagged {@link DataObject#ANONYMOUS_ARRAY_TAG} is written as
+ * an array of those children. An element with a tag may come after elements with other tags, so the keys of an object
+ * are held back until it ends, up to {@link #DEFAULT_LOOKAHEAD} chars of JSON for all of the open objects. Only the root
+ * element and the first of the {@code arrayTags} in each object that is written as it is read are not held back, so
+ * list the tags of long runs, such as the records of a feed, in the {@code arrayTags}. Those keys are written first and
+ * the others after them in the order their tags first appear. Entities are replaced by the XML pull parser.
+ * <p>
+ * JSON to XML follows the rules of the {@link XMLSerializer}: each key of an object is written as an element, an array
+ * as one element with the key's tag for each of its values and the values of an array that is not the value of a key,
+ * such as one at the top of the document, as elements tagged with their index. Values with characters that are illegal
+ * in XML are written as CDATA.
+ */
+public class Transcoder {
+    /**
+     * The number of chars of JSON that can be held back for the keys of the open objects.
+     */
+    public static final int DEFAULT_LOOKAHEAD = 64 * 1024;
+
+    /**
+     * Converts the XML read from the given {@link Reader} to JSON and writes it to the given {@link DataSink}.
+     *
+     * @param xml       The {@link Reader} to read XML from.
+     * @param sink      The {@link DataSink} to write JSON to, it is flushed at the end.
+     * @param arrayTags (Optional) Set of tags to ensure are output as JSON Array even if there is only a single element.
+     * @throws IOException      if reading or writing fails.
+     * @throws ParsingException if the XML is malformed or more than {@link #DEFAULT_LOOKAHEAD} chars need to be held
+     *                          back.
+     */
+    public static void xmlToJSON(@NonNull Reader xml, @NonNull DataSink sink, String... arrayTags) throws IOException {
+        XmlPullParser parser = Xml.newPullParser();
+        try {
+            parser.setInput(xml);
+        } catch (XmlPullParserException e) {
+            throw new ParsingException("Invalid XML", e);
+        }
+        xmlToJSON(parser, sink, JsonWriteOptions.of(arrayTags), DEFAULT_LOOKAHEAD);
+        sink.flush();
+    }
+
+    /**
+     * Converts the XML read from the given {@link XmlPullParser} to JSON and writes it to the given {@link DataSink}.
+     *
+     * @param parser    The {@link XmlPullParser} to read XML from, with its input set.
+     * @param sink      The {@link DataSink} to write JSON to.
+     * @param options   The {@link JsonWriteOptions} to write with.
+     * @param lookahead The number of chars of JSON that can be held back for the keys of the open objects.
+     * @throws IOException      if reading or writing fails.
+     * @throws ParsingException if the XML is malformed or more than {@code lookahead} chars need to be held back.
+     */
+    public static void xmlToJSON(@NonNull XmlPullParser parser, @NonNull DataSink sink,
+                                 @NonNull JsonWriteOptions options, int lookahead) throws IOException {
+        XMLToJSON transcoder = new XMLToJSON(sink, options, lookahead);
+        try {
+            int skipDepth = 0;
+            for (int event = parser.nextToken(); event != XmlPullParser.END_DOCUMENT; event = parser.nextToken()) {
+                if (skipDepth > 0) {
+                    //inside an element left out of an anonymous array
+                    if (event == XmlPullParser.START_TAG) {
+                        skipDepth++;
+                    } else if (event == XmlPullParser.END_TAG) {
+                        skipDepth--;
+                    }
+                    continue;
+                }
+                switch (event) {
+                    case XmlPullParser.START_TAG:
+                        if (!transcoder.startElement(parser.getName(), parser.isEmptyElementTag())) {
+                            skipDepth = 1;
+                        }
+                        break;
+                    case XmlPullParser.END_TAG:
+                        transcoder.endElement();
+                        break;
+                    case XmlPullParser.TEXT:
+                    case XmlPullParser.ENTITY_REF:
+                    case XmlPullParser.IGNORABLE_WHITESPACE:
+                        transcoder.text(parser.getText(), false);
+                        break;
+                    case XmlPullParser.CDSECT:
+                        transcoder.text(parser.getText(), true);
+                        break;
+                }
+            }
+        } catch (XmlPullParserException e) {
+            throw new ParsingException("Invalid XML", e);
+        }
+        transcoder.endDocument();
+    }
+
+    /**
+     * Converts the JSON read from the given {@link Reader} to XML and writes it to the given {@link DataSink}.
+     *
+     * @param json The {@link Reader} to read JSON from.
+     * @param sink The {@link DataSink} to write XML to, it is flushed at the end.
+     * @throws IOException      if reading or writing fails.
+     * @throws ParsingException if the JSON is malformed or holds neither an object nor an array.
+     */
+    public static void jsonToXML(@NonNull Reader json, @NonNull DataSink sink) throws IOException {
+        JsonReader reader = new JsonReader(json);
+        reader.setLenient(true);
+        jsonToXML(reader, sink);
+        sink.flush();
+    }
+
+    /**
+     * Converts the JSON read from the given {@link JsonReader} to XML and writes it to the given {@link DataSink}.
+     *
+     * @param reader The {@link JsonReader} to read JSON from.
+     * @param sink   The {@link DataSink} to write XML to.
+     * @throws IOException      if reading or writing fails.
+     * @throws ParsingException if the JSON is malformed or holds neither an object nor an array.
+     */
+    public static void jsonToXML(@NonNull JsonReader reader, @NonNull DataSink sink) throws IOException {
+        try {
+            switch (reader.peek()) {
+                case BEGIN_OBJECT:
+                    writeObject(reader, sink);
+                    break;
+                case BEGIN_ARRAY:
+                    writeIndexed(reader, sink);
+                    break;
+                case END_DOCUMENT:
+                    break;
+                default:
+                    throw new ParsingException("JSON must hold an object or an array");
+            }
+        } catch (MalformedJsonException | EOFException | IllegalStateException e) {
+            throw new ParsingException("Invalid JSON", e);
+        }
+    }
+
+    private static void writeObject(@NonNull JsonReader reader, @NonNull DataSink sink) throws IOException {
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String tag = reader.nextName();
+            if (reader.peek() == JsonToken.BEGIN_ARRAY) {
+                reader.beginArray();
+                while (reader.hasNext()) {
+                    writeElement(tag, reader, sink);
+                }
+                reader.endArray();
+            } else {
+                writeElement(tag, reader, sink);
+            }
+        }
+        reader.endObject();
+    }
+
+    /**
+     * Writes the values of an array as elements tagged with their index.
+     */
+    private static void writeIndexed(@NonNull JsonReader reader, @NonNull DataSink sink) throws IOException {
+        reader.beginArray();
+        for (int i = 0; reader.hasNext(); i++) {
+            writeElement(String.valueOf(i), reader, sink);
+        }
+        reader.endArray();
+    }
+
+    private static void writeElement(@NonNull String tag, @NonNull JsonReader reader, @NonNull DataSink sink)
+            throws IOException {
+        String value;
+        switch (reader.peek()) {
+            case BEGIN_OBJECT:
+                sink.append('<').append(tag).append('>');
+                writeObject(reader, sink);
+                sink.append("</").append(tag).append('>');
+                return;
+            case BEGIN_ARRAY:
+                sink.append('<').append(tag).append('>');
+                writeIndexed(reader, sink);
+                sink.append("</").append(tag).append('>');
+                return;
+            case NULL:
+                reader.nextNull();
+                value = "null";
+                break;
+            case BOOLEAN:
+                value = String.valueOf(reader.nextBoolean());
+                break;
+            default:
+                value = reader.nextString();
+                break;
+        }
+        sink.append('<').append(tag);
+        if (value.isEmpty()) {
+            sink.append("/>");
+            return;
+        }
+        sink.append('>');
+        if (DataObject.hasIllegalValue(value)) {
+            sink.append(CDATA_OPEN).append(value).append(CDATA_CLOSE);
+        } else {
+            sink.append(value);
+        }
+        sink.append("</").append(tag).append('>');
+    }
+
+    /**
+     * The state of the XML to JSON conversion, a stack of the open elements with the document at the bottom.
+     */
+    private static final class XMLToJSON {
+        private final DataSink sink;
+        private final JsonWriteOptions options;
+        private final int lookahead;
+        private final List<Frame> frames = new ArrayList<>();
+        private int depth = 0;
+
+        XMLToJSON(@NonNull DataSink sink, @NonNull JsonWriteOptions options, int lookahead) {
+            this.sink = sink;
+            this.options = options;
+            this.lookahead = lookahead;
+            Frame document = new Frame();
+            document.reset(false, sink, true);
+            frames.add(document);
+        }
+
+        /**
+         * @return {@code False} if the element is left out, its content must then be skipped.
+         */
+        boolean startElement(@NonNull String tag, boolean empty) throws IOException {
+            Frame parent = frames.get(depth);
+            if (!parent.started) {
+                //the parent is an object or anonymous array, any text in it is dropped
+                parent.started = true;
+                parent.anonymous = ANONYMOUS_ARRAY_TAG.equals(tag);
+                parent.out.append(parent.anonymous ? '[' : '{');
+            }
+            DataSink out;
+            if (parent.anonymous) {
+                if (!ANONYMOUS_ARRAY_TAG.equals(tag)) {
+                    return false;
+                }
+                if (parent.itemCount++ > 0) {
+                    parent.out.append(',');
+                }
+                out = parent.out;
+            } else if (tag.equals(parent.streamTag)) {
+                if (!parent.streamArray) {
+                    throw new ParsingException("Invalid XML, there is more than one root element tagged " + tag
+                                               + ", list it in the arrayTags to write them as an array");
+                }
+                out = parent.out.append(',');
+            } else if (parent.streaming && parent.streamTag == null && !parent.runs.containsKey(tag)
+                       && (depth == 0 || options.isArrayTag(tag))) {
+                //the root element, or the first of the array tags in an object, is written as it is read
+                parent.streamTag = tag;
+                parent.streamArray = options.isArrayTag(tag);
+                parent.out.append('"').append(tag).append("\":");
+                out = parent.streamArray ? parent.out.append('[') : parent.out;
+            } else {
+                Run run = parent.runs.get(tag);
+                if (run == null) {
+                    run = new Run();
+                    parent.runs.put(tag, run);
+                } else {
+                    run.json.append(',');
+                }
+                run.count++;
+                out = run.sink;
+            }
+            depth++;
+            if (frames.size() == depth) {
+                frames.add(new Frame());
+            }
+            frames.get(depth).reset(empty, out, out == sink);
+            return true;
+        }
+
+        void text(@NonNull String text, boolean cdata) {
+            Frame frame = frames.get(depth);
+            if (depth == 0 || frame.started || frame.cdata) {
+                return;
+            }
+            if (cdata) {
+                //the value of an element is the first CDATA section in it
+                frame.text.setLength(0);
+                frame.cdata = true;
+            }
+            frame.text.append(text);
+        }
+
+        void endElement() throws IOException {
+            Frame frame = frames.get(depth);
+            if (frame.anonymous) {
+                frame.out.append(']');
+            } else if (frame.started) {
+                endObject(frame);
+            } else if (frame.empty) {
+                frame.out.append("\"null\"");
+            } else {
+                JSONSerializer.writeString(frame.text.toString(), frame.out);
+            }
+            depth--;
+            checkHeldBack();
+        }
+
+        void endDocument() throws IOException {
+            if (depth > 0) {
+                throw new ParsingException("Invalid XML, the document ends inside an element");
+            }
+            Frame document = frames.get(0);
+            if (document.anonymous) {
+                sink.append(']');
+            } else if (document.started) {
+                endObject(document);
+            }
+        }
+
+        /**
+         * Writes the keys held back for the given object after its streamed key, if it has one, and closes it.
+         */
+        private void endObject(@NonNull Frame frame) throws IOException {
+            DataSink out = frame.out;
+            boolean first = true;
+            if (frame.streamTag != null) {
+                if (frame.streamArray) {
+                    out.append(']');
+                }
+                first = false;
+            }
+            for (Map.Entry<String, Run> entry : frame.runs.entrySet()) {
+                if (!first) {
+                    out.append(',');
+                }
+                first = false;
+                String tag = entry.getKey();
+                Run run = entry.getValue();
+                out.append('"').append(tag).append("\":");
+                if (run.count == 1 && !options.isArrayTag(tag)) {
+                    out.append(run.json);
+                } else {
+                    out.append('[').append(run.json).append(']');
+                }
+            }
+            out.append('}');
+            frame.runs.clear();
+        }
+
+        /**
+         * @throws ParsingException if the keys held back for the open objects have grown longer than the lookahead.
+         */
+        private void checkHeldBack() {
+            long heldBack = 0;
+            for (int i = 0; i <= depth; i++) {
+                for (Run run : frames.get(i).runs.values()) {
+                    heldBack += run.json.length();
+                }
+            }
+            if (heldBack > lookahead) {
+                throw new ParsingException("More than " + lookahead + " chars of JSON are held back for keys that "
+                                           + "may repeat, list the tags of the long runs in the arrayTags");
+            }
+        }
+    }
+
+    private static final class Frame {
+        final StringBuilder text = new StringBuilder();
+        //the values of the keys held back until the element ends, in the order their tags first appear
+        final Map<String, Run> runs = new LinkedHashMap<>();
+        //where the value of the element is written, and if that is the output itself
+        DataSink out;
+        boolean streaming;
+        boolean empty;
+        boolean cdata;
+        //true once the element is known to be an object, or an anonymous array, and its opening bracket is written
+        boolean started;
+        boolean anonymous;
+        int itemCount;
+        //the tag whose values are written as they are read, as an array unless it is the root element
+        String streamTag;
+        boolean streamArray;
+
+        void reset(boolean empty, @NonNull DataSink out, boolean streaming) {
+            text.setLength(0);
+            runs.clear();
+            this.out = out;
+            this.streaming = streaming;
+            this.empty = empty;
+            cdata = false;
+            started = false;
+            anonymous = false;
+            itemCount = 0;
+            streamTag = null;
+            streamArray = false;
+        }
+    }
+
+    /**
+     * The values of the elements of an object with the same tag, held back until the object ends.
+     */
+    private static final class Run {
+        final StringBuilder json = new StringBuilder();
+        final DataSink sink = DataSink.of(json);
+        int count;
+    }
+}
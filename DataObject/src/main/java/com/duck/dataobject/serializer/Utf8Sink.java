@@ -0,0 +1,234 @@
+package com.duck.dataobject.serializer;
+
+import androidx.annotation.NonNull;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * A {@link DataSink} that encodes the characters written to it as UTF-8 bytes. Runs of ASCII characters are copied
+ * straight into the byte buffer, other characters are encoded one at a time. Unpaired surrogates are written as {@code
+ * '?'}, the same as {@link String#getBytes(java.nio.charset.Charset)} does.
+ */
+abstract class Utf8Sink extends DataSink {
+    byte[] buffer;
+    int position;
+    int limit;
+    private int last = -1;
+    //a high surrogate waiting for its low surrogate
+    private char high = 0;
+
+    Utf8Sink(byte[] buffer, int position, int limit) {
+        this.buffer = buffer;
+        this.position = position;
+        this.limit = limit;
+    }
+
+    /**
+     * Empties the buffer, after this there must be room for at least 4 bytes. Sinks that can't make room throw a
+     * {@link BufferOverflowException}.
+     */
+    abstract void drain() throws IOException;
+
+    @Override
+    public DataSink append(char c) throws IOException {
+        encode(c);
+        last = c;
+        return this;
+    }
+
+    @Override
+    public DataSink append(@NonNull String string, int start, int end) throws IOException {
+        int i = start;
+        while (i < end) {
+            if (high == 0) {
+                int stop = i + Math.min(limit - position, end - i);
+                while (i < stop) {
+                    char c = string.charAt(i);
+                    if (c >= 0x80) {
+                        break;
+                    }
+                    buffer[position++] = (byte) c;
+                    i++;
+                }
+                if (i == end) {
+                    break;
+                }
+                if (position == limit) {
+                    drain();
+                    continue;
+                }
+            }
+            encode(string.charAt(i++));
+        }
+        if (start < end) {
+            last = string.charAt(end - 1);
+        }
+        return this;
+    }
+
+    private void encode(char c) throws IOException {
+        if (high != 0) {
+            char pending = high;
+            high = 0;
+            if (Character.isLowSurrogate(c)) {
+                int codePoint = Character.toCodePoint(pending, c);
+                require(4);
+                buffer[position++] = (byte) (0xF0 | (codePoint >> 18));
+                buffer[position++] = (byte) (0x80 | ((codePoint >> 12) & 0x3F));
+                buffer[position++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+                buffer[position++] = (byte) (0x80 | (codePoint & 0x3F));
+                return;
+            }
+            require(1);
+            buffer[position++] = '?';
+        }
+        if (c < 0x80) {
+            require(1);
+            buffer[position++] = (byte) c;
+        } else if (c < 0x800) {
+            require(2);
+            buffer[position++] = (byte) (0xC0 | (c >> 6));
+            buffer[position++] = (byte) (0x80 | (c & 0x3F));
+        } else if (Character.isHighSurrogate(c)) {
+            high = c;
+        } else if (Character.isLowSurrogate(c)) {
+            require(1);
+            buffer[position++] = '?';
+        } else {
+            require(3);
+            buffer[position++] = (byte) (0xE0 | (c >> 12));
+            buffer[position++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+            buffer[position++] = (byte) (0x80 | (c & 0x3F));
+        }
+    }
+
+    private void require(int count) throws IOException {
+        if (limit - position < count) {
+            drain();
+        }
+    }
+
+    @Override
+    public int lastChar() {
+        return last;
+    }
+
+    /**
+     * Writes out the buffered bytes, a high surrogate still waiting for its pair is written as {@code '?'}.
+     */
+    @Override
+    public void flush() throws IOException {
+        if (high != 0) {
+            high = 0;
+            require(1);
+            buffer[position++] = '?';
+        }
+    }
+
+    static final class StreamSink extends Utf8Sink {
+        private final OutputStream out;
+
+        StreamSink(OutputStream out) {
+            super(new byte[BUFFER_SIZE * 2], 0, BUFFER_SIZE * 2);
+            this.out = out;
+        }
+
+        @Override
+        void drain() throws IOException {
+            out.write(buffer, 0, position);
+            position = 0;
+        }
+
+        @Override
+        public void flush() throws IOException {
+            super.flush();
+            drain();
+        }
+    }
+
+    static final class ChannelSink extends Utf8Sink {
+        private final WritableByteChannel channel;
+        private final ByteBuffer view;
+
+        ChannelSink(WritableByteChannel channel) {
+            super(new byte[BUFFER_SIZE * 2], 0, BUFFER_SIZE * 2);
+            this.channel = channel;
+            view = ByteBuffer.wrap(buffer);
+        }
+
+        @Override
+        void drain() throws IOException {
+            view.clear();
+            view.limit(position);
+            while (view.hasRemaining()) {
+                //a channel in non-blocking mode writes nothing when it is full, which would spin here
+                if (channel.write(view) == 0) {
+                    throw new IOException("The channel wrote no bytes, it must be in blocking mode");
+                }
+            }
+            position = 0;
+        }
+
+        @Override
+        public void flush() throws IOException {
+            super.flush();
+            drain();
+        }
+    }
+
+    /**
+     * Writes straight into the backing array of a heap {@link ByteBuffer}.
+     */
+    static final class ArrayBufferSink extends Utf8Sink {
+        private final ByteBuffer target;
+        private final int offset;
+
+        ArrayBufferSink(ByteBuffer target) {
+            super(target.array(),
+                  target.arrayOffset() + target.position(),
+                  target.arrayOffset() + target.limit());
+            this.target = target;
+            offset = target.arrayOffset();
+        }
+
+        @Override
+        void drain() {
+            target.position(position - offset);
+            throw new BufferOverflowException();
+        }
+
+        @Override
+        public void flush() throws IOException {
+            super.flush();
+            target.position(position - offset);
+        }
+    }
+
+    /**
+     * Writes to a direct or read only {@link ByteBuffer} through a small buffer.
+     */
+    static final class ByteBufferSink extends Utf8Sink {
+        private final ByteBuffer target;
+
+        ByteBufferSink(ByteBuffer target) {
+            super(new byte[BUFFER_SIZE], 0, BUFFER_SIZE);
+            this.target = target;
+        }
+
+        @Override
+        void drain() {
+            target.put(buffer, 0, position);
+            position = 0;
+        }
+
+        @Override
+        public void flush() throws IOException {
+            super.flush();
+            drain();
+        }
+    }
+}
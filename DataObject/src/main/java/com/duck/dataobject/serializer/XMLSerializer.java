@@ -0,0 +1,228 @@
+package com.duck.dataobject.serializer;
+
+import androidx.annotation.NonNull;
+
+import com.duck.dataobject.DataObject;
+import com.duck.dataobject.node.DataElement;
+
+import java.io.IOException;
+import java.util.List;
+
+import static com.duck.dataobject.DataObject.CDATA_CLOSE;
+import static com.duck.dataobject.DataObject.CDATA_OPEN;
+import static com.duck.dataobject.DataObject.NEW_LINE;
+
+/**
+ * Writes {@link DataObject DataObjects} and {@link DataElement DataElements} as XML to a {@link DataSink}, this is the
+ * output of {@link DataObject#toXML()} and {@link DataObject#toFormattedXML()}.
+ */
+public class XMLSerializer {
+
+    /**
+     * Writes the given {@link DataObject} as XML to the given {@link StringBuilder}.
+     *
+     * @param object The {@link DataObject} to write.
+     * @param out    The {@link StringBuilder} to write to.
+     */
+    public static void write(@NonNull DataObject object, @NonNull StringBuilder out) {
+        try {
+            write(object, DataSink.of(out));
+        } catch (IOException e) {
+            throw new IllegalStateException("Writing to a StringBuilder failed", e);
+        }
+    }
+
+    /**
+     * Writes the given {@link DataElement} as XML to the given {@link StringBuilder}.
+     *
+     * @param element The {@link DataElement} to write.
+     * @param out     The {@link StringBuilder} to write to.
+     */
+    public static void write(@NonNull DataElement element, @NonNull StringBuilder out) {
+        try {
+            write(element, DataSink.of(out));
+        } catch (IOException e) {
+            throw new IllegalStateException("Writing to a StringBuilder failed", e);
+        }
+    }
+
+    /**
+     * Writes the given {@link DataObject} as formatted XML to the given {@link StringBuilder}.
+     *
+     * @param object      The {@link DataObject} to write.
+     * @param indentCount The starting indentation level.
+     * @param out         The {@link StringBuilder} to write to.
+     */
+    public static void writeFormatted(@NonNull DataObject object, int indentCount, @NonNull StringBuilder out) {
+        try {
+            writeFormatted(object, indentCount, DataSink.of(out));
+        } catch (IOException e) {
+            throw new IllegalStateException("Writing to a StringBuilder failed", e);
+        }
+    }
+
+    /**
+     * Writes the given {@link DataElement} as formatted XML to the given {@link StringBuilder}.
+     *
+     * @param element     The {@link DataElement} to write.
+     * @param indentCount The starting indentation level.
+     * @param out         The {@link StringBuilder} to write to.
+     */
+    public static void writeFormatted(@NonNull DataElement element, int indentCount, @NonNull StringBuilder out) {
+        try {
+            writeFormatted(element, indentCount, DataSink.of(out));
+        } catch (IOException e) {
+            throw new IllegalStateException("Writing to a StringBuilder failed", e);
+        }
+    }
+
+    /**
+     * Writes the given {@link DataObject} as XML to the given {@link DataSink}, using its {@link OutputCache} if it
+     * has one.
+     *
+     * @param object The {@link DataObject} to write.
+     * @param sink   The {@link DataSink} to write to.
+     * @throws IOException if the sink fails to write.
+     */
+    public static void write(@NonNull DataObject object, @NonNull DataSink sink) throws IOException {
+        OutputCache cache = object.getOutputCache();
+        if (cache == null) {
+            writeObject(object, sink);
+            return;
+        }
+        String xml = cache.getXML();
+        if (xml == null) {
+            cache.linkChildren(object);
+            StringBuilder fragment = new StringBuilder();
+            writeObject(object, DataSink.of(fragment));
+            xml = fragment.toString();
+            cache.putXML(xml);
+        }
+        sink.append(xml, 0, xml.length());
+    }
+
+    private static void writeObject(@NonNull DataObject object, @NonNull DataSink sink) throws IOException {
+        for (List<DataElement> elements : object.getElementLists()) {
+            for (int i = 0; i < elements.size(); i++) {
+                write(elements.get(i), sink);
+            }
+        }
+    }
+
+    /**
+     * Writes the given {@link DataElement} as XML to the given {@link DataSink}. Elements whose value contains characters
+     * that are illegal in XML are written as CDATA.
+     *
+     * @param element The {@link DataElement} to write.
+     * @param sink    The {@link DataSink} to write to.
+     * @throws IOException if the sink fails to write.
+     */
+    public static void write(@NonNull DataElement element, @NonNull DataSink sink) throws IOException {
+        sink.append('<').append(element.tag);
+        writeAttributes(element, sink);
+        if (element.isObject()) {
+            sink.append('>');
+            write((DataObject) element.value, sink);
+            closeTag(element, sink);
+        } else if (element.value != null && element.value.equals("")) {
+            sink.append("/>");
+        } else {
+            sink.append('>');
+            if (isCDATA(element)) {
+                sink.append(CDATA_OPEN);
+                writeValue(element, sink);
+                sink.append(CDATA_CLOSE);
+            } else {
+                writeValue(element, sink);
+            }
+            closeTag(element, sink);
+        }
+    }
+
+    /**
+     * Writes the given {@link DataObject} as formatted XML to the given {@link DataSink}, one element per line.
+     *
+     * @param object      The {@link DataObject} to write.
+     * @param indentCount The starting indentation level.
+     * @param sink        The {@link DataSink} to write to.
+     * @throws IOException if the sink fails to write.
+     */
+    public static void writeFormatted(@NonNull DataObject object, int indentCount, @NonNull DataSink sink)
+            throws IOException {
+        boolean first = true;
+        for (List<DataElement> elements : object.getElementLists()) {
+            for (int i = 0; i < elements.size(); i++) {
+                if (!first) {
+                    sink.append(NEW_LINE);
+                }
+                first = false;
+                writeFormatted(elements.get(i), indentCount, sink);
+            }
+        }
+    }
+
+    /**
+     * Writes the given {@link DataElement} as formatted XML to the given {@link DataSink}. Elements whose value contains
+     * characters that are illegal in XML are written as CDATA.
+     *
+     * @param element     The {@link DataElement} to write.
+     * @param indentCount The starting indentation level.
+     * @param sink        The {@link DataSink} to write to.
+     * @throws IOException if the sink fails to write.
+     */
+    public static void writeFormatted(@NonNull DataElement element, int indentCount, @NonNull DataSink sink)
+            throws IOException {
+        JSONSerializer.indent(sink, indentCount).append('<').append(element.tag);
+        writeAttributes(element, sink);
+        sink.append('>');
+        if (element.isObject()) {
+            sink.append(NEW_LINE);
+            writeFormatted((DataObject) element.value, indentCount + 1, sink);
+            JSONSerializer.indent(sink, indentCount).append(NEW_LINE);
+            JSONSerializer.indent(sink, indentCount);
+        } else if (isCDATA(element)) {
+            sink.append(CDATA_OPEN);
+            writeValue(element, sink);
+            sink.append(CDATA_CLOSE);
+        } else {
+            writeValue(element, sink);
+        }
+        closeTag(element, sink);
+    }
+
+    static void writeAttributes(@NonNull DataElement element, @NonNull DataSink sink) throws IOException {
+        for (int i = 0; i < element.getAttributeCount(); i++) {
+            sink.append(' ')
+                .append(element.getAttributeTag(i))
+                .append("=\"")
+                .append(element.getAttributeValue(i))
+                .append('"');
+        }
+    }
+
+    /**
+     * @return {@code True} if the value of the given element is written as CDATA, because it is marked as {@link
+     * DataElement#CDATA} or holds characters that are illegal in XML. Unlike {@link
+     * DataObject#hasIllegalValue(DataElement)} it leaves the element as it is.
+     */
+    static boolean isCDATA(@NonNull DataElement element) {
+        if (element.CDATA) {
+            return true;
+        }
+        if (element.isObject()) {
+            return false;
+        }
+        String value = element.getValueAsString("");
+        return value != null && DataObject.hasIllegalValue(value);
+    }
+
+    private static void writeValue(@NonNull DataElement element, @NonNull DataSink sink) throws IOException {
+        if (!NumberWriter.write(element.value, sink)) {
+            sink.append(String.valueOf(element.value));
+        }
+    }
+
+    static void closeTag(@NonNull DataElement element, @NonNull DataSink sink) throws IOException {
+        sink.append("</").append(element.tag).append('>');
+    }
+}
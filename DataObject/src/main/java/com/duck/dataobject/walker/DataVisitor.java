@@ -0,0 +1,54 @@
+package com.duck.dataobject.walker;
+
+import androidx.annotation.IntDef;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.duck.dataobject.DataObject;
+import com.duck.dataobject.node.DataElement;
+
+/**
+ * Callback interface for a depth-first traversal performed by a {@link DataWalker}.
+ */
+public interface DataVisitor {
+    /**
+     * Carry on with the traversal as normal.
+     */
+    int CONTINUE = 0;
+    /**
+     * Do not descend into the children of the element that was just entered, {@link #leave} will not be called for it.
+     */
+    int SKIP_SUBTREE = 1;
+    /**
+     * Stop the traversal immediately.
+     */
+    int STOP = 2;
+
+    /**
+     * Called when the walker reaches a {@link DataElement}, before any of its children are visited.
+     *
+     * @param element The {@link DataElement} being entered.
+     * @param parent  The {@link DataObject} holding the element, or {@code null} if the element is an item of an array
+     *                value.
+     * @param depth   The depth of the element, top level elements have a depth of 0.
+     * @return One of {@link #CONTINUE}, {@link #SKIP_SUBTREE} or {@link #STOP}.
+     */
+    @VisitResult
+    int enter(@NonNull DataElement element, @Nullable DataObject parent, int depth);
+
+    /**
+     * Called once all the children of a {@link DataElement} have been visited.
+     *
+     * @param element The {@link DataElement} being left.
+     * @param parent  The {@link DataObject} holding the element, or {@code null} if the element is an item of an array
+     *                value.
+     * @param depth   The depth of the element, top level elements have a depth of 0.
+     * @return {@link #STOP} to stop the traversal, any other value continues.
+     */
+    @VisitResult
+    int leave(@NonNull DataElement element, @Nullable DataObject parent, int depth);
+
+    @IntDef(value = {CONTINUE, SKIP_SUBTREE, STOP})
+    @interface VisitResult {
+    }
+}
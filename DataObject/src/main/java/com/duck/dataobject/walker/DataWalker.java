@@ -0,0 +1,173 @@
+package com.duck.dataobject.walker;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.duck.dataobject.DataObject;
+import com.duck.dataobject.node.DataElement;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Depth-first walker over a {@link DataObject} tree.
+ * <p>
+ * The walker keeps its own stack instead of recursing, so very deep documents can not overflow the call stack, and the
+ * stack is kept between walks so a single walker can be reused for many traversals without allocating new frames. Apart
+ * from the iterator over each {@link DataObject DataObject's} tags the walk itself does not allocate.
+ * <p>
+ * Elements holding a {@link DataObject} are descended into, as are elements holding an array value. A walker is not
+ * thread safe, use one walker per thread.
+ */
+public final class DataWalker {
+    private static final int INITIAL_DEPTH = 16;
+
+    //one frame per level: either an object frame (tagIterator != null) or an array frame (tagIterator == null)
+    private DataElement[] owners = new DataElement[INITIAL_DEPTH];
+    private DataObject[] ownerParents = new DataObject[INITIAL_DEPTH];
+    private DataObject[] objects = new DataObject[INITIAL_DEPTH];
+    private Iterator<?>[] tagIterators = new Iterator<?>[INITIAL_DEPTH];
+    private List<?>[] lists = new List<?>[INITIAL_DEPTH];
+    private int[] indices = new int[INITIAL_DEPTH];
+    private int top = -1;
+
+    /**
+     * Walks the given {@link DataObject}, depth first, calling the given {@link DataVisitor} for every element.
+     *
+     * @param root    The {@link DataObject} to walk.
+     * @param visitor The {@link DataVisitor} to call.
+     * @return {@code False} if the walk was stopped by the visitor, {@code True} otherwise.
+     */
+    public boolean walk(@NonNull DataObject root, @NonNull DataVisitor visitor) {
+        top = -1;
+        try {
+            pushObject(root, null, null);
+            return run(visitor);
+        } finally {
+            clear();
+        }
+    }
+
+    /**
+     * Walks the given {@link DataElement} and all of its children, depth first, calling the given {@link DataVisitor} for
+     * every element. The given element is visited with a depth of 0 and a {@code null} parent.
+     *
+     * @param element The {@link DataElement} to walk.
+     * @param visitor The {@link DataVisitor} to call.
+     * @return {@code False} if the walk was stopped by the visitor, {@code True} otherwise.
+     */
+    public boolean walk(@NonNull DataElement element, @NonNull DataVisitor visitor) {
+        top = -1;
+        try {
+            pushArray(Collections.singletonList(element), null, null);
+            return run(visitor);
+        } finally {
+            clear();
+        }
+    }
+
+    private boolean run(DataVisitor visitor) {
+        while (top >= 0) {
+            DataElement element = next();
+            if (element == null) {
+                //this frame is done, leave the element that owns it
+                DataElement owner = owners[top];
+                DataObject ownerParent = ownerParents[top];
+                pop();
+                if (owner != null && visitor.leave(owner, ownerParent, top) == DataVisitor.STOP) {
+                    return false;
+                }
+                continue;
+            }
+            DataObject parent = objects[top];
+            int depth = top;
+            int result = visitor.enter(element, parent, depth);
+            if (result == DataVisitor.STOP) {
+                return false;
+            } else if (result == DataVisitor.SKIP_SUBTREE) {
+                continue;
+            }
+            if (element.isObject()) {
+                pushObject((DataObject) element.value, element, parent);
+            } else if (element.isArray()) {
+                pushArray((List<?>) element.value, element, parent);
+            } else if (visitor.leave(element, parent, depth) == DataVisitor.STOP) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return The next {@link DataElement} of the top frame or {@code null} if the frame has been exhausted.
+     */
+    @Nullable
+    private DataElement next() {
+        while (true) {
+            List<?> list = lists[top];
+            int index = indices[top];
+            if (list == null || index >= list.size()) {
+                Iterator<?> iterator = tagIterators[top];
+                if (iterator == null || !iterator.hasNext()) {
+                    return null;
+                }
+                lists[top] = (List<?>) iterator.next();
+                indices[top] = 0;
+                continue;
+            }
+            indices[top] = index + 1;
+            Object item = list.get(index);
+            if (item instanceof DataElement) {
+                return (DataElement) item;
+            }
+            //arrays may hold things other than elements, there is nothing to visit for those.
+        }
+    }
+
+    private void pushObject(DataObject object, DataElement owner, DataObject ownerParent) {
+        push(owner, ownerParent);
+        objects[top] = object;
+        tagIterators[top] = object.getElementLists().iterator();
+    }
+
+    private void pushArray(List<?> list, DataElement owner, DataObject ownerParent) {
+        push(owner, ownerParent);
+        lists[top] = list;
+    }
+
+    private void push(DataElement owner, DataObject ownerParent) {
+        top++;
+        if (top == owners.length) {
+            int size = owners.length * 2;
+            owners = Arrays.copyOf(owners, size);
+            ownerParents = Arrays.copyOf(ownerParents, size);
+            objects = Arrays.copyOf(objects, size);
+            tagIterators = Arrays.copyOf(tagIterators, size);
+            lists = Arrays.copyOf(lists, size);
+            indices = Arrays.copyOf(indices, size);
+        }
+        owners[top] = owner;
+        ownerParents[top] = ownerParent;
+        objects[top] = null;
+        tagIterators[top] = null;
+        lists[top] = null;
+        indices[top] = 0;
+    }
+
+    private void pop() {
+        owners[top] = null;
+        ownerParents[top] = null;
+        objects[top] = null;
+        tagIterators[top] = null;
+        lists[top] = null;
+        top--;
+    }
+
+    private void clear() {
+        while (top >= 0) {
+            pop();
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package com.duck.dataobject.walker;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.duck.dataobject.DataObject;
+import com.duck.dataobject.node.DataElement;
+
+/**
+ * Convenience {@link DataVisitor} which continues through the whole tree, override only the callbacks you need.
+ */
+public abstract class SimpleDataVisitor implements DataVisitor {
+    @Override
+    public int enter(@NonNull DataElement element, @Nullable DataObject parent, int depth) {
+        return CONTINUE;
+    }
+
+    @Override
+    public int leave(@NonNull DataElement element, @Nullable DataObject parent, int depth) {
+        return CONTINUE;
+    }
+}
@@ -0,0 +1,180 @@
+package com.duck.dataobject;
+
+import com.duck.dataobject.node.DataElement;
+import com.duck.dataobject.node.XMLAttribute;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
+
+@RunWith(RobolectricTestRunner.class)
+public class AttributeIndexTest {
+    private static final String XML = "<catalog>"
+            + "<item id=\"1\" kind=\"a\">one</item>"
+            + "<item id=\"2\" kind=\"a\">two</item>"
+            + "<item id=\"1\" kind=\"b\">one b</item>"
+            + "<item id=\"3\">three</item>"
+            + "<item kind=\"b\">no id</item>"
+            + "<item>plain</item>"
+            + "<item id=\"2\" kind=\"a\">two again</item>"
+            + "<shelf><item id=\"1\" kind=\"a\">shelf one</item><item id=\"4\">shelf four</item></shelf>"
+            + "</catalog>";
+
+    //single attributes, two attributes that must both be there, and values no element has
+    private static final XMLAttribute[][] ATTRIBUTES = {
+            {new XMLAttribute("id", "1")},
+            {new XMLAttribute("id", "2")},
+            {new XMLAttribute("id", "4")},
+            {new XMLAttribute("id", "9")},
+            {new XMLAttribute("kind", "a")},
+            {new XMLAttribute("kind", "b")},
+            {new XMLAttribute("id", "1"), new XMLAttribute("kind", "a")},
+            {new XMLAttribute("kind", "b"), new XMLAttribute("id", "1")},
+            {new XMLAttribute("id", "2"), new XMLAttribute("kind", "a")},
+            {new XMLAttribute("id", "3"), new XMLAttribute("kind", "a")},
+            {new XMLAttribute("id", "1"), new XMLAttribute("id", "2")},
+            {new XMLAttribute("other", "1")}
+    };
+
+    @Test
+    public void findsTheSameAsTheLinearMatch() {
+        for (DataObject root : roots()) {
+            assertMatchesLinear(root);
+        }
+    }
+
+    @Test
+    public void findsTheSameAsTheLinearMatchAfterChanges() {
+        for (DataObject root : roots()) {
+            DataObject catalog = root.get("catalog").getValueAsObject(null);
+            catalog.insert("item", "four", new XMLAttribute("id", "4"), new XMLAttribute("kind", "a"));
+            catalog.insert("item", "one c", new XMLAttribute("id", "1"));
+            assertMatchesLinear(root);
+            catalog.remove("item", new XMLAttribute("id", "2"), new XMLAttribute("kind", "a"));
+            catalog.remove("item", new XMLAttribute("id", "3"));
+            assertMatchesLinear(root);
+            //the update gives the first item new attributes, which moves it to the end of its buckets
+            catalog.update(new DataElement("item", "updated", new XMLAttribute("id", "2"), new XMLAttribute("kind", "b")));
+            assertEquals("updated", catalog.getList("item").get(0).getValueAsString(null));
+            assertMatchesLinear(root);
+            DataObject shelf = catalog.get("shelf").getValueAsObject(null);
+            shelf.insert("item", "shelf one again", new XMLAttribute("id", "1"), new XMLAttribute("kind", "a"));
+            shelf.update(new DataElement("item", "shelf two", new XMLAttribute("id", "2"), new XMLAttribute("kind", "a")));
+            assertMatchesLinear(root);
+            catalog.remove("shelf");
+            assertMatchesLinear(root);
+            //the removed object no longer uses the index
+            assertMatchesLinear(shelf);
+        }
+    }
+
+    @Test
+    public void keepsTheListOrderWhenSeveralMatch() {
+        DataObject root = new DataObject(XML).enableAttributeIndex("item", "id");
+        DataObject catalog = root.get("catalog").getValueAsObject(null);
+        assertNotNull(root.get("item", true));
+        DataElement first = catalog.getList("item").get(0);
+        catalog.insert("item", "one again", new XMLAttribute("id", "1"), new XMLAttribute("kind", "a"));
+        //moves the first item to the end of the bucket of id 1, after the item just inserted
+        catalog.update(new DataElement("item", "first", new XMLAttribute("id", "1"), new XMLAttribute("kind", "a")));
+        assertSame(first, catalog.getList("item").get(0));
+        assertSame(first, catalog.get("item", new XMLAttribute("id", "1"), new XMLAttribute("kind", "a")));
+        List<DataElement> ones = catalog.getList("item", new XMLAttribute("id", "1"));
+        assertEquals(3, ones.size());
+        assertSame(first, ones.get(0));
+        assertEquals("one b", ones.get(1).getValueAsString(null));
+        assertEquals("one again", ones.get(2).getValueAsString(null));
+        //one match in this object, the others are in the shelf
+        DataObject shelf = catalog.get("shelf").getValueAsObject(null);
+        assertEquals("shelf one", shelf.get("item", new XMLAttribute("id", "1"), new XMLAttribute("kind", "a"))
+                                       .getValueAsString(null));
+    }
+
+    /**
+     * @return Copies of the document without an index, with a tag index only, with an attribute index on one attribute
+     * and with attribute indexes on both.
+     */
+    private static List<DataObject> roots() {
+        List<DataObject> roots = new ArrayList<>();
+        roots.add(new DataObject(XML));
+        roots.add(new DataObject(XML).enableTagIndex());
+        roots.add(new DataObject(XML).enableAttributeIndex("item", "id"));
+        roots.add(new DataObject(XML).enableAttributeIndex("item", "kind").enableAttributeIndex("item", "id"));
+        for (DataObject root : roots) {
+            //build the index before the document is changed
+            assertNotNull(root.get("item", true));
+        }
+        return roots;
+    }
+
+    /**
+     * Asserts that the {@code get} and {@code getList} of every object in the document give the same elements as matching
+     * the attributes of each element of the tag in turn.
+     */
+    private static void assertMatchesLinear(DataObject root) {
+        List<DataObject> scopes = new ArrayList<>();
+        collect(root, scopes);
+        for (DataObject scope : scopes) {
+            List<DataElement> elements = listOf(scope, "item");
+            for (XMLAttribute[] attributes : ATTRIBUTES) {
+                DataElement expected = null;
+                List<DataElement> expectedList = new ArrayList<>();
+                for (DataElement element : elements) {
+                    if (expected == null && element.matchAttributes(attributes)) {
+                        expected = element;
+                    }
+                    if (element.hasAttribute(attributes)) {
+                        expectedList.add(element);
+                    }
+                }
+                String description = describe(attributes);
+                assertSame(description, expected, scope.get("item", attributes));
+                if (attributes.length == 1) {
+                    assertSame(description, expected, scope.get("item", attributes[0].getTag(),
+                                                                 attributes[0].getValueAsString()));
+                }
+                List<DataElement> actualList = scope.getList("item", attributes);
+                assertEquals(description, expectedList.size(), actualList.size());
+                for (int i = 0; i < expectedList.size(); i++) {
+                    assertSame(description, expectedList.get(i), actualList.get(i));
+                }
+            }
+        }
+    }
+
+    private static void collect(DataObject object, List<DataObject> scopes) {
+        scopes.add(object);
+        for (List<DataElement> list : object.getElementLists()) {
+            for (DataElement element : list) {
+                if (element.isObject()) {
+                    collect(element.getValueAsObject(null), scopes);
+                }
+            }
+        }
+    }
+
+    private static List<DataElement> listOf(DataObject object, String tag) {
+        for (Map.Entry<String, List<DataElement>> entry : object.getElementEntries()) {
+            if (entry.getKey().equals(tag)) {
+                return entry.getValue();
+            }
+        }
+        return new ArrayList<>();
+    }
+
+    private static String describe(XMLAttribute[] attributes) {
+        StringBuilder description = new StringBuilder();
+        for (XMLAttribute attribute : attributes) {
+            description.append(attribute.toString()).append(' ');
+        }
+        return description.toString();
+    }
+}
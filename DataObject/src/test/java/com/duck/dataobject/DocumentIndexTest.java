@@ -0,0 +1,242 @@
+package com.duck.dataobject;
+
+import com.duck.dataobject.node.DataElement;
+import com.duck.dataobject.node.XMLAttribute;
+import com.google.gson.JsonParser;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
+
+@RunWith(RobolectricTestRunner.class)
+public class DocumentIndexTest {
+    private static final String XML = "<shop>"
+            + "<name>top</name>"
+            + "<item id=\"1\" kind=\"a\"><name>one</name><price>1</price>"
+            + "<detail><name>deep</name><entry id=\"4\"><name>four</name></entry></detail></item>"
+            + "<item id=\"2\" kind=\"b\"><name>two</name><tags><tag>x</tag><tag>y</tag></tags></item>"
+            + "<item id=\"1\" kind=\"b\"><name>one again</name></item>"
+            + "<box><detail><price>9</price><item id=\"3\"><name>three</name></item></detail></box>"
+            + "</shop>";
+
+    //the lookups checked against the plain walk, with and without the attributes
+    private static final XMLAttribute[][] ATTRIBUTES = {
+            null,
+            {new XMLAttribute("id", "1")},
+            {new XMLAttribute("id", "3")},
+            {new XMLAttribute("id", "1"), new XMLAttribute("kind", "b")},
+            {new XMLAttribute("kind", "a")},
+            {new XMLAttribute("id", "9")}
+    };
+
+    @Test
+    public void findsTheSameAsAPlainWalkAfterParsing() {
+        assertMatchesWalk(indexed(XML));
+        assertMatchesWalk(indexed("{\"a\":{\"b\":{\"c\":\"1\",\"d\":[{\"c\":\"2\"}]},\"c\":\"3\"},\"e\":{\"c\":\"4\"}}"));
+        DataObject attributeIndexed = indexed(XML).enableAttributeIndex("item", "id");
+        attributeIndexed.enableAttributeIndex("item", "kind");
+        assertMatchesWalk(attributeIndexed);
+    }
+
+    @Test
+    public void findsTheSameAsAPlainWalkAfterInsert() {
+        for (DataObject root : roots()) {
+            DataObject shop = root.get("shop").getValueAsObject(null);
+            assertMatchesWalk(root);
+            shop.insert("item", "new", new XMLAttribute("id", "1"));
+            assertMatchesWalk(root);
+            DataObject detail = new DataObject();
+            detail.insert("name", "inserted");
+            detail.insert("item", "inserted", new XMLAttribute("id", "3"));
+            shop.insert("detail", detail);
+            assertMatchesWalk(root);
+            //objects that were already indexed
+            DataObject box = shop.get("box").getValueAsObject(null);
+            box.insert("price", "10");
+            box.insert("item", new DataObject().insert("name", "in box"), new XMLAttribute("id", "3"));
+            assertMatchesWalk(root);
+            DataObject deep = shop.get("detail", true).getValueAsObject(null);
+            deep.insert("detail", new DataObject().insert("item", "deeper", new XMLAttribute("id", "1")));
+            assertMatchesWalk(root);
+            //an object inserted and changed afterwards
+            detail.insert("price", "11");
+            detail.insert("item", "later", new XMLAttribute("id", "4"));
+            assertMatchesWalk(root);
+        }
+    }
+
+    @Test
+    public void findsTheSameAsAPlainWalkAfterRemove() {
+        for (DataObject root : roots()) {
+            DataObject shop = root.get("shop").getValueAsObject(null);
+            assertMatchesWalk(root);
+            shop.remove("item", new XMLAttribute("id", "1"));
+            assertMatchesWalk(root);
+            shop.remove("item", true, new XMLAttribute("id", "3"));
+            assertMatchesWalk(root);
+            DataObject item = shop.get("item").getValueAsObject(null);
+            DataElement detail = shop.remove("detail", true);
+            assertNotNull(detail);
+            assertMatchesWalk(root);
+            //the removed object is no longer part of the document
+            detail.getValueAsObject(null).insert("name", "removed");
+            assertMatchesWalk(root);
+            item.remove("name");
+            shop.remove("name", true);
+            assertMatchesWalk(root);
+            shop.remove("box");
+            assertMatchesWalk(root);
+        }
+    }
+
+    @Test
+    public void findsTheSameAsAPlainWalkAfterUpdate() {
+        for (DataObject root : roots()) {
+            DataObject shop = root.get("shop").getValueAsObject(null);
+            shop.update("name", "updated");
+            assertMatchesWalk(root);
+            //a value replaced by an object, and an object by a value
+            shop.update("name", new DataObject().insert("item", "in name", new XMLAttribute("id", "1")), true);
+            assertMatchesWalk(root);
+            shop.update(new DataElement("box", "no longer an object"), true);
+            assertMatchesWalk(root);
+            DataObject item = shop.get("item", new XMLAttribute("id", "2"), new XMLAttribute("kind", "b")).getValueAsObject(null);
+            item.update("name", new DataObject().insert("price", "12"), true);
+            item.update(new DataElement("tags", new DataObject().insert("detail", "tag detail")), true);
+            assertMatchesWalk(root);
+        }
+    }
+
+    @Test
+    public void findsTheSameAsAPlainWalkAfterUpdateMerge() {
+        for (DataObject root : roots()) {
+            DataObject shop = root.get("shop").getValueAsObject(null);
+            DataObject other = new DataObject("{\"name\":{\"item\":\"merged\"},\"box\":{\"detail\":{\"name\":\"b\","
+                                                      + "\"price\":\"13\"},\"item\":\"box item\"},\"extra\":{\"price\":"
+                                                      + "\"14\",\"detail\":{\"name\":\"e\"}}}");
+            shop.updateMerge(other);
+            assertMatchesWalk(root);
+            shop.updateMerge(JsonParser.parseString("{\"name\":\"flat\",\"box\":\"flat\",\"extra\":{\"item\":"
+                                                            + "{\"name\":\"json\"}}}").getAsJsonObject());
+            assertMatchesWalk(root);
+            DataObject item = shop.get("item").getValueAsObject(null);
+            item.updateMerge(new DataObject("{\"detail\":{\"item\":\"merged deep\"},\"name\":\"merged name\"}"));
+            assertMatchesWalk(root);
+        }
+    }
+
+    @Test
+    public void findsTheSameAsAPlainWalkAfterInvalidate() {
+        DataObject root = indexed(XML);
+        assertMatchesWalk(root);
+        //changes made directly on an element are seen once the index is invalidated
+        DataElement name = root.get("name", true);
+        assertNotNull(name);
+        name.update(new DataObject().insert("item", "direct", new XMLAttribute("id", "3")), true);
+        root.invalidateTagIndex();
+        assertMatchesWalk(root);
+        root.disableTagIndex();
+        assertMatchesWalk(root);
+    }
+
+    /**
+     * @return Copies of the document with a tag index, and with attribute indexes as well.
+     */
+    private static List<DataObject> roots() {
+        List<DataObject> roots = new ArrayList<>();
+        roots.add(indexed(XML));
+        roots.add(indexed(XML).enableAttributeIndex("item", "id").enableAttributeIndex("item", "kind"));
+        return roots;
+    }
+
+    private static DataObject indexed(String document) {
+        DataObject root = new DataObject(document).enableTagIndex();
+        //build the index before the document is changed
+        root.contains("name", true);
+        return root;
+    }
+
+    /**
+     * Asserts that the deep {@code get} and {@code contains} of every object in the document find the same element as
+     * a plain walk of the document, for every tag in it.
+     */
+    private static void assertMatchesWalk(DataObject root) {
+        Set<String> tags = new LinkedHashSet<>();
+        List<DataObject> scopes = new ArrayList<>();
+        collect(root, tags, scopes);
+        tags.add("missing");
+        for (DataObject scope : scopes) {
+            for (String tag : tags) {
+                for (XMLAttribute[] attributes : ATTRIBUTES) {
+                    DataElement expected = findLocal(scope, tag, attributes);
+                    if (expected == null) {
+                        expected = findDeep(scope, tag, attributes);
+                    }
+                    assertSame(tag, expected, scope.get(tag, true, attributes));
+                }
+                assertEquals(tag, findDeep(scope, tag, null) != null || findLocal(scope, tag, null) != null,
+                             scope.contains(tag, true));
+            }
+        }
+    }
+
+    private static void collect(DataObject object, Set<String> tags, List<DataObject> scopes) {
+        scopes.add(object);
+        for (Map.Entry<String, List<DataElement>> entry : object.getElementEntries()) {
+            tags.add(entry.getKey());
+            for (DataElement element : entry.getValue()) {
+                if (element.isObject()) {
+                    collect(element.getValueAsObject(null), tags, scopes);
+                }
+            }
+        }
+    }
+
+    /**
+     * @return The first element of the top level of the given object with the given tag and attributes.
+     */
+    private static DataElement findLocal(DataObject object, String tag, XMLAttribute[] attributes) {
+        for (Map.Entry<String, List<DataElement>> entry : object.getElementEntries()) {
+            if (entry.getKey().equals(tag)) {
+                for (DataElement element : entry.getValue()) {
+                    if (attributes == null || element.matchAttributes(attributes)) {
+                        return element;
+                    }
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Walks the objects below the given object depth first, not looking inside of arrays, and gives the first element
+     * found on the top level of one of them.
+     */
+    private static DataElement findDeep(DataObject object, String tag, XMLAttribute[] attributes) {
+        for (List<DataElement> list : object.getElementLists()) {
+            for (DataElement element : list) {
+                if (element.isObject()) {
+                    DataObject child = element.getValueAsObject(null);
+                    DataElement found = findLocal(child, tag, attributes);
+                    if (found == null) {
+                        found = findDeep(child, tag, attributes);
+                    }
+                    if (found != null) {
+                        return found;
+                    }
+                }
+            }
+        }
+        return null;
+    }
+}
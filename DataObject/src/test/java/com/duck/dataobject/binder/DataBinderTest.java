@@ -0,0 +1,188 @@
+package com.duck.dataobject.binder;
+
+import com.duck.dataobject.DataObject;
+import com.duck.dataobject.serializer.JsonWriteOptions;
+import com.google.gson.Gson;
+import com.google.gson.annotations.SerializedName;
+import com.google.gson.reflect.TypeToken;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.lang.reflect.Type;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+@RunWith(RobolectricTestRunner.class)
+public class DataBinderTest {
+    private static final Gson GSON = new Gson();
+
+    static class Item {
+        String name;
+        int count = 7;
+        Integer boxed;
+        long total;
+        double price;
+        boolean flag;
+        char letter;
+        transient String skipped = "skipped";
+    }
+
+    static class Box<T> {
+        T value;
+        List<T> items;
+        T[] array;
+        Map<String, T> map;
+    }
+
+    static class IntBox extends Box<Integer> {
+    }
+
+    static class Page<T> {
+        List<T> items;
+        Box<T> box;
+        Set<String> tags;
+    }
+
+    enum Size {
+        @SerializedName(value = "s", alternate = {"small", "S"}) SMALL,
+        LARGE {
+            @Override
+            public String toString() {
+                return "big";
+            }
+        }
+    }
+
+    static class Sized {
+        Size size;
+        List<Size> sizes;
+    }
+
+    static class Fallbacks {
+        Map<String, Integer> counts;
+        Object any;
+        Date when;
+        List<Object> objects;
+    }
+
+    static class NoDefault {
+        final String name;
+        int count = 5;
+
+        NoDefault(String name) {
+            this.name = name;
+        }
+    }
+
+    static class Holder {
+        NoDefault inner;
+        List<Item> items;
+    }
+
+    static class Root {
+        Item item;
+        Holder holder;
+    }
+
+    @Test
+    public void bindsValuesLikeGson() {
+        assertSameAsGson("{\"name\":\"n\",\"count\":3,\"boxed\":-4,\"total\":12345678901,\"price\":1.5,"
+                         + "\"flag\":true,\"letter\":\"x\",\"skipped\":\"s\",\"unknown\":{\"a\":1}}", Item.class);
+        assertSameAsGson("<item><name>n</name><count>2</count><flag>yes</flag></item>", Root.class);
+        //an empty element is the string "null"
+        assertSameAsGson("<item><name/><count>1</count></item>", Root.class);
+        assertSameAsGson("<item><letter/><count>1</count></item>", Root.class);
+        assertSameAsGson("{\"name\":null,\"flag\":null}", Item.class);
+        assertSameAsGson("{\"letter\":\"xy\"}", Item.class);
+        assertSameAsGson("{\"name\":{\"a\":1}}", Item.class);
+        assertNull(DataBinder.fromDataObject(new DataObject(), Item.class));
+    }
+
+    @Test
+    public void bindsNumbersWrittenAsDoublesLikeGson() {
+        assertSameAsGson("{\"count\":1.0,\"boxed\":\"-2.0\",\"total\":\"3e2\"}", Item.class);
+        assertSameAsGson("{\"count\":1.5}", Item.class);
+        assertSameAsGson("{\"count\":\"many\"}", Item.class);
+        assertSameAsGson("{\"total\":\"1.5\"}", Item.class);
+        assertSameAsGson("{\"price\":\"cheap\"}", Item.class);
+        assertSameAsGson("{\"count\":\"\"}", Item.class);
+    }
+
+    @Test
+    public void bindsGenericTypesLikeGson() {
+        assertSameAsGson("{\"value\":1,\"items\":[1,2],\"array\":[3,4],\"map\":{\"a\":5}}", IntBox.class);
+        Type page = new TypeToken<Page<Item>>() {
+        }.getType();
+        assertSameAsGson("{\"items\":[{\"name\":\"a\"},{\"count\":\"2\"}],\"box\":{\"value\":{\"name\":\"b\"},"
+                         + "\"array\":[{\"name\":\"c\"}]},\"tags\":[\"x\",\"y\",\"x\"]}", page, "array");
+        Type list = new TypeToken<List<Item>>() {
+        }.getType();
+        assertSameAsGson("[{\"name\":\"a\"},{\"name\":\"b\"}]", list);
+        //a raw generic type reads its type variables as Object, which Gson reads
+        assertSameAsGson("{\"value\":{\"a\":[1,2]},\"items\":[\"x\",{\"b\":\"c\"}]}", Box.class);
+    }
+
+    @Test
+    public void bindsEnumsLikeGson() {
+        for (String json : new String[]{"{\"size\":\"s\",\"sizes\":[\"small\",\"S\",\"LARGE\",\"big\"]}",
+                                        "{\"size\":\"SMALL\"}", "{\"size\":\"medium\",\"sizes\":[\"x\",\"s\"]}"}) {
+            assertSameAsGson(json, Sized.class);
+        }
+    }
+
+    @Test
+    public void handsMapsObjectsAndDatesToGson() {
+        assertSameAsGson("{\"counts\":{\"a\":1,\"b\":\"2\"},\"any\":{\"c\":[1,{\"d\":true}]},\"when\":"
+                         + GSON.toJson(new Date(0)) + ",\"objects\":[1,\"x\",{\"e\":null}]}", Fallbacks.class);
+        assertSameAsGson("{\"any\":\"text\",\"counts\":{\"a\":\"x\"}}", Fallbacks.class);
+    }
+
+    @Test
+    public void readsArrayTagsLikeGson() {
+        String json = "{\"items\":{\"name\":\"a\"}}";
+        //a single element is an object unless its tag is an array tag
+        assertSameAsGson(json, Holder.class);
+        assertSameAsGson(json, Holder.class, "items");
+        assertSameAsGson("{\"items\":[{\"name\":\"a\"},{\"name\":\"b\"}]}", Holder.class);
+        assertSameAsGson("{\"items\":[{\"name\":\"a\"},{\"name\":\"b\"}]}", Holder.class, "items");
+        assertSameAsGson("<holder><items><name>a</name></items><items><name>b</name></items></holder>", Root.class);
+        assertSameAsGson("{\"size\":[\"s\"]}", Sized.class);
+        assertSameAsGson("{\"size\":\"s\"}", Sized.class, "size");
+    }
+
+    @Test
+    public void bindsClassesWithoutNoArgsConstructorLikeGson() {
+        assertSameAsGson("{\"name\":\"n\"}", NoDefault.class);
+        assertSameAsGson("{\"inner\":{\"name\":\"n\",\"count\":2}}", Holder.class);
+    }
+
+    /**
+     * Asserts that the {@link DataBinder} gives the same object, or the same exception, as Gson reading the JSON of the
+     * parsed document.
+     */
+    private static void assertSameAsGson(String document, Type type, String... arrayTags) {
+        DataObject data = new DataObject(document);
+        String expected;
+        try {
+            Object read = GSON.fromJson(data.toJSON(arrayTags), type);
+            expected = GSON.toJson(read);
+        } catch (RuntimeException e) {
+            expected = e.getClass().getSimpleName();
+        }
+        String actual;
+        try {
+            Object read = DataBinder.fromDataObject(data, type, JsonWriteOptions.of(arrayTags));
+            actual = GSON.toJson(read);
+        } catch (RuntimeException e) {
+            actual = e.getClass().getSimpleName();
+        }
+        assertEquals(document, expected, actual);
+    }
+}
@@ -0,0 +1,199 @@
+package com.duck.dataobject.binder;
+
+import com.duck.dataobject.DataObject;
+import com.google.gson.Gson;
+import com.google.gson.JsonParser;
+import com.google.gson.annotations.SerializedName;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+@RunWith(RobolectricTestRunner.class)
+public class DataMapperTest {
+    private static final Gson GSON = new Gson();
+
+    public enum Color {
+        RED,
+        @SerializedName("grn") GREEN
+    }
+
+    @DataModel
+    public static class Line {
+        String sku;
+        int count;
+
+        public Line() {
+        }
+
+        Line(String sku, int count) {
+            this.sku = sku;
+            this.count = count;
+        }
+    }
+
+    @DataModel
+    public static class Order {
+        String id;
+        int quantity;
+        long total;
+        double price;
+        boolean paid;
+        Integer boxed;
+        Color color;
+        @SerializedName("main_line") Line main;
+        List<Line> lines;
+        List<String> tags;
+        transient String cached = "cached";
+    }
+
+    private static Order order() {
+        Order order = new Order();
+        order.id = "a<b>&\"c\"";
+        order.quantity = 3;
+        order.total = 12345678901L;
+        order.price = 1.5;
+        order.paid = true;
+        order.boxed = -4;
+        order.color = Color.GREEN;
+        order.main = new Line("m", 1);
+        order.lines = new ArrayList<>(Arrays.asList(new Line("x", 2), new Line("y", 3)));
+        order.tags = new ArrayList<>(Arrays.asList("one", "two"));
+        return order;
+    }
+
+    @Test
+    public void findsGeneratedMapper() {
+        DataMapper<Order> mapper = DataMapper.of(Order.class);
+        assertEquals("DataMapperTest_Order_DataMapper", mapper.getClass().getSimpleName());
+        assertSame(mapper, DataMapper.of(Order.class));
+        assertNull(DataMapper.of(String.class));
+    }
+
+    @Test
+    public void writesSameJsonAsGson() throws Exception {
+        Order order = order();
+        String json = DataMapper.of(Order.class).toJSON(order);
+        //the mapper writes the values as the strings DataObject writes, so compare with the gson JSON parsed back
+        String expected = new DataObject(GSON.toJson(order)).toJSON("lines", "tags");
+        assertEquals(JsonParser.parseString(expected), JsonParser.parseString(json));
+    }
+
+    @Test
+    public void readsGsonJson() throws Exception {
+        Order order = order();
+        Order read = DataMapper.of(Order.class).fromJSON(new StringReader(GSON.toJson(order)));
+        assertEquals(GSON.toJson(order), GSON.toJson(read));
+        assertEquals("cached", read.cached);
+    }
+
+    @Test
+    public void readsAlternateForms() throws Exception {
+        DataMapper<Order> mapper = DataMapper.of(Order.class);
+        //a single value is a list of one, an object where a value is expected leaves the field as it was
+        Order read = mapper.fromJSON(new StringReader(
+                "{\"lines\":{\"sku\":\"s\"},\"tags\":\"t\",\"quantity\":{},\"color\":\"grn\",\"unknown\":[1]}"));
+        assertEquals(1, read.lines.size());
+        assertEquals("s", read.lines.get(0).sku);
+        assertEquals(Arrays.asList("t"), read.tags);
+        assertEquals(0, read.quantity);
+        assertEquals(Color.GREEN, read.color);
+    }
+
+    @Test
+    public void readsNumbersLikeGson() throws Exception {
+        String[] values = {
+                "{\"quantity\":\"1.0\",\"total\":\"2.0E3\",\"boxed\":\"-3.0\",\"price\":\"1e2\"}",
+                "{\"quantity\":\"1.5\"}",
+                "{\"quantity\":\"many\"}",
+                "{\"quantity\":\"\"}",
+                "{\"boxed\":\"1.5\"}",
+                "{\"total\":\"12345678901.0\"}",
+                "{\"total\":\"1.5\"}",
+                "{\"price\":\"cheap\"}",
+                "{\"lines\":[{\"sku\":\"a\",\"count\":\"2.0\"},{\"count\":\"x\"}]}",
+        };
+        for (String json : values) {
+            //the old GSON_FromJSON, Gson reading the JSON of the parsed document
+            String expected = outcomeOfGson(new DataObject(json).toJSON("lines", "tags"));
+            DataMapper<Order> mapper = DataMapper.of(Order.class);
+            assertEquals(json, expected, outcomeOfMapper(mapper, json, 0));
+            assertEquals(json, expected, outcomeOfMapper(mapper, json, 1));
+            assertEquals(json, expected, outcomeOfMapper(mapper, json, 2));
+        }
+    }
+
+    private static String outcomeOfGson(String json) {
+        try {
+            return GSON.toJson(GSON.fromJson(json, Order.class));
+        } catch (RuntimeException e) {
+            return e.getClass().getSimpleName();
+        }
+    }
+
+    /**
+     * @return The JSON of the order read from the JSON, or the name of the exception it threw, read with the mapper
+     * from a {@link DataObject}, with {@link DataObject#GSON_FromJSON(Class, String...)} or from the JSON itself.
+     */
+    private static String outcomeOfMapper(DataMapper<Order> mapper, String json, int path) throws Exception {
+        try {
+            Order order;
+            if (path == 0) {
+                order = mapper.read(new DataObject(json));
+            } else if (path == 1) {
+                order = new DataObject(json).GSON_FromJSON(Order.class, "lines", "tags");
+            } else {
+                order = mapper.fromJSON(new StringReader(json));
+            }
+            return GSON.toJson(order);
+        } catch (RuntimeException e) {
+            return e.getClass().getSimpleName();
+        }
+    }
+
+    @Test
+    public void writesAndReadsXml() throws Exception {
+        DataMapper<Line> lineMapper = DataMapper.of(Line.class);
+        assertEquals("<sku>a</sku><count>1</count>", lineMapper.toXML(new Line("a", 1)));
+        //values with characters that are illegal in xml are written as CDATA
+        assertEquals("<sku><![CDATA[a<]]></sku><count>1</count>", lineMapper.toXML(new Line("a<", 1)));
+
+        DataMapper<Order> mapper = DataMapper.of(Order.class);
+        Order order = order();
+        String xml = mapper.toXML(order);
+        Order read = mapper.fromXML(new StringReader("<order>" + xml + "</order>"));
+        assertEquals(GSON.toJson(order), GSON.toJson(read));
+        //the same elements as the DataObject of the gson JSON
+        DataObject expected = new DataObject(GSON.toJson(order));
+        DataObject written = new DataObject("<order>" + xml + "</order>").get("order").getValueAsObject(null);
+        assertEquals(JsonParser.parseString(expected.toJSON("lines", "tags")),
+                     JsonParser.parseString(written.toJSON("lines", "tags")));
+    }
+
+    @Test
+    public void writesAndReadsDataObjects() {
+        DataMapper<Order> mapper = DataMapper.of(Order.class);
+        Order order = order();
+        DataObject data = mapper.toDataObject(order);
+        assertEquals(JsonParser.parseString(new DataObject(GSON.toJson(order)).toJSON("lines", "tags")),
+                     JsonParser.parseString(data.toJSON("lines", "tags")));
+        assertEquals(GSON.toJson(order), GSON.toJson(mapper.read(data)));
+        assertEquals(GSON.toJson(order), GSON.toJson(mapper.read(new DataObject(GSON.toJson(order)))));
+
+        DataObject into = new DataObject();
+        into.insert("kept", "k");
+        mapper.write(order, into);
+        assertEquals("k", into.get("kept").getValueAsString(null));
+        assertEquals("a<b>&\"c\"", into.get("id").getValueAsString(null));
+        assertNull(into.get("cached"));
+    }
+}
@@ -0,0 +1,165 @@
+package com.duck.dataobject.binder;
+
+import com.duck.dataobject.DataObject;
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonNull;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.google.gson.JsonPrimitive;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+@RunWith(RobolectricTestRunner.class)
+public class JsonTreeConverterTest {
+    private static final Gson GSON = new Gson();
+
+    private static final String[] OBJECTS = {
+            "{\"a\":\"1\"}",
+            "{\"a\":1,\"b\":1.0,\"c\":1e3,\"d\":-0.5,\"e\":12345678901,\"f\":123456789012345678901234567890,"
+                    + "\"g\":0.1,\"h\":-0}",
+            "{\"a\":true,\"b\":false,\"c\":null,\"d\":\"null\",\"e\":\"\"}",
+            "{\"a\":\"quote \\\" slash \\\\ \\/ tab \\t line \\n unicode \\u00e9 \\u2028\"}",
+            "{\"a\":[\"1\",\"2\"],\"b\":[\"3\"],\"c\":[[\"4\",\"5\"],[\"6\"]],\"d\":[null,\"7\",null]}",
+            "{\"a\":{\"b\":{\"c\":[{\"d\":\"1\"},{\"d\":[\"2\",\"3\"]}]}},\"e\":[{\"f\":\"4\"}]}",
+            "{\"a\":[{\"b\":\"1\"},[\"2\",{\"c\":\"3\"}],\"4\"]}"
+    };
+    private static final String[] ARRAYS = {
+            "[\"1\",\"2\"]",
+            "[{\"a\":\"1\"},{\"a\":[\"2\",\"3\"]},[\"4\"],5,true,null]",
+            "[[\"1\"],[[\"2\"]]]"
+    };
+    private static final String[][] ARRAY_TAGS = {{}, {"a"}, {"b", "d", "f"}};
+
+    @Test
+    public void convertsJsonElementsLikeParsingTheirJson() {
+        for (String json : concat(OBJECTS, ARRAYS)) {
+            JsonElement tree = JsonParser.parseString(json);
+            for (String[] arrayTags : ARRAY_TAGS) {
+                DataObject parsed = new DataObject(GSON.toJson(tree));
+                DataObject converted = JsonTreeConverter.toDataObject(tree);
+                assertEquals(json, parsed.toJSON(arrayTags), converted.toJSON(arrayTags));
+                //and back to a tree with the same structure and strings as the JSON the DataObject writes
+                assertEquals(json, JsonParser.parseString(parsed.toJSON(arrayTags)),
+                             JsonTreeConverter.toJsonElement(converted, arrayTags));
+            }
+        }
+    }
+
+    @Test
+    public void convertsBuiltJsonElementsLikeParsingTheirJson() {
+        JsonObject object = new JsonObject();
+        object.add("int", new JsonPrimitive(7));
+        object.add("long", new JsonPrimitive(12345678901L));
+        object.add("double", new JsonPrimitive(1.0));
+        object.add("float", new JsonPrimitive(2.5f));
+        object.add("decimal", new JsonPrimitive(new BigDecimal("1.50")));
+        object.add("big", new JsonPrimitive(BigInteger.ONE.shiftLeft(70)));
+        object.add("char", new JsonPrimitive('c'));
+        object.add("bool", new JsonPrimitive(true));
+        object.add("null", JsonNull.INSTANCE);
+        JsonArray array = new JsonArray();
+        array.add(1);
+        array.add(JsonNull.INSTANCE);
+        array.add("x");
+        array.add(new JsonArray());
+        object.add("array", array);
+        JsonObject nested = new JsonObject();
+        nested.addProperty("a", "b");
+        object.add("nested", nested);
+        assertEquals(new DataObject(GSON.toJson(object)).toJSON(), JsonTreeConverter.toDataObject(object).toJSON());
+        assertEquals(new DataObject(GSON.toJson(array)).toJSON(), JsonTreeConverter.toDataObject(array).toJSON());
+        //an empty object is an empty object in the tree, where toJSON writes nothing
+        assertEquals(new JsonObject(), JsonTreeConverter.toJsonElement(new DataObject()));
+        assertEquals("", JsonTreeConverter.toDataObject(new JsonObject()).toJSON());
+        assertEquals("", JsonTreeConverter.toDataObject(new JsonArray()).toJSON());
+    }
+
+    @Test
+    public void convertsOrgJsonTreesBothWays() throws Exception {
+        for (String json : OBJECTS) {
+            DataObject parsed = new DataObject(json);
+            assertEquals(json, parsed.toJSON(), JsonTreeConverter.toDataObject(new JSONObject(json)).toJSON());
+            for (String[] arrayTags : ARRAY_TAGS) {
+                JSONObject object = JsonTreeConverter.toJSONObject(parsed, arrayTags);
+                assertEquals(json, JsonParser.parseString(parsed.toJSON(arrayTags)),
+                             JsonParser.parseString(object.toString()));
+            }
+            try {
+                JsonTreeConverter.toJSONArray(parsed);
+                fail(json);
+            } catch (IllegalArgumentException e) {
+                //an object is not an anonymous array
+            }
+        }
+        for (String json : ARRAYS) {
+            DataObject parsed = new DataObject(json);
+            assertEquals(json, parsed.toJSON(), JsonTreeConverter.toDataObject(new JSONArray(json)).toJSON());
+            for (String[] arrayTags : ARRAY_TAGS) {
+                JSONArray array = JsonTreeConverter.toJSONArray(parsed, arrayTags);
+                assertEquals(json, JsonParser.parseString(parsed.toJSON(arrayTags)),
+                             JsonParser.parseString(array.toString()));
+            }
+            try {
+                JsonTreeConverter.toJSONObject(parsed);
+                fail(json);
+            } catch (IllegalArgumentException e) {
+                //an anonymous array is not an object
+            }
+        }
+    }
+
+    @Test
+    public void updateMergeGivesTheSameAsMergingParsedJson() {
+        String target = "{\"a\":\"1\",\"b\":{\"c\":\"2\",\"d\":{\"e\":\"3\"}},\"f\":[\"4\",\"5\"],\"g\":\"6\"}";
+        String[] merges = {
+                "{\"a\":\"7\",\"h\":\"8\"}",
+                "{\"b\":{\"c\":9,\"d\":{\"e\":1.0,\"i\":true}},\"g\":{\"j\":\"10\"}}",
+                "{\"a\":{\"k\":\"11\"},\"b\":\"12\",\"l\":[\"13\",{\"m\":\"14\"}],\"n\":null}",
+                "{\"f\":\"15\",\"o\":{\"p\":{\"q\":[1,2]}}}"
+        };
+        for (String merge : merges) {
+            JsonObject json = JsonParser.parseString(merge).getAsJsonObject();
+            //the path taken before the converter: Gson writes the tree, which is parsed again
+            DataObject expected = new DataObject(target).updateMerge(new DataObject(GSON.toJson(json)));
+            DataObject actual = new DataObject(target).updateMerge(json);
+            assertEquals(merge, JsonParser.parseString(expected.toJSON()), JsonParser.parseString(actual.toJSON()));
+        }
+    }
+
+    @Test
+    public void recursiveRemoveGivesTheSameAsRemovingParsedJson() {
+        String target = "{\"a\":\"1\",\"b\":{\"c\":\"2\",\"d\":{\"e\":\"3\",\"f\":\"4\"}},\"g\":[\"5\",\"6\"],"
+                + "\"h\":\"7\"}";
+        String[] removes = {
+                "{\"a\":\"\"}",
+                "{\"b\":{\"d\":{\"e\":1}}}",
+                "{\"b\":{\"c\":null,\"d\":\"\"},\"g\":\"\"}",
+                "{\"x\":{\"y\":\"\"},\"h\":{\"z\":\"\"}}"
+        };
+        for (String remove : removes) {
+            JsonObject json = JsonParser.parseString(remove).getAsJsonObject();
+            DataObject expected = new DataObject(target).recursiveRemove(new DataObject(GSON.toJson(json)));
+            DataObject actual = new DataObject(target).recursiveRemove(json);
+            assertEquals(remove, JsonParser.parseString(expected.toJSON()), JsonParser.parseString(actual.toJSON()));
+        }
+    }
+
+    private static String[] concat(String[] first, String[] second) {
+        String[] all = new String[first.length + second.length];
+        System.arraycopy(first, 0, all, 0, first.length);
+        System.arraycopy(second, 0, all, first.length, second.length);
+        return all;
+    }
+}
@@ -0,0 +1,245 @@
+package com.duck.dataobject.binder;
+
+import com.duck.dataobject.DataObject;
+import com.google.gson.Gson;
+import com.google.gson.JsonParser;
+import com.google.gson.annotations.SerializedName;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+
+@RunWith(RobolectricTestRunner.class)
+public class ObjectWriterTest {
+    private static final Gson GSON = new Gson();
+
+    enum Size {
+        @SerializedName("s") SMALL,
+        LARGE {
+            @Override
+            public String toString() {
+                return "big";
+            }
+        }
+    }
+
+    static class Item {
+        String name;
+        Integer boxed;
+        int count = 7;
+        long total;
+        double price;
+        float ratio;
+        boolean flag;
+        char letter;
+        Size size;
+        transient String skipped = "skipped";
+    }
+
+    static class Values {
+        Object any;
+        List<Object> objects;
+        Map<String, Object> map;
+        Item[] items;
+        List<List<Integer>> nested;
+        Date when;
+    }
+
+    static class Numbers {
+        long big;
+        long small;
+        BigInteger huge;
+        BigDecimal decimal;
+        double whole;
+        double tiny;
+        double large;
+        double negativeZero;
+        float single;
+        List<String> strings;
+    }
+
+    static class Node {
+        String name;
+        Node self;
+        Node next;
+    }
+
+    static class Failure extends Exception {
+        int code = 3;
+
+        Failure(String message) {
+            super(message);
+        }
+    }
+
+    static class Models {
+        DataMapperTest.Line line;
+        List<DataMapperTest.Line> lines;
+        Map<String, DataMapperTest.Line> byName;
+    }
+
+    @Test
+    public void writesValuesLikeGson() {
+        Item item = new Item();
+        item.name = "a<b>&\"c\"";
+        item.total = 12345678901L;
+        item.price = 1.5;
+        item.ratio = 0.1f;
+        item.flag = true;
+        item.letter = 'x';
+        item.size = Size.SMALL;
+        assertSameAsGson(item);
+        item.size = Size.LARGE;
+        item.boxed = -4;
+        assertSameAsGson(item);
+        //null fields are left out
+        assertSameAsGson(new Item());
+    }
+
+    @Test
+    public void writesNullsLikeGson() {
+        Values values = new Values();
+        assertSameAsGson(values);
+        values.objects = Arrays.asList(null, "x", null);
+        values.items = new Item[]{null, new Item()};
+        values.nested = Arrays.asList(null, Arrays.asList(1, null), new ArrayList<Integer>());
+        values.map = new LinkedHashMap<>();
+        values.map.put("a", null);
+        values.map.put("b", "c");
+        assertSameAsGson(values);
+    }
+
+    @Test
+    public void writesAnonymousAndLocalClassesAsNull() {
+        class Local {
+            String name = "local";
+        }
+        Values values = new Values();
+        values.any = new Object() {
+            String name = "anonymous";
+        };
+        values.objects = Arrays.<Object>asList(new Local(), "x", new Object() {
+        });
+        values.map = new LinkedHashMap<>();
+        values.map.put("local", new Local());
+        values.map.put("b", "c");
+        assertSameAsGson(values);
+        values.any = new Local();
+        assertSameAsGson(values);
+    }
+
+    @Test
+    public void skipsFieldsHoldingTheObjectItself() {
+        Node node = new Node();
+        node.name = "a";
+        node.self = node;
+        node.next = new Node();
+        node.next.name = "b";
+        node.next.self = node.next;
+        assertSameAsGson(node);
+        //the cause of a Throwable is the Throwable itself until it is set, Throwables are left to Gson, which gives
+        //the same JSON or the same error where the fields of Throwable can't be made accessible
+        assertSameAsGson(new Failure("failed"));
+        Values values = new Values();
+        values.any = new Failure("inner");
+        assertSameAsGson(values);
+    }
+
+    @Test
+    public void writesNumbersLikeGson() {
+        Numbers numbers = new Numbers();
+        numbers.big = Long.MAX_VALUE;
+        numbers.small = Long.MIN_VALUE;
+        numbers.huge = BigInteger.valueOf(Long.MAX_VALUE).multiply(BigInteger.TEN);
+        numbers.decimal = new BigDecimal("12.50");
+        numbers.whole = 100;
+        numbers.tiny = 1e-5;
+        numbers.large = 1e20;
+        numbers.negativeZero = -0.0;
+        numbers.single = 3.4e38f;
+        //strings that look like octal, hex or double numbers stay strings
+        numbers.strings = Arrays.asList("010", "0x1F", "0X1f", "-07", "1e3", "1.0", "0", "00", "0x", "+1");
+        assertSameAsGson(numbers);
+        Values values = new Values();
+        values.objects = Arrays.<Object>asList(Long.MAX_VALUE, Long.MIN_VALUE, 1.0, 2.5f, (short) -3, (byte) 4,
+                                               new BigDecimal("1E+3"), BigInteger.ONE.shiftLeft(70), 1e300);
+        assertSameAsGson(values);
+    }
+
+    @Test
+    public void readsNumbersLikeTheParser() {
+        for (String number : new String[]{"0", "-0", "1", "010", "0x1F", "0X1f", "-07", "2147483648",
+                                          "9223372036854775807", "9223372036854775808", "-9223372036854775808",
+                                          "-9223372036854775809", "1.0", "1.5", "-0.0", "1e3", "1E+3", "1.0E-5",
+                                          "100000000000000000000", "1.7976931348623157E308", "0.1"}) {
+            DataObject parsed = new DataObject("{\"a\":" + number + "}");
+            assertEquals(number, parsed.get("a").getValueAsString(null), ObjectWriter.readNumber(number));
+        }
+    }
+
+    @Test
+    public void writesMapsWithRepeatedKeysLikeGson() {
+        Map<Object, Object> map = new LinkedHashMap<>();
+        map.put(1, "int");
+        map.put("a", "first");
+        map.put("1", "string");
+        map.put(1L, "long");
+        map.put(null, "null");
+        map.put("null", "string null");
+        map.put(Size.SMALL, "enum");
+        map.put("SMALL", "name");
+        assertSameAsGson(map);
+        Values values = new Values();
+        values.map = new LinkedHashMap<>();
+        values.map.put("a", "x");
+        values.map.put("b", Arrays.asList(1, 2));
+        assertSameAsGson(values);
+    }
+
+    @Test
+    public void delegatesToDataModelMappers() {
+        Models models = new Models();
+        models.line = new DataMapperTest.Line("m", 1);
+        models.lines = Arrays.asList(new DataMapperTest.Line("x", 2), null, new DataMapperTest.Line("y", 3));
+        models.byName = new LinkedHashMap<>();
+        models.byName.put("z", new DataMapperTest.Line("z", 4));
+        assertSameAsGson(models);
+        assertSameAsGson(new DataMapperTest.Line("a\"b", -1));
+        assertSameAsGson(models.lines);
+    }
+
+    /**
+     * Asserts that building a {@link DataObject} from the given object gives the same JSON, or the same exception, as
+     * parsing the JSON Gson writes for it.
+     */
+    private static void assertSameAsGson(Object src) {
+        String expected;
+        try {
+            expected = new DataObject(GSON.toJson(src)).toJSON();
+        } catch (RuntimeException e) {
+            expected = e.getClass().getSimpleName();
+        }
+        String actual;
+        try {
+            actual = new DataObject(src).toJSON();
+        } catch (RuntimeException e) {
+            actual = e.getClass().getSimpleName();
+        }
+        if (expected.startsWith("{") || expected.startsWith("[")) {
+            assertEquals(expected, JsonParser.parseString(expected), JsonParser.parseString(actual));
+        } else {
+            assertEquals(expected, actual);
+        }
+    }
+}
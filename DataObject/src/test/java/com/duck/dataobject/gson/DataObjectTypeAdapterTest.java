@@ -0,0 +1,37 @@
+package com.duck.dataobject.gson;
+
+import com.duck.dataobject.DataObject;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonParser;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+@RunWith(RobolectricTestRunner.class)
+public class DataObjectTypeAdapterTest {
+
+    @Test
+    public void writesEmptyXmlElementsAsNull() {
+        DataObject data = new DataObject("<r><a/><b>x</b><c></c><d><e/><f>y</f></d><e/><e/></r>");
+        assertNull(data.get("r").getValueAsObject(null).get("a").value);
+        String expected = data.toJSON();
+        Gson gson = new GsonBuilder().registerTypeAdapter(DataObject.class, new DataObjectTypeAdapter()).create();
+        assertEquals(JsonParser.parseString(expected), JsonParser.parseString(gson.toJson(data)));
+        assertEquals(JsonParser.parseString(expected), new DataObjectGsonAdapter().serialize(data, DataObject.class, null));
+    }
+
+    @Test
+    public void writesSameJsonAsToJson() {
+        DataObject data = new DataObject("{\"a\":[1,2],\"b\":{\"c\":true,\"d\":null},\"e\":[[1,{\"f\":\"g\"}]]}");
+        String expected = data.toJSON("a");
+        Gson gson = new GsonBuilder().registerTypeAdapter(DataObject.class, new DataObjectTypeAdapter("a")).create();
+        assertEquals(JsonParser.parseString(expected), JsonParser.parseString(gson.toJson(data)));
+        DataObject read = gson.fromJson(expected, DataObject.class);
+        assertEquals(JsonParser.parseString(expected), JsonParser.parseString(read.toJSON("a")));
+    }
+}
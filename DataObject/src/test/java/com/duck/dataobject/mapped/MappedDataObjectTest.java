@@ -0,0 +1,214 @@
+package com.duck.dataobject.mapped;
+
+import com.duck.dataobject.DataObject;
+import com.duck.dataobject.exception.ParsingException;
+import com.duck.dataobject.node.DataElement;
+import com.duck.dataobject.node.XMLAttribute;
+import com.duck.dataobject.serializer.SnapshotSerializer;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.duck.dataobject.serializer.SnapshotSerializer.HEADER_SIZE;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+@RunWith(RobolectricTestRunner.class)
+public class MappedDataObjectTest {
+
+    private static DataObject document() {
+        DataObject inner = new DataObject();
+        inner.insert("c", 1);
+        inner.insert("c", 2.5f);
+        List<DataElement> items = new ArrayList<>();
+        items.add(new DataElement("", "x"));
+        items.add(new DataElement("", inner));
+        DataObject data = new DataObject();
+        data.insert("a", "first", new XMLAttribute("id", "1"));
+        data.insert("a", "second", true, new XMLAttribute("id", "2", new XMLAttribute("lang", "en")));
+        data.insert("int", -7);
+        data.insert("double", 0.1);
+        data.insert(new DataElement("none"));
+        data.insert("object", inner);
+        data.insert(new DataElement("list", items));
+        return data;
+    }
+
+    @Test
+    public void getMatchesParsedDocument() {
+        DataObject parsed = document();
+        MappedDataObject mapped = MappedDataObject.wrap(ByteBuffer.wrap(parsed.toSnapshot()));
+        for (String tag : new String[]{"a", "int", "double", "none", "object", "list"}) {
+            assertTrue(tag, mapped.contains(tag));
+            assertElementEquals(parsed.get(tag), mapped.get(tag));
+        }
+        assertFalse(mapped.contains("missing"));
+        assertNull(mapped.get("missing"));
+        XMLAttribute id = new XMLAttribute("id", "2");
+        XMLAttribute lang = new XMLAttribute("lang", "en");
+        assertElementEquals(parsed.get("a", id, lang), mapped.get("a", id, lang));
+        //get matches all of the attributes, so one of the two does not find the second element
+        assertNull(mapped.get("a", lang));
+
+        MappedDataObject object = mapped.get("object").getValueAsObject(null);
+        assertEquals(1, object.get("c").getValueAsInteger(0));
+        assertEquals(-7, mapped.get("int").getValueAsInteger(0));
+        assertEquals(0.1, mapped.get("double").getValueAsDouble(0), 0);
+        assertEquals("fallback", mapped.get("none").getValueAsString("fallback"));
+    }
+
+    @Test
+    public void getListMatchesParsedDocument() {
+        DataObject parsed = document();
+        MappedDataObject mapped = MappedDataObject.wrap(ByteBuffer.wrap(parsed.toSnapshot()));
+        assertElementsEqual(parsed.getList("a"), mapped.getList("a"));
+        XMLAttribute lang = new XMLAttribute("lang", "en");
+        assertElementsEqual(parsed.getList("a", lang), mapped.getList("a", lang));
+        assertEquals(1, mapped.getList("a", lang).size());
+        assertNull(mapped.getList("missing", (XMLAttribute[]) null));
+        assertTrue(mapped.getList("missing").isEmpty());
+
+        List<MappedDataElement> items = mapped.get("list").getValueAsList(null);
+        assertEquals(2, items.size());
+        assertEquals("x", items.get(0).getValueAsString(null));
+        assertEquals(2, items.get(1).getValueAsObject(null).getList("c").size());
+    }
+
+    @Test
+    public void iteratesInDocumentOrder() {
+        DataObject parsed = document();
+        MappedDataObject mapped = MappedDataObject.wrap(ByteBuffer.wrap(parsed.toSnapshot()));
+        List<DataElement> expected = parsed.getList();
+        List<MappedDataElement> elements = new ArrayList<>();
+        for (MappedDataElement element : mapped) {
+            elements.add(element);
+        }
+        assertElementsEqual(expected, elements);
+        assertElementsEqual(expected, mapped.getList());
+
+        List<String> tags = new ArrayList<>();
+        for (DataElement element : expected) {
+            if (!tags.contains(element.tag)) {
+                tags.add(element.tag);
+            }
+        }
+        assertEquals(tags, mapped.getTags());
+        assertTrue(MappedDataObject.wrap(ByteBuffer.wrap(new DataObject().toSnapshot())).isEmpty());
+    }
+
+    @Test
+    public void toDataObjectMatchesParsedDocument() {
+        DataObject parsed = document();
+        byte[] snapshot = parsed.toSnapshot();
+        DataObject copy = MappedDataObject.wrap(ByteBuffer.wrap(snapshot)).toDataObject();
+        assertArrayEquals(snapshot, copy.toSnapshot());
+        assertEquals(parsed.toXML(), copy.toXML());
+        assertEquals(parsed.toJSON(), copy.toJSON());
+    }
+
+    @Test
+    public void opensFiles() throws IOException {
+        DataObject parsed = new DataObject("{\"a\":[1,2,3],\"b\":{\"c\":\"d\"}}");
+        File file = File.createTempFile("mapped", ".snapshot");
+        file.deleteOnExit();
+        FileOutputStream out = new FileOutputStream(file);
+        try {
+            parsed.writeSnapshot(out);
+        } finally {
+            out.close();
+        }
+        MappedDataObject mapped = MappedDataObject.open(file);
+        assertEquals(parsed.toJSON(), mapped.toDataObject().toJSON());
+        assertEquals("d", mapped.get("b").getValueAsObject(null).get("c").getValueAsString(null));
+    }
+
+    @Test
+    public void rejectsOtherVersionsAndHeaders() {
+        byte[] snapshot = new DataObject("{\"a\":\"b\"}").toSnapshot();
+        assertRejected(withInt(snapshot, 0, 0));
+        assertRejected(withInt(snapshot, 4, SnapshotSerializer.VERSION + 1));
+        assertRejected(withInt(snapshot, 12, 0));
+        assertRejected(withInt(snapshot, 12, snapshot.length));
+    }
+
+    @Test
+    public void rejectsCorruptNodes() {
+        //{"a": "b"} is the nodes 1, a, 1, 3, string kind, a, b
+        byte[] snapshot = new DataObject("{\"a\":\"b\"}").toSnapshot();
+        int nodes = HEADER_SIZE + 2 * 4;
+        //an entry count past the nodes
+        assertCorruptWhenRead(withInt(snapshot, nodes, 2));
+        //a negative node count
+        assertCorruptWhenRead(withInt(snapshot, nodes + 3 * 4, -1));
+        //an unknown kind
+        assertCorruptWhenRead(withInt(snapshot, nodes + 4 * 4, 0x0F));
+        //a string index out of the table
+        assertCorruptWhenRead(withInt(snapshot, nodes + 6 * 4, 2));
+        //string ends past the chars
+        assertCorruptWhenRead(withInt(snapshot, HEADER_SIZE + 4, 100));
+    }
+
+    private static void assertRejected(byte[] snapshot) {
+        try {
+            MappedDataObject.wrap(ByteBuffer.wrap(snapshot));
+            fail("Wrapped a snapshot that can't be mapped");
+        } catch (ParsingException expected) {
+        }
+    }
+
+    private static void assertCorruptWhenRead(byte[] snapshot) {
+        MappedDataObject mapped = MappedDataObject.wrap(ByteBuffer.wrap(snapshot));
+        try {
+            mapped.toDataObject();
+            fail("Read a corrupt snapshot");
+        } catch (ParsingException expected) {
+        }
+    }
+
+    private static byte[] withInt(byte[] snapshot, int offset, int value) {
+        byte[] copy = snapshot.clone();
+        ByteBuffer.wrap(copy).putInt(offset, value);
+        return copy;
+    }
+
+    private static void assertElementsEqual(List<DataElement> expected, List<MappedDataElement> actual) {
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertElementEquals(expected.get(i), actual.get(i));
+        }
+    }
+
+    private static void assertElementEquals(DataElement expected, MappedDataElement actual) {
+        assertEquals(expected.tag, actual.getTag());
+        assertEquals(expected.CDATA, actual.isCDATA());
+        assertEquals(expected.isObject(), actual.isObject());
+        assertEquals(expected.isArray(), actual.isArray());
+        assertEquals(expected.getAttributeCount(), actual.getAttributeCount());
+        for (int i = 0; i < expected.getAttributeCount(); i++) {
+            assertEquals(expected.getAttributeTag(i), actual.getAttributeTag(i));
+            assertEquals(expected.getAttributeValue(i), actual.getAttributeValue(i));
+        }
+        if (expected.isObject()) {
+            DataObject object = expected.getValueAsObject(null);
+            assertEquals(object.toJSON(), actual.getValueAsObject(null).toDataObject().toJSON());
+        } else if (expected.isArray()) {
+            @SuppressWarnings("unchecked")
+            List<DataElement> items = (List<DataElement>) expected.value;
+            assertElementsEqual(items, actual.getValueAsList(null));
+        } else {
+            assertEquals(expected.getValueAsString(null), actual.getValueAsString(null));
+        }
+    }
+}
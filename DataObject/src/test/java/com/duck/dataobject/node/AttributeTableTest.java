@@ -0,0 +1,187 @@
+package com.duck.dataobject.node;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(RobolectricTestRunner.class)
+public class AttributeTableTest {
+    //few tags and values so that tags repeat, and enough attributes to go past the hash threshold
+    private static final String[] TAGS = {"a", "b", "c", "d", "e", "f", "g", "h", "i", "j", "k", "l"};
+    private static final String[] VALUES = {"1", "2", "3"};
+
+    @Test
+    public void keepsTheFirstOfRepeatedTags() {
+        DataElement element = new DataElement("e", new XMLAttribute("a", "1"), new XMLAttribute("b", "2"),
+                                              new XMLAttribute("a", "3"));
+        assertEquals(3, element.getAttributeCount());
+        assertEquals("1", element.getAttributeValue("a"));
+        assertTrue(element.hasAttribute(new XMLAttribute("a", "3")));
+        assertTrue(element.matchAttributes(new XMLAttribute("a", "3"), new XMLAttribute("a", "1"),
+                                           new XMLAttribute("b", "2")));
+        assertFalse(element.matchAttributes(new XMLAttribute("a", "1"), new XMLAttribute("b", "2")));
+        element.removeAttribute("a");
+        assertEquals(1, element.getAttributeCount());
+        assertNull(element.getAttributeValue("a"));
+    }
+
+    @Test
+    public void matchesTheLinearSearch() {
+        Random random = new Random(29);
+        for (int run = 0; run < 200; run++) {
+            DataElement element = new DataElement("e");
+            List<XMLAttribute> linear = new ArrayList<>();
+            for (int step = 0; step < 60; step++) {
+                int operation = random.nextInt(10);
+                if (operation < 6) {
+                    XMLAttribute attribute = randomAttribute(random);
+                    element.addAttribute(attribute.getTag(), attribute.getValueAsString());
+                    linear.add(attribute);
+                } else if (operation < 8) {
+                    String tag = TAGS[random.nextInt(TAGS.length)];
+                    element.removeAttribute(tag);
+                    for (Iterator<XMLAttribute> iterator = linear.iterator(); iterator.hasNext(); ) {
+                        if (iterator.next().getTag().equals(tag)) {
+                            iterator.remove();
+                        }
+                    }
+                } else if (operation < 9 && !linear.isEmpty()) {
+                    //removes one attribute through the iterator of the element
+                    int index = random.nextInt(linear.size());
+                    Iterator<XMLAttribute> iterator = element.iterator();
+                    for (int i = 0; i <= index; i++) {
+                        iterator.next();
+                    }
+                    iterator.remove();
+                    linear.remove(index);
+                } else {
+                    //replaces the attributes with those of another element
+                    List<XMLAttribute> other = new ArrayList<>();
+                    int count = random.nextInt(12);
+                    for (int i = 0; i < count; i++) {
+                        other.add(randomAttribute(random));
+                    }
+                    element.copyAttributes(new DataElement("other", other.toArray(new XMLAttribute[0])));
+                    linear = other;
+                }
+                assertSameAttributes(linear, element, random);
+            }
+        }
+    }
+
+    @Test
+    public void copiesAreIndependent() {
+        DataElement element = new DataElement("e");
+        for (int i = 0; i < 20; i++) {
+            element.addAttribute(TAGS[i % TAGS.length], VALUES[i % VALUES.length]);
+        }
+        DataElement copy = element.copy();
+        copy.removeAttribute("a");
+        copy.addAttribute("z", "1");
+        assertEquals(20, element.getAttributeCount());
+        assertEquals("1", element.getAttributeValue("a"));
+        assertNull(element.getAttributeValue("z"));
+        assertEquals(19, copy.getAttributeCount());
+    }
+
+    @Test
+    @SuppressWarnings("deprecation")
+    public void attributeRootIsACopy() {
+        DataElement element = new DataElement("e", new XMLAttribute("a", "1"), new XMLAttribute("a", "2"),
+                                              new XMLAttribute("b", "3"));
+        XMLAttribute root = element.getAttributeRoot();
+        List<String> linked = new ArrayList<>();
+        for (XMLAttribute walker = root; walker != null; walker = walker.next) {
+            linked.add(walker.getTag() + "=" + walker.getValueAsString());
+        }
+        assertEquals("[a=1, a=2, b=3]", linked.toString());
+        //changes to the list are not seen by the element
+        root.next.next = null;
+        root.next = new XMLAttribute("c", "4");
+        assertEquals(3, element.getAttributeCount());
+        assertEquals("1", element.getAttributeValue("a"));
+        assertNull(new DataElement("e").getAttributeRoot());
+    }
+
+    private static XMLAttribute randomAttribute(Random random) {
+        return new XMLAttribute(TAGS[random.nextInt(TAGS.length)], VALUES[random.nextInt(VALUES.length)]);
+    }
+
+    /**
+     * Asserts that the element has the attributes of the list, in the same order, and that looking them up gives what
+     * walking the list gives.
+     */
+    private static void assertSameAttributes(List<XMLAttribute> linear, DataElement element, Random random) {
+        assertEquals(linear.size(), element.getAttributeCount());
+        assertEquals(!linear.isEmpty(), element.hasAttributes());
+        for (int i = 0; i < linear.size(); i++) {
+            assertEquals(linear.get(i).getTag(), element.getAttributeTag(i));
+            assertEquals(linear.get(i).getValueAsString(), element.getAttributeValue(i));
+        }
+        for (String tag : TAGS) {
+            String first = null;
+            for (XMLAttribute attribute : linear) {
+                if (attribute.getTag().equals(tag)) {
+                    first = attribute.getValueAsString();
+                    break;
+                }
+            }
+            assertEquals(tag, first, element.getAttributeValue(tag));
+            for (String value : VALUES) {
+                XMLAttribute attribute = new XMLAttribute(tag, value);
+                assertEquals(tag + "=" + value, linearContains(linear, attribute), element.hasAttribute(attribute));
+            }
+        }
+        for (int i = 0; i < 5; i++) {
+            XMLAttribute[] attributes = new XMLAttribute[random.nextInt(linear.size() + 2)];
+            for (int j = 0; j < attributes.length; j++) {
+                //mostly attributes of the element, so that some sets match
+                attributes[j] = !linear.isEmpty() && random.nextInt(4) > 0 ? linear.get(random.nextInt(linear.size()))
+                                                                           : randomAttribute(random);
+            }
+            assertEquals(linearMatch(linear, attributes), element.matchAttributes(attributes));
+            assertEquals(linearHasAll(linear, attributes), element.hasAttribute(attributes));
+            DataElement other = new DataElement("other", attributes);
+            assertEquals(linearMatch(linear, other.getAttributesAsArray()), element.matchAttributes(other));
+        }
+    }
+
+    private static boolean linearContains(List<XMLAttribute> linear, XMLAttribute attribute) {
+        for (XMLAttribute each : linear) {
+            if (each.equals(attribute)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean linearHasAll(List<XMLAttribute> linear, XMLAttribute[] attributes) {
+        for (XMLAttribute attribute : attributes) {
+            if (!linearContains(linear, attribute)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * The old match of the linked list: nothing given matches anything, otherwise the counts must be the same and every
+     * given attribute must be found.
+     */
+    private static boolean linearMatch(List<XMLAttribute> linear, XMLAttribute[] attributes) {
+        if (attributes == null || attributes.length == 0) {
+            return true;
+        }
+        return linear.size() == attributes.length && linearHasAll(linear, attributes);
+    }
+}
@@ -0,0 +1,191 @@
+package com.duck.dataobject.parser;
+
+import com.duck.dataobject.DataObject;
+import com.duck.dataobject.exception.ParsingException;
+import com.duck.dataobject.node.DataElement;
+import com.duck.dataobject.node.XMLAttribute;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.io.ByteArrayInputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+@RunWith(RobolectricTestRunner.class)
+public class CBORParserTest {
+
+    @Test
+    public void roundTripKeepsTheModel() throws Exception {
+        DataObject child = new DataObject();
+        child.insert("c", 1);
+        child.insert("c", 2);
+        List<DataElement> items = new ArrayList<>();
+        items.add(new DataElement("", "x"));
+        items.add(new DataElement("", 3));
+        DataObject data = new DataObject();
+        data.insert("attributed", "v", new XMLAttribute("a", "1", new XMLAttribute("b", "two")));
+        data.insert("cdata", "<b>bold</b>", true);
+        data.insert("int", Integer.MIN_VALUE);
+        data.insert("float", 1.5f);
+        data.insert("double", -0.25);
+        data.insert(new DataElement("none"));
+        data.insert("object", child);
+        data.insert(new DataElement("list", items));
+        data.insert("text", "😀 é");
+
+        byte[] cbor = data.toCBOR();
+        DataObject back = DataObject.fromCBOR(cbor);
+        assertEquals(data.toXML(), back.toXML());
+        assertEquals(data.toJSON(), back.toJSON());
+
+        DataElement attributed = back.get("attributed");
+        assertEquals("1", attributed.getAttributeValue("a"));
+        assertEquals("two", attributed.getAttributeValue("b"));
+        assertTrue(back.get("cdata").CDATA);
+        assertFalse(back.get("attributed").CDATA);
+        assertEquals(Integer.valueOf(Integer.MIN_VALUE), back.get("int").value);
+        assertEquals(Float.valueOf(1.5f), back.get("float").value);
+        assertEquals(Double.valueOf(-0.25), back.get("double").value);
+        assertNull(back.get("none").value);
+        assertEquals(2, back.get("object").getValueAsObject(null).getList("c").size());
+        List<?> list = (List<?>) back.get("list").value;
+        assertEquals("x", ((DataElement) list.get(0)).value);
+        assertEquals(Integer.valueOf(3), ((DataElement) list.get(1)).value);
+
+        DataObject streamed = new DataObject();
+        streamed.parseCBOR(new ByteArrayInputStream(cbor));
+        assertArrayEquals(cbor, streamed.toCBOR());
+    }
+
+    @Test
+    public void roundTripKeepsAnonymousArrays() {
+        String json = "[1,{\"a\":\"b\"},[2,3]]";
+        DataObject data = new DataObject(json);
+        DataObject back = DataObject.fromCBOR(data.toCBOR());
+        assertEquals(data.toJSON(), back.toJSON());
+        assertEquals(data.toXML(), back.toXML());
+    }
+
+    @Test
+    public void readsDefiniteLengthSample() {
+        //{"a": 1, "b": [2, 3]}
+        DataObject data = DataObject.fromCBOR(bytes("a26161016162820203"));
+        assertEquals(Integer.valueOf(1), data.get("a").value);
+        assertEquals(values(2, 3), intValues(data.getList("b")));
+    }
+
+    @Test
+    public void readsIndefiniteLengthSample() {
+        //{_ "a": 1, "b": [_ 2, 3]}
+        DataObject data = DataObject.fromCBOR(bytes("bf61610161629f0203ffff"));
+        assertEquals(Integer.valueOf(1), data.get("a").value);
+        assertEquals(values(2, 3), intValues(data.getList("b")));
+        //["a", {_ "b": "c"}]
+        data = DataObject.fromCBOR(bytes("826161bf61626163ff"));
+        assertEquals("[\"a\",{\"b\":\"c\"}]", data.toJSON());
+    }
+
+    @Test
+    public void readsIndefiniteTextHalfFloatAndIgnoresTags() {
+        //55799({"z": (_ "a", "b"), "h": 1.5 as a half float, "t": true})
+        DataObject data = DataObject.fromCBOR(bytes("d9d9f7a3617a7f61616162ff6168f93e006174f5"));
+        assertEquals("ab", data.get("z").value);
+        assertEquals(Float.valueOf(1.5f), data.get("h").value);
+        assertEquals("true", data.get("t").value);
+        //{"d": 1(1363896240)}, an epoch date tag on a value
+        data = DataObject.fromCBOR(bytes("a16164c11a514b67b0"));
+        assertEquals(Integer.valueOf(1363896240), data.get("d").value);
+    }
+
+    @Test
+    public void rejectsTruncatedData() {
+        byte[] cbor = DataObject.fromCBOR(bytes("a26161016162820203")).toCBOR();
+        for (int length = 1; length < cbor.length; length++) {
+            try {
+                DataObject.fromCBOR(Arrays.copyOf(cbor, length));
+                fail("Parsed " + length + " of " + cbor.length + " bytes");
+            } catch (ParsingException expected) {
+            }
+        }
+    }
+
+    @Test
+    public void rejectsMalformedData() {
+        String[] malformed = {
+                //a text string at the top
+                "6161",
+                //an integer map key
+                "a10101",
+                //a text string longer than the data
+                "a17b7fffffffffffffff",
+                //a value whose two byte argument is cut off
+                "a1616119",
+                //reserved additional info 28
+                "a161611c",
+                //an indefinite length integer
+                "a161611f",
+                //a break outside an indefinite length item
+                "a16161ff",
+                //a chunk of another kind in an indefinite length text string
+                "a161617f01ff",
+                //a byte string value
+                "a1616141ff",
+        };
+        for (String hex : malformed) {
+            try {
+                DataObject.fromCBOR(bytes(hex));
+                fail("Parsed " + hex);
+            } catch (ParsingException expected) {
+            }
+        }
+    }
+
+    @Test
+    public void rejectsHugeDeclaredLengthsWithoutAllocating() {
+        String[] huge = {
+                //an array of 2^31 - 16 items at the top
+                "9a7ffffff0",
+                //the value of a key
+                "a161619a7ffffff0",
+                //the attributes of an element
+                "a16161d9de01846161f49a7ffffff0",
+        };
+        for (String hex : huge) {
+            try {
+                DataObject.fromCBOR(bytes(hex));
+                fail("Parsed " + hex);
+            } catch (ParsingException expected) {
+            }
+        }
+    }
+
+    private static List<Integer> values(Integer... values) {
+        return Arrays.asList(values);
+    }
+
+    private static List<Integer> intValues(List<DataElement> elements) {
+        List<Integer> values = new ArrayList<>();
+        for (DataElement element : elements) {
+            values.add((Integer) element.value);
+        }
+        return values;
+    }
+
+    static byte[] bytes(String hex) {
+        byte[] bytes = new byte[hex.length() / 2];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = (byte) Integer.parseInt(hex.substring(i * 2, i * 2 + 2), 16);
+        }
+        return bytes;
+    }
+}
@@ -0,0 +1,127 @@
+package com.duck.dataobject.parser;
+
+import com.duck.dataobject.exception.ParsingException;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+
+import static com.duck.dataobject.parser.CBORParserTest.bytes;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+@RunWith(RobolectricTestRunner.class)
+public class CBORReaderTest {
+
+    @Test
+    public void readsIntegers() throws IOException {
+        //0, 23, 24, 1000, 1000000000000, -1, -1000 from the examples of RFC 8949 appendix A
+        CBORReader reader = new CBORReader(bytes("001718181903e81b000000e8d4a5100020" + "3903e7"));
+        long[] expected = {0, 23, 24, 1000, 1000000000000L, -1, -1000};
+        for (long value : expected) {
+            assertEquals(CBORReader.INTEGER, reader.peek());
+            assertEquals(value, reader.readInteger());
+        }
+        assertEquals(CBORReader.END_OF_DATA, reader.peek());
+    }
+
+    @Test
+    public void readsHalfFloats() throws IOException {
+        //0.0, -0.0, 1.0, 1.5, 65504.0, 5.960464477539063e-8, 0.00006103515625, -4.0, Infinity, NaN, -Infinity
+        CBORReader reader = new CBORReader(bytes("f90000f98000f93c00f93e00f97bfff90001f90400f9c400f97c00f97e00f9fc00"));
+        float[] expected = {0f, -0f, 1f, 1.5f, 65504f, 5.9604645E-8f, 6.1035156E-5f, -4f, Float.POSITIVE_INFINITY,
+                Float.NaN, Float.NEGATIVE_INFINITY};
+        for (float value : expected) {
+            assertEquals(CBORReader.FLOAT, reader.peek());
+            assertEquals(Float.floatToIntBits(value), Float.floatToIntBits(reader.readFloat()));
+        }
+    }
+
+    @Test
+    public void readsSingleAndDoubleFloats() throws IOException {
+        //100000.0, 1.1, -4.1, 1.5 as a half float read as a double
+        CBORReader reader = new CBORReader(bytes("fa47c35000fb3ff199999999999afbc010666666666666f93e00"));
+        assertEquals(100000f, reader.readFloat(), 0f);
+        assertEquals(CBORReader.DOUBLE, reader.peek());
+        assertEquals(1.1, reader.readDouble(), 0);
+        assertEquals(-4.1, reader.readDouble(), 0);
+        assertEquals(1.5, reader.readDouble(), 0);
+    }
+
+    @Test
+    public void readsIndefiniteLengths() throws IOException {
+        //(_ h'0102', h'030405'), (_ "strea", "ming"), [_ 1, [2, 3], [_ 4, 5]]
+        CBORReader reader = new CBORReader(bytes("5f42010243030405ff7f657374726561646d696e67ff"
+                                                 + "9f018202039f0405ffff"));
+        assertArrayEquals(bytes("0102030405"), reader.readBytes());
+        assertEquals("streaming", reader.readText());
+        assertEquals(-1, reader.readArrayHeader());
+        assertFalse(reader.readBreak());
+        assertEquals(1, reader.readInteger());
+        assertEquals(2, reader.readArrayHeader());
+        assertEquals(2, reader.readInteger());
+        assertEquals(3, reader.readInteger());
+        assertEquals(-1, reader.readArrayHeader());
+        assertEquals(4, reader.readInteger());
+        assertEquals(5, reader.readInteger());
+        assertTrue(reader.readBreak());
+        assertTrue(reader.readBreak());
+        assertEquals(CBORReader.END_OF_DATA, reader.peek());
+    }
+
+    @Test
+    public void skipsTagsAndNestedItems() throws IOException {
+        //0("2013-03-21T20:04:00Z"), {"a": 1, "b": [2, 3]}, "end"
+        CBORReader reader = new CBORReader(bytes("c074323031332d30332d32315432303a30343a30305a"
+                                                 + "a26161016162820203" + "63656e64"));
+        assertEquals(CBORReader.TAG, reader.peek());
+        reader.skip();
+        reader.skip();
+        assertEquals("end", reader.readText());
+    }
+
+    @Test
+    public void readsFromStreamsInParts() throws IOException {
+        //a text string longer than the buffer of a streaming reader
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < 5000; i++) {
+            text.append((char) ('a' + i % 26));
+        }
+        byte[] head = bytes("791388");
+        byte[] data = new byte[head.length + text.length()];
+        System.arraycopy(head, 0, data, 0, head.length);
+        System.arraycopy(text.toString().getBytes("UTF-8"), 0, data, head.length, text.length());
+        assertEquals(text.toString(), new CBORReader(new ByteArrayInputStream(data)).readText());
+        try {
+            new CBORReader(new ByteArrayInputStream(data, 0, data.length - 1)).readText();
+            fail("Read a truncated text string");
+        } catch (ParsingException expected) {
+        }
+    }
+
+    @Test(expected = ParsingException.class)
+    public void rejectsItemOfAnotherKind() throws IOException {
+        new CBORReader(bytes("6161")).readInteger();
+    }
+
+    @Test(expected = ParsingException.class)
+    public void rejectsTruncatedArgument() throws IOException {
+        new CBORReader(bytes("1a0102")).peek();
+    }
+
+    @Test(expected = ParsingException.class)
+    public void rejectsNestedIndefiniteText() throws IOException {
+        new CBORReader(bytes("7f7f6161ffff")).readText();
+    }
+
+    @Test(expected = ParsingException.class)
+    public void rejectsUnexpectedBreak() throws IOException {
+        new CBORReader(bytes("ff")).skip();
+    }
+}
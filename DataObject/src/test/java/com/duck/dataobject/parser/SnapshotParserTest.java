@@ -0,0 +1,174 @@
+package com.duck.dataobject.parser;
+
+import com.duck.dataobject.DataObject;
+import com.duck.dataobject.exception.ParsingException;
+import com.duck.dataobject.node.DataElement;
+import com.duck.dataobject.node.XMLAttribute;
+import com.duck.dataobject.serializer.SnapshotSerializer;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static com.duck.dataobject.serializer.SnapshotSerializer.ATTRIBUTE_SHIFT;
+import static com.duck.dataobject.serializer.SnapshotSerializer.CDATA_FLAG;
+import static com.duck.dataobject.serializer.SnapshotSerializer.HEADER_SIZE;
+import static com.duck.dataobject.serializer.SnapshotSerializer.KIND_INT;
+import static com.duck.dataobject.serializer.SnapshotSerializer.KIND_LIST;
+import static com.duck.dataobject.serializer.SnapshotSerializer.KIND_OBJECT;
+import static com.duck.dataobject.serializer.SnapshotSerializer.KIND_STRING;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+@RunWith(RobolectricTestRunner.class)
+public class SnapshotParserTest {
+
+    @Test
+    public void roundTripKeepsTheModel() {
+        DataObject child = new DataObject();
+        child.insert("c", "x");
+        child.insert("c", "y");
+        List<DataElement> items = new ArrayList<>();
+        items.add(new DataElement("", 1));
+        items.add(new DataElement("", child));
+        DataObject data = new DataObject();
+        data.insert("attributed", "v", new XMLAttribute("a", "1", new XMLAttribute("b", "two")));
+        data.insert("cdata", "<b>bold</b>", true);
+        data.insert("int", Integer.MIN_VALUE);
+        data.insert("float", Float.NaN);
+        data.insert("double", -0.0);
+        data.insert(new DataElement("none"));
+        data.insert("object", child);
+        data.insert(new DataElement("list", items));
+        data.insert("text", "a\uD800b 😀");
+
+        byte[] snapshot = data.toSnapshot();
+        DataObject back = DataObject.fromSnapshot(snapshot);
+        assertArrayEquals(snapshot, back.toSnapshot());
+        assertEquals(data.toXML(), back.toXML());
+        assertEquals(data.toJSON(), back.toJSON());
+
+        assertEquals("two", back.get("attributed").getAttributeValue("b"));
+        assertTrue(back.get("cdata").CDATA);
+        assertEquals(Integer.valueOf(Integer.MIN_VALUE), back.get("int").value);
+        assertEquals(Float.valueOf(Float.NaN), back.get("float").value);
+        assertEquals(Double.valueOf(-0.0), back.get("double").value);
+        assertNull(back.get("none").value);
+        //unpaired surrogates are kept as they are
+        assertEquals("a\uD800b 😀", back.get("text").value);
+    }
+
+    @Test
+    public void loadsFromBufferPosition() {
+        byte[] snapshot = new DataObject("{\"a\":[1,2],\"b\":{\"c\":\"d\"}}").toSnapshot();
+        byte[] padded = new byte[snapshot.length + 7];
+        System.arraycopy(snapshot, 0, padded, 3, snapshot.length);
+        ByteBuffer buffer = ByteBuffer.wrap(padded, 3, snapshot.length);
+        DataObject data = DataObject.fromSnapshot(buffer);
+        assertEquals(3, buffer.position());
+        assertArrayEquals(snapshot, data.toSnapshot());
+    }
+
+    @Test
+    public void loadsWrittenNodes() {
+        //{"a": "v", "o": {"i": 7}, "l": [7]} with a CDATA attributed "a", each entry, object and list after its node count
+        String[] strings = {"a", "v", "o", "i", "l", "x", "y"};
+        int[] nodes = {
+                3,
+                0, 1, 5, KIND_STRING | CDATA_FLAG | 1 << ATTRIBUTE_SHIFT, 0, 5, 6, 1,
+                2, 1, 10, KIND_OBJECT, 2, 7, 1, 3, 1, 3, KIND_INT, 3, 7,
+                4, 1, 7, KIND_LIST, 4, 4, 1, KIND_INT, 3, 7,
+        };
+        DataObject data = DataObject.fromSnapshot(snapshot(strings, nodes));
+        DataElement a = data.get("a");
+        assertEquals("v", a.value);
+        assertTrue(a.CDATA);
+        assertEquals("y", a.getAttributeValue("x"));
+        assertEquals(7, data.get("o").getValueAsObject(null).get("i").getValueAsInteger(0));
+        List<?> list = (List<?>) data.get("l").value;
+        assertEquals(Integer.valueOf(7), ((DataElement) list.get(0)).value);
+        assertEquals(data.toJSON(), DataObject.fromSnapshot(data.toSnapshot()).toJSON());
+    }
+
+    @Test
+    public void rejectsCorruptHeaders() {
+        byte[] snapshot = new DataObject("{\"a\":\"b\"}").toSnapshot();
+        assertCorrupt(Arrays.copyOf(snapshot, HEADER_SIZE - 1));
+        //magic
+        assertCorrupt(withInt(snapshot, 0, 0x444F534F));
+        //versions
+        assertCorrupt(withInt(snapshot, 4, 0));
+        assertCorrupt(withInt(snapshot, 4, -SnapshotSerializer.VERSION));
+        assertCorrupt(withInt(snapshot, 4, SnapshotSerializer.VERSION + 1));
+        //negative and too large string, node and char counts
+        for (int offset = 8; offset < HEADER_SIZE; offset += 4) {
+            assertCorrupt(withInt(snapshot, offset, -1));
+            assertCorrupt(withInt(snapshot, offset, Integer.MAX_VALUE));
+        }
+        assertCorrupt(Arrays.copyOf(snapshot, snapshot.length - 1));
+    }
+
+    @Test
+    public void rejectsCorruptNodes() {
+        String[] strings = {"a", "v"};
+        //a string index out of the table
+        assertCorrupt(snapshot(strings, new int[]{1, 0, 1, 4, KIND_STRING, 0, 2}));
+        //an unknown kind
+        assertCorrupt(snapshot(strings, new int[]{1, 0, 1, 3, 0x0F, 0, 1}));
+        //nodes that end within an element
+        assertCorrupt(snapshot(strings, new int[]{1, 0, 1, 4, KIND_STRING, 0}));
+        //more entries than there are nodes
+        assertCorrupt(snapshot(strings, new int[]{5, 0, 1, 4, KIND_STRING, 0, 1}));
+        //string ends that run backwards or past the chars
+        assertCorrupt(snapshotWithEnds(new int[]{2, 1}, "av", new int[]{1, 0, 1, 4, KIND_STRING, 0, 1}));
+        assertCorrupt(snapshotWithEnds(new int[]{1, 3}, "av", new int[]{1, 0, 1, 4, KIND_STRING, 0, 1}));
+    }
+
+    private static void assertCorrupt(byte[] snapshot) {
+        try {
+            DataObject.fromSnapshot(snapshot);
+            fail("Loaded a corrupt snapshot");
+        } catch (ParsingException expected) {
+        }
+    }
+
+    private static byte[] withInt(byte[] snapshot, int offset, int value) {
+        byte[] copy = snapshot.clone();
+        ByteBuffer.wrap(copy).putInt(offset, value);
+        return copy;
+    }
+
+    private static byte[] snapshot(String[] strings, int[] nodes) {
+        int[] ends = new int[strings.length];
+        StringBuilder chars = new StringBuilder();
+        for (int i = 0; i < strings.length; i++) {
+            chars.append(strings[i]);
+            ends[i] = chars.length();
+        }
+        return snapshotWithEnds(ends, chars.toString(), nodes);
+    }
+
+    private static byte[] snapshotWithEnds(int[] ends, String chars, int[] nodes) {
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE + (ends.length + nodes.length) * 4 + chars.length() * 2);
+        buffer.putInt(SnapshotSerializer.MAGIC).putInt(SnapshotSerializer.VERSION).putInt(ends.length)
+              .putInt(nodes.length).putInt(chars.length());
+        for (int end : ends) {
+            buffer.putInt(end);
+        }
+        for (int node : nodes) {
+            buffer.putInt(node);
+        }
+        for (int i = 0; i < chars.length(); i++) {
+            buffer.putChar(chars.charAt(i));
+        }
+        return buffer.array();
+    }
+}
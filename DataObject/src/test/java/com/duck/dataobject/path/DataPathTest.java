@@ -0,0 +1,255 @@
+package com.duck.dataobject.path;
+
+import com.duck.dataobject.DataObject;
+import com.duck.dataobject.exception.ParsingException;
+import com.duck.dataobject.node.DataElement;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+@RunWith(RobolectricTestRunner.class)
+public class DataPathTest {
+    private static final String JSON = "{\"a\":{\"b\":[{\"c\":\"1\",\"d\":{\"e\":\"2\"}},{\"c\":\"3\",\"d\":\"4\"},\"5\"],"
+            + "\"f\":\"6\"},\"g\":\"7\",\"h\":[{\"c\":\"8\"},{\"c\":\"9\"}]}";
+    private static final String XML = "<shop><item id=\"1\" kind=\"a\"><name>one</name><price cur=\"usd\">2</price></item>"
+            + "<item id=\"2\"><name>two</name></item><info>text</info></shop>";
+    //the tags of the documents, and some that aren't in them
+    private static final String[] TAGS = {"a", "b", "c", "d", "e", "f", "g", "h", "shop", "item", "name", "price",
+            "info", "xml", "missing"};
+
+    @Test
+    public void findsTheSameAsTheRecursiveLookups() {
+        for (DataObject data : documents()) {
+            String json = data.toJSON();
+            for (String[] tags : paths()) {
+                DataPath path = DataPath.of(tags);
+                String description = Arrays.toString(tags) + " in " + json;
+                assertSame(description, oldGetElement(data, tags), path.getElement(data));
+                assertSame(description, oldGetElement(data, tags), DataObject.getElement(data, tags));
+                assertSame(description, oldGetElement(data, tags), DataPath.compile(join(tags)).getElement(data));
+                if (tags.length > 1) {
+                    assertSame(description, oldGetObject(data, tags), path.getParent(data));
+                    assertSame(description, oldGetObject(data, tags), DataObject.getObject(data, tags));
+                }
+                assertSameElements(description, oldFindList(data, tags), path.getList(data));
+                DataElement element = oldGetElement(data, tags);
+                assertSame(description, element != null && element.isObject() ? element.value : null,
+                           path.getObject(data));
+                assertEquals(description, element != null ? element.getValueAsString("none") : "none",
+                             path.getValue(data, "none"));
+            }
+        }
+    }
+
+    @Test
+    public void picksTheIndexedElements() {
+        for (DataObject data : documents()) {
+            String json = data.toJSON();
+            for (String[] tags : paths()) {
+                if (tags.length < 2) {
+                    continue;
+                }
+                //the second last step indexed, its items being the list the old lookups find
+                String[] parentTags = Arrays.copyOf(tags, tags.length - 1);
+                List<DataElement> items = oldFindList(data, parentTags);
+                for (int index = 1; index <= items.size() + 1; index++) {
+                    String parentPath = join(Arrays.copyOf(tags, tags.length - 2));
+                    parentPath += (parentPath.isEmpty() ? "" : "/") + tags[tags.length - 2] + "[" + index + "]";
+                    String description = parentPath + "/" + tags[tags.length - 1] + " in " + json;
+                    DataElement item = index <= items.size() ? items.get(index - 1) : null;
+                    DataObject itemObject = item != null && item.isObject() ? (DataObject) item.value : null;
+                    DataPath path = DataPath.compile(parentPath + "/" + tags[tags.length - 1]);
+                    assertSame(description, itemObject, path.getParent(data));
+                    assertSame(description, oldGetElement(itemObject, tags[tags.length - 1]), path.getElement(data));
+                    assertSame(description, item, DataPath.compile(parentPath).getElement(data));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void readsAttributes() {
+        for (DataObject data : documents()) {
+            for (String[] tags : paths()) {
+                DataElement element = oldGetElement(data, tags);
+                for (String attribute : new String[]{"id", "kind", "cur", "missing"}) {
+                    String value = element != null ? element.getAttributeValue(attribute) : null;
+                    DataPath path = DataPath.compile(join(tags) + "@" + attribute);
+                    assertEquals(attribute, path.getAttributeTag());
+                    assertSame(element, path.getElement(data));
+                    assertEquals(Arrays.toString(tags) + "@" + attribute, value != null ? value : "none",
+                                 path.getValue(data, "none"));
+                }
+            }
+        }
+        DataObject shop = new DataObject(XML);
+        assertEquals("2", DataPath.compile("shop/item[2]@id").getValue(shop, null));
+        assertEquals("usd", DataPath.compile("shop/item/price@cur").getValue(shop, null));
+        assertNull(DataPath.compile("shop/item[2]/price@cur").getValue(shop, null));
+    }
+
+    @Test
+    public void rejectsInvalidPaths() {
+        for (String path : new String[]{"", "a//b", "/a", "a/", "a[0]", "a[-1]", "a[x]", "a[1", "a@", "a@b/c", "a@b[1]",
+                "a@b@c", "[1]"}) {
+            try {
+                DataPath.compile(path);
+                fail(path);
+            } catch (ParsingException expected) {
+            }
+        }
+        try {
+            DataPath.of();
+            fail();
+        } catch (IllegalArgumentException expected) {
+        }
+    }
+
+    private static List<DataObject> documents() {
+        List<DataObject> documents = new ArrayList<>();
+        documents.add(new DataObject(JSON));
+        documents.add(new DataObject(XML));
+        //the xml element the lookups look through when a tag isn't found, at the top and further down
+        documents.add(new DataObject("<xml>" + XML + "</xml>"));
+        DataObject wrapped = new DataObject();
+        wrapped.insert("xml", new DataObject(JSON));
+        wrapped.insert("g", "outside");
+        documents.add(wrapped);
+        DataObject nested = new DataObject(JSON);
+        nested.get("a").getValueAsObject(null).insert("xml", new DataObject(XML));
+        nested.insert("shop", "a value, not an object");
+        documents.add(nested);
+        DataObject xmlValue = new DataObject();
+        xmlValue.insert("xml", "not an object");
+        documents.add(xmlValue);
+        documents.add(new DataObject());
+        return documents;
+    }
+
+    /**
+     * @return Every path of one to four of the tags.
+     */
+    private static List<String[]> paths() {
+        List<String[]> paths = new ArrayList<>();
+        for (int length = 1; length <= 4; length++) {
+            addPaths(new String[length], 0, paths);
+        }
+        return paths;
+    }
+
+    private static void addPaths(String[] path, int step, List<String[]> paths) {
+        if (step == path.length) {
+            paths.add(path.clone());
+            return;
+        }
+        for (String tag : TAGS) {
+            path[step] = tag;
+            addPaths(path, step + 1, paths);
+        }
+    }
+
+    private static String join(String[] tags) {
+        StringBuilder path = new StringBuilder();
+        for (String tag : tags) {
+            if (path.length() > 0) {
+                path.append('/');
+            }
+            path.append(tag);
+        }
+        return path.toString();
+    }
+
+    /**
+     * @return The list the last tag is found in, with its {@code "xml"} fallback as {@link #oldGetElement} has, which
+     * the old {@code getList} only had for a single tag.
+     */
+    private static List<DataElement> oldFindList(DataObject data, String... tags) {
+        if (tags.length > 1) {
+            return oldGetList(oldGetObject(data, tags), tags[tags.length - 1]);
+        }
+        return oldGetList(data, tags);
+    }
+
+    private static void assertSameElements(String description, List<DataElement> expected, List<DataElement> actual) {
+        assertEquals(description, expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertSame(description, expected.get(i), actual.get(i));
+        }
+    }
+
+    /**
+     * The static {@code getElement} of {@link DataObject} as it was before {@link DataPath}, recursing through copies of
+     * the tags, as are {@link #oldGetObject} and {@link #oldGetList}.
+     */
+    private static DataElement oldGetElement(DataObject data, String... tags) {
+        if (tags != null && tags.length > 0) {
+            if (data != null) {
+                String tag = tags[0];
+                if (!data.contains(tag) && data.contains("xml")) {
+                    return oldGetElement(data.get("xml").getValueAsObject(new DataObject()), tags);
+                } else {
+                    if (tags.length == 1) {
+                        return data.get(tag);
+                    } else {
+                        if (data.contains(tag)) {
+                            DataElement element = data.get(tag);
+                            if (element.isObject()) {
+                                return oldGetElement(element.getValueAsObject(new DataObject()),
+                                                     Arrays.copyOfRange(tags, 1, tags.length));
+                            } else {
+                                return null;
+                            }
+                        } else {
+                            return null;
+                        }
+                    }
+                }
+            }
+        }
+        return null;
+    }
+
+    private static DataObject oldGetObject(DataObject data, String... tags) {
+        if (tags.length > 1) {
+            DataElement element = oldGetElement(data, Arrays.copyOfRange(tags, 0, tags.length - 1));
+            if (element != null && element.isObject()) {
+                return element.getValueAsObject(new DataObject());
+            }
+        } else if (data != null) {
+            DataElement element = data.get(tags[0]);
+            if (element != null && element.isObject()) {
+                return element.getValueAsObject(new DataObject());
+            }
+        }
+        return null;
+    }
+
+    private static List<DataElement> oldGetList(DataObject data, String... tags) {
+        if (tags.length > 1) {
+            DataObject object = oldGetObject(data, tags);
+            if (object != null) {
+                return object.getList(tags[tags.length - 1]);
+            }
+        } else if (data != null) {
+            if (!data.contains(tags[0]) && data.contains("xml")) {
+                DataElement xml = data.get("xml");
+                if (xml != null && xml.isObject()) {
+                    return oldGetList(xml.getValueAsObject(new DataObject()), tags);
+                }
+            } else {
+                return data.getList(tags[0]);
+            }
+        }
+        return new ArrayList<>();
+    }
+}
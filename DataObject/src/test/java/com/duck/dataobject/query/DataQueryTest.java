@@ -0,0 +1,51 @@
+package com.duck.dataobject.query;
+
+import com.duck.dataobject.DataObject;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+@RunWith(RobolectricTestRunner.class)
+public class DataQueryTest {
+    private static final String XML = "<r><a><b>1</b><b>2</b></a><a><b>3</b><c><b>4</b><b>5</b></c></a></r>";
+
+    private static List<String> values(String query, DataObject data) {
+        List<String> values = new ArrayList<>();
+        Iterator<String> iterator = DataQuery.compile(query).selectValues(data);
+        while (iterator.hasNext()) {
+            values.add(iterator.next());
+        }
+        return values;
+    }
+
+    @Test
+    public void positionsCountWithinEachObject() {
+        DataObject data = new DataObject(XML);
+        assertEquals(Arrays.asList("1", "3"), values("/r/a/b[1]", data));
+        assertEquals(Arrays.asList("1", "3", "4"), values("//b[1]", data));
+        assertEquals(Arrays.asList("2", "5"), values("//b[2]", data));
+        assertEquals(Arrays.asList("1", "3", "4"), values("//a//b[1]", data));
+    }
+
+    @Test
+    public void positionsCountWithinEachObjectWithTagIndex() {
+        DataObject data = new DataObject(XML).enableTagIndex();
+        assertEquals(Arrays.asList("1", "3", "4"), values("//b[1]", data));
+        assertEquals(Arrays.asList("2", "5"), values("//b[2]", data));
+    }
+
+    @Test
+    public void positionsCountTheElementsPassingEarlierPredicates() {
+        DataObject data = new DataObject(XML);
+        assertEquals(Arrays.asList("2", "3", "4"), values("//b[.>1][1]", data));
+        assertEquals(Arrays.asList("3", "4"), values("//b[1][.>1]", data));
+    }
+}
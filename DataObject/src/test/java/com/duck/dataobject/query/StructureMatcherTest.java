@@ -0,0 +1,176 @@
+package com.duck.dataobject.query;
+
+import com.duck.dataobject.DataObject;
+import com.duck.dataobject.node.DataElement;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonNull;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.google.gson.JsonPrimitive;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+@RunWith(RobolectricTestRunner.class)
+public class StructureMatcherTest {
+    private static final String JSON = "{\"a\":[{\"b\":\"1\",\"c\":{\"d\":\"2\"}},{\"b\":[\"3\",\"4\"],\"c\":[{\"d\":\"5\"},"
+            + "{\"d\":\"6\"}]},\"7\"],\"b\":\"8\",\"c\":{\"b\":\"9\",\"d\":[\"10\",\"11\"]},\"d\":[\"12\",\"13\"]}";
+    private static final String XML = "<shop><item><name>one</name><price>1</price></item>"
+            + "<item><name>two</name><tags><tag>a</tag><tag>b</tag></tags></item><info>text</info></shop>";
+    //the keys the structures are made of, a few of them missing from every document
+    private static final String[] KEYS = {"a", "b", "c", "d", "shop", "item", "name", "price", "tags", "tag", "info",
+            "xml", "missing"};
+
+    @Test
+    public void findsTheSameAsTheRecursiveGetList() {
+        List<JsonObject> structures = new ArrayList<>();
+        for (String structure : new String[]{
+                "{\"a\":\"\"}",
+                "{\"a\":{\"b\":\"\"}}",
+                "{\"a\":{\"b\":{},\"c\":{\"d\":\"\"}}}",
+                "{\"b\":\"\",\"a\":{\"c\":\"\"},\"d\":\"\"}",
+                //an object entry replaces what was found before it
+                "{\"b\":\"\",\"a\":{\"b\":\"\"},\"c\":{\"d\":\"\"},\"d\":\"\"}",
+                "{\"shop\":{\"item\":{}}}",
+                "{\"item\":{\"name\":\"\",\"tags\":{\"tag\":\"\"}}}",
+                "{\"xml\":{\"shop\":\"\"}}",
+                "{\"xml\":\"\",\"shop\":\"\"}",
+                "{\"a\":null,\"b\":[1],\"c\":{\"d\":null,\"b\":[]}}",
+                "{}"
+        }) {
+            structures.add(JsonParser.parseString(structure).getAsJsonObject());
+        }
+        Random random = new Random(32);
+        for (int i = 0; i < 2000; i++) {
+            structures.add(randomStructure(random, 0));
+        }
+        for (DataObject data : documents()) {
+            String json = data.toJSON();
+            for (JsonObject structure : structures) {
+                String description = structure + " in " + json;
+                List<DataElement> expected = oldGetList(data, structure);
+                StructureMatcher matcher = StructureMatcher.compile(structure);
+                assertSameElements(description, expected, matcher.getList(data));
+                assertSameElements(description, expected, DataObject.getList(data, structure));
+                //collect adds after what the list already holds
+                List<DataElement> out = new ArrayList<>();
+                DataElement first = new DataElement("first", "x");
+                out.add(first);
+                matcher.collect(data, out);
+                assertSame(description, first, out.remove(0));
+                assertSameElements(description, expected, out);
+            }
+        }
+        assertEquals(0, StructureMatcher.compile(structures.get(0)).getList(null).size());
+    }
+
+    private static List<DataObject> documents() {
+        List<DataObject> documents = new ArrayList<>();
+        documents.add(new DataObject(JSON));
+        documents.add(new DataObject(XML));
+        //"xml" elements at the top, inside an item and holding a value
+        documents.add(new DataObject("<xml>" + XML + "</xml>"));
+        DataObject wrapped = new DataObject();
+        wrapped.insert("xml", new DataObject().insert("xml", new DataObject(JSON)));
+        documents.add(wrapped);
+        DataObject nested = new DataObject(JSON);
+        DataObject item = nested.getList("a").get(0).getValueAsObject(null);
+        item.insert("xml", new DataObject("{\"d\":\"14\",\"b\":\"15\",\"item\":[\"16\",\"17\"]}"));
+        nested.insert("item", new DataObject().insert("xml", new DataObject(XML)));
+        documents.add(nested);
+        documents.add(new DataObject().insert("xml", "not an object").insert("a", "18"));
+        documents.add(new DataObject());
+        return documents;
+    }
+
+    private static JsonObject randomStructure(Random random, int depth) {
+        JsonObject structure = new JsonObject();
+        int entries = random.nextInt(depth == 0 ? 5 : 4);
+        for (int i = 0; i < entries; i++) {
+            String key = KEYS[random.nextInt(KEYS.length)];
+            int kind = random.nextInt(depth < 2 ? 6 : 4);
+            JsonElement value;
+            if (kind == 0) {
+                value = JsonNull.INSTANCE;
+            } else if (kind == 1) {
+                value = new JsonArray();
+            } else if (kind < 4) {
+                value = new JsonPrimitive(kind == 2 ? "" : "1");
+            } else {
+                value = randomStructure(random, depth + 1);
+            }
+            structure.add(key, value);
+        }
+        return structure;
+    }
+
+    private static void assertSameElements(String description, List<DataElement> expected, List<DataElement> actual) {
+        assertEquals(description, expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertSame(description, expected.get(i), actual.get(i));
+        }
+    }
+
+    /**
+     * {@link DataObject#getList(DataObject, JsonObject)} as it was before {@link StructureMatcher}, walking the structure
+     * on every call.
+     */
+    private static List<DataElement> oldGetList(DataObject data, JsonObject structure) {
+        if (structure != null && data != null) {
+            List<DataElement> elements = new ArrayList<>();
+            if (!structure.has("xml") && data.contains("xml")) {
+                return oldGetList(data.get("xml").getValueAsObject(new DataObject()), structure);
+            }
+            for (Map.Entry<String, JsonElement> entry : structure.entrySet()) {
+                String key = entry.getKey();
+                JsonElement value = entry.getValue();
+                if (value.isJsonPrimitive()) {
+                    DataElement element = data.get(key);
+                    if (element != null) {
+                        elements.add(element);
+                    }
+                } else if (value.isJsonObject()) {
+                    elements = oldGetList(DataObject.getList(data, key), value.getAsJsonObject());
+                }
+            }
+            return elements;
+        }
+        return new ArrayList<>();
+    }
+
+    private static List<DataElement> oldGetList(List<DataElement> dataElements, JsonObject structure) {
+        if (structure != null && dataElements != null && dataElements.size() > 0) {
+            List<DataElement> elements = new ArrayList<>();
+            for (Map.Entry<String, JsonElement> entry : structure.entrySet()) {
+                String key = entry.getKey();
+                JsonElement value = entry.getValue();
+                for (DataElement element : dataElements) {
+                    if (value.isJsonPrimitive()) {
+                        if (element.isObject()) {
+                            DataElement dataElement = element.getValueAsObject(new DataObject()).get(key);
+                            if (dataElement != null) {
+                                elements.add(dataElement);
+                            }
+                        }
+                    } else if (value.isJsonObject()) {
+                        if (element.isObject()) {
+                            elements.addAll(DataObject.getList(element.getValueAsObject(new DataObject()), key));
+                        }
+                    }
+                }
+            }
+            return elements;
+        }
+        return new ArrayList<>();
+    }
+}
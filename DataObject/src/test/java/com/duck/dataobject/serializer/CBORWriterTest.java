@@ -0,0 +1,67 @@
+package com.duck.dataobject.serializer;
+
+import com.duck.dataobject.parser.CBORReader;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(RobolectricTestRunner.class)
+public class CBORWriterTest {
+
+    @Test
+    public void writesRfcExamples() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        CBORWriter writer = new CBORWriter(out);
+        writer.writeInt(0).writeInt(23).writeInt(24).writeInt(1000).writeInt(1000000000000L).writeInt(-1)
+              .writeInt(-1000).writeFloat(100000f).writeDouble(1.1).writeBoolean(false).writeBoolean(true).writeNull()
+              .writeString("").writeString("IETF").writeString("ü").writeString("𐅑")
+              .writeBytes(new byte[]{1, 2, 3, 4});
+        writer.flush();
+        assertEquals("001718181903e81b000000e8d4a51000203903e7fa47c35000fb3ff199999999999af4f5f6"
+                     + "60644945544662c3bc64f090859144" + "01020304", hex(out.toByteArray()));
+    }
+
+    @Test
+    public void writesContainers() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        CBORWriter writer = new CBORWriter(out);
+        //{"a": 1, "b": [2, 3]}, [_ 1, {_ "b": "c"}], 55799("a")
+        writer.writeMapHeader(2).writeString("a").writeInt(1).writeString("b").writeArrayHeader(2).writeInt(2)
+              .writeInt(3);
+        writer.writeStartArray().writeInt(1).writeStartMap().writeString("b").writeString("c").writeEnd().writeEnd();
+        writer.writeTag(55799).writeString("a");
+        writer.flush();
+        assertEquals("a26161016162820203" + "9f01bf61626163ffff" + "d9d9f76161", hex(out.toByteArray()));
+    }
+
+    @Test
+    public void writesLongStringsAcrossTheBuffer() throws IOException {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < 20000; i++) {
+            text.append(i % 3 == 0 ? "é" : i % 3 == 1 ? "€" : "😀");
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        CBORWriter writer = new CBORWriter(out);
+        writer.writeString(text.toString()).writeInt(7);
+        writer.flush();
+        CBORReader reader = new CBORReader(out.toByteArray());
+        assertEquals(text.toString(), reader.readText());
+        assertEquals(7, reader.readInteger());
+        assertTrue(reader.peek() == CBORReader.END_OF_DATA);
+    }
+
+    private static String hex(byte[] bytes) {
+        StringBuilder hex = new StringBuilder();
+        for (byte b : bytes) {
+            hex.append(String.format("%02x", b & 0xFF));
+        }
+        return hex.toString();
+    }
+}
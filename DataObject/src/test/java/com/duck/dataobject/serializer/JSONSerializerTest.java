@@ -0,0 +1,139 @@
+package com.duck.dataobject.serializer;
+
+import com.duck.dataobject.DataObject;
+import com.duck.dataobject.node.DataElement;
+import com.duck.dataobject.node.XMLAttribute;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+
+import static com.duck.dataobject.DataObject.ANONYMOUS_ARRAY_TAG;
+import static org.junit.Assert.assertEquals;
+
+@RunWith(RobolectricTestRunner.class)
+public class JSONSerializerTest {
+    //the array tags each document is written with
+    private static final String[][] ARRAY_TAGS = {{}, {"b"}, {"a"}, {"a", "b", "c"}, {"item"}};
+
+    @Test
+    public void writesSameKeyedObjectsLikeTheFirstOfTheirShape() throws IOException {
+        //the objects have the same keys, "b" holds one element in some and several in others
+        DataObject items = new DataObject();
+        items.insert("item", item("1", "2", "3"));
+        items.insert("item", item("4", "5"));
+        items.insert("item", item("6", "7", "8", "9"));
+        items.insert("item", item("10", "11"));
+        items.insert("item", item("12", "13"));
+        assertSameAsWithoutShapes(items);
+    }
+
+    @Test
+    public void writesNestedShapesLikeWithoutShapes() throws IOException {
+        DataObject items = new DataObject();
+        for (int i = 0; i < 6; i++) {
+            DataObject item = item("a" + i, "b" + i);
+            //"c" holds objects that are the same shape as each other, apart from every third one
+            for (int j = 0; j <= i % 3; j++) {
+                item.insert("c", j == 2 ? item("x", "y", "z") : item("c" + i, "d" + j));
+            }
+            items.insert("item", item);
+        }
+        //a value and an empty object between objects of one shape
+        items.insert("item", "text");
+        items.insert("item", item("e", "f"));
+        items.insert("item", new DataObject());
+        items.insert("item", item("g", "h"));
+        assertSameAsWithoutShapes(items);
+        assertSameAsWithoutShapes(new DataObject(items.toJSON()));
+    }
+
+    @Test
+    public void writesAnonymousArraysLikeWithoutShapes() throws IOException {
+        assertSameAsWithoutShapes(new DataObject("[{\"a\":\"1\",\"b\":\"2\"},{\"a\":\"3\",\"b\":[\"4\",\"5\"]},"
+                                                         + "{\"a\":\"6\",\"b\":\"7\"},{\"a\":[\"8\",\"9\"],\"b\":\"10\"},"
+                                                         + "{\"a\":\"11\",\"b\":\"12\"},[{\"a\":\"13\"},{\"a\":\"14\"}]]"));
+    }
+
+    private static DataObject item(String a, String... b) {
+        DataObject item = new DataObject();
+        item.insert("a", a);
+        for (String each : b) {
+            item.insert("b", each);
+        }
+        return item;
+    }
+
+    /**
+     * Asserts that the JSON written for the given object is the same as writing every object on its own, with each set
+     * of array tags.
+     */
+    private static void assertSameAsWithoutShapes(DataObject data) throws IOException {
+        for (String[] arrayTags : ARRAY_TAGS) {
+            JsonWriteOptions options = JsonWriteOptions.of(arrayTags);
+            StringBuilder expected = new StringBuilder();
+            writeObject(data, DataSink.of(expected), options);
+            assertEquals(expected.toString(), data.toJSON(arrayTags));
+        }
+    }
+
+    /**
+     * Writes the given object the way the JSONSerializer does, writing each object of an array on its own.
+     */
+    private static void writeObject(DataObject object, DataSink sink, JsonWriteOptions options) throws IOException {
+        if (!JSONSerializer.hasElements(object)) {
+            return;
+        }
+        List<DataElement> anonymous = object.getList(ANONYMOUS_ARRAY_TAG, (XMLAttribute[]) null);
+        if (anonymous != null) {
+            writeItems(anonymous, sink, options);
+            return;
+        }
+        sink.append('{');
+        boolean first = true;
+        for (Map.Entry<String, List<DataElement>> entry : object.getElementEntries()) {
+            if (!first) {
+                sink.append(',');
+            }
+            first = false;
+            sink.append('"').append(entry.getKey()).append("\":");
+            if (entry.getValue().size() == 1 && !options.isArrayTag(entry.getKey())) {
+                writeElement(entry.getValue().get(0), sink, options);
+            } else {
+                writeItems(entry.getValue(), sink, options);
+            }
+        }
+        sink.append('}');
+    }
+
+    private static void writeItems(List<DataElement> elements, DataSink sink, JsonWriteOptions options)
+            throws IOException {
+        sink.append('[');
+        for (int i = 0; i < elements.size(); i++) {
+            if (i > 0) {
+                sink.append(',');
+            }
+            writeElement(elements.get(i), sink, options);
+        }
+        sink.append(']');
+    }
+
+    private static void writeElement(DataElement element, DataSink sink, JsonWriteOptions options)
+            throws IOException {
+        if (element.isObject()) {
+            writeObject((DataObject) element.value, sink, options);
+        } else if (element.isArray()) {
+            @SuppressWarnings("unchecked")
+            List<DataElement> items = (List<DataElement>) element.value;
+            if (!items.isEmpty()) {
+                writeItems(items, sink, options);
+            }
+        } else {
+            JSONSerializer.write(element, sink, options);
+        }
+    }
+}
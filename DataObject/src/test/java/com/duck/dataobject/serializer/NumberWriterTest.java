@@ -0,0 +1,138 @@
+package com.duck.dataobject.serializer;
+
+import com.duck.dataobject.node.DataElement;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+@RunWith(RobolectricTestRunner.class)
+public class NumberWriterTest {
+    private static final double[] DOUBLES = {
+            0.0, -0.0, 1.0, -1.0, 0.1, 0.2, 0.3, 0.1 + 0.2, 1.5, 2.25, 100.0, 123.456, 99.99, 0.001, 0.00099999,
+            0.0010000000000000002, 1e-4, 9999999.0, 9999999.999999, 1e7, 1e7 - 0.5, 12345.678901234, 0.123456789012345,
+            0.1234567890123456, 1234567.890123456, 3.141592653589793, 2.718281828459045, 1.0 / 3, 2.0 / 3, 1e-3,
+            4.35, 0.57, 1.005, 8.675309, 1e21, 1e-10, 123456789012.0, Double.MIN_VALUE, Double.MIN_NORMAL,
+            Double.MAX_VALUE, Double.NaN, Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY, Math.nextUp(1.0),
+            Math.nextDown(1e7), Math.nextUp(1e-3), Math.nextDown(1e-3)
+    };
+    private static final float[] FLOATS = {
+            0f, -0f, 1f, -1f, 0.1f, 0.2f, 0.3f, 0.1f + 0.2f, 1.5f, 100f, 123.456f, 99.99f, 0.001f, 1e-4f, 9999999f,
+            1e7f, 12345.678f, 0.1234567f, 1234567.9f, 3.1415927f, 1f / 3, 2f / 3, 4.35f, 0.57f, 1.005f, 16777216f,
+            Float.MIN_VALUE, Float.MIN_NORMAL, Float.MAX_VALUE, Float.NaN, Float.POSITIVE_INFINITY,
+            Float.NEGATIVE_INFINITY, Math.nextUp(1f), Math.nextDown(1e7f), Math.nextUp(1e-3f), Math.nextDown(1e-3f)
+    };
+    private static final long[] LONGS = {
+            0, 1, -1, 9, 10, -10, 99, 100, 12345, Integer.MAX_VALUE, Integer.MIN_VALUE, 999999999999999999L,
+            1000000000000000000L, Long.MAX_VALUE, Long.MIN_VALUE, Long.MIN_VALUE + 1
+    };
+
+    @Test
+    public void writesDoublesLikeToString() throws IOException {
+        for (double value : DOUBLES) {
+            assertWritesDouble(value);
+            assertWritesDouble(-value);
+        }
+        Random random = new Random(41);
+        for (int i = 0; i < 100000; i++) {
+            //values spread over the range written from digits and a little past each end of it
+            assertWritesDouble(Math.pow(10, random.nextDouble() * 14 - 5) * (random.nextBoolean() ? 1 : -1));
+            //decimals with few digits, which are the most common in documents
+            assertWritesDouble(random.nextInt(10000000) / Math.pow(10, random.nextInt(8)));
+            assertWritesDouble(Double.longBitsToDouble(random.nextLong()));
+        }
+    }
+
+    @Test
+    public void writesFloatsLikeToString() throws IOException {
+        for (float value : FLOATS) {
+            assertWritesFloat(value);
+            assertWritesFloat(-value);
+        }
+        Random random = new Random(43);
+        for (int i = 0; i < 100000; i++) {
+            assertWritesFloat((float) (Math.pow(10, random.nextDouble() * 14 - 5) * (random.nextBoolean() ? 1 : -1)));
+            assertWritesFloat((float) (random.nextInt(10000000) / Math.pow(10, random.nextInt(8))));
+            assertWritesFloat(Float.intBitsToFloat(random.nextInt()));
+        }
+    }
+
+    @Test
+    public void writesWholeNumbersLikeToString() throws IOException {
+        for (long value : LONGS) {
+            assertWritesLong(value);
+        }
+        Random random = new Random(47);
+        for (int i = 0; i < 10000; i++) {
+            assertWritesLong(random.nextLong() >> random.nextInt(64));
+        }
+        for (Object value : new Object[]{7, (short) -300, (byte) 12, 1234567890123L}) {
+            assertWrites(String.valueOf(value), value);
+        }
+    }
+
+    @Test
+    public void leavesOtherValuesToTheCaller() throws IOException {
+        for (Object value : new Object[]{"12", null, 'c', true, new java.math.BigDecimal("1.50")}) {
+            StringBuilder out = new StringBuilder();
+            assertFalse(String.valueOf(value), NumberWriter.write(value, DataSink.of(out)));
+            assertEquals("", out.toString());
+            assertEquals(String.valueOf(value).length(), NumberWriter.length(value));
+        }
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void estimatesEachItemOfAnArray() throws IOException {
+        List<Object> items = new ArrayList<Object>(Arrays.asList(1, 123456789012L, 0.1, 12345.5f, "text", -7));
+        DataElement element = new DataElement("", (List) items);
+        StringBuilder json = new StringBuilder();
+        JSONSerializer.write(element, DataSink.of(json), JsonWriteOptions.of());
+        assertEquals(json.toString(), json.length(), LengthEstimator.estimateJSON(element));
+    }
+
+    private static void assertWritesDouble(double value) throws IOException {
+        String expected = Double.toString(value);
+        StringBuilder out = new StringBuilder();
+        NumberWriter.write(value, DataSink.of(out));
+        assertEquals(expected, out.toString());
+        assertEquals(expected, expected.length(), NumberWriter.length(value));
+        assertWrites(expected, value);
+    }
+
+    private static void assertWritesFloat(float value) throws IOException {
+        String expected = Float.toString(value);
+        StringBuilder out = new StringBuilder();
+        NumberWriter.write(value, DataSink.of(out));
+        assertEquals(expected, out.toString());
+        assertEquals(expected, expected.length(), NumberWriter.length(value));
+        assertWrites(expected, value);
+    }
+
+    private static void assertWritesLong(long value) throws IOException {
+        String expected = Long.toString(value);
+        StringBuilder out = new StringBuilder();
+        NumberWriter.write(value, DataSink.of(out));
+        assertEquals(expected, out.toString());
+        assertEquals(expected, expected.length(), NumberWriter.length(value));
+    }
+
+    /**
+     * Asserts that the boxed value is written and measured the same as {@code String.valueOf} gives.
+     */
+    private static void assertWrites(String expected, Object value) throws IOException {
+        StringBuilder out = new StringBuilder();
+        NumberWriter.write(value, DataSink.of(out));
+        assertEquals(expected, out.toString());
+        assertEquals(expected, expected.length(), NumberWriter.length(value));
+    }
+}
@@ -0,0 +1,43 @@
+package com.duck.dataobject.serializer;
+
+import com.duck.dataobject.DataObject;
+import com.duck.dataobject.node.DataElement;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+@RunWith(RobolectricTestRunner.class)
+public class OutputCacheTest {
+
+    @Test
+    public void changeToChildObjectInvalidatesAncestors() {
+        DataObject data = new DataObject("{\"a\":{\"k\":\"v1\"}}").enableOutputCache();
+        assertEquals("{\"a\":{\"k\":\"v1\"}}", data.toJSON());
+        data.get("a").getValueAsObject(null).update("k", "v2");
+        assertEquals("{\"a\":{\"k\":\"v2\"}}", data.toJSON());
+    }
+
+    @Test
+    public void changeToObjectInNestedArrayInvalidatesAncestors() {
+        String source = "{\"m\":[[{\"k\":\"v1\"}]]}";
+        DataObject data = new DataObject(source).enableOutputCache();
+        String json = data.toJSON();
+        String xml = data.toXML();
+        assertEquals(new DataObject(source).toJSON(), json);
+
+        innerObject(data).update("k", "v2");
+        assertEquals(json.replace("v1", "v2"), data.toJSON());
+        assertEquals(xml.replace("v1", "v2"), data.toXML());
+    }
+
+    private static DataObject innerObject(DataObject data) {
+        //the element of "m" holds the inner array, whose item holds the object
+        List<?> items = (List<?>) data.get("m").value;
+        return (DataObject) ((DataElement) items.get(0)).value;
+    }
+}
@@ -0,0 +1,128 @@
+package com.duck.dataobject.serializer;
+
+import com.duck.dataobject.DataObject;
+import com.duck.dataobject.node.DataElement;
+import com.duck.dataobject.node.XMLAttribute;
+
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.io.IOException;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.assertEquals;
+
+@RunWith(RobolectricTestRunner.class)
+public class ParallelSerializerTest {
+    private final ForkJoinPool pool = new ForkJoinPool(4);
+
+    @After
+    public void shutDown() {
+        pool.shutdown();
+    }
+
+    @Test
+    public void writesLongArraysLikeTheSequentialPath() throws IOException {
+        for (int count : new int[]{ParallelSerializer.CHUNK_SIZE, ParallelSerializer.CHUNK_SIZE + 1,
+                                   ParallelSerializer.CHUNK_SIZE * 3 + 7}) {
+            DataObject data = new DataObject();
+            DataObject list = new DataObject();
+            DataObject deep = new DataObject();
+            for (int i = 0; i < count; i++) {
+                data.insert("value", "v" + i, new XMLAttribute("n", i));
+                list.insert("item", new DataObject().insert("name", "item " + i).insert("count", i));
+                deep.insert("entry", i % 2 == 0 ? "a<&>\"" + i : "b" + i);
+            }
+            data.insert("list", list);
+            data.insert("level", new DataObject().insert("level", new DataObject().insert("level", deep)));
+            assertSameAsSequential(data);
+            assertSameAsSequential(data, "list", "entry", "missing");
+        }
+    }
+
+    @Test
+    public void writesDeepObjectsLikeTheSequentialPath() throws IOException {
+        DataObject data = new DataObject();
+        DataObject level = data;
+        for (int depth = 0; depth < ParallelSerializer.MAX_DEPTH * 4; depth++) {
+            DataObject next = new DataObject();
+            level.insert("name", "level " + depth);
+            level.insert("tags", "t" + depth);
+            level.insert("tags", "u" + depth);
+            level.insert("level", next, new XMLAttribute("depth", depth));
+            //an object that sits next to the one nested further
+            level.insert("side", new DataObject().insert("value", depth));
+            level = next;
+        }
+        level.insert("last", "end");
+        assertSameAsSequential(data);
+        assertSameAsSequential(data, "name", "level");
+        assertSameAsSequential(new DataObject(data.toJSON()));
+    }
+
+    @Test
+    public void writesCachedObjectsLikeTheSequentialPath() throws IOException {
+        DataObject data = new DataObject("{\"a\":{\"b\":{\"c\":{\"d\":\"1\",\"e\":[\"2\",\"3\"]}},\"f\":\"4\"},"
+                                                 + "\"g\":[{\"h\":\"5\"},{\"h\":\"6\"}]}");
+        DataObject b = data.get("b", true).getValueAsObject(null);
+        b.enableOutputCache();
+        data.enableOutputCache();
+        //written twice so that the second time comes from the caches
+        assertSameAsSequential(data);
+        assertSameAsSequential(data);
+        assertSameAsSequential(data, "g", "f");
+        b.insert("i", "7");
+        assertSameAsSequential(data);
+        data.get("c", true).getValueAsObject(null).update("d", "8");
+        assertSameAsSequential(data);
+    }
+
+    @Test
+    public void writesAnonymousArraysLikeTheSequentialPath() throws IOException {
+        StringBuilder json = new StringBuilder("[");
+        for (int i = 0; i < ParallelSerializer.CHUNK_SIZE * 2 + 3; i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            json.append(i % 3 == 0 ? "{\"a\":\"" + i + "\"}" : i % 3 == 1 ? "\"" + i + "\"" : "[\"x\",{\"b\":\"y\"}]");
+        }
+        json.append(']');
+        assertSameAsSequential(new DataObject(json.toString()));
+        assertSameAsSequential(new DataObject("[{\"a\":[[\"1\",\"2\"],[{\"b\":[\"3\"]}]]},\"4\"]"));
+        assertSameAsSequential(new DataObject("{\"a\":[[\"1\",\"2\"],[\"3\"]],\"b\":{\"c\":[[{\"d\":\"5\"}]]}}"), "a");
+    }
+
+    @Test
+    public void writesEmptyObjectsLikeTheSequentialPath() throws IOException {
+        assertSameAsSequential(new DataObject());
+        DataObject data = new DataObject();
+        data.insert("empty", new DataObject());
+        data.insert("list", new DataObject());
+        data.insert("list", new DataObject().insert("inner", new DataObject()));
+        DataObject deep = new DataObject();
+        deep.insert("a", new DataObject().insert("b", new DataObject().insert("c", new DataObject())));
+        data.insert("deep", deep);
+        assertSameAsSequential(data);
+        assertSameAsSequential(data, "empty", "c");
+        data.insert(new DataElement("value", (String) null));
+        assertSameAsSequential(data);
+    }
+
+    /**
+     * Asserts that the JSON and xml written on the pool are the same as the sequential output.
+     */
+    private void assertSameAsSequential(DataObject data, String... arrayTags) throws IOException {
+        String json = data.toJSON(arrayTags);
+        assertEquals(json, data.toJSON(pool, arrayTags));
+        StringBuilder out = new StringBuilder();
+        data.writeJSON(out, pool, arrayTags);
+        assertEquals(json, out.toString());
+        String xml = data.toXML();
+        assertEquals(xml, data.toXML(pool));
+        out.setLength(0);
+        data.writeXML(out, pool);
+        assertEquals(xml, out.toString());
+    }
+}
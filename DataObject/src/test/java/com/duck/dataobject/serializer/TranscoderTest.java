@@ -0,0 +1,155 @@
+package com.duck.dataobject.serializer;
+
+import android.util.Xml;
+
+import com.duck.dataobject.DataObject;
+import com.duck.dataobject.exception.ParsingException;
+import com.google.gson.JsonParser;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.xmlpull.v1.XmlPullParser;
+
+import java.io.StringReader;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+@RunWith(RobolectricTestRunner.class)
+public class TranscoderTest {
+
+    @Test
+    public void writesKeysInTheOrderTheyFirstAppear() throws Exception {
+        assertEquals("{\"r\":{\"b\":\"1\",\"a\":\"2\",\"c\":\"3\"}}", xmlToJSON("<r><b>1</b><a>2</a><c>3</c></r>"));
+    }
+
+    @Test
+    public void writesRunsAsArrays() throws Exception {
+        assertEquals("{\"r\":{\"a\":[\"1\",\"2\",\"3\"],\"b\":\"4\"}}",
+                     xmlToJSON("<r><a>1</a><a>2</a><a>3</a><b>4</b></r>"));
+        assertEquals("{\"r\":{\"a\":[\"1\"],\"b\":\"2\"}}", xmlToJSON("<r><a>1</a><b>2</b></r>", "a"));
+        assertSameAsDataObject("<r><a>1</a><a><c/><c>x</c></a><b>4</b></r>");
+    }
+
+    @Test
+    public void mergesNonAdjacentRuns() throws Exception {
+        //a key is never written twice, JSON parsers keep only the last of the values
+        assertEquals("{\"r\":{\"a\":[\"1\",\"3\",\"4\"],\"b\":\"2\"}}",
+                     xmlToJSON("<r><a>1</a><b>2</b><a>3</a><a>4</a></r>"));
+        assertEquals("{\"r\":{\"a\":[{\"b\":[\"1\",\"3\"],\"c\":\"2\"},\"4\"]}}",
+                     xmlToJSON("<r><a><b>1</b><c>2</c><b>3</b></a><a>4</a></r>"));
+        assertSameAsDataObject("<r><a>1</a><b>2</b><a>3</a><b><a>5</a><d/><a>6</a></b></r>");
+        assertSameAsDataObject("<r><a>1</a><b>2</b><a>3</a></r>", "a", "b");
+    }
+
+    @Test
+    public void writesArrayTagsAsTheyAreRead() throws Exception {
+        //the first array tag of an object is written first, the held back keys after it
+        assertEquals("{\"r\":{\"a\":[\"1\",\"2\"],\"t\":[\"x\",\"y\"],\"b\":[\"3\"]}}",
+                     xmlToJSON("<r><t>x</t><a>1</a><b>3</b><a>2</a><t>y</t></r>", 16, "a", "b"));
+        assertSameAsDataObject("<r><t>x</t><a>1</a><b>3</b><a>2</a><t>y</t></r>", "a", "b");
+        //none of the values of a key written as it is read are held back
+        assertEquals("{\"r\":{\"a\":[\"0123456789\",\"x\",\"0123456789\"]}}",
+                     xmlToJSON("<r><a>0123456789</a><a>x</a><a>0123456789</a></r>", 8, "a"));
+    }
+
+    @Test
+    public void rejectsHeldBackKeysLongerThanTheLookahead() throws Exception {
+        assertHeldBackTooLong("<r><a>0123456789</a></r>", 8);
+        assertHeldBackTooLong("<r><a><b>0123</b><b>4567</b></a></r>", 8);
+        //the held back keys of all of the open objects count
+        assertHeldBackTooLong("<r><a>0123</a><b><c>4567</c></b></r>", 12);
+        assertEquals("{\"r\":{\"a\":\"0123\"}}", xmlToJSON("<r><a>0123</a></r>", 8));
+    }
+
+    @Test
+    public void streamsArrayTagsLongerThanTheDefaultLookahead() throws Exception {
+        StringBuilder xml = new StringBuilder("<feed><title>t</title>");
+        for (int i = 0; xml.length() <= 2 * Transcoder.DEFAULT_LOOKAHEAD; i++) {
+            xml.append("<item><id>").append(i).append("</id><name>n</name></item>");
+        }
+        xml.append("</feed>");
+        assertSameAsDataObject(xml.toString(), "item");
+        try {
+            xmlToJSON(xml.toString());
+            fail("Held back more than the default lookahead");
+        } catch (ParsingException expected) {
+        }
+    }
+
+    @Test
+    public void rejectsRepeatedRootElements() throws Exception {
+        assertEquals("{\"a\":[\"1\",\"2\"]}", xmlToJSON("<a>1</a><a>2</a>", "a"));
+        try {
+            xmlToJSON("<a>1</a><a>2</a>");
+            fail("Wrote two root elements with the same key");
+        } catch (ParsingException expected) {
+        }
+    }
+
+    @Test
+    public void writesJsonKeysInDocumentOrder() throws Exception {
+        assertEquals("<b>1</b><a>2</a><a>3</a><c><d>null</d></c>",
+                     jsonToXML("{\"b\":1,\"a\":[2,3],\"c\":{\"d\":null}}"));
+        assertEquals("<0>1</0><1><a><![CDATA[<]]></a></1>", jsonToXML("[1,{\"a\":\"<\"}]"));
+    }
+
+    @Test
+    public void rejectsMalformedXml() throws Exception {
+        for (String xml : new String[]{"<a><b></a>", "<a>", "<a></b>", "<a x=></a>"}) {
+            try {
+                xmlToJSON(xml);
+                fail("Transcoded " + xml);
+            } catch (ParsingException expected) {
+            }
+        }
+    }
+
+    @Test
+    public void rejectsMalformedJson() throws Exception {
+        for (String json : new String[]{"{\"a\":", "{\"a\":[1,}", "\"s\"", "{\"a\":1]", "[1,2"}) {
+            try {
+                jsonToXML(json);
+                fail("Transcoded " + json);
+            } catch (ParsingException expected) {
+            }
+        }
+    }
+
+    private static String xmlToJSON(String xml, String... arrayTags) throws Exception {
+        StringBuilder json = new StringBuilder();
+        Transcoder.xmlToJSON(new StringReader(xml), DataSink.of(json), arrayTags);
+        return json.toString();
+    }
+
+    private static String xmlToJSON(String xml, int lookahead, String... arrayTags) throws Exception {
+        XmlPullParser parser = Xml.newPullParser();
+        parser.setInput(new StringReader(xml));
+        StringBuilder json = new StringBuilder();
+        Transcoder.xmlToJSON(parser, DataSink.of(json), JsonWriteOptions.of(arrayTags), lookahead);
+        return json.toString();
+    }
+
+    private static void assertHeldBackTooLong(String xml, int lookahead) throws Exception {
+        try {
+            xmlToJSON(xml, lookahead);
+            fail("Held back more than " + lookahead + " chars of " + xml);
+        } catch (ParsingException expected) {
+        }
+    }
+
+    /**
+     * Asserts that the JSON holds the same as the JSON of the parsed document, whose keys are in another order.
+     */
+    private static void assertSameAsDataObject(String xml, String... arrayTags) throws Exception {
+        assertEquals(JsonParser.parseString(new DataObject(xml).toJSON(arrayTags)),
+                     JsonParser.parseString(xmlToJSON(xml, arrayTags)));
+    }
+
+    private static String jsonToXML(String json) throws Exception {
+        StringBuilder xml = new StringBuilder();
+        Transcoder.jsonToXML(new StringReader(json), DataSink.of(xml));
+        return xml.toString();
+    }
+}
@@ -0,0 +1,189 @@
+package com.duck.dataobject.serializer;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.Pipe;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+@RunWith(RobolectricTestRunner.class)
+public class Utf8SinkTest {
+    //the sizes of the buffers of the sinks, where a character may not fit in what is left
+    private static final int[] BOUNDARIES = {DataSink.BUFFER_SIZE, DataSink.BUFFER_SIZE * 2, DataSink.BUFFER_SIZE * 4};
+    private static final String[] TAILS = {"😀", "😀😁x", "é😀", "€😀€", "\uD800x", "\uDC00😀", "\uD800𐀀", "\uD83D"};
+
+    @Test
+    public void writesSurrogatePairsAcrossBufferBoundaries() throws IOException {
+        for (String text : texts()) {
+            for (Sink sink : sinks()) {
+                byte[] expected = text.getBytes(StandardCharsets.UTF_8);
+                DataSink whole = sink.open(expected.length);
+                whole.append(text);
+                assertWrites(expected, sink, whole);
+
+                DataSink chars = sink.open(expected.length);
+                for (int i = 0; i < text.length(); i++) {
+                    chars.append(text.charAt(i));
+                }
+                assertWrites(expected, sink, chars);
+
+                //split the text between two appends at each char near the end, some between a pair of surrogates
+                for (int split = Math.max(0, text.length() - 6); split <= text.length(); split++) {
+                    DataSink parts = sink.open(expected.length);
+                    parts.append(text, 0, split);
+                    parts.append(text, split, text.length());
+                    assertWrites(expected, sink, parts);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void rejectsNonBlockingChannels() throws IOException {
+        Pipe pipe = Pipe.open();
+        try {
+            pipe.sink().configureBlocking(false);
+            try {
+                DataSink.utf8(pipe.sink());
+                fail("Made a sink for a non-blocking channel");
+            } catch (IllegalArgumentException expected) {
+            }
+        } finally {
+            pipe.sink().close();
+            pipe.source().close();
+        }
+    }
+
+    @Test
+    public void failsWhenTheChannelWritesNothing() throws IOException {
+        //a channel that is full, as a non-blocking one that isn't selectable would be
+        WritableByteChannel full = new WritableByteChannel() {
+            @Override
+            public int write(ByteBuffer src) {
+                return 0;
+            }
+
+            @Override
+            public boolean isOpen() {
+                return true;
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+        DataSink sink = DataSink.utf8(full);
+        char[] text = new char[DataSink.BUFFER_SIZE * 3];
+        Arrays.fill(text, 'a');
+        try {
+            sink.append(new String(text));
+            sink.flush();
+            fail("Wrote to a channel that writes nothing");
+        } catch (IOException expected) {
+            assertTrue(expected.getMessage().contains("blocking"));
+        }
+    }
+
+    /**
+     * @return The tails written after runs of one, two and three byte characters that end on each side of the buffer
+     * boundaries.
+     */
+    private static List<String> texts() {
+        List<String> texts = new ArrayList<>();
+        for (String tail : TAILS) {
+            for (char filler : new char[]{'a', 'é', '€'}) {
+                int width = String.valueOf(filler).getBytes(StandardCharsets.UTF_8).length;
+                for (int boundary : BOUNDARIES) {
+                    for (int bytes = boundary - 6; bytes <= boundary + 2; bytes++) {
+                        char[] run = new char[bytes / width];
+                        Arrays.fill(run, filler);
+                        texts.add(new String(run) + tail);
+                    }
+                }
+            }
+        }
+        return texts;
+    }
+
+    private static void assertWrites(byte[] expected, Sink sink, DataSink written) throws IOException {
+        written.flush();
+        assertArrayEquals(expected, sink.bytes());
+    }
+
+    /**
+     * The kinds of UTF-8 sinks, each giving what was written to the last one it opened.
+     */
+    private interface Sink {
+        DataSink open(int length);
+
+        byte[] bytes();
+    }
+
+    private static List<Sink> sinks() {
+        List<Sink> sinks = new ArrayList<>();
+        sinks.add(new Sink() {
+            private ByteArrayOutputStream out;
+
+            @Override
+            public DataSink open(int length) {
+                out = new ByteArrayOutputStream();
+                return DataSink.utf8(out);
+            }
+
+            @Override
+            public byte[] bytes() {
+                return out.toByteArray();
+            }
+        });
+        sinks.add(new Sink() {
+            private ByteArrayOutputStream out;
+
+            @Override
+            public DataSink open(int length) {
+                out = new ByteArrayOutputStream();
+                return DataSink.utf8(Channels.newChannel(out));
+            }
+
+            @Override
+            public byte[] bytes() {
+                return out.toByteArray();
+            }
+        });
+        for (final boolean direct : new boolean[]{false, true}) {
+            sinks.add(new Sink() {
+                private ByteBuffer buffer;
+
+                @Override
+                public DataSink open(int length) {
+                    //a buffer at an offset into its array, with exactly the room needed
+                    ByteBuffer whole = direct ? ByteBuffer.allocateDirect(length + 8) : ByteBuffer.allocate(length + 8);
+                    whole.position(3).limit(3 + length);
+                    buffer = whole.slice();
+                    return DataSink.utf8(buffer);
+                }
+
+                @Override
+                public byte[] bytes() {
+                    buffer.flip();
+                    byte[] bytes = new byte[buffer.remaining()];
+                    buffer.get(bytes);
+                    return bytes;
+                }
+            });
+        }
+        return sinks;
+    }
+}
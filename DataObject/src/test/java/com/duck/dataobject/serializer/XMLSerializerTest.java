@@ -0,0 +1,67 @@
+package com.duck.dataobject.serializer;
+
+import com.duck.dataobject.DataObject;
+import com.duck.dataobject.node.DataElement;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(RobolectricTestRunner.class)
+public class XMLSerializerTest {
+
+    private static DataObject document() {
+        List<DataElement> items = new ArrayList<>();
+        items.add(new DataElement("", "x"));
+        DataObject inner = new DataObject();
+        inner.insert("b", "1 < 2");
+        DataObject data = new DataObject();
+        data.insert("illegal", "a & b");
+        data.insert("marked", "plain", true);
+        data.insert("object", inner);
+        data.insert(new DataElement("list", items));
+        return data;
+    }
+
+    @Test
+    public void writesIllegalValuesAsCDATA() {
+        DataObject data = new DataObject();
+        data.insert("a", "1 < 2");
+        data.insert("b", "plain", true);
+        data.insert("c", "plain");
+        String xml = data.toXML();
+        assertTrue(xml, xml.contains("<a><![CDATA[1 < 2]]></a>"));
+        assertTrue(xml, xml.contains("<b><![CDATA[plain]]></b>"));
+        assertTrue(xml, xml.contains("<c>plain</c>"));
+    }
+
+    @Test
+    public void leavesCDATAUntouched() throws Exception {
+        DataObject data = document();
+        byte[] snapshot = data.toSnapshot();
+        String xml = data.toXML();
+        data.toFormattedXML();
+        data.writeXML(new StringWriter());
+        data.estimateLengthXML();
+        data.estimateLengthFormattedXML();
+        assertEquals(xml, data.toXML(ForkJoinPool.commonPool()));
+
+        assertFalse(data.get("illegal").CDATA);
+        assertTrue(data.get("marked").CDATA);
+        assertFalse(data.get("list").CDATA);
+        assertFalse(data.get("object").getValueAsObject(null).get("b").CDATA);
+        //the model written after the xml is the same as before it
+        assertArrayEquals(snapshot, data.toSnapshot());
+        assertArrayEquals(document().toCBOR(), data.toCBOR());
+    }
+}
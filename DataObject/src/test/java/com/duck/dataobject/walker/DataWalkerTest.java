@@ -0,0 +1,241 @@
+package com.duck.dataobject.walker;
+
+import com.duck.dataobject.DataObject;
+import com.duck.dataobject.node.DataElement;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(RobolectricTestRunner.class)
+public class DataWalkerTest {
+    private static final String JSON = "{\"a\":\"1\",\"b\":{\"c\":\"2\",\"d\":{\"e\":[\"3\",\"4\"]},\"f\":\"5\"},"
+            + "\"g\":[{\"h\":\"6\"},[\"7\",{\"i\":\"8\"}],\"9\"],\"j\":[\"10\",\"11\"],\"k\":{\"l\":{\"m\":\"12\"}}}";
+
+    @Test
+    public void visitsLikeARecursiveWalk() {
+        DataWalker walker = new DataWalker();
+        for (DataObject data : documents()) {
+            assertSameAsRecursive(walker, data, new Rules());
+        }
+    }
+
+    @Test
+    public void skipsSubtrees() {
+        DataWalker walker = new DataWalker();
+        for (DataObject data : documents()) {
+            //objects, arrays, values and the deepest levels
+            for (String tag : new String[]{"b", "d", "e", "g", "j", "a", "level", "deep", "item"}) {
+                Rules rules = new Rules();
+                rules.skip.add(tag);
+                assertSameAsRecursive(walker, data, rules);
+            }
+        }
+    }
+
+    @Test
+    public void stopsWhenEnteringOrLeaving() {
+        DataWalker walker = new DataWalker();
+        for (DataObject data : documents()) {
+            for (String tag : new String[]{"a", "d", "e", "h", "i", "m", "level", "deep", "end", "missing"}) {
+                Rules rules = new Rules();
+                rules.stopEntering = tag;
+                assertSameAsRecursive(walker, data, rules);
+                rules = new Rules();
+                rules.stopLeaving = tag;
+                assertSameAsRecursive(walker, data, rules);
+            }
+        }
+    }
+
+    @Test
+    public void walksElements() {
+        DataWalker walker = new DataWalker();
+        for (DataObject data : documents()) {
+            for (List<DataElement> list : data.getElementLists()) {
+                for (DataElement element : list) {
+                    Rules rules = new Rules();
+                    List<String> expected = new ArrayList<>();
+                    boolean finished = visit(element, null, 0, rules, expected);
+                    Recorder recorder = new Recorder(rules);
+                    assertEquals(finished, walker.walk(element, recorder));
+                    assertEquals(expected, recorder.events);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void growsPastTheInitialDepthAndIsReused() {
+        DataWalker walker = new DataWalker();
+        //a stop deep in the document leaves frames on the stack that the next walk must not see
+        Rules rules = new Rules();
+        rules.stopEntering = "end";
+        DataObject deep = deepObjects(200);
+        assertSameAsRecursive(walker, deep, rules);
+        assertSameAsRecursive(walker, deep, new Rules());
+        assertSameAsRecursive(walker, new DataObject(JSON), new Rules());
+        Recorder recorder = new Recorder(new Rules());
+        assertTrue(walker.walk(deep, recorder));
+        //every level is entered and left once, at its own depth
+        int levels = 0;
+        for (String event : recorder.events) {
+            if (event.startsWith("enter level ")) {
+                assertTrue(event, event.startsWith("enter level " + levels + " "));
+                levels++;
+            }
+        }
+        assertEquals(200, levels);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<DataObject> documents() {
+        List<DataObject> documents = new ArrayList<>();
+        documents.add(new DataObject());
+        documents.add(new DataObject(JSON));
+        documents.add(deepObjects(40));
+        //arrays nested inside arrays
+        StringBuilder arrays = new StringBuilder("{\"deep\":");
+        for (int i = 0; i < 40; i++) {
+            arrays.append("[\"").append(i).append("\",");
+        }
+        arrays.append("{\"end\":\"x\"}");
+        for (int i = 0; i < 40; i++) {
+            arrays.append(']');
+        }
+        arrays.append(",\"a\":\"y\"}");
+        documents.add(new DataObject(arrays.toString()));
+        //an array holding things other than elements, and an empty array and object
+        DataObject mixed = new DataObject();
+        List<Object> items = new ArrayList<Object>(Arrays.asList("text", new DataElement("item", "1"), 2, null,
+                                                                 new DataElement("item", new DataObject(JSON))));
+        mixed.insert(new DataElement("mixed", (List) items));
+        mixed.insert(new DataElement("empty", new ArrayList<DataElement>()));
+        mixed.insert("nothing", new DataObject());
+        mixed.insert("a", "z");
+        documents.add(mixed);
+        return documents;
+    }
+
+    /**
+     * @return Objects nested the given number of levels, with a sibling value beside each.
+     */
+    private static DataObject deepObjects(int depth) {
+        DataObject root = new DataObject();
+        DataObject level = root;
+        for (int i = 0; i < depth; i++) {
+            DataObject next = new DataObject();
+            level.insert("level", next);
+            level.insert("a", "v" + i);
+            level = next;
+        }
+        level.insert("end", "x");
+        return root;
+    }
+
+    private static void assertSameAsRecursive(DataWalker walker, DataObject data, Rules rules) {
+        List<String> expected = new ArrayList<>();
+        boolean finished = visitObject(data, 0, rules, expected);
+        Recorder recorder = new Recorder(rules);
+        assertEquals(finished, walker.walk(data, recorder));
+        assertEquals(expected, recorder.events);
+        if (rules.stopEntering == null && rules.stopLeaving == null) {
+            assertTrue(finished);
+        } else if (!expected.isEmpty() && expected.get(expected.size() - 1).contains(" STOP")) {
+            assertFalse(finished);
+        }
+    }
+
+    /**
+     * Visits the object the way the walker would if it were written recursively, giving {@code false} once stopped.
+     */
+    private static boolean visitObject(DataObject object, int depth, Rules rules, List<String> events) {
+        for (List<DataElement> list : object.getElementLists()) {
+            for (DataElement element : list) {
+                if (!visit(element, object, depth, rules, events)) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    private static boolean visit(DataElement element, DataObject parent, int depth, Rules rules, List<String> events) {
+        int result = rules.enter(element, parent, depth, events);
+        if (result == DataVisitor.STOP) {
+            return false;
+        } else if (result == DataVisitor.SKIP_SUBTREE) {
+            return true;
+        }
+        if (element.isObject()) {
+            if (!visitObject((DataObject) element.value, depth + 1, rules, events)) {
+                return false;
+            }
+        } else if (element.isArray()) {
+            for (Object item : (List<?>) element.value) {
+                if (item instanceof DataElement && !visit((DataElement) item, null, depth + 1, rules, events)) {
+                    return false;
+                }
+            }
+        }
+        return rules.leave(element, parent, depth, events) != DataVisitor.STOP;
+    }
+
+    /**
+     * What the visitor returns, and the events it records.
+     */
+    private static final class Rules {
+        final Set<String> skip = new HashSet<>();
+        String stopEntering;
+        String stopLeaving;
+
+        int enter(DataElement element, DataObject parent, int depth, List<String> events) {
+            int result = element.tag.equals(stopEntering) ? DataVisitor.STOP
+                    : skip.contains(element.tag) ? DataVisitor.SKIP_SUBTREE : DataVisitor.CONTINUE;
+            events.add(describe("enter", element, parent, depth, result));
+            return result;
+        }
+
+        int leave(DataElement element, DataObject parent, int depth, List<String> events) {
+            int result = element.tag.equals(stopLeaving) ? DataVisitor.STOP : DataVisitor.CONTINUE;
+            events.add(describe("leave", element, parent, depth, result));
+            return result;
+        }
+
+        private static String describe(String event, DataElement element, DataObject parent, int depth, int result) {
+            return event + " " + element.tag + " " + depth + " "
+                    + (parent == null ? "none" : Integer.toHexString(System.identityHashCode(parent)))
+                    + " " + Integer.toHexString(System.identityHashCode(element))
+                    + (result == DataVisitor.STOP ? " STOP" : result == DataVisitor.SKIP_SUBTREE ? " SKIP" : "");
+        }
+    }
+
+    private static final class Recorder implements DataVisitor {
+        final List<String> events = new ArrayList<>();
+        private final Rules rules;
+
+        Recorder(Rules rules) {
+            this.rules = rules;
+        }
+
+        @Override
+        public int enter(DataElement element, DataObject parent, int depth) {
+            return rules.enter(element, parent, depth, events);
+        }
+
+        @Override
+        public int leave(DataElement element, DataObject parent, int depth) {
+            return rules.leave(element, parent, depth, events);
+        }
+    }
+}